@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.config.FileOfClasses;
+
+/**
+ * The programs the benchmarks analyze. All benchmarks read the same inputs, so that results of different commits can be compared.
+ *
+ * The application jar is given by the system property <code>wala.benchmarks.jar</code>, by default the JLex jar of the test data
+ * project; its main class by <code>wala.benchmarks.main</code>. The primordial loader holds the running JDK's standard library.
+ */
+final class BenchmarkInputs {
+
+  static final String APPLICATION_JAR = System.getProperty("wala.benchmarks.jar", "../com.ibm.wala.core.testdata/JLex.jar");
+
+  static final String MAIN_CLASS = System.getProperty("wala.benchmarks.main", "LJLex/Main");
+
+  private static final String EXCLUSIONS = "J2SEClassHierarchyExclusions.txt";
+
+  private BenchmarkInputs() {
+  }
+
+  /**
+   * @return a scope with the standard library and the application jar
+   */
+  static AnalysisScope makeScope() throws IOException {
+    ClassLoader loader = BenchmarkInputs.class.getClassLoader();
+    AnalysisScope scope = AnalysisScopeReader.readJavaScope("primordial.txt", null, loader);
+    try (InputStream exclusions = loader.getResourceAsStream(EXCLUSIONS)) {
+      scope.setExclusions(new FileOfClasses(exclusions));
+    }
+    AnalysisScopeReader.addClassPathToScope(APPLICATION_JAR, scope, scope.getLoader(AnalysisScope.APPLICATION), false);
+    return scope;
+  }
+
+  /**
+   * @return the contents of the class files in the application jar, in the order of the jar
+   */
+  static List<byte[]> readApplicationClassFiles() throws IOException {
+    List<byte[]> result = new ArrayList<>();
+    try (JarFile jar = new JarFile(APPLICATION_JAR)) {
+      for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements();) {
+        JarEntry entry = e.nextElement();
+        if (entry.getName().endsWith(".class")) {
+          try (InputStream in = jar.getInputStream(entry)) {
+            result.add(readFully(in));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int n;
+    while ((n = in.read(buffer)) != -1) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * @return the concrete methods of the application classes, sorted by signature
+   */
+  static List<IMethod> applicationMethods(IClassHierarchy cha) {
+    List<IMethod> result = new ArrayList<>();
+    for (IClass klass : cha) {
+      if (klass.getClassLoader().getReference().equals(cha.getScope().getApplicationLoader())) {
+        for (IMethod m : klass.getDeclaredMethods()) {
+          if (!m.isAbstract() && !m.isNative()) {
+            result.add(m);
+          }
+        }
+      }
+    }
+    Collections.sort(result, (a, b) -> a.getSignature().compareTo(b.getSignature()));
+    return result;
+  }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.shrikeBT.Decoder;
+import com.ibm.wala.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.CodeReader;
+
+/**
+ * Parsing class files and decoding method bodies to Shrike instructions, as {@link com.ibm.wala.classLoader.ShrikeCTMethod} does
+ * the first time the instructions of a method are requested.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BytecodeDecodingBenchmark {
+
+  private List<byte[]> classFiles;
+
+  @Setup
+  public void setup() throws Exception {
+    classFiles = BenchmarkInputs.readApplicationClassFiles();
+  }
+
+  /**
+   * @return the number of decoded instructions
+   */
+  @Benchmark
+  public int decode() throws Exception {
+    int result = 0;
+    ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+    for (byte[] bytes : classFiles) {
+      ClassReader reader = new ClassReader(bytes);
+      for (int m = 0; m < reader.getMethodCount(); m++) {
+        for (reader.initMethodAttributeIterator(m, iter); iter.isValid(); iter.advance()) {
+          if (iter.getName().equals("Code")) {
+            Decoder d = new CTDecoder(new CodeReader(iter));
+            d.decode();
+            result += d.getInstructions().length;
+            break;
+          }
+        }
+      }
+    }
+    return result;
+  }
+}
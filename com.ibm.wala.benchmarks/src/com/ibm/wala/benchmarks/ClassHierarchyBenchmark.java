@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.CodeScanner;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.types.MethodReference;
+
+/**
+ * Subclass tests and virtual dispatch queries against the class hierarchy of the standard library and the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassHierarchyBenchmark {
+
+  private static final int PAIRS = 10000;
+
+  private ClassHierarchy cha;
+
+  private IClass[] subclasses;
+
+  private IClass[] superclasses;
+
+  /**
+   * declared targets of the virtual and interface calls in the application
+   */
+  private List<MethodReference> targets;
+
+  private List<IClass> targetClasses;
+
+  @Setup
+  public void setup() throws Exception {
+    cha = ClassHierarchyFactory.make(BenchmarkInputs.makeScope());
+    List<IClass> classes = new ArrayList<>();
+    for (IClass klass : cha) {
+      classes.add(klass);
+    }
+    Collections.sort(classes, (a, b) -> a.getName().toString().compareTo(b.getName().toString()));
+    Random random = new Random(42);
+    subclasses = new IClass[PAIRS];
+    superclasses = new IClass[PAIRS];
+    for (int i = 0; i < PAIRS; i++) {
+      IClass sub = classes.get(random.nextInt(classes.size()));
+      subclasses[i] = sub;
+      // half of the queries go to an actual supertype
+      IClass sup = sub;
+      if (random.nextBoolean()) {
+        while (sup.getSuperclass() != null && random.nextBoolean()) {
+          sup = sup.getSuperclass();
+        }
+      } else {
+        sup = classes.get(random.nextInt(classes.size()));
+      }
+      superclasses[i] = sup;
+    }
+    targets = new ArrayList<>();
+    targetClasses = new ArrayList<>();
+    for (IMethod m : BenchmarkInputs.applicationMethods(cha)) {
+      for (CallSiteReference site : CodeScanner.getCallSites(m)) {
+        if (site.isDispatch()) {
+          IClass declared = cha.lookupClass(site.getDeclaredTarget().getDeclaringClass());
+          if (declared != null) {
+            targets.add(site.getDeclaredTarget());
+            targetClasses.add(declared);
+          }
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public int isSubclassOf() {
+    int result = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      if (cha.isSubclassOf(subclasses[i], superclasses[i])) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * queries through the per-class target cache, as the call graph builders issue them
+   */
+  @Benchmark
+  public void getPossibleTargets(Blackhole bh) {
+    for (MethodReference ref : targets) {
+      bh.consume(cha.getPossibleTargets(ref));
+    }
+  }
+
+  /**
+   * the computation behind the cache
+   */
+  @Benchmark
+  public void computePossibleTargets(Blackhole bh) {
+    for (int i = 0; i < targets.size(); i++) {
+      bh.consume(cha.getPossibleTargets(targetClasses.get(i), targets.get(i)));
+    }
+  }
+}
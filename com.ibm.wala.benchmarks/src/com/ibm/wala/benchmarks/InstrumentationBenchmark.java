@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.shrikeBT.ConstantInstruction;
+import com.ibm.wala.shrikeBT.Instruction;
+import com.ibm.wala.shrikeBT.MethodData;
+import com.ibm.wala.shrikeBT.MethodEditor;
+import com.ibm.wala.shrikeBT.Util;
+import com.ibm.wala.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrikeBT.shrikeCT.OfflineInstrumenter;
+import com.ibm.wala.shrikeCT.ClassWriter;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+
+/**
+ * Offline instrumentation of the application jar: every method gets a System.err.println() at its entry, as in
+ * {@link com.ibm.wala.shrikeBT.shrikeCT.tools.MethodTracer}, and the instrumented classes are written to a temporary jar. The
+ * score is the number of complete jars instrumented per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+  /**
+   * the threads of {@link OfflineInstrumenter#instrumentClasses}; 0 means the one class at a time loop over
+   * {@link OfflineInstrumenter#nextClass()}
+   */
+  @Param({ "0", "1", "4" })
+  public int threads;
+
+  private static final Instruction getSysErr = Util.makeGet(System.class, "err");
+
+  private static final Instruction callPrintln = Util.makeInvoke(PrintStream.class, "println", new Class<?>[] { String.class });
+
+  private File output;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    output = File.createTempFile("instrumented", ".jar");
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteOutput() {
+    output.delete();
+  }
+
+  /**
+   * @return the number of classes written
+   */
+  @Benchmark
+  public int instrument() throws Exception {
+    OfflineInstrumenter instrumenter = new OfflineInstrumenter();
+    instrumenter.addInputJar(new File(BenchmarkInputs.APPLICATION_JAR));
+    instrumenter.setOutputJar(output);
+    instrumenter.beginTraversal();
+    int result = 0;
+    if (threads == 0) {
+      ClassInstrumenter ci;
+      while ((ci = instrumenter.nextClass()) != null) {
+        ClassWriter w = traceMethodEntries(ci);
+        if (w != null) {
+          instrumenter.outputModifiedClass(ci, w);
+          result++;
+        }
+      }
+    } else {
+      result = instrumenter.instrumentClasses(InstrumentationBenchmark::traceMethodEntries, threads);
+    }
+    instrumenter.close();
+    return result;
+  }
+
+  private static ClassWriter traceMethodEntries(ClassInstrumenter ci) throws InvalidClassFileException {
+    for (int m = 0; m < ci.getReader().getMethodCount(); m++) {
+      MethodData d = ci.visitMethod(m);
+      if (d != null) {
+        final String msg = "Call to " + ci.getReader().getName() + "." + ci.getReader().getMethodName(m);
+        MethodEditor me = new MethodEditor(d);
+        me.beginPass();
+        me.insertAtStart(new MethodEditor.Patch() {
+          @Override
+          public void emitTo(MethodEditor.Output w) {
+            w.emit(getSysErr);
+            w.emit(ConstantInstruction.makeString(msg));
+            w.emit(callPrintln);
+          }
+        });
+        me.applyPatches();
+        me.endPass();
+      }
+    }
+    return ci.isChanged() ? ci.emitClass() : null;
+  }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.wala.util.intset.ChunkedMutableIntSetFactory;
+import com.ibm.wala.util.intset.HashConsedIntSetFactory;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
+
+/**
+ * The set operations that dominate points-to propagation, on the set representations the solver can use.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntSetBenchmark {
+
+  @Param({ "sharedBitVector", "semiSparse", "hashConsed", "chunked" })
+  public String representation;
+
+  /**
+   * number of elements in each set
+   */
+  @Param({ "16", "1024" })
+  public int size;
+
+  /**
+   * elements are drawn from [0, size * spread), so larger spreads give sparser sets
+   */
+  @Param({ "4", "64" })
+  public int spread;
+
+  private MutableIntSetFactory<?> factory;
+
+  private MutableIntSet a;
+
+  private MutableIntSet b;
+
+  private int[] probes;
+
+  @Setup
+  public void setup() {
+    factory = makeFactory(representation);
+    Random random = new Random(42);
+    a = makeSet(random);
+    b = makeSet(random);
+    probes = new int[size];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = random.nextInt(size * spread);
+    }
+  }
+
+  static MutableIntSetFactory<?> makeFactory(String representation) {
+    switch (representation) {
+    case "sharedBitVector":
+      return new MutableSharedBitVectorIntSetFactory();
+    case "semiSparse":
+      return new SemiSparseMutableIntSetFactory();
+    case "hashConsed":
+      return new HashConsedIntSetFactory();
+    case "chunked":
+      return new ChunkedMutableIntSetFactory();
+    default:
+      throw new IllegalArgumentException("unknown representation: " + representation);
+    }
+  }
+
+  private MutableIntSet makeSet(Random random) {
+    MutableIntSet s = factory.make();
+    while (s.size() < size) {
+      s.add(random.nextInt(size * spread));
+    }
+    return s;
+  }
+
+  @Benchmark
+  public MutableIntSet addAll() {
+    MutableIntSet s = factory.makeCopy(a);
+    s.addAll(b);
+    return s;
+  }
+
+  @Benchmark
+  public MutableIntSet addOneByOne() {
+    MutableIntSet s = factory.make();
+    for (int p : probes) {
+      s.add(p);
+    }
+    return s;
+  }
+
+  @Benchmark
+  public void contains(Blackhole bh) {
+    for (int p : probes) {
+      bh.consume(a.contains(p));
+    }
+  }
+
+  @Benchmark
+  public IntSet intersection() {
+    return a.intersection(b);
+  }
+
+  @Benchmark
+  public boolean containsAny() {
+    return a.containsAny(b);
+  }
+
+  @Benchmark
+  public boolean sameValue() {
+    return a.sameValue(b);
+  }
+
+  @Benchmark
+  public int foreach() {
+    int[] sum = new int[1];
+    a.foreach(i -> sum[0] += i);
+    return sum[0];
+  }
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+
+/**
+ * Many points-to sets that differ from a common large set in a few elements, as the sets of variables along a chain of
+ * assignments do. Measures the time to build the sets and, in the secondary result <code>retainedKB</code>, the heap they
+ * retain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NearIdenticalSetsBenchmark {
+
+  @Param({ "sharedBitVector", "semiSparse", "hashConsed", "chunked" })
+  public String representation;
+
+  /**
+   * number of elements in the common set
+   */
+  @Param({ "20000" })
+  public int size;
+
+  /**
+   * number of sets built from the common set
+   */
+  @Param({ "2000" })
+  public int copies;
+
+  /**
+   * the heap retained by the sets of the last run
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+    public long retainedKB;
+  }
+
+  private MutableIntSetFactory<?> factory;
+
+  private int[] base;
+
+  private int[] extras;
+
+  @Setup(Level.Invocation)
+  public void setup() {
+    // a fresh factory per run, so that hash-consed nodes of earlier runs are not reused
+    factory = IntSetBenchmark.makeFactory(representation);
+    Random random = new Random(42);
+    base = new int[size];
+    for (int i = 0; i < size; i++) {
+      base[i] = random.nextInt(size * 4);
+    }
+    extras = new int[copies * 5];
+    for (int i = 0; i < extras.length; i++) {
+      extras[i] = random.nextInt(size * 4);
+    }
+  }
+
+  @Benchmark
+  public MutableIntSet[] buildCopies(Footprint footprint) {
+    long before = usedMemory();
+    MutableIntSet common = factory.make(base);
+    MutableIntSet[] sets = new MutableIntSet[copies];
+    for (int i = 0; i < copies; i++) {
+      MutableIntSet s = factory.makeCopy(common);
+      for (int j = 0; j < 5; j++) {
+        s.add(extras[i * 5 + j]);
+      }
+      sets[i] = s;
+    }
+    footprint.retainedKB = (usedMemory() - before) / 1024;
+    return sets;
+  }
+
+  private static long usedMemory() {
+    Runtime r = Runtime.getRuntime();
+    r.gc();
+    return r.totalMemory() - r.freeMemory();
+  }
+}
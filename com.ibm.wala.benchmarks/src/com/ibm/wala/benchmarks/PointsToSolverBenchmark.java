@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+
+/**
+ * A complete 0-1-CFA call graph construction of the application, i.e. constraint generation plus {@link
+ * com.ibm.wala.ipa.callgraph.propagation.PropagationSystem} solving. Each run starts from a fresh IR cache, so IR construction is
+ * included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PointsToSolverBenchmark {
+
+  /**
+   * the number of solver threads; to measure scaling, override it with e.g. <code>-p solverThreads=1,2,4,8</code>
+   */
+  @Param({ "1", "4" })
+  public int solverThreads;
+
+  /**
+   * the representation of points-to sets, see {@link IntSetBenchmark}
+   */
+  @Param({ "sharedBitVector", "hashConsed", "chunked" })
+  public String representation;
+
+  private MutableIntSetFactory<?> savedFactory;
+
+  private AnalysisScope scope;
+
+  private IClassHierarchy cha;
+
+  private Iterable<Entrypoint> entrypoints;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    scope = BenchmarkInputs.makeScope();
+    cha = ClassHierarchyFactory.make(scope);
+    entrypoints = Util.makeMainEntrypoints(scope, cha, BenchmarkInputs.MAIN_CLASS);
+    savedFactory = IntSetUtil.getDefaultIntSetFactory();
+  }
+
+  /**
+   * a fresh factory per run, so that hash-consed nodes of earlier runs are not reused
+   */
+  @Setup(Level.Invocation)
+  public void installFactory() {
+    IntSetUtil.setDefaultIntSetFactory(IntSetBenchmark.makeFactory(representation));
+  }
+
+  @TearDown(Level.Trial)
+  public void restoreFactory() {
+    IntSetUtil.setDefaultIntSetFactory(savedFactory);
+  }
+
+  /**
+   * @return the number of call graph nodes
+   */
+  @Benchmark
+  public int zeroOneCFA() throws Exception {
+    AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
+    options.setSolverThreads(solverThreads);
+    SSAPropagationCallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    return cg.getNumberOfNodes();
+  }
+}
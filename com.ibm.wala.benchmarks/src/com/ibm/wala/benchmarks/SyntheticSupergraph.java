@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.util.collections.EmptyIterator;
+import com.ibm.wala.util.collections.NonNullSingletonIterator;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+
+/**
+ * A randomly generated, but reproducible, supergraph. Node n is block n % blocks of procedure n / blocks.
+ *
+ * In each procedure, block 0 is the entry and the last block is the exit. Every third block is a call of a random procedure, whose
+ * return site is the next block. Other blocks fall through to the next block, and some of them also branch over it.
+ */
+class SyntheticSupergraph extends SlowSparseNumberedGraph<Integer> implements ISupergraph<Integer, Integer> {
+
+  private static final long serialVersionUID = -3166581347524935240L;
+
+  private final int blocks;
+
+  private final Integer[] nodes;
+
+  private final int[] callees;
+
+  private final SlowSparseNumberedGraph<Integer> procedureGraph = SlowSparseNumberedGraph.make();
+
+  /**
+   * @param procedures number of procedures
+   * @param blocks number of blocks per procedure, at least 4
+   * @param seed seed for the random choices
+   */
+  SyntheticSupergraph(int procedures, int blocks, long seed) {
+    super(2);
+    if (blocks < 4) {
+      throw new IllegalArgumentException("too few blocks: " + blocks);
+    }
+    this.blocks = blocks;
+    nodes = new Integer[procedures * blocks];
+    callees = new int[nodes.length];
+    for (int n = 0; n < nodes.length; n++) {
+      nodes[n] = n;
+      addNode(nodes[n]);
+    }
+    for (int p = 0; p < procedures; p++) {
+      procedureGraph.addNode(p);
+    }
+    Random random = new Random(seed);
+    for (int n = 0; n < nodes.length; n++) {
+      int i = n % blocks;
+      if (isCallBlock(i)) {
+        int callee = random.nextInt(procedures);
+        callees[n] = callee;
+        addEdge(nodes[n], nodes[callee * blocks]);
+        addEdge(nodes[callee * blocks + blocks - 1], nodes[n + 1]);
+        addEdge(nodes[n], nodes[n + 1]);
+        procedureGraph.addEdge(n / blocks, callee);
+      } else if (i < blocks - 1) {
+        addEdge(nodes[n], nodes[n + 1]);
+        if (i + 2 < blocks && random.nextInt(4) == 0) {
+          addEdge(nodes[n], nodes[n + 2]);
+        }
+      }
+    }
+  }
+
+  private boolean isCallBlock(int i) {
+    return i % 3 == 1 && i + 1 < blocks - 1;
+  }
+
+  Integer getNode(int procedure, int block) {
+    return nodes[procedure * blocks + block];
+  }
+
+  @Override
+  public Graph<? extends Integer> getProcedureGraph() {
+    return procedureGraph;
+  }
+
+  @Override
+  public boolean isCall(Integer n) {
+    return isCallBlock(n % blocks);
+  }
+
+  @Override
+  public Iterator<? extends Integer> getCalledNodes(Integer call) {
+    return new NonNullSingletonIterator<>(nodes[callees[call] * blocks]);
+  }
+
+  @Override
+  public Iterator<Integer> getNormalSuccessors(Integer call) {
+    return EmptyIterator.instance();
+  }
+
+  @Override
+  public Iterator<? extends Integer> getReturnSites(Integer call, Integer callee) {
+    return new NonNullSingletonIterator<>(nodes[call + 1]);
+  }
+
+  @Override
+  public Iterator<? extends Integer> getCallSites(Integer ret, Integer callee) {
+    return new NonNullSingletonIterator<>(nodes[ret - 1]);
+  }
+
+  @Override
+  public boolean isExit(Integer n) {
+    return n % blocks == blocks - 1;
+  }
+
+  @Override
+  public Integer getProcOf(Integer n) {
+    return n / blocks;
+  }
+
+  @Override
+  public Integer[] getEntriesForProcedure(Integer procedure) {
+    return new Integer[] { getNode(procedure, 0) };
+  }
+
+  @Override
+  public Integer[] getExitsForProcedure(Integer procedure) {
+    return new Integer[] { getNode(procedure, blocks - 1) };
+  }
+
+  @Override
+  public int getNumberOfBlocks(Integer procedure) {
+    return blocks;
+  }
+
+  @Override
+  public int getLocalBlockNumber(Integer n) {
+    return n % blocks;
+  }
+
+  @Override
+  public Integer getLocalBlock(Integer procedure, int i) {
+    return getNode(procedure, i);
+  }
+
+  @Override
+  public boolean isReturn(Integer n) {
+    int i = n % blocks;
+    return i > 0 && isCallBlock(i - 1);
+  }
+
+  @Override
+  public boolean isEntry(Integer n) {
+    return n % blocks == 0;
+  }
+
+  @Override
+  public byte classifyEdge(Integer src, Integer dest) {
+    if (isCall(src)) {
+      return isEntry(dest) ? CALL_EDGE : CALL_TO_RETURN_EDGE;
+    } else if (isExit(src) && isReturn(dest)) {
+      return RETURN_EDGE;
+    } else {
+      return OTHER;
+    }
+  }
+}
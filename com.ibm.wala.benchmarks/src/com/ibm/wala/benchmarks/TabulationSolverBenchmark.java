@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IFlowFunctionMap;
+import com.ibm.wala.dataflow.IFDS.IMergeFunction;
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IdentityFlowFunction;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.TabulationDomain;
+import com.ibm.wala.dataflow.IFDS.TabulationProblem;
+import com.ibm.wala.dataflow.IFDS.TabulationResult;
+import com.ibm.wala.dataflow.IFDS.TabulationSolver;
+import com.ibm.wala.dataflow.IFDS.UnorderedDomain;
+import com.ibm.wala.dataflow.IFDS.VectorGenFlowFunction;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.intset.SparseIntSet;
+
+/**
+ * An IFDS gen problem over a {@link SyntheticSupergraph}. Some blocks gen a fact, everything else is the identity, so the number of
+ * path edges grows with both the number of procedures and the number of facts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TabulationSolverBenchmark {
+
+  private static final int BLOCKS = 24;
+
+  @Param({ "100", "400" })
+  public int procedures;
+
+  @Param({ "16", "64" })
+  public int facts;
+
+  @Param({ "1", "4" })
+  public int solverThreads;
+
+  private TabulationProblem<Integer, Integer, Integer> problem;
+
+  @Setup
+  public void setup() {
+    final SyntheticSupergraph supergraph = new SyntheticSupergraph(procedures, BLOCKS, 42);
+    final UnorderedDomain<Integer, Integer> domain = new UnorderedDomain<>();
+    for (int f = 0; f < facts; f++) {
+      domain.add(f);
+    }
+    Random random = new Random(42);
+    final IUnaryFlowFunction[] normal = new IUnaryFlowFunction[supergraph.getNumberOfNodes()];
+    for (int n = 0; n < normal.length; n++) {
+      normal[n] = random.nextInt(8) == 0 ? VectorGenFlowFunction.make(SparseIntSet.pair(0, 1 + random.nextInt(facts - 1)))
+          : IdentityFlowFunction.identity();
+    }
+    final IFlowFunctionMap<Integer> functions = new IFlowFunctionMap<Integer>() {
+      @Override
+      public IUnaryFlowFunction getNormalFlowFunction(Integer src, Integer dest) {
+        return normal[src];
+      }
+
+      @Override
+      public IUnaryFlowFunction getCallFlowFunction(Integer src, Integer dest, Integer ret) {
+        return IdentityFlowFunction.identity();
+      }
+
+      @Override
+      public IFlowFunction getReturnFlowFunction(Integer call, Integer src, Integer dest) {
+        return IdentityFlowFunction.identity();
+      }
+
+      @Override
+      public IUnaryFlowFunction getCallToReturnFlowFunction(Integer src, Integer dest) {
+        return normal[src];
+      }
+
+      @Override
+      public IUnaryFlowFunction getCallNoneToReturnFlowFunction(Integer src, Integer dest) {
+        return normal[src];
+      }
+    };
+    final Collection<PathEdge<Integer>> seeds = new ArrayList<>();
+    for (int p = 0; p < procedures; p += 10) {
+      Integer entry = supergraph.getNode(p, 0);
+      seeds.add(PathEdge.createPathEdge(entry, 0, entry, 0));
+    }
+    problem = new TabulationProblem<Integer, Integer, Integer>() {
+      @Override
+      public ISupergraph<Integer, Integer> getSupergraph() {
+        return supergraph;
+      }
+
+      @Override
+      public TabulationDomain<Integer, Integer> getDomain() {
+        return domain;
+      }
+
+      @Override
+      public IFlowFunctionMap<Integer> getFunctionMap() {
+        return functions;
+      }
+
+      @Override
+      public Collection<PathEdge<Integer>> initialSeeds() {
+        return seeds;
+      }
+
+      @Override
+      public IMergeFunction getMergeFunction() {
+        return null;
+      }
+    };
+  }
+
+  /**
+   * @return the number of reached supergraph nodes
+   */
+  @Benchmark
+  public int solve() throws CancelException {
+    TabulationSolver<Integer, Integer, Integer> solver = TabulationSolver.make(problem);
+    solver.setSolverThreads(solverThreads);
+    TabulationResult<Integer, Integer, Integer> result = solver.solve();
+    return result.getSupergraphNodesReached().size();
+  }
+}
@@ -70,15 +70,36 @@ public abstract class TestJavaScriptSlicer extends TestJSCallGraphShape {
     Assert.assertEquals(1, SlicerTest.countConditionals(result));
   }
 
+  @Test
+  public void testSimpleDataThreaded() throws IOException, WalaException, IllegalArgumentException, CancelException {
+    JSCFABuilder B = JSCallGraphBuilderUtil.makeScriptCGBuilder("tests", "slice1.js");
+    CallGraph CG = B.makeCallGraph(B.getOptions());
+    final Collection<Statement> ss = findTargetStatement(CG);
+
+    Collection<Statement> expected = slice(CG, B, 1, ss, DataDependenceOptions.FULL, ControlDependenceOptions.NONE);
+    // the mod-ref scans and heap reaching definitions share a synchronized AST heap model between the threads
+    Collection<Statement> actual = slice(CG, B, 4, ss, DataDependenceOptions.FULL, ControlDependenceOptions.NONE);
+    Assert.assertEquals(HashSetFactory.make(expected), HashSetFactory.make(actual));
+  }
+
   private Collection<Statement> slice(String file, DataDependenceOptions data, ControlDependenceOptions ctrl) throws IOException, WalaException, CancelException {
     JSCFABuilder B = JSCallGraphBuilderUtil.makeScriptCGBuilder("tests", file);
     CallGraph CG = B.makeCallGraph(B.getOptions());
  
-    SDG<InstanceKey> sdg = new SDG<>(CG, B.getPointerAnalysis(), new JavaScriptModRef<>(), data, ctrl);
-
     final Collection<Statement> ss = findTargetStatement(CG);
-    Collection<Statement> result = Slicer.computeBackwardSlice(sdg, ss);
-    return result;
+    return slice(CG, B, 1, ss, data, ctrl);
+  }
+
+  private static Collection<Statement> slice(CallGraph CG, JSCFABuilder B, int threads, Collection<Statement> ss, DataDependenceOptions data, ControlDependenceOptions ctrl) throws CancelException {
+    JavaScriptModRef<InstanceKey> modRef = new JavaScriptModRef<>();
+    modRef.setThreads(threads);
+    SDG<InstanceKey> sdg = new SDG<>(CG, B.getPointerAnalysis(), modRef, data, ctrl);
+
+    try {
+      return Slicer.computeBackwardSlice(sdg, ss);
+    } finally {
+      modRef.shutdown();
+    }
   }
 
   private Collection<Statement> findTargetStatement(CallGraph CG) {
@@ -0,0 +1,48 @@
+/******************************************************************************
+ * Copyright (c) 2002 - 2014 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *****************************************************************************/
+
+package com.ibm.wala.cast.ipa.callgraph;
+
+import java.util.Iterator;
+
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.modref.SynchronizedExtendedHeapModel;
+import com.ibm.wala.util.collections.Iterator2Collection;
+
+/**
+ * An {@link AstHeapModel} that may be used by several threads at once. The iterators over reflected field keys are copied
+ * while holding the lock, since the underlying model may create the keys as they are iterated.
+ */
+public class SynchronizedAstHeapModel extends SynchronizedExtendedHeapModel implements AstHeapModel {
+
+  private final AstHeapModel h;
+
+  public SynchronizedAstHeapModel(AstHeapModel h) {
+    super(h);
+    this.h = h;
+  }
+
+  @Override
+  public synchronized Iterator<PointerKey> getPointerKeysForReflectedFieldRead(InstanceKey I, InstanceKey F) {
+    return Iterator2Collection.toList(h.getPointerKeysForReflectedFieldRead(I, F)).iterator();
+  }
+
+  @Override
+  public synchronized Iterator<PointerKey> getPointerKeysForReflectedFieldWrite(InstanceKey I, InstanceKey F) {
+    return Iterator2Collection.toList(h.getPointerKeysForReflectedFieldWrite(I, F)).iterator();
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForObjectCatalog(InstanceKey I) {
+    return h.getPointerKeyForObjectCatalog(I);
+  }
+}
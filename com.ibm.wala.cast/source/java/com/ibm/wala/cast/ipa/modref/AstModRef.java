@@ -13,6 +13,7 @@ package com.ibm.wala.cast.ipa.modref;
 import java.util.Collection;
 
 import com.ibm.wala.cast.ipa.callgraph.AstHeapModel;
+import com.ibm.wala.cast.ipa.callgraph.SynchronizedAstHeapModel;
 import com.ibm.wala.cast.ir.ssa.AstAssertInstruction;
 import com.ibm.wala.cast.ir.ssa.AstEchoInstruction;
 import com.ibm.wala.cast.ir.ssa.AstGlobalRead;
@@ -37,6 +38,14 @@ public class AstModRef<T extends InstanceKey> extends ModRef<T> {
     return (AstHeapModel)pa.getHeapModel();
   }
 
+  /**
+   * the visitors of this class need an {@link AstHeapModel}, so wrap the whole of it
+   */
+  @Override
+  public ExtendedHeapModel makeSynchronizedHeapModel(PointerAnalysis<T> pa) {
+    return new SynchronizedAstHeapModel((AstHeapModel)makeHeapModel(pa));
+  }
+
   protected static class AstRefVisitor<T extends InstanceKey> extends RefVisitor<T, AstHeapModel> implements AstInstructionVisitor {
       
     protected AstRefVisitor(CGNode n, Collection<PointerKey> result, PointerAnalysis<T> pa, AstHeapModel h) {
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package incremental;
+
+/**
+ * Driver for the incremental call graph tests, which replace {@link Service} by a version whose {@link Service#run(Object)} calls
+ * {@link Helper#second(Object)} instead of {@link Helper#first(Object)}.
+ */
+public class Main {
+
+  public static void main(String[] args) {
+    Object a = new Object();
+    Service s = new Service();
+    Object r = s.run(a);
+    Object f = Helper.first(a);
+    System.out.println(r == f);
+  }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2008 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.basic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.InternTable;
+
+/**
+ * JUnit tests for {@link InternTable}.
+ */
+public class InternTableTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(InternTableTest.class);
+  }
+
+  private static void checkCanonical(InternTable<String, Object> table) throws InterruptedException {
+    final int n = 1000;
+    final Object[][] seen = new Object[4][n];
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < seen.length; t++) {
+      final Object[] mine = seen[t];
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < n; i++) {
+          mine[i] = table.findOrCreate("key" + i, k -> new Object());
+        }
+      }));
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    for (int i = 0; i < n; i++) {
+      Assert.assertSame(seen[0][i], table.find("key" + i));
+      for (int t = 1; t < seen.length; t++) {
+        Assert.assertSame(seen[0][i], seen[t][i]);
+      }
+    }
+    Assert.assertEquals(n, table.size());
+    Assert.assertNull(table.find("absent"));
+  }
+
+  @Test
+  public void testStrong() throws InterruptedException {
+    checkCanonical(new InternTable<>(4, false));
+  }
+
+  @Test
+  public void testWeak() throws InterruptedException {
+    checkCanonical(new InternTable<>(4, true));
+  }
+}
@@ -21,8 +21,11 @@ import org.junit.Test;
 import com.ibm.wala.core.tests.util.WalaTestCase;
 import com.ibm.wala.util.collections.BimodalMap;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IntIntHashMap;
+import com.ibm.wala.util.collections.IntObjectHashMap;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
 import com.ibm.wala.util.collections.SmallMap;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
@@ -34,8 +37,13 @@ import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.BimodalMutableIntSetFactory;
 import com.ibm.wala.util.intset.BitVector;
 import com.ibm.wala.util.intset.BitVectorBase;
+import com.ibm.wala.util.intset.BitVectorIntSet;
 import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.ChunkedMutableIntSet;
+import com.ibm.wala.util.intset.ChunkedMutableIntSetFactory;
+import com.ibm.wala.util.intset.HashConsedIntSetFactory;
 import com.ibm.wala.util.intset.IBinaryNaturalRelation;
+import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntPair;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetUtil;
@@ -47,6 +55,7 @@ import com.ibm.wala.util.intset.MutableIntSetFactory;
 import com.ibm.wala.util.intset.MutableLongSet;
 import com.ibm.wala.util.intset.MutableLongSetFactory;
 import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
 import com.ibm.wala.util.intset.MutableSparseLongSetFactory;
 import com.ibm.wala.util.intset.OffsetBitVector;
@@ -348,6 +357,82 @@ public class PrimitivesTest extends WalaTestCase {
     doMutableIntSet(new SemiSparseMutableIntSetFactory());
   }
 
+  /**
+   * Test the HashConsedIntSet implementation
+   */
+  @Test public void testHashConsedIntSet() {
+    doMutableIntSet(new HashConsedIntSetFactory());
+  }
+
+  /**
+   * Test the HashConsedIntSet implementation on sets large enough to be kept as shared tries
+   */
+  @Test public void testHashConsedIntSetSharing() {
+    HashConsedIntSetFactory factory = new HashConsedIntSetFactory();
+    MutableIntSet a = factory.make();
+    MutableIntSet b = factory.make();
+    for (int i = 0; i < 10000; i += 3) {
+      a.add(i);
+    }
+    for (int i = 9999; i >= 0; i -= 3) {
+      b.add(i);
+    }
+    Assert.assertTrue(a.sameValue(b));
+    MutableIntSet c = factory.makeCopy(a);
+    Assert.assertTrue(c.add(70000));
+    Assert.assertFalse(c.sameValue(a));
+    Assert.assertTrue(a.isSubset(c));
+    Assert.assertFalse(c.isSubset(a));
+    Assert.assertTrue(c.remove(70000));
+    Assert.assertTrue(c.sameValue(a));
+    MutableIntSet d = factory.parse("{1,4,7,8}");
+    d.addAll(a);
+    Assert.assertEquals(a.size() + 4, d.size());
+    d.intersectWith(c);
+    Assert.assertTrue(d.sameValue(a));
+    Assert.assertTrue(d.sameValue(MutableSparseIntSet.make(a)));
+  }
+
+  /**
+   * Test the ChunkedMutableIntSet implementation
+   */
+  @Test public void testChunkedMutableIntSet() {
+    doMutableIntSet(new ChunkedMutableIntSetFactory());
+  }
+
+  /**
+   * Test the ChunkedMutableIntSet implementation with dense chunks, runs and chunks of other set types
+   */
+  @Test public void testChunkedMutableIntSetContainers() {
+    ChunkedMutableIntSetFactory factory = new ChunkedMutableIntSetFactory();
+    ChunkedMutableIntSet a = factory.make();
+    for (int i = 60000; i < 80000; i++) {
+      a.add(i);
+    }
+    a.add(1 << 20);
+    Assert.assertEquals(20001, a.size());
+    Assert.assertEquals(1 << 20, a.max());
+    ChunkedMutableIntSet b = factory.makeCopy(a);
+    b.runOptimize();
+    Assert.assertTrue(b.sameValue(a));
+    Assert.assertTrue(b.remove(70000));
+    Assert.assertFalse(b.contains(70000));
+    Assert.assertTrue(b.isSubset(a));
+    Assert.assertFalse(a.isSubset(b));
+    BitVectorIntSet bits = new BitVectorIntSet();
+    bits.add(70000);
+    bits.add(200000);
+    Assert.assertTrue(b.addAll(bits));
+    Assert.assertEquals(a.size() + 1, b.size());
+    MutableSparseIntSet sparse = MutableSparseIntSet.makeEmpty();
+    sparse.add(5);
+    sparse.add(200000);
+    Assert.assertTrue(b.containsAny(sparse));
+    b.intersectWith(sparse);
+    Assert.assertTrue(b.sameValue(SparseIntSet.singleton(200000)));
+    Assert.assertTrue(SparseIntSet.singleton(200000).sameValue(b));
+  }
+
   /**
    * Test the MutableSparseIntSet implementation
    */
@@ -621,6 +706,94 @@ public class PrimitivesTest extends WalaTestCase {
     Assert.assertTrue(I.equals(I3));
   }
 
+  @Test public void testIntObjectHashMap() {
+    IntObjectHashMap<String> M = new IntObjectHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertNull(M.put(i * 7, "v" + i));
+    }
+    Assert.assertEquals(1000, M.size());
+    Assert.assertEquals("v3", M.get(21));
+    Assert.assertNull(M.get(22));
+    Assert.assertEquals("v3", M.put(21, "w"));
+    Assert.assertEquals("w", M.get(21));
+
+    // removed keys disappear, and the rest keep their insertion order across rehashes
+    for (int i = 0; i < 1000; i += 2) {
+      Assert.assertNotNull(M.remove(i * 7));
+    }
+    Assert.assertNull(M.remove(0));
+    Assert.assertEquals(500, M.size());
+    for (int i = 1000; i < 3000; i++) {
+      M.put(i * 7, "v" + i);
+    }
+    IntIterator it = M.keyIterator();
+    for (int i = 1; i < 1000; i += 2) {
+      Assert.assertEquals(i * 7, it.next());
+    }
+    for (int i = 1000; i < 3000; i++) {
+      Assert.assertEquals(i * 7, it.next());
+    }
+    Assert.assertFalse(it.hasNext());
+
+    M.clear();
+    Assert.assertTrue(M.isEmpty());
+    Assert.assertFalse(M.keyIterator().hasNext());
+    Assert.assertFalse(M.containsKey(7));
+  }
+
+  @Test public void testObjectIntHashMap() {
+    ObjectIntHashMap<String> M = new ObjectIntHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(-1, M.put("k" + i, i));
+    }
+    Assert.assertEquals(1000, M.size());
+    Assert.assertEquals(17, M.get(new String("k17")));
+    Assert.assertEquals(-1, M.get("nope"));
+    Assert.assertEquals(-1, M.get(null));
+    Assert.assertEquals(5, M.getOrDefault("nope", 5));
+    Assert.assertEquals(17, M.put("k17", 42));
+    Assert.assertEquals(42, M.get("k17"));
+    Assert.assertEquals(42, M.remove("k17"));
+    Assert.assertFalse(M.containsKey("k17"));
+    Assert.assertEquals(999, M.keySet().size());
+    Assert.assertEquals("k0", M.keySet().iterator().next());
+
+    ObjectIntHashMap<String> copy = new ObjectIntHashMap<>(M);
+    copy.put("k17", 17);
+    Assert.assertFalse(M.containsKey("k17"));
+    Assert.assertEquals(1000, copy.size());
+
+    ObjectIntHashMap<String> identity = ObjectIntHashMap.makeIdentityMap();
+    String a = "a";
+    identity.put(a, 1);
+    Assert.assertEquals(1, identity.get(a));
+    Assert.assertEquals(-1, identity.get(new String("a")));
+  }
+
+  @Test public void testIntIntHashMap() {
+    IntIntHashMap M = new IntIntHashMap();
+    for (int i = -500; i < 500; i++) {
+      Assert.assertEquals(-1, M.put(i, i * 2));
+    }
+    Assert.assertEquals(1000, M.size());
+    Assert.assertEquals(0, M.get(0));
+    Assert.assertEquals(-20, M.get(-10));
+    Assert.assertEquals(-1, M.get(500));
+    Assert.assertEquals(9, M.getOrDefault(500, 9));
+
+    Assert.assertEquals(-20, M.remove(-10));
+    Assert.assertFalse(M.containsKey(-10));
+    M.put(-10, 1);
+    int last = 0;
+    int count = 0;
+    for (IntIterator it = M.keyIterator(); it.hasNext(); count++) {
+      last = it.next();
+    }
+    Assert.assertEquals(1000, count);
+    Assert.assertEquals(-10, last);
+    Assert.assertEquals(1, M.get(-10));
+  }
+
   @Test public void testBimodalMap() {
     Map<Integer, Integer> M = new BimodalMap<>(3);
     Integer I1 = new Integer(1);
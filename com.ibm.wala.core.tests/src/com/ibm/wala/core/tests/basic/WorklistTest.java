@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2008 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.basic;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.fixedpoint.impl.ConcurrentNumberedWorklist;
+import com.ibm.wala.fixedpoint.impl.IWorklist;
+import com.ibm.wala.fixedpoint.impl.NumberedWorklist;
+import com.ibm.wala.fixedpoint.impl.Worklist;
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.fixpoint.BooleanVariable;
+import com.ibm.wala.fixpoint.UnaryOr;
+
+/**
+ * JUnit tests for the fixed-point solver worklists.
+ */
+@SuppressWarnings("rawtypes")
+public class WorklistTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(WorklistTest.class);
+  }
+
+  /**
+   * @return statements with order numbers n-1 down to 0; statements with even index are numbered graph nodes
+   */
+  private static List<AbstractStatement> makeStatements(int n) {
+    List<AbstractStatement> result = new ArrayList<>();
+    BooleanVariable rhs = new BooleanVariable();
+    for (int i = 0; i < n; i++) {
+      BooleanVariable lhs = new BooleanVariable();
+      lhs.setOrderNumber(n - 1 - i);
+      AbstractStatement s = UnaryOr.instance().makeEquation(lhs, rhs);
+      if (i % 2 == 0) {
+        s.setGraphNodeId(i);
+      }
+      result.add(s);
+    }
+    return result;
+  }
+
+  private static void checkOrderAndDuplicates(IWorklist w) {
+    List<AbstractStatement> statements = makeStatements(100);
+    for (AbstractStatement s : statements) {
+      w.insertStatement(s);
+      w.insertStatement(s);
+    }
+    Assert.assertEquals(100, w.size());
+    int last = -1;
+    while (!w.isEmpty()) {
+      AbstractStatement s = w.takeStatement();
+      Assert.assertTrue(s.getOrderNumber() >= last);
+      last = s.getOrderNumber();
+    }
+    // taken statements may be inserted again
+    w.insertStatement(statements.get(0));
+    Assert.assertEquals(1, w.size());
+    Assert.assertSame(statements.get(0), w.takeStatement());
+  }
+
+  @Test public void testHeapWorklist() {
+    checkOrderAndDuplicates(new Worklist());
+  }
+
+  @Test public void testNumberedWorklist() {
+    checkOrderAndDuplicates(new NumberedWorklist());
+  }
+
+  @Test public void testConcurrentNumberedWorklist() {
+    checkOrderAndDuplicates(new ConcurrentNumberedWorklist());
+  }
+
+  @Test public void testConcurrentInsertions() throws InterruptedException {
+    final ConcurrentNumberedWorklist w = new ConcurrentNumberedWorklist();
+    final List<AbstractStatement> statements = makeStatements(10000);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (AbstractStatement s : statements) {
+          w.insertStatement(s);
+        }
+      });
+      threads[t].start();
+    }
+    Set<AbstractStatement> taken = new HashSet<>();
+    for (Thread t : threads) {
+      t.join();
+    }
+    for (AbstractStatement s = w.pollStatement(); s != null; s = w.pollStatement()) {
+      Assert.assertTrue(taken.add(s));
+    }
+    Assert.assertEquals(statements.size(), taken.size());
+    Assert.assertTrue(w.isEmpty());
+  }
+}
@@ -19,7 +19,9 @@ import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.intset.BimodalMutableIntSetFactory;
 import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.ChunkedMutableIntSetFactory;
 import com.ibm.wala.util.intset.DebuggingMutableIntSetFactory;
+import com.ibm.wala.util.intset.HashConsedIntSetFactory;
 import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSetFactory;
 import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
@@ -71,4 +73,12 @@ public class DebuggingBitsetCallGraphTest extends WalaTestCase {
     runBitsetTest(new SemiSparseMutableIntSetFactory(), new MutableSharedBitVectorIntSetFactory());
   }
 
+  @Test public void testHashConsedShared() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    runBitsetTest(new HashConsedIntSetFactory(), new MutableSharedBitVectorIntSetFactory());
+  }
+
+  @Test public void testChunkedShared() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    runBitsetTest(new ChunkedMutableIntSetFactory(), new MutableSharedBitVectorIntSetFactory());
+  }
+
 }
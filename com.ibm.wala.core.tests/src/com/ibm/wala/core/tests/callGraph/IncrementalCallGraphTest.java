@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassFileModule;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.ShrikeClass;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.shrikeBT.InvokeInstruction;
+import com.ibm.wala.shrikeBT.MethodData;
+import com.ibm.wala.shrikeBT.MethodEditor;
+import com.ibm.wala.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.shrike.ShrikeClassReaderHandle;
+
+/**
+ * Check that updating a call graph for changed classes gives the same result as building it afresh.
+ */
+public class IncrementalCallGraphTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(IncrementalCallGraphTest.class);
+  }
+
+  @Test public void testJLexUnchanged() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.JLEX, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.JLEX_MAIN);
+
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder fresh = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    fresh.makeCallGraph(options, null);
+
+    options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder incremental = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    incremental.setIncremental(true);
+    incremental.makeCallGraph(options, null);
+    List<TypeReference> changed = Arrays.asList(TypeReference.findOrCreate(ClassLoaderReference.Application, "LJLex/CSpec"),
+        TypeReference.findOrCreate(ClassLoaderReference.Application, "LJLex/CNfa"));
+    incremental.updateCallGraph(changed, null);
+
+    Assert.assertEquals(edges(fresh.getCallGraph()), edges(incremental.getCallGraph()));
+    Assert.assertEquals(pointsTo(fresh.getPointerAnalysis()), pointsTo(incremental.getPointerAnalysis()));
+  }
+
+  private static final TypeReference SERVICE = TypeReference.findOrCreate(ClassLoaderReference.Application, "Lincremental/Service");
+
+  /**
+   * Replace incremental.Service in cha by a version whose run method calls Helper.second instead of Helper.first, as if it had been
+   * edited and recompiled.
+   */
+  private static void changeService(IClassHierarchy cha) throws InvalidClassFileException, IOException {
+    ShrikeClass old = (ShrikeClass) cha.lookupClass(SERVICE);
+    ClassInstrumenter ci = new ClassInstrumenter(old.getName().toString(), old.getReader().getBytes(), null);
+    for (int i = 0; i < ci.getReader().getMethodCount(); i++) {
+      MethodData d = ci.visitMethod(i);
+      if (d != null) {
+        IInstruction[] instructions = d.getInstructions();
+        MethodEditor me = new MethodEditor(d);
+        me.beginPass();
+        for (int k = 0; k < instructions.length; k++) {
+          if (instructions[k] instanceof InvokeInstruction && ((InvokeInstruction) instructions[k]).getMethodName().equals("first")) {
+            final InvokeInstruction call = (InvokeInstruction) instructions[k];
+            me.replaceWith(k, new MethodEditor.Patch() {
+              @Override
+              public void emitTo(MethodEditor.Output w) {
+                w.emit(InvokeInstruction.make(call.getMethodSignature(), call.getClassType(), "second", call.getInvocationCode()));
+              }
+            });
+          }
+        }
+        me.applyPatches();
+      }
+    }
+    Assert.assertTrue(ci.isChanged());
+
+    File f = File.createTempFile("Service", ".class");
+    f.deleteOnExit();
+    Files.write(f.toPath(), ci.emitClass().makeBytes());
+    IClass changed = new ShrikeClass(new ShrikeClassReaderHandle(new ClassFileModule(f, null)), old.getClassLoader(), cha);
+    cha.removeClass(old);
+    old.getClassLoader().removeAll(Collections.<IClass> singleton(old));
+    cha.addClass(changed);
+  }
+
+  private static SSAPropagationCallGraphBuilder build(AnalysisScope scope, IClassHierarchy cha, boolean incremental)
+      throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.INCREMENTAL_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    builder.setIncremental(incremental);
+    builder.makeCallGraph(options, null);
+    return builder;
+  }
+
+  @Test public void testChangedCall() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+      InvalidClassFileException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+
+    // a fresh build that only ever sees the new version of Service
+    IClassHierarchy freshCha = ClassHierarchyFactory.make(scope);
+    changeService(freshCha);
+    SSAPropagationCallGraphBuilder fresh = build(scope, freshCha, false);
+
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    SSAPropagationCallGraphBuilder incremental = build(scope, cha, true);
+    Set<String> before = edges(incremental.getCallGraph());
+    changeService(cha);
+    incremental.updateCallGraph(Collections.singleton(SERVICE), null);
+
+    Set<String> after = edges(fresh.getCallGraph());
+    Assert.assertNotEquals(before, after);
+    Assert.assertEquals(after, edges(incremental.getCallGraph()));
+    Assert.assertEquals(pointsTo(fresh.getPointerAnalysis()), pointsTo(incremental.getPointerAnalysis()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNotIncremental() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.JLEX, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.JLEX_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    builder.makeCallGraph(options, null);
+    builder.updateCallGraph(Arrays.asList(TypeReference.findOrCreate(ClassLoaderReference.Application, "LJLex/CSpec")), null);
+  }
+
+  private static Set<String> edges(CallGraph cg) {
+    Set<String> edges = new TreeSet<>();
+    for (CGNode n : cg) {
+      for (CGNode s : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+        edges.add(n + " -> " + s);
+      }
+    }
+    return edges;
+  }
+
+  /**
+   * The update replaces pointer keys and instance keys by equal ones, so the results are compared by their string forms.
+   */
+  private static Map<String, Set<String>> pointsTo(PointerAnalysis<InstanceKey> pa) {
+    Map<String, Set<String>> pointsTo = new TreeMap<>();
+    for (PointerKey k : pa.getPointerKeys()) {
+      Set<String> s = new TreeSet<>();
+      for (InstanceKey ik : pa.getPointsToSet(k)) {
+        s.add(ik.toString());
+      }
+      if (!s.isEmpty()) {
+        pointsTo.computeIfAbsent(k.toString(), x -> new TreeSet<>()).addAll(s);
+      }
+    }
+    return pointsTo;
+  }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.perf.JsonMetricsSink;
+import com.ibm.wala.util.perf.Metrics;
+import com.ibm.wala.util.perf.SummaryMetricsSink;
+import com.ibm.wala.util.perf.SummaryMetricsSink.Summary;
+
+/**
+ * Check the measurements reported while building a call graph.
+ */
+public class MetricsTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(MetricsTest.class);
+  }
+
+  @Test public void testJLex() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SummaryMetricsSink sink = new SummaryMetricsSink(5);
+    Metrics.setSink(sink);
+    CallGraph cg;
+    try {
+      AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.JLEX, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+      IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+      Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.JLEX_MAIN);
+      AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+      cg = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope).makeCallGraph(options, null);
+    } finally {
+      Metrics.setSink(null);
+    }
+
+    Assert.assertEquals(1, sink.getSummary("cha.make").getCount());
+    Assert.assertEquals(1, sink.getSummary("builder.makeCallGraph").getCount());
+    Assert.assertEquals(cg.getNumberOfNodes(), sink.getSummary("builder.makeCallGraph").getTotalSize());
+    Summary constraints = sink.getSummary("builder.constraints");
+    Assert.assertTrue(constraints.getCount() > 0);
+    Assert.assertEquals(5, constraints.getSlowest().size());
+    Assert.assertTrue(constraints.getSlowest().get(0).getNanos() >= constraints.getSlowest().get(4).getNanos());
+    Assert.assertTrue(sink.getSummary("ssa.makeIR").getCount() > 0);
+    Assert.assertTrue(sink.getSummary("solver.solve").getCount() > 0);
+    Assert.assertTrue(sink.getGauge("pointsTo.variables") > 0);
+    Assert.assertTrue(sink.getGauge("pointsTo.facts") > 0);
+  }
+
+  @Test public void testJsonSink() {
+    StringWriter out = new StringWriter();
+    JsonMetricsSink sink = new JsonMetricsSink(out, Long.MAX_VALUE / 1000000, 1000);
+    sink.timed("slow", "say \"hi\"\n", System.nanoTime(), 5000, 7);
+    sink.timed("fast", "ignored", System.nanoTime(), 10, 1);
+    sink.count("hits", 3);
+    sink.gauge("size", 42);
+    sink.flush();
+
+    String[] lines = out.toString().split("\n");
+    Assert.assertEquals(2, lines.length);
+    Assert.assertTrue(lines[0], lines[0].matches("\\{\"time\":\\d+,\"type\":\"timed\",\"name\":\"slow\",\"subject\":\"say \\\\\"hi\\\\\"\\\\n\",\"nanos\":5000,\"size\":7\\}"));
+    Assert.assertTrue(lines[1], lines[1].matches(
+        "\\{\"time\":\\d+,\"type\":\"sample\",\"counters\":\\{\"fast.count\":1,\"fast.nanos\":10,\"hits\":3\\},\"gauges\":\\{\"size\":42\\}\\}"));
+  }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+
+/**
+ * Check that the parallel points-to solver computes the same result as the sequential one.
+ */
+public class ParallelSolverTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelSolverTest.class);
+  }
+
+  @Test public void testJLex() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    compare(TestConstants.JLEX, TestConstants.JLEX_MAIN);
+  }
+
+  @Test public void testJavaCup() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    compare(TestConstants.JAVA_CUP, TestConstants.JAVA_CUP_MAIN);
+  }
+
+  private static void compare(String scopeFile, String mainClass) throws ClassHierarchyException, IllegalArgumentException,
+      CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(scopeFile, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, mainClass);
+
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    Result sequential = new Result(options, cha, scope);
+
+    options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setSolverThreads(4);
+    Result parallel = new Result(options, cha, scope);
+
+    Assert.assertEquals(sequential.edges, parallel.edges);
+    Assert.assertEquals(sequential.pointsTo, parallel.pointsTo);
+  }
+
+  /**
+   * A 0-1-CFA result rendered with strings, so that results of different runs can be compared.
+   */
+  private static class Result {
+    private final Set<String> edges = new TreeSet<>();
+
+    private final Map<String, Set<String>> pointsTo = new TreeMap<>();
+
+    Result(AnalysisOptions options, IClassHierarchy cha, AnalysisScope scope) throws IllegalArgumentException, CancelException {
+      SSAPropagationCallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+      CallGraph cg = builder.makeCallGraph(options, null);
+      for (CGNode n : cg) {
+        for (CGNode s : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+          edges.add(n + " -> " + s);
+        }
+      }
+      PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+      for (PointerKey k : pa.getPointerKeys()) {
+        Set<String> s = new TreeSet<>();
+        for (InstanceKey ik : pa.getPointsToSet(k)) {
+          s.add(ik.toString());
+        }
+        pointsTo.put(k.toString(), s);
+      }
+    }
+  }
+}
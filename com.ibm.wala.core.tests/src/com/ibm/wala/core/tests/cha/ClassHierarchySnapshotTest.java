@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
+import com.ibm.wala.core.tests.util.ClassHierarchySummary;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.ClassHierarchySnapshot;
+
+/**
+ * Check that a class hierarchy loaded from snapshots is the same as one loaded from class files.
+ */
+public class ClassHierarchySnapshotTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ClassHierarchySnapshotTest.class);
+  }
+
+  private static Map<String, String> summarize(File snapshotDirectory) throws IOException, ClassHierarchyException {
+    AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+    ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+    if (snapshotDirectory != null) {
+      factory.setSnapshotDirectory(snapshotDirectory);
+    }
+    return ClassHierarchySummary.summarize(ClassHierarchyFactory.make(scope, factory));
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    File dir = Files.createTempDirectory("chs").toFile();
+    try {
+      Map<String, String> expected = summarize(null);
+      // the first run writes the snapshots, the second one reads them
+      Assert.assertEquals(expected, summarize(dir));
+      Assert.assertTrue(dir.listFiles().length > 0);
+      Assert.assertEquals(expected, summarize(dir));
+    } finally {
+      for (File f : dir.listFiles()) {
+        f.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void testTruncatedSnapshotIgnored() throws IOException, ClassHierarchyException {
+    File dir = Files.createTempDirectory("chs").toFile();
+    try {
+      Map<String, String> expected = summarize(dir);
+      for (File f : dir.listFiles()) {
+        // snapshots are named after the content hash of their module
+        String hash = f.getName().substring(0, f.getName().length() - ".chs".length());
+        Assert.assertNotNull(ClassHierarchySnapshot.load(f, hash));
+        byte[] contents = Files.readAllBytes(f.toPath());
+        for (int length : new int[] { 16, contents.length / 2, contents.length - 1 }) {
+          Files.write(f.toPath(), Arrays.copyOf(contents, length));
+          Assert.assertNull(ClassHierarchySnapshot.load(f, hash));
+        }
+      }
+      // truncated snapshots are written again
+      Assert.assertEquals(expected, summarize(dir));
+    } finally {
+      for (File f : dir.listFiles()) {
+        f.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void testStaleSnapshotIgnored() throws IOException {
+    File f = File.createTempFile("stale", ".chs");
+    try {
+      Files.write(f.toPath(), new byte[] { 0, 1, 2, 3 });
+      Assert.assertNull(ClassHierarchySnapshot.load(f, "0000"));
+    } finally {
+      f.delete();
+    }
+  }
+}
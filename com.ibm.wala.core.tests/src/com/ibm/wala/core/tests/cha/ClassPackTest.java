@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassPackModule;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.core.tests.util.ClassHierarchySummary;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.types.ClassLoaderReference;
+
+/**
+ * Check that a class hierarchy loaded from a memory-mapped class pack is the same as one loaded from the original class files.
+ */
+public class ClassPackTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ClassPackTest.class);
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+    Map<String, String> expected = ClassHierarchySummary.summarize(ClassHierarchyFactory.make(scope));
+
+    List<Module> application = scope.getModules(ClassLoaderReference.Application);
+    File pack = File.createTempFile("testdata", ".pack");
+    try {
+      ClassPackModule.write(pack, application.toArray(new Module[application.size()]));
+      AnalysisScope packScope = AnalysisScope.createJavaAnalysisScope();
+      for (Module m : scope.getModules(ClassLoaderReference.Primordial)) {
+        packScope.addToScope(ClassLoaderReference.Primordial, m);
+      }
+      packScope.addToScope(ClassLoaderReference.Application, new ClassPackModule(pack));
+      packScope.setExclusions(scope.getExclusions());
+      Assert.assertEquals(expected, ClassHierarchySummary.summarize(ClassHierarchyFactory.make(packScope)));
+    } finally {
+      pack.delete();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.ShrikeClass;
+import com.ibm.wala.core.tests.util.ClassHierarchySummary;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.Constants;
+import com.ibm.wala.shrikeCT.ClassWriter;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.warnings.Warnings;
+
+/**
+ * Check that parsing class files lazily gives the same class hierarchy, fields and methods as parsing them eagerly.
+ */
+public class LazyParsingTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(LazyParsingTest.class);
+  }
+
+  private static Map<String, String> summarize(boolean lazy) throws IOException, ClassHierarchyException {
+    AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+    ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+    factory.setLazyParsing(lazy);
+    return ClassHierarchySummary.summarize(ClassHierarchyFactory.make(scope, factory));
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    Assert.assertEquals(summarize(false), summarize(true));
+  }
+
+  @Test
+  public void testMembersNotParsed() throws IOException, ClassHierarchyException {
+    AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+    ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+    factory.setLazyParsing(true);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope, factory);
+    int classes = 0;
+    for (IClass klass : cha) {
+      if (klass.getClassLoader().getReference().equals(ClassLoaderReference.Application)) {
+        Assert.assertFalse(klass.toString(), ((ShrikeClass) klass).getReader().isMembersParsed());
+        classes++;
+      }
+    }
+    Assert.assertTrue(classes > 0);
+  }
+
+  /**
+   * A lazily loaded class whose member tables turn out to be corrupt has no members, and a warning says why.
+   */
+  @Test
+  public void testCorruptMembers() throws IOException, ClassHierarchyException {
+    ClassWriter w = new ClassWriter();
+    w.setName("p/A");
+    w.setSuperName("java/lang/Object");
+    w.setAccessFlags(Constants.ACC_PUBLIC);
+    byte[] valid = w.makeBytes();
+    File jar = File.createTempFile("classes", ".jar");
+    try {
+      try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+        out.putNextEntry(new JarEntry("p/A.class"));
+        // the class attributes are cut off
+        out.write(valid, 0, valid.length - 1);
+        out.closeEntry();
+      }
+      AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+      scope.addToScope(ClassLoaderReference.Application, new JarFile(jar));
+      ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+      factory.setLazyParsing(true);
+      IClassHierarchy cha = ClassHierarchyFactory.make(scope, factory);
+      IClass klass = cha.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, "Lp/A"));
+      Assert.assertNotNull(klass);
+      Assert.assertTrue(klass.getDeclaredMethods().isEmpty());
+      Assert.assertTrue(klass.getDeclaredInstanceFields().isEmpty());
+      Assert.assertTrue(Warnings.asString(), Warnings.asString().contains("InvalidMembers"));
+    } finally {
+      jar.delete();
+    }
+  }
+}
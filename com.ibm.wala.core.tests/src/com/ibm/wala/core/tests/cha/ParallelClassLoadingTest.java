@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.core.tests.util.ClassHierarchySummary;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.shrikeBT.Constants;
+import com.ibm.wala.shrikeCT.ClassWriter;
+import com.ibm.wala.types.ClassLoaderReference;
+
+/**
+ * Check that loading classes with several threads gives the same class hierarchy as loading them with one.
+ */
+public class ParallelClassLoadingTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelClassLoadingTest.class);
+  }
+
+  private static Map<String, String> summarize(AnalysisScope scope, int threads) throws ClassHierarchyException {
+    ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+    factory.setLoaderThreads(threads);
+    return ClassHierarchySummary.summarize(ClassHierarchyFactory.make(scope, factory));
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+    Assert.assertEquals(summarize(scope, 1), summarize(scope, 4));
+  }
+
+  /**
+   * A class whose first class file is corrupt is loaded from the next one, as it is sequentially.
+   */
+  @Test
+  public void testInvalidFirstEntry() throws IOException, ClassHierarchyException {
+    ClassWriter w = new ClassWriter();
+    w.setName("p/A");
+    w.setSuperName("java/lang/Object");
+    w.setAccessFlags(Constants.ACC_PUBLIC);
+    byte[] valid = w.makeBytes();
+    byte[] corrupt = Arrays.copyOf(valid, valid.length / 2);
+    Map<String, String> sequential = null;
+    for (int threads : new int[] { 1, 4 }) {
+      AnalysisScope scope = ClassHierarchySummary.makeTestDataScope();
+      scope.addToScope(ClassLoaderReference.Application, new ClassBytesModule("p/A", corrupt, valid));
+      Map<String, String> summary = summarize(scope, threads);
+      Assert.assertTrue(summary.containsKey("<Application,Lp/A>"));
+      if (sequential == null) {
+        sequential = summary;
+      } else {
+        Assert.assertEquals(sequential, summary);
+      }
+    }
+  }
+
+  /**
+   * A module with several class files for one class, as a jar file may have.
+   */
+  private static class ClassBytesModule implements Module {
+    private final List<ModuleEntry> entries = new ArrayList<>();
+
+    ClassBytesModule(final String className, byte[]... classFiles) {
+      for (final byte[] bytes : classFiles) {
+        entries.add(new ModuleEntry() {
+          @Override
+          public String getName() {
+            return className + ".class";
+          }
+
+          @Override
+          public boolean isClassFile() {
+            return true;
+          }
+
+          @Override
+          public boolean isSourceFile() {
+            return false;
+          }
+
+          @Override
+          public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+          }
+
+          @Override
+          public boolean isModuleFile() {
+            return false;
+          }
+
+          @Override
+          public Module asModule() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public String getClassName() {
+            return className;
+          }
+
+          @Override
+          public Module getContainer() {
+            return ClassBytesModule.this;
+          }
+
+          @Override
+          public int hashCode() {
+            // the loader keeps entries in a hash set; equal hash codes keep them in this order
+            return className.hashCode();
+          }
+
+          @Override
+          public boolean equals(Object obj) {
+            return this == obj;
+          }
+        });
+      }
+    }
+
+    @Override
+    public Iterator<? extends ModuleEntry> getEntries() {
+      return entries.iterator();
+    }
+  }
+}
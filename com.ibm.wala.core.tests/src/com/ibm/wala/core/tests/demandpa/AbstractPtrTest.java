@@ -45,6 +45,7 @@ import org.junit.Assert;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.NewSiteReference;
 import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.demandpa.alg.DemandPointsToService;
 import com.ibm.wala.demandpa.alg.DemandRefinementPointsTo;
 import com.ibm.wala.demandpa.alg.refinepolicy.NeverRefineCGPolicy;
 import com.ibm.wala.demandpa.alg.refinepolicy.OnlyArraysPolicy;
@@ -247,6 +248,26 @@ public abstract class AbstractPtrTest {
     return fullDemandPointsTo;
   }
 
+  /**
+   * @return a {@link DemandPointsToService} with the same inputs and refinement as {@link #makeDemandPointerAnalysis(String)}
+   */
+  protected DemandPointsToService makeDemandPointsToService(String mainClass) throws ClassHierarchyException,
+      IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha, mainClass);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    final IAnalysisCacheView analysisCache = new AnalysisCacheImpl();
+    CallGraphBuilder<InstanceKey> cgBuilder = Util.makeZeroCFABuilder(options, analysisCache, cha, scope);
+    final CallGraph cg = cgBuilder.makeCallGraph(options, null);
+    MemoryAccessMap mam = new PABasedMemoryAccessMap(cg, cgBuilder.getPointerAnalysis());
+    SSAPropagationCallGraphBuilder builder = Util.makeVanillaZeroOneCFABuilder(options, analysisCache, cha, scope);
+    DemandPointsToService service = new DemandPointsToService(cg, builder, mam, cha, options, getStateMachineFactory());
+    service.setRefinementPolicyFactory(new SinglePassRefinementPolicy.Factory(new OnlyArraysPolicy(), new NeverRefineCGPolicy()));
+    return service;
+  }
+
   /**
    * @param scope
    * @throws ClassHierarchyException
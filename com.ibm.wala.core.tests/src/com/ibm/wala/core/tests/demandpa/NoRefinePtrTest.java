@@ -38,9 +38,17 @@
 package com.ibm.wala.core.tests.demandpa;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Test;
 
+import com.ibm.wala.demandpa.alg.DemandPointsToService;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.util.CancelException;
 
@@ -150,6 +158,39 @@ public class NoRefinePtrTest extends AbstractPtrTest {
     doFlowsToSizeTest(TestInfo.FLOWSTO_TEST_ARRAYSET_ITER, 8);
   }
 
+  @Test
+  public void testServiceCachesAnswers() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+      InterruptedException {
+    final DemandPointsToService service = makeDemandPointsToService(TestInfo.TEST_HASH_SET);
+    CGNode mainMethod = AbstractPtrTest.findMainMethod(service.getBaseCallGraph());
+    final PointerKey keyToQuery = AbstractPtrTest.getParam(mainMethod, "testThisVar", service.getHeapModel());
+    final List<Collection<InstanceKey>> answers = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(new Thread(() -> {
+        Collection<InstanceKey> pointsTo = service.getPointsTo(keyToQuery);
+        synchronized (answers) {
+          answers.add(pointsTo);
+        }
+      }));
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    Assert.assertEquals(threads.size(), answers.size());
+    for (Collection<InstanceKey> pointsTo : answers) {
+      Assert.assertEquals(2, pointsTo.size());
+    }
+    Assert.assertEquals(1, service.getNumCachedAnswers());
+
+    service.clearCache();
+    Assert.assertEquals(0, service.getNumCachedAnswers());
+    Assert.assertEquals(2, service.getPointsTo(keyToQuery).size());
+  }
+
   // don't test this until we have a way to handle different library versions
 //  @Test
 //  public void testFlowsToHashSet() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.ir;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.util.TestDataMethods;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ssa.BoundedAuxiliaryCache;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAOptions;
+
+/**
+ * Tests for {@link BoundedAuxiliaryCache}
+ */
+public class BoundedAuxiliaryCacheTest extends WalaTestCase {
+
+  private static List<IMethod> methods;
+
+  public static void main(String[] args) {
+    justThisTest(BoundedAuxiliaryCacheTest.class);
+  }
+
+  @BeforeClass
+  public static void beforeClass() throws ClassHierarchyException, IOException {
+    methods = TestDataMethods.concreteMethods(100);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    methods = null;
+  }
+
+  private static void checkBudget(BoundedAuxiliaryCache.Policy policy) {
+    SSAOptions options = new AnalysisOptions().getSSAOptions();
+    BoundedAuxiliaryCache cache = new BoundedAuxiliaryCache(10, policy, o -> 1);
+    for (IMethod m : methods) {
+      Assert.assertNull(cache.find(m, Everywhere.EVERYWHERE, options));
+      cache.cache(m, Everywhere.EVERYWHERE, options, m);
+      Assert.assertTrue(cache.size() <= 10);
+      Assert.assertTrue(cache.getWeight() <= 10);
+    }
+    Assert.assertEquals(methods.size(), cache.getMissCount());
+    Assert.assertEquals(methods.size() - cache.size(), cache.getEvictionCount());
+
+    IMethod last = methods.get(methods.size() - 1);
+    Assert.assertSame(last, cache.find(last, Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(1, cache.getHitCount());
+    cache.invalidate(last, Everywhere.EVERYWHERE);
+    Assert.assertNull(cache.find(last, Everywhere.EVERYWHERE, options));
+  }
+
+  @Test
+  public void testLRU() {
+    checkBudget(BoundedAuxiliaryCache.Policy.LRU);
+  }
+
+  @Test
+  public void testTinyLFU() {
+    checkBudget(BoundedAuxiliaryCache.Policy.TINY_LFU);
+  }
+
+  @Test
+  public void testTinyLFUAdmission() {
+    SSAOptions options = new AnalysisOptions().getSSAOptions();
+    BoundedAuxiliaryCache cache = new BoundedAuxiliaryCache(100, BoundedAuxiliaryCache.Policy.TINY_LFU, o -> (Integer) o);
+    IMethod cold = methods.get(0);
+    IMethod hot = methods.get(1);
+    IMethod candidate = methods.get(2);
+    cache.cache(cold, Everywhere.EVERYWHERE, options, 49);
+    cache.cache(hot, Everywhere.EVERYWHERE, options, 49);
+    for (int i = 0; i < 10; i++) {
+      cache.find(hot, Everywhere.EVERYWHERE, options);
+    }
+    for (int i = 0; i < 3; i++) {
+      cache.find(candidate, Everywhere.EVERYWHERE, options);
+    }
+    // the candidate needs the room of both entries; it is more popular than the cold one but not the hot one, so nothing is
+    // evicted
+    cache.cache(candidate, Everywhere.EVERYWHERE, options, 98);
+    Assert.assertEquals(98, cache.getWeight());
+    Assert.assertNull(cache.find(candidate, Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(49, cache.find(cold, Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(49, cache.find(hot, Everywhere.EVERYWHERE, options));
+  }
+
+  @Test
+  public void testAnalysisCache() {
+    BoundedAuxiliaryCache irs = new BoundedAuxiliaryCache(1 << 20, BoundedAuxiliaryCache.Policy.TINY_LFU);
+    BoundedAuxiliaryCache dus = new BoundedAuxiliaryCache(1 << 20, BoundedAuxiliaryCache.Policy.TINY_LFU);
+    AnalysisCacheImpl cache = new AnalysisCacheImpl(new DefaultIRFactory(), new AnalysisOptions().getSSAOptions(), irs, dus);
+    IMethod m = methods.get(0);
+    IR ir = cache.getIR(m);
+    Assert.assertSame(ir, cache.getIR(m));
+    Assert.assertSame(cache.getDefUse(ir), cache.getDefUse(ir));
+    Assert.assertEquals(1, irs.getHitCount());
+    Assert.assertEquals(1, dus.getHitCount());
+  }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.ir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.util.TestDataMethods;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.IRStore;
+import com.ibm.wala.ssa.SSAOptions;
+
+/**
+ * Tests for {@link IRStore}
+ */
+public class IRStoreTest extends WalaTestCase {
+
+  private static List<IMethod> methods;
+
+  public static void main(String[] args) {
+    justThisTest(IRStoreTest.class);
+  }
+
+  @BeforeClass
+  public static void beforeClass() throws ClassHierarchyException, IOException {
+    methods = TestDataMethods.concreteMethods(500);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    methods = null;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    SSAOptions options = new AnalysisOptions().getSSAOptions();
+    DefaultIRFactory factory = new DefaultIRFactory();
+    File f = File.createTempFile("irs", ".dat");
+    f.deleteOnExit();
+    List<IMethod> stored = new ArrayList<>();
+    try (IRStore store = new IRStore(f)) {
+      for (IMethod m : methods) {
+        if (store.store(factory.makeIR(m, Everywhere.EVERYWHERE, options))) {
+          stored.add(m);
+        }
+      }
+    }
+    Assert.assertFalse(stored.isEmpty());
+
+    try (IRStore store = new IRStore(f)) {
+      Assert.assertEquals(stored.size(), store.size());
+      for (IMethod m : stored) {
+        IR original = factory.makeIR(m, Everywhere.EVERYWHERE, options);
+        IR loaded = store.load(m, options);
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(original.toString(), loaded.toString());
+        Assert.assertEquals(original.getLocalMap().getLocalNames(), loaded.getLocalMap().getLocalNames());
+      }
+    }
+  }
+
+  @Test
+  public void testSSACache() throws IOException {
+    File f = File.createTempFile("irs", ".dat");
+    f.deleteOnExit();
+    List<IMethod> some = methods.subList(0, 20);
+    try (IRStore store = new IRStore(f)) {
+      AnalysisCacheImpl cache = new AnalysisCacheImpl(new DefaultIRFactory());
+      cache.getSSACache().setIRStore(store);
+      List<String> built = new ArrayList<>();
+      for (IMethod m : some) {
+        built.add(cache.getIR(m).toString());
+      }
+      int size = store.size();
+      Assert.assertTrue(size > 0);
+
+      cache = new AnalysisCacheImpl(new DefaultIRFactory());
+      cache.getSSACache().setIRStore(store);
+      for (int i = 0; i < some.size(); i++) {
+        Assert.assertEquals(built.get(i), cache.getIR(some.get(i)).toString());
+      }
+      Assert.assertEquals(size, store.size());
+    }
+  }
+}
@@ -78,4 +78,22 @@ public class DynamicCallGraphTest extends DynamicCallGraphTestBase {
     checkEdges(staticCG);
   }
 
+  @Test
+  public void testStreamingGraph() throws IOException, ClassNotFoundException, InvalidClassFileException, FailureException, SecurityException, IllegalArgumentException, ClassHierarchyException, CancelException, InterruptedException  {
+    testStreamingRuntime = true;
+    instrument(testJarLocation);
+    run("dynamicCG.MainClass", null);
+    CallGraph staticCG = staticCG("LdynamicCG/MainClass", null);
+    checkEdges(staticCG);
+  }
+
+  @Test
+  public void testStreamingCallbacks() throws IOException, ClassNotFoundException, InvalidClassFileException, FailureException, SecurityException, IllegalArgumentException, ClassHierarchyException, CancelException, InterruptedException  {
+    testStreamingRuntime = true;
+    instrument(testJarLocation);
+    run("dynamicCG.CallbacksMainClass", null);
+    CallGraph staticCG = staticCG("LdynamicCG/CallbacksMainClass", null);
+    checkEdges(staticCG);
+  }
+
 }
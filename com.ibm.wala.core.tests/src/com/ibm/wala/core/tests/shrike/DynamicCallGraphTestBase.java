@@ -33,7 +33,9 @@ import com.ibm.wala.core.tests.util.WalaTestCase;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.properties.WalaProperties;
+import com.ibm.wala.shrike.cg.DynamicCallGraph;
 import com.ibm.wala.shrike.cg.OfflineDynamicCallGraph;
+import com.ibm.wala.shrike.cg.StreamingRuntime;
 import com.ibm.wala.shrikeBT.analysis.Analyzer.FailureException;
 import com.ibm.wala.shrikeCT.InvalidClassFileException;
 import com.ibm.wala.types.ClassLoaderReference;
@@ -41,12 +43,18 @@ import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.Selector;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.io.TemporaryFile;
 
 public abstract class DynamicCallGraphTestBase extends WalaTestCase {
   
   protected boolean testPatchCalls = false;
+
+  /**
+   * instrument for {@link StreamingRuntime} rather than the text trace of {@link com.ibm.wala.shrike.cg.Runtime}
+   */
+  protected boolean testStreamingRuntime = false;
   
   protected static String getClasspathEntry(String elt) {
     for (String s : System.getProperty("java.class.path").split(File.pathSeparator)) {
@@ -92,6 +100,9 @@ public abstract class DynamicCallGraphTestBase extends WalaTestCase {
       if (testPatchCalls) {
         args.add("--patch-calls");
       }
+      // always name the runtime: OfflineDynamicCallGraph keeps the last one in a static field
+      args.addAll(Arrays.asList("--runtime",
+          testStreamingRuntime ? StreamingRuntime.class.getName() : com.ibm.wala.shrike.cg.Runtime.class.getName()));
       OfflineDynamicCallGraph.main(args.toArray(new String[ args.size() ]));
       Assert.assertTrue("expected to create /tmp/test.jar", new File(instrumentedJarLocation).exists());   
       instrumentedJarBuilt = true;
@@ -184,48 +195,67 @@ public abstract class DynamicCallGraphTestBase extends WalaTestCase {
     Assert.assertTrue("could not find " + notFound, notFound.isEmpty());
   }
  
-  protected void check(CallGraph staticCG, EdgesTest test, Predicate<MethodReference> filter) throws IOException {
-    int lines = 0;
-    try (final BufferedReader dynamicEdgesFile = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(cgLocation))))) {
-      String line;
-      loop: while ((line = dynamicEdgesFile.readLine()) != null) {
-        if (line.startsWith("call to") || line.startsWith("return from")) {
-          continue;
+  /**
+   * @return the edges of the dynamic call graph as lines of the text trace, without the call and return lines
+   */
+  private List<String> dynamicEdges() throws IOException {
+    List<String> result = new ArrayList<>();
+    if (testStreamingRuntime) {
+      DynamicCallGraph dcg = DynamicCallGraph.read(new File(cgLocation));
+      for (DynamicCallGraph.Method caller : dcg) {
+        String from = caller.getSelector() == null ? caller.getClassName() : caller.getClassName() + "\t" + caller.getSelector();
+        for (DynamicCallGraph.Method callee : Iterator2Iterable.make(dcg.getSuccNodes(caller))) {
+          result.add(from + "\t" + callee.getClassName() + "\t" + callee.getSelector());
         }
-        
-        lines++;
-        StringTokenizer edge = new StringTokenizer(line, "\t");
-        
-        CGNode caller;
-        String callerClass = edge.nextToken();
-        if ("root".equals(callerClass)) {
-          caller = staticCG.getFakeRootNode();
-        } else if ("clinit".equals(callerClass)) {
-            caller = staticCG.getFakeWorldClinitNode();
-        } else if ("callbacks".equals(callerClass)) {
-            continue loop;
-        } else {
-          String callerMethod = edge.nextToken();
-          if (callerMethod.startsWith("lambda$")) {
-            continue loop;
-          }
-          MethodReference callerRef = MethodReference.findOrCreate(TypeReference.findOrCreate(ClassLoaderReference.Application, "L" + callerClass), Selector.make(callerMethod));
-          Set<CGNode> nodes = staticCG.getNodes(callerRef);
-          if (! filter.test(callerRef)) {
-            continue loop;
+      }
+    } else {
+      try (final BufferedReader dynamicEdgesFile = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(cgLocation))))) {
+        String line;
+        while ((line = dynamicEdgesFile.readLine()) != null) {
+          if (!line.startsWith("call to") && !line.startsWith("return from")) {
+            result.add(line);
           }
-          Assert.assertEquals(callerMethod, 1, nodes.size());
-          caller = nodes.iterator().next();
         }
-        
-        String calleeClass = edge.nextToken();
-        String calleeMethod = edge.nextToken();
-        MethodReference callee = callee(calleeClass, calleeMethod);
-        if (! filter.test(callee)) {
+      }
+    }
+    return result;
+  }
+
+  protected void check(CallGraph staticCG, EdgesTest test, Predicate<MethodReference> filter) throws IOException {
+    int lines = 0;
+    loop: for (String line : dynamicEdges()) {
+      lines++;
+      StringTokenizer edge = new StringTokenizer(line, "\t");
+      
+      CGNode caller;
+      String callerClass = edge.nextToken();
+      if ("root".equals(callerClass)) {
+        caller = staticCG.getFakeRootNode();
+      } else if ("clinit".equals(callerClass)) {
+          caller = staticCG.getFakeWorldClinitNode();
+      } else if ("callbacks".equals(callerClass)) {
+          continue loop;
+      } else {
+        String callerMethod = edge.nextToken();
+        if (callerMethod.startsWith("lambda$")) {
+          continue loop;
+        }
+        MethodReference callerRef = MethodReference.findOrCreate(TypeReference.findOrCreate(ClassLoaderReference.Application, "L" + callerClass), Selector.make(callerMethod));
+        Set<CGNode> nodes = staticCG.getNodes(callerRef);
+        if (! filter.test(callerRef)) {
           continue loop;
         }
-        test.edgesTest(staticCG, caller, callee);
+        Assert.assertEquals(callerMethod, 1, nodes.size());
+        caller = nodes.iterator().next();
+      }
+      
+      String calleeClass = edge.nextToken();
+      String calleeMethod = edge.nextToken();
+      MethodReference callee = callee(calleeClass, calleeMethod);
+      if (! filter.test(callee)) {
+        continue loop;
       }
+      test.edgesTest(staticCG, caller, callee);
     }
     
     Assert.assertTrue("more than one edge", lines > 0);
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.shrike;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.shrikeBT.ConstantInstruction;
+import com.ibm.wala.shrikeBT.Instruction;
+import com.ibm.wala.shrikeBT.MethodData;
+import com.ibm.wala.shrikeBT.MethodEditor;
+import com.ibm.wala.shrikeBT.Util;
+import com.ibm.wala.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrikeBT.shrikeCT.OfflineInstrumenter;
+import com.ibm.wala.shrikeBT.tools.OfflineInstrumenterBase;
+import com.ibm.wala.shrikeCT.ClassWriter;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+
+/**
+ * Test that {@link OfflineInstrumenter#instrumentClasses(OfflineInstrumenter.ClassTransformer, int)} writes the same JAR as the
+ * {@link OfflineInstrumenter#nextClass()} loop.
+ */
+public class OfflineInstrumenterTest extends WalaTestCase {
+
+  private static final Instruction getSysErr = Util.makeGet(System.class, "err");
+
+  private static final Instruction callPrintln = Util.makeInvoke(PrintStream.class, "println", new Class<?>[] { String.class });
+
+  private final String testJarLocation = DynamicCallGraphTestBase.getClasspathEntry("com.ibm.wala.core.testdata");
+
+  @Test
+  public void testParallelInstrumentation() throws IOException, InvalidClassFileException {
+    compare(false);
+  }
+
+  @Test
+  public void testParallelInstrumentationPassUnmodified() throws IOException, InvalidClassFileException {
+    compare(true);
+  }
+
+  private void compare(boolean passUnmodifiedClasses) throws IOException, InvalidClassFileException {
+    File sequential = File.createTempFile("sequential", ".jar");
+    File parallel = File.createTempFile("parallel", ".jar");
+    try {
+      int sequentialCount = instrument(sequential, 0, passUnmodifiedClasses);
+      int parallelCount = instrument(parallel, 4, passUnmodifiedClasses);
+      Assert.assertEquals(sequentialCount, parallelCount);
+
+      List<String> expectedNames = new ArrayList<>();
+      List<byte[]> expectedBytes = new ArrayList<>();
+      readJar(sequential, expectedNames, expectedBytes);
+      List<String> actualNames = new ArrayList<>();
+      List<byte[]> actualBytes = new ArrayList<>();
+      readJar(parallel, actualNames, actualBytes);
+
+      // the transformer skips some classes and instruments others, so neither output is empty
+      Assert.assertTrue(sequentialCount > 0);
+      Assert.assertEquals(expectedNames, actualNames);
+      for (int i = 0; i < expectedNames.size(); i++) {
+        Assert.assertTrue(expectedNames.get(i), Arrays.equals(expectedBytes.get(i), actualBytes.get(i)));
+      }
+    } finally {
+      sequential.delete();
+      parallel.delete();
+    }
+  }
+
+  /**
+   * Instrument the test data JAR into output, with the {@link OfflineInstrumenter#nextClass()} loop if threads is 0. A first
+   * traversal ignores every seventh class.
+   *
+   * @return the number of classes instrumented
+   */
+  private int instrument(File output, int threads, boolean passUnmodifiedClasses) throws IOException, InvalidClassFileException {
+    OfflineInstrumenter instrumenter = new OfflineInstrumenter();
+    instrumenter.addInputJar(new File(testJarLocation));
+    instrumenter.setOutputJar(output);
+    instrumenter.setPassUnmodifiedClasses(passUnmodifiedClasses);
+    instrumenter.beginTraversal();
+    int classes = 0;
+    while (instrumenter.nextClass() != null) {
+      if (classes++ % 7 == 0) {
+        instrumenter.setIgnore();
+      }
+    }
+    instrumenter.beginTraversal();
+    int result = 0;
+    if (threads == 0) {
+      ClassInstrumenter ci;
+      while ((ci = instrumenter.nextClass()) != null) {
+        ClassWriter w = traceMethodEntries(ci);
+        if (w != null) {
+          instrumenter.outputModifiedClass(ci, w);
+          result++;
+        }
+      }
+    } else {
+      result = instrumenter.instrumentClasses(OfflineInstrumenterTest::traceMethodEntries, threads);
+    }
+    instrumenter.close();
+    return result;
+  }
+
+  /**
+   * Add a System.err.println() at the entry of every method, except in the classes whose name has an even hash code, for which
+   * the class is not output.
+   */
+  private static ClassWriter traceMethodEntries(ClassInstrumenter ci) throws InvalidClassFileException {
+    String className = ci.getReader().getName();
+    if (className.hashCode() % 2 == 0) {
+      return null;
+    }
+    for (int m = 0; m < ci.getReader().getMethodCount(); m++) {
+      MethodData d = ci.visitMethod(m);
+      if (d != null) {
+        final String msg = "Call to " + className + "." + ci.getReader().getMethodName(m);
+        MethodEditor me = new MethodEditor(d);
+        me.beginPass();
+        me.insertAtStart(new MethodEditor.Patch() {
+          @Override
+          public void emitTo(MethodEditor.Output w) {
+            w.emit(getSysErr);
+            w.emit(ConstantInstruction.makeString(msg));
+            w.emit(callPrintln);
+          }
+        });
+        me.applyPatches();
+        me.endPass();
+      }
+    }
+    return ci.isChanged() ? ci.emitClass() : null;
+  }
+
+  private static void readJar(File jar, List<String> names, List<byte[]> contents) throws IOException {
+    try (ZipInputStream in = new ZipInputStream(new FileInputStream(jar))) {
+      for (ZipEntry e = in.getNextEntry(); e != null; e = in.getNextEntry()) {
+        names.add(e.getName());
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        OfflineInstrumenterBase.copyStream(in, b);
+        contents.add(b.toByteArray());
+      }
+    }
+  }
+}
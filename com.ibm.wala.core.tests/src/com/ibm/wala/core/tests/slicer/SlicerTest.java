@@ -16,8 +16,11 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Test;
@@ -44,6 +47,7 @@ import com.ibm.wala.ipa.callgraph.propagation.cfa.nCFABuilder;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.modref.ModRef;
 import com.ibm.wala.ipa.slicer.MethodEntryStatement;
 import com.ibm.wala.ipa.slicer.NormalStatement;
 import com.ibm.wala.ipa.slicer.SDG;
@@ -66,6 +70,7 @@ import com.ibm.wala.ssa.SSAReturnInstruction;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.Descriptor;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.config.FileOfClasses;
@@ -150,6 +155,91 @@ public class SlicerTest {
     Assert.assertEquals(16, i);
   }
 
+  @Test
+  public void testSliceWithResidentStatementBudget() throws ClassHierarchyException, IllegalArgumentException, CancelException,
+      IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode main = findMainMethod(cg);
+
+    Statement s = findCallTo(main, "println");
+    SDG<InstanceKey> sdg = new SDG<>(cg, builder.getPointerAnalysis(), DataDependenceOptions.FULL, ControlDependenceOptions.FULL);
+    Collection<Statement> expected = Slicer.computeBackwardSlice(sdg, s);
+    // with room for a single PDG, every PDG is released and rebuilt as the slicer moves between methods
+    SDG<InstanceKey> bounded = new SDG<>(cg, builder.getPointerAnalysis(), DataDependenceOptions.FULL,
+        ControlDependenceOptions.FULL);
+    bounded.setResidentStatementBudget(1);
+    Collection<Statement> slice = Slicer.computeBackwardSlice(bounded, s);
+    Assert.assertEquals(HashSetFactory.make(expected), HashSetFactory.make(slice));
+  }
+
+  @Test
+  public void testSliceWithModRefThreads() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode main = findMainMethod(cg);
+
+    Statement s = findCallTo(main, "println");
+    SDG<InstanceKey> sdg = new SDG<>(cg, builder.getPointerAnalysis(), DataDependenceOptions.FULL, ControlDependenceOptions.FULL);
+    Collection<Statement> expected = Slicer.computeBackwardSlice(sdg, s);
+    ModRef<InstanceKey> modRef = ModRef.make();
+    modRef.setThreads(4);
+    SDG<InstanceKey> parallel = new SDG<>(cg, builder.getPointerAnalysis(), modRef, DataDependenceOptions.FULL,
+        ControlDependenceOptions.FULL);
+    Collection<Statement> slice = Slicer.computeBackwardSlice(parallel, s);
+    // shut down the pool shared by the mod-ref scans and all the PDGs
+    ExecutorService pool = modRef.getExecutor();
+    modRef.shutdown();
+    Assert.assertTrue(pool.isShutdown());
+    Assert.assertEquals(HashSetFactory.make(expected), HashSetFactory.make(slice));
+  }
+
+  @Test
+  public void testBackwardSlices() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        TestConstants.SLICE_TESTRECURSION);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    // slice from every instruction of the application
+    Collection<Statement> seeds = new ArrayList<>();
+    for (CGNode n : cg) {
+      if (n.getMethod().getDeclaringClass().getClassLoader().getReference().equals(ClassLoaderReference.Application)) {
+        SSAInstruction[] instructions = n.getIR().getInstructions();
+        for (int i = 0; i < instructions.length; i++) {
+          if (instructions[i] != null) {
+            seeds.add(new NormalStatement(n, i));
+          }
+        }
+      }
+    }
+    SDG<InstanceKey> sdg = new SDG<>(cg, builder.getPointerAnalysis(), DataDependenceOptions.FULL, ControlDependenceOptions.FULL);
+    Map<Statement, Collection<Statement>> slices = Slicer.computeBackwardSlices(sdg, seeds);
+    Assert.assertEquals(seeds.size(), slices.size());
+    for (Statement s : seeds) {
+      Collection<Statement> expected = Slicer.computeBackwardSlice(sdg, s);
+      Assert.assertEquals(s.toString(), HashSetFactory.make(expected), HashSetFactory.make(slices.get(s)));
+    }
+  }
+
   @Test
   public void testSlice2() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
     AnalysisScope scope = findOrCreateAnalysisScope();
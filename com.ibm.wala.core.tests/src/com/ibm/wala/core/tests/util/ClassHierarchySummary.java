@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * Describe the classes of a class hierarchy as strings, so that tests can check that two ways of loading the same classes agree.
+ */
+public class ClassHierarchySummary {
+
+  private static final ClassLoader MY_CLASSLOADER = ClassHierarchySummary.class.getClassLoader();
+
+  /**
+   * @return a scope of the test data with the J2SE exclusions
+   */
+  public static AnalysisScope makeTestDataScope() throws IOException {
+    return AnalysisScopeReader.readJavaScope(TestConstants.WALA_TESTDATA,
+        (new FileProvider()).getFile("J2SEClassHierarchyExclusions.txt"), MY_CLASSLOADER);
+  }
+
+  /**
+   * @return for each class, its superclass, interfaces, modifiers, fields and method selectors
+   */
+  public static Map<String, String> summarize(IClassHierarchy cha) {
+    Map<String, String> result = new TreeMap<>();
+    for (IClass klass : cha) {
+      result.put(klass.toString(), describe(klass, false));
+    }
+    return result;
+  }
+
+  /**
+   * @return for each class of loader, what {@link #summarize(IClassHierarchy)} says and the number of instructions of each
+   *         bytecode method
+   */
+  public static Map<String, String> summarizeWithInstructions(IClassHierarchy cha, ClassLoaderReference loader) {
+    Map<String, String> result = new TreeMap<>();
+    for (IClass klass : cha) {
+      if (klass.getClassLoader().getReference().equals(loader)) {
+        result.put(klass.toString(), describe(klass, true));
+      }
+    }
+    return result;
+  }
+
+  private static String describe(IClass klass, boolean instructions) {
+    // not every IField has a toString(), and the order of members may depend on how the class was loaded
+    Set<String> members = new TreeSet<>();
+    for (IField f : klass.getAllFields()) {
+      members.add(f.getReference().toString());
+    }
+    for (IMethod m : klass.getDeclaredMethods()) {
+      String member = m.getSelector().toString();
+      if (instructions && m instanceof IBytecodeMethod && !m.isAbstract() && !m.isNative()) {
+        try {
+          member += "=" + ((IBytecodeMethod<?>) m).getInstructions().length;
+        } catch (InvalidClassFileException e) {
+          member += "=" + e;
+        }
+      }
+      members.add(member);
+    }
+    return klass.getSuperclass() + " " + klass.getDirectInterfaces() + " " + klass.getModifiers() + " " + members;
+  }
+}
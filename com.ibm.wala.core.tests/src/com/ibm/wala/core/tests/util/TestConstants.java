@@ -36,6 +36,8 @@ public interface TestConstants {
 
   public final static String JAVA_CUP_MAIN = "Ljava_cup/Main";
 
+  public final static String INCREMENTAL_MAIN = "Lincremental/Main";
+
   public final static String MULTI_DIM_MAIN = "LmultiDim/TestMultiDim";
 
   public final static String ARRAY_ALIAS_MAIN = "LarrayAlias/TestArrayAlias";
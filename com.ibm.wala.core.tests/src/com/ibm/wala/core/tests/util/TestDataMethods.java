@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+
+/**
+ * Methods with bodies from the test data, for tests that need many IRs.
+ */
+public class TestDataMethods {
+
+  /**
+   * @return up to count methods, neither abstract nor native, of the classes in {@link ClassHierarchySummary#makeTestDataScope()}
+   */
+  public static List<IMethod> concreteMethods(int count) throws ClassHierarchyException, IOException {
+    IClassHierarchy cha = ClassHierarchyFactory.make(ClassHierarchySummary.makeTestDataScope());
+    List<IMethod> methods = new ArrayList<>();
+    for (IClass klass : cha) {
+      for (IMethod m : klass.getDeclaredMethods()) {
+        if (!m.isAbstract() && !m.isNative()) {
+          methods.add(m);
+          if (methods.size() == count) {
+            return methods;
+          }
+        }
+      }
+    }
+    return methods;
+  }
+}
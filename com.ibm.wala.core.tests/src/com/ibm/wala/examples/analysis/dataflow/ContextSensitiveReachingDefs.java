@@ -13,6 +13,7 @@ package com.ibm.wala.examples.analysis.dataflow;
 import java.util.Collection;
 
 import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.dataflow.IFDS.DemandICFGSupergraph;
 import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
 import com.ibm.wala.dataflow.IFDS.IFlowFunction;
 import com.ibm.wala.dataflow.IFDS.IMergeFunction;
@@ -35,6 +36,7 @@ import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSAPutInstruction;
 import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.intset.IntSet;
@@ -68,6 +70,14 @@ public class ContextSensitiveReachingDefs {
     this.supergraph = ICFGSupergraph.make(cg);
   }
 
+  /**
+   * @param supergraph supergraph over the exploded CFGs of the nodes of cg, e.g. a {@link DemandICFGSupergraph}
+   */
+  public ContextSensitiveReachingDefs(CallGraph cg, ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> supergraph) {
+    this.cha = cg.getClassHierarchy();
+    this.supergraph = supergraph;
+  }
+
   /**
    * controls numbering of putstatic instructions for use in tabulation
    */
@@ -285,8 +295,15 @@ public class ContextSensitiveReachingDefs {
    * perform the tabulation analysis and return the {@link TabulationResult}
    */
   public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> analyze() {
-    PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> solver = PartiallyBalancedTabulationSolver
-        .createPartiallyBalancedTabulationSolver(new ReachingDefsProblem(), null);
+    return analyze(1);
+  }
+
+  /**
+   * perform the tabulation analysis with the given number of solver threads and return the {@link TabulationResult}
+   */
+  public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> analyze(int solverThreads) {
+    PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> solver = makeSolver();
+    solver.setSolverThreads(solverThreads);
     TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> result = null;
     try {
       result = solver.solve();
@@ -298,6 +315,21 @@ public class ContextSensitiveReachingDefs {
 
   }
 
+  /**
+   * @return a solver for the analysis, to be configured before calling {@link PartiallyBalancedTabulationSolver#solve()}
+   */
+  public PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> makeSolver() {
+    return makeSolver(null);
+  }
+
+  /**
+   * @return a solver for the analysis that checks monitor for cancellation
+   */
+  public PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> makeSolver(
+      IProgressMonitor monitor) {
+    return PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(new ReachingDefsProblem(), monitor);
+  }
+
   public ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> getSupergraph() {
     return supergraph;
   }
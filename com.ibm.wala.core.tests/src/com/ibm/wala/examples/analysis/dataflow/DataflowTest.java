@@ -11,8 +11,14 @@
 package com.ibm.wala.examples.analysis.dataflow;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -23,7 +29,11 @@ import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
 import com.ibm.wala.core.tests.util.TestConstants;
 import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.DemandICFGSupergraph;
+import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
 import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.dataflow.IFDS.TabulationCancelException;
 import com.ibm.wala.dataflow.IFDS.TabulationResult;
 import com.ibm.wala.dataflow.graph.BitVectorSolver;
 import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
@@ -50,6 +60,9 @@ import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.NullProgressMonitor;
+import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.config.FileOfClasses;
@@ -208,4 +221,201 @@ public class DataflowTest extends WalaTestCase {
       }
     }
   }
+
+  @Test
+  public void testContextSensitiveParallel() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> sequential = reachingDefs.analyze();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> parallel = reachingDefs.analyze(4);
+    Assert.assertEquals(HashSetFactory.make(sequential.getSupergraphNodesReached()),
+        HashSetFactory.make(parallel.getSupergraphNodesReached()));
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : reachingDefs.getSupergraph()) {
+      Assert.assertTrue(bb.toString(), sequential.getResult(bb).sameValue(parallel.getResult(bb)));
+    }
+  }
+
+  @Test
+  public void testContextSensitiveParallelCanceled() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg);
+    // cancel after the workers have polled the monitor a few times
+    final AtomicInteger polls = new AtomicInteger();
+    IProgressMonitor monitor = new NullProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return polls.incrementAndGet() > 10;
+      }
+
+      @Override
+      public String getCancelMessage() {
+        return "canceled";
+      }
+    };
+    PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> solver = reachingDefs
+        .makeSolver(monitor);
+    solver.setSolverThreads(4);
+    try {
+      solver.solve();
+      Assert.fail("tabulation should have been canceled");
+    } catch (TabulationCancelException e) {
+      Assert.assertNotNull(e.getResult());
+    }
+  }
+
+  @Test
+  public void testContextSensitiveSpilled() throws IllegalArgumentException, CancelException, IOException {
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> inMemory = reachingDefs.analyze();
+    PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> solver = reachingDefs
+        .makeSolver();
+    File spillDirectory = Files.createTempDirectory("spill").toFile();
+    solver.setResidentEdgeBudget(10, spillDirectory);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> spilled = solver.solve();
+    Assert.assertEquals(HashSetFactory.make(inMemory.getSupergraphNodesReached()),
+        HashSetFactory.make(spilled.getSupergraphNodesReached()));
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : reachingDefs.getSupergraph()) {
+      Assert.assertTrue(bb.toString(), inMemory.getResult(bb).sameValue(spilled.getResult(bb)));
+    }
+    // the spill file lives until the solver is disposed of
+    Assert.assertEquals(1, spillDirectory.list().length);
+    solver.dispose();
+    Assert.assertEquals(0, spillDirectory.list().length);
+    Assert.assertTrue(spillDirectory.delete());
+  }
+
+  @Test
+  public void testContextSensitiveSpilledWithinBudget() throws IllegalArgumentException, CancelException, IOException {
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg);
+    File spillDirectory = Files.createTempDirectory("spill").toFile();
+    // count all edges with a budget that is never exceeded
+    PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> unbounded = reachingDefs
+        .makeSolver();
+    unbounded.setResidentEdgeBudget(Long.MAX_VALUE, spillDirectory);
+    unbounded.solve();
+    long total = unbounded.getResidentEdgeCount();
+    unbounded.dispose();
+
+    long budget = total / 2;
+    PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> solver = reachingDefs
+        .makeSolver();
+    solver.setResidentEdgeBudget(budget, spillDirectory);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> spilled = solver.solve();
+    Assert.assertTrue(solver.getResidentEdgeCount() + " > " + budget, solver.getResidentEdgeCount() <= budget);
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : reachingDefs.getSupergraph()) {
+      spilled.getResult(bb);
+      Assert.assertTrue(solver.getResidentEdgeCount() + " > " + budget, solver.getResidentEdgeCount() <= budget);
+    }
+    solver.dispose();
+    Assert.assertTrue(spillDirectory.delete());
+  }
+
+  @Test
+  public void testContextSensitiveDemand() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs precomputed = new ContextSensitiveReachingDefs(cg);
+    ContextSensitiveReachingDefs demand = new ContextSensitiveReachingDefs(cg, DemandICFGSupergraph.make(cg));
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> expected = precomputed.analyze();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> actual = demand.analyze();
+    Assert.assertEquals(precomputed.getSupergraph().getNumberOfNodes(), demand.getSupergraph().getNumberOfNodes());
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : precomputed.getSupergraph()) {
+      // the two supergraphs build their own CFGs, so compare blocks by number and facts by value
+      BasicBlockInContext<IExplodedBasicBlock> demandBB = demand.getSupergraph().getLocalBlock(bb.getNode(),
+          bb.getDelegate().getNumber());
+      Assert.assertEquals(bb.toString(), mappedFacts(precomputed, expected.getResult(bb)),
+          mappedFacts(demand, actual.getResult(demandBB)));
+    }
+  }
+
+  @Test
+  public void testDemandSupergraphEdges() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
+        "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder = Util.makeZeroOneCFABuilder(options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ICFGSupergraph precomputed = ICFGSupergraph.make(cg);
+    DemandICFGSupergraph demand = DemandICFGSupergraph.make(cg);
+    // only reach the nodes a tabulation reaches, so that edges are asked of a partly built supergraph
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> result = new ContextSensitiveReachingDefs(
+        cg, demand).analyze();
+    int[] edgeCounts = new int[ISupergraph.OTHER + 1];
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : result.getSupergraphNodesReached()) {
+      BasicBlockInContext<IExplodedBasicBlock> expected = precomputed.getLocalBlock(bb.getNode(), bb.getDelegate().getNumber());
+      Set<Pair<Pair<CGNode, Integer>, Byte>> expectedSuccs = HashSetFactory.make();
+      for (Iterator<BasicBlockInContext<IExplodedBasicBlock>> it = precomputed.getSuccNodes(expected); it.hasNext();) {
+        BasicBlockInContext<IExplodedBasicBlock> succ = it.next();
+        expectedSuccs.add(Pair.make(blockKey(succ), precomputed.classifyEdge(expected, succ)));
+      }
+      Set<Pair<Pair<CGNode, Integer>, Byte>> actualSuccs = HashSetFactory.make();
+      for (Iterator<BasicBlockInContext<IExplodedBasicBlock>> it = demand.getSuccNodes(bb); it.hasNext();) {
+        BasicBlockInContext<IExplodedBasicBlock> succ = it.next();
+        byte kind = demand.classifyEdge(bb, succ);
+        actualSuccs.add(Pair.make(blockKey(succ), kind));
+        edgeCounts[kind]++;
+      }
+      Assert.assertEquals("successors of " + bb, expectedSuccs, actualSuccs);
+      Assert.assertEquals("successor count of " + bb, precomputed.getSuccNodeCount(expected), demand.getSuccNodeCount(bb));
+
+      Set<Pair<Pair<CGNode, Integer>, Byte>> expectedPreds = HashSetFactory.make();
+      for (Iterator<BasicBlockInContext<IExplodedBasicBlock>> it = precomputed.getPredNodes(expected); it.hasNext();) {
+        BasicBlockInContext<IExplodedBasicBlock> pred = it.next();
+        expectedPreds.add(Pair.make(blockKey(pred), precomputed.classifyEdge(pred, expected)));
+      }
+      Set<Pair<Pair<CGNode, Integer>, Byte>> actualPreds = HashSetFactory.make();
+      for (Iterator<BasicBlockInContext<IExplodedBasicBlock>> it = demand.getPredNodes(bb); it.hasNext();) {
+        BasicBlockInContext<IExplodedBasicBlock> pred = it.next();
+        actualPreds.add(Pair.make(blockKey(pred), demand.classifyEdge(pred, bb)));
+      }
+      Assert.assertEquals("predecessors of " + bb, expectedPreds, actualPreds);
+      Assert.assertEquals("predecessor count of " + bb, precomputed.getPredNodeCount(expected), demand.getPredNodeCount(bb));
+    }
+    // every kind of edge was compared: call, exit-to-return, call-to-return and intraprocedural
+    for (byte kind = ISupergraph.CALL_EDGE; kind <= ISupergraph.OTHER; kind++) {
+      Assert.assertTrue("no edges of kind " + kind, edgeCounts[kind] > 0);
+    }
+  }
+
+  /**
+   * the two supergraphs build their own CFGs, so identify a block by its node and number
+   */
+  private static Pair<CGNode, Integer> blockKey(BasicBlockInContext<IExplodedBasicBlock> bb) {
+    return Pair.make(bb.getNode(), bb.getDelegate().getNumber());
+  }
+
+  private static Set<Pair<CGNode, Integer>> mappedFacts(ContextSensitiveReachingDefs reachingDefs, IntSet facts) {
+    Set<Pair<CGNode, Integer>> result = HashSetFactory.make();
+    for (IntIterator it = facts.intIterator(); it.hasNext();) {
+      result.add(reachingDefs.getDomain().getMappedObject(it.next()));
+    }
+    return result;
+  }
 }
@@ -21,8 +21,25 @@ import com.ibm.wala.util.warnings.Warnings;
  */
 public class BinaryDirectoryTreeModule extends DirectoryTreeModule {
 
+  /**
+   * memory-map the class files rather than read them onto the heap?
+   */
+  private final boolean mapFiles;
+
   public BinaryDirectoryTreeModule(File root) {
+    this(root, false);
+  }
+
+  /**
+   * @param mapFiles memory-map the class files, so that class readers read them in place; see {@link MappedClassFileModule}
+   */
+  public BinaryDirectoryTreeModule(File root, boolean mapFiles) {
     super(root);
+    this.mapFiles = mapFiles;
+  }
+
+  public boolean mapsFiles() {
+    return mapFiles;
   }
 
   @Override
@@ -33,7 +50,7 @@ public class BinaryDirectoryTreeModule extends DirectoryTreeModule {
   @Override
   protected FileModule makeFile(final File file) {
     try {
-      return new ClassFileModule(file, this);
+      return mapFiles ? new MappedClassFileModule(file, this) : new ClassFileModule(file, this);
     } catch (InvalidClassFileException e) {
       Warnings.add(new Warning(Warning.MODERATE) {
         
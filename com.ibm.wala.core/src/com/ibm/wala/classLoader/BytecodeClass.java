@@ -202,39 +202,45 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
 
   @Override
   public IField getField(Atom name) {
-    if (fieldMap.containsKey(name)) {
-      return fieldMap.get(name);
-    } else {
-      List<IField> fields = findDeclaredField(name);
-      if (!fields.isEmpty()) {
-        if (fields.size() == 1) {
-          IField f = fields.iterator().next();
-          fieldMap.put(name, f);
-          return f;
-        } else {
-          throw new IllegalStateException("multiple fields with name " + name);
-        }
-      } else if ((superClass = getSuperclass()) != null) {
-        IField f = superClass.getField(name);
-        if (f != null) {
-          fieldMap.put(name, f);
-          return f;
-        }
+    synchronized (fieldMap) {
+      if (fieldMap.containsKey(name)) {
+        return fieldMap.get(name);
       }
-      // try superinterfaces
-      for (IClass i : getAllImplementedInterfaces()) {
-        IField f = i.getField(name);
-        if (f != null) {
-          fieldMap.put(name, f);
-          return f;
-        }
+    }
+    List<IField> fields = findDeclaredField(name);
+    if (!fields.isEmpty()) {
+      if (fields.size() == 1) {
+        IField f = fields.iterator().next();
+        cacheField(name, f);
+        return f;
+      } else {
+        throw new IllegalStateException("multiple fields with name " + name);
+      }
+    } else if ((superClass = getSuperclass()) != null) {
+      IField f = superClass.getField(name);
+      if (f != null) {
+        cacheField(name, f);
+        return f;
+      }
+    }
+    // try superinterfaces
+    for (IClass i : getAllImplementedInterfaces()) {
+      IField f = i.getField(name);
+      if (f != null) {
+        cacheField(name, f);
+        return f;
       }
     }
 
     return null;
   }
 
-  
+  private void cacheField(Atom name, IField f) {
+    synchronized (fieldMap) {
+      fieldMap.put(name, f);
+    }
+  }
+
   @Override
   public IField getField(Atom name, TypeName type) {
     boolean unresolved = false;
@@ -331,6 +337,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   @Override
   public Collection<IField> getDeclaredInstanceFields() {
+    computeFieldsIfNeeded();
     if (instanceFields == null) {
       return Collections.emptySet();
     } else {
@@ -343,6 +350,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   @Override
   public Collection<IField> getDeclaredStaticFields() {
+    computeFieldsIfNeeded();
     return Collections.unmodifiableList(Arrays.asList(staticFields));
   }
 
@@ -551,7 +559,8 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
   }
 
   protected List<IField> findDeclaredField(Atom name) {
-    
+    computeFieldsIfNeeded();
+
     List<IField> result = new ArrayList<>(1);
     
     if (instanceFields != null) {
@@ -587,6 +596,12 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     L.add(f);
   }
 
+  /**
+   * set up the instanceFields and staticFields arrays, for subclasses that do not do so at construction time
+   */
+  protected void computeFieldsIfNeeded() {
+  }
+
   /**
    * set up the methodMap mapping
    */
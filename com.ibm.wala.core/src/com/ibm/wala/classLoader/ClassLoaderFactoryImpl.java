@@ -10,11 +10,13 @@
  *******************************************************************************/
 package com.ibm.wala.classLoader;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
 
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchySnapshot;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.util.collections.HashMapFactory;
@@ -38,6 +40,21 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
    */
   final private HashMap<ClassLoaderReference, IClassLoader> map = HashMapFactory.make(3);
 
+  /**
+   * Directory holding class hierarchy snapshots for library modules, or null
+   */
+  private File snapshotDirectory;
+
+  /**
+   * Number of threads class loaders use to parse class files
+   */
+  private int loaderThreads = 1;
+
+  /**
+   * Should class loaders parse class files lazily?
+   */
+  private boolean lazyParsing = false;
+
   /**
    * @param exclusions
    *          A set of classes that class loaders should pretend don't exist.
@@ -46,6 +63,38 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
     this.exclusions = exclusions;
   }
 
+  /**
+   * Load the primordial and extension class loaders from class hierarchy snapshots kept in dir, creating the snapshots on first
+   * use. Library jars rarely change between runs, so this avoids re-reading their class files on every class hierarchy
+   * construction. Application classes are always read from their modules.
+   * 
+   * @see ClassHierarchySnapshot
+   */
+  public void setSnapshotDirectory(File dir) {
+    this.snapshotDirectory = dir;
+  }
+
+  /**
+   * Have the {@link ClassLoaderImpl}s created by this factory read and parse class files with n threads.
+   * 
+   * @see ClassLoaderImpl#setLoaderThreads(int)
+   */
+  public void setLoaderThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    this.loaderThreads = n;
+  }
+
+  /**
+   * Have the {@link ClassLoaderImpl}s created by this factory parse the member tables of class files only when they are needed.
+   * 
+   * @see ClassLoaderImpl#setLazyParsing(boolean)
+   */
+  public void setLazyParsing(boolean lazy) {
+    this.lazyParsing = lazy;
+  }
+
   /**
    * Return a class loader corresponding to a given class loader identifier.
    * Create one if necessary.
@@ -112,6 +161,14 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
           cl = new ClassLoaderImpl(classLoaderReference, scope.getArrayClassLoader(), parent, exclusions, cha);
         }
       }
+    if (cl instanceof ClassLoaderImpl) {
+      ((ClassLoaderImpl) cl).setLoaderThreads(loaderThreads);
+      ((ClassLoaderImpl) cl).setLazyParsing(lazyParsing);
+    }
+    if (snapshotDirectory != null && cl instanceof ClassLoaderImpl
+        && (classLoaderReference.equals(ClassLoaderReference.Primordial) || classLoaderReference.equals(ClassLoaderReference.Extension))) {
+      ((ClassLoaderImpl) cl).setSnapshotDirectory(snapshotDirectory);
+    }
     cl.init(scope.getModules(classLoaderReference));
     return cl;
   }
@@ -19,15 +19,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 
+import com.ibm.wala.ipa.cha.ClassHierarchySnapshot;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.shrikeCT.ClassReader;
 import com.ibm.wala.shrikeCT.InvalidClassFileException;
@@ -37,6 +44,7 @@ import com.ibm.wala.types.TypeName;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.config.SetOfClasses;
 import com.ibm.wala.util.io.FileProvider;
 import com.ibm.wala.util.io.FileSuffixes;
@@ -88,6 +96,21 @@ public class ClassLoaderImpl implements IClassLoader {
    */
   private final ArrayClassLoader arrayClassLoader;
 
+  /**
+   * directory holding {@link ClassHierarchySnapshot}s of the modules, or null to always read class headers from the modules
+   */
+  private File snapshotDirectory;
+
+  /**
+   * number of threads used to read and parse class files in {@link #init(List)}
+   */
+  private int loaderThreads = 1;
+
+  /**
+   * read class files with lazy readers, which parse member tables only when they are needed?
+   */
+  private boolean lazyParsing = false;
+
   /**
    * @param loader class loader reference identifying this loader
    * @param parent parent loader for delegation
@@ -112,6 +135,51 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Use class hierarchy snapshots stored in dir when loading modules in {@link #init(List)}; snapshots are created for modules that
+   * do not have one yet. Must be called before init.
+   */
+  public void setSnapshotDirectory(File dir) {
+    this.snapshotDirectory = dir;
+  }
+
+  public File getSnapshotDirectory() {
+    return snapshotDirectory;
+  }
+
+  /**
+   * Read and parse class files with n threads in {@link #init(List)}. The resulting set of classes and warnings are the same as
+   * with a single thread. Must be called before init.
+   * 
+   * @throws IllegalArgumentException if n &lt; 1
+   */
+  public void setLoaderThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    this.loaderThreads = n;
+  }
+
+  public int getLoaderThreads() {
+    return loaderThreads;
+  }
+
+  /**
+   * Read the class files of classes with lazy readers, which parse the field, method and attribute tables of a class only when
+   * they are first needed, and leave the fields of each class unread until then. Most library classes are never asked for more
+   * than their names, superclasses and interfaces, so this lowers the cost of each class in {@link #init(List)}. Must be called
+   * before init.
+   * 
+   * @see ClassReader#ClassReader(byte[], boolean)
+   */
+  public void setLazyParsing(boolean lazy) {
+    this.lazyParsing = lazy;
+  }
+
+  public boolean isLazyParsing() {
+    return lazyParsing;
+  }
+
   /**
    * Return the Set of (ModuleEntry) source files found in a module.
    * 
@@ -257,7 +325,7 @@ public class ClassLoaderImpl implements IClassLoader {
         continue;
       }
 
-      ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
+      ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry, lazyParsing);
 
       className = "L" + className;
       if (DEBUG_LEVEL > 0) {
@@ -283,7 +351,7 @@ public class ClassLoaderImpl implements IClassLoader {
           if (tmpKlass.getReference().getName().equals(T)) {
             // always used the reader based on the entry after this point,
             // so we can null out and re-read class file contents
-            loadedClasses.put(T, new ShrikeClass(entryReader, this, cha));
+            loadedClasses.put(T, reader == entryReader ? tmpKlass : new ShrikeClass(entryReader, this, cha));
             if (DEBUG_LEVEL > 1) {
               System.err.println("put " + T + " ");
             }
@@ -300,6 +368,142 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Like {@link #loadAllClasses(Collection, Map)}, but reads and parses the class files on {@link #loaderThreads} threads. The
+   * first entry for each class name is parsed in parallel; if it turns out to be invalid, the next entry for that name is tried,
+   * as the sequential loop would. The classes are registered in entry order, so the first valid class in scope wins and the same
+   * warnings are reported as in the sequential case.
+   */
+  private void loadAllClassesInParallel(Collection<ModuleEntry> moduleEntries) {
+    // candidate entries for each class name, in entry order
+    Map<TypeName, List<ModuleEntry>> candidates = new LinkedHashMap<>();
+    for (ModuleEntry entry : moduleEntries) {
+      if (!entry.isClassFile()) {
+        continue;
+      }
+      String className = entry.getClassName().replace('.', '/');
+      if (exclusions != null && exclusions.contains(className)) {
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("Excluding " + className);
+        }
+        continue;
+      }
+      TypeName T = TypeName.string2TypeName("L" + className);
+      if (loadedClasses.get(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create("L" + className));
+      } else if (parent != null && parent.lookupClass(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create("L" + className));
+      } else {
+        MapUtil.findOrCreateList(candidates, T).add(entry);
+      }
+    }
+
+    List<TypeName> names = new ArrayList<>(candidates.keySet());
+    List<Callable<ShrikeClass>> tasks = new ArrayList<>(names.size());
+    for (TypeName T : names) {
+      final ModuleEntry entry = candidates.get(T).get(0);
+      tasks.add(() -> parseClass(entry, T));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(loaderThreads);
+    try {
+      List<Future<ShrikeClass>> results = pool.invokeAll(tasks);
+      for (int i = 0; i < results.size(); i++) {
+        TypeName T = names.get(i);
+        List<ModuleEntry> entries = candidates.get(T);
+        ShrikeClass klass = results.get(i).get();
+        int next = 1;
+        while (klass == null) {
+          Warnings.add(InvalidClassFile.create(T.toString()));
+          if (next == entries.size()) {
+            break;
+          }
+          klass = parseClass(entries.get(next++), T);
+        }
+        if (klass != null) {
+          loadedClasses.put(T, klass);
+        }
+        for (; next < entries.size(); next++) {
+          Warnings.add(MultipleImplementationsWarning.create(T.toString()));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      } else {
+        throw new RuntimeException(e.getCause());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * @return the class read from entry, or null if the class file is invalid or does not define the class T
+   */
+  private ShrikeClass parseClass(ModuleEntry entry, TypeName T) {
+    try {
+      ShrikeClass klass = new ShrikeClass(new ShrikeClassReaderHandle(entry, lazyParsing), this, cha);
+      return klass.getReference().getName().equals(T) ? klass : null;
+    } catch (InvalidClassFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Set up classes from the snapshot of a module, without reading their class files.
+   * 
+   * @return the class file entries of moduleEntries that the snapshot does not describe
+   */
+  private Collection<ModuleEntry> loadAllClassesFromSnapshot(Module M, Collection<ModuleEntry> moduleEntries) throws IOException {
+    Map<String, ModuleEntry> byName = HashMapFactory.make(moduleEntries.size());
+    Set<ModuleEntry> remaining = HashSetFactory.make(moduleEntries);
+    for (ModuleEntry entry : moduleEntries) {
+      if (byName.containsKey(entry.getName())) {
+        // ambiguous entry name, e.g. from nested jars; leave these to loadAllClasses
+        byName.put(entry.getName(), null);
+      } else {
+        byName.put(entry.getName(), entry);
+      }
+    }
+    ClassHierarchySnapshot snapshot = ClassHierarchySnapshot.findOrCreate(snapshotDirectory, M);
+    for (int i = 0; i < snapshot.getNumberOfClasses(); i++) {
+      ClassHierarchySnapshot.ClassRecord record = snapshot.getRecord(i);
+      ModuleEntry entry = byName.get(record.getEntryName());
+      if (entry == null || !remaining.remove(entry)) {
+        continue;
+      }
+
+      String className = entry.getClassName().replace('.', '/');
+      if (exclusions != null && exclusions.contains(className)) {
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("Excluding " + className);
+        }
+        continue;
+      }
+
+      TypeName T = TypeName.string2TypeName("L" + className);
+      if (loadedClasses.get(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create("L" + className));
+      } else if (parent != null && parent.lookupClass(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create("L" + className));
+      } else if (!className.equals(record.getClassName())) {
+        Warnings.add(InvalidClassFile.create("L" + className));
+      } else {
+        loadedClasses.put(T, new ShrikeClass(new ShrikeClassReaderHandle(entry, lazyParsing), record, this, cha));
+        if (DEBUG_LEVEL > 1) {
+          System.err.println("put " + T + " from snapshot");
+        }
+      }
+    }
+    return remaining;
+  }
+
   @SuppressWarnings("unused")
   private Map<String, Object> getAllClassAndSourceFileContents(byte[] jarFileContents, String fileName,
       Map<String, Map<String, Long>> entrySizes) {
@@ -488,7 +692,7 @@ public class ClassLoaderImpl implements IClassLoader {
         System.err.println("add archive: " + archive);
       }
       // byte[] jarFileContents = null;
-      if (OPTIMIZE_JAR_FILE_IO && archive instanceof JarFileModule) {
+      if (OPTIMIZE_JAR_FILE_IO && snapshotDirectory == null && archive instanceof JarFileModule) {
         // if we have a jar file, we read the whole thing into memory and operate on that; enables more
         // efficient sequential I/O
         // this is work in progress; for now, we read the file into memory and throw away the contents, which
@@ -515,7 +719,15 @@ public class ClassLoaderImpl implements IClassLoader {
         // }
         // jarFileContents = null;
       }
-      loadAllClasses(classFiles, allClassAndSourceFileContents);
+      Collection<ModuleEntry> toParse = classFiles;
+      if (snapshotDirectory != null) {
+        toParse = loadAllClassesFromSnapshot(archive, classFiles);
+      }
+      if (loaderThreads > 1 && allClassAndSourceFileContents == null) {
+        loadAllClassesInParallel(toParse);
+      } else {
+        loadAllClasses(toParse, allClassAndSourceFileContents);
+      }
       loadAllSources(sourceFiles);
       for (ModuleEntry file : classFiles) {
         classModuleEntries.add(file);
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.io.ByteBufferInputStream;
+import com.ibm.wala.util.io.FileSuffixes;
+
+/**
+ * A class file in a {@link ClassPackModule}.
+ */
+public class ClassPackEntry implements MappedModuleEntry {
+
+  private final String name;
+
+  /**
+   * the class file, a slice of the mapped pack
+   */
+  private final ByteBuffer contents;
+
+  private final ClassPackModule container;
+
+  ClassPackEntry(String name, ByteBuffer contents, ClassPackModule container) {
+    this.name = name;
+    this.contents = contents;
+    this.container = container;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean isClassFile() {
+    return FileSuffixes.isClassFile(name);
+  }
+
+  @Override
+  public boolean isSourceFile() {
+    return false;
+  }
+
+  @Override
+  public ByteBuffer getContents() {
+    return contents.duplicate();
+  }
+
+  @Override
+  public InputStream getInputStream() {
+    return new ByteBufferInputStream(contents);
+  }
+
+  public int getSize() {
+    return contents.limit();
+  }
+
+  @Override
+  public boolean isModuleFile() {
+    return false;
+  }
+
+  @Override
+  public Module asModule() {
+    Assertions.UNREACHABLE("a class pack has no nested modules");
+    return null;
+  }
+
+  @Override
+  public String getClassName() {
+    return FileSuffixes.stripSuffix(name);
+  }
+
+  @Override
+  public ClassPackModule getContainer() {
+    return container;
+  }
+
+  @Override
+  public String toString() {
+    return container.getAbsolutePath() + ":" + name;
+  }
+}
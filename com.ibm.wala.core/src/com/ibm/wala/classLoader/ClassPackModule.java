@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.io.ByteBufferInputStream;
+import com.ibm.wala.util.io.FileUtil;
+
+/**
+ * A module which is a class pack: a file holding the uncompressed contents of many class files, e.g. those of the JDK and of the
+ * jars an application depends on. The pack is memory-mapped once, and each class is read in place from a slice of the mapping,
+ * so neither inflating nor reading a class puts a copy of it on the heap.
+ * 
+ * A pack is written by {@link #write(File, Module...)}. It starts with a header of the form
+ * 
+ * <pre>
+ * int magic, int version, int count,
+ * count * (UTF name, int offset, int length)
+ * </pre>
+ * 
+ * in the format of {@link DataOutputStream}, followed by the class files. Each offset is from the start of the pack.
+ */
+public class ClassPackModule implements Module {
+
+  private static final int MAGIC = 0x5743504B;
+
+  private static final int VERSION = 1;
+
+  private final File file;
+
+  private final List<ClassPackEntry> entries;
+
+  public ClassPackModule(File file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("null file");
+    }
+    this.file = file;
+    this.entries = readEntries(FileUtil.map(file));
+  }
+
+  private List<ClassPackEntry> readEntries(ByteBuffer pack) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteBufferInputStream(pack));
+    if (in.readInt() != MAGIC) {
+      throw new IOException("not a class pack: " + file);
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("unknown class pack version " + version + ": " + file);
+    }
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("corrupt class pack: " + file);
+    }
+    List<ClassPackEntry> result = new ArrayList<>(Math.min(count, 1 << 16));
+    for (int i = 0; i < count; i++) {
+      String name = in.readUTF();
+      int offset = in.readInt();
+      int length = in.readInt();
+      if (offset < 0 || length < 0 || offset > pack.limit() - length) {
+        throw new IOException("corrupt class pack: " + file + " entry " + name);
+      }
+      ByteBuffer contents = pack.duplicate();
+      contents.position(offset);
+      contents.limit(offset + length);
+      result.add(new ClassPackEntry(name, contents.slice(), this));
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Write the class files of some modules, including those in nested jars, to a class pack. If several modules define a class,
+   * the pack holds the first definition, as a class loader would use.
+   */
+  public static void write(File pack, Module... modules) throws IOException {
+    if (pack == null) {
+      throw new IllegalArgumentException("null pack");
+    }
+    if (modules == null) {
+      throw new IllegalArgumentException("null modules");
+    }
+    Map<String, byte[]> classes = HashMapFactory.make();
+    for (Module m : modules) {
+      collectClasses(m, classes);
+    }
+
+    // the header size depends only on the names, so compute it before writing
+    long offset = 12;
+    for (String name : classes.keySet()) {
+      offset += utfLength(name) + 8;
+    }
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(pack)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(classes.size());
+      for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+        if (offset + e.getValue().length > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("class pack would be larger than 2GB: " + pack);
+        }
+        out.writeUTF(e.getKey());
+        out.writeInt((int) offset);
+        out.writeInt(e.getValue().length);
+        offset += e.getValue().length;
+      }
+      for (byte[] contents : classes.values()) {
+        out.write(contents);
+      }
+    }
+  }
+
+  private static void collectClasses(Module m, Map<String, byte[]> classes) throws IOException {
+    for (ModuleEntry entry : Iterator2Iterable.make(m.getEntries())) {
+      if (entry.isClassFile()) {
+        String name = entry.getClassName() + ".class";
+        if (!classes.containsKey(name)) {
+          try (InputStream s = entry.getInputStream()) {
+            classes.put(name, FileUtil.readBytes(s));
+          }
+        }
+      } else if (entry.isModuleFile()) {
+        collectClasses(entry.asModule(), classes);
+      }
+    }
+  }
+
+  /**
+   * @return the number of bytes {@link DataOutputStream#writeUTF(String)} writes for s
+   */
+  private static int utfLength(String s) {
+    int result = 2;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      result += (c >= 0x0001 && c <= 0x007F) ? 1 : (c > 0x07FF) ? 3 : 2;
+    }
+    return result;
+  }
+
+  @Override
+  public Iterator<ClassPackEntry> getEntries() {
+    return entries.iterator();
+  }
+
+  public String getAbsolutePath() {
+    return file.getAbsolutePath();
+  }
+
+  @Override
+  public String toString() {
+    return "ClassPackModule:" + file;
+  }
+
+  @Override
+  public int hashCode() {
+    return file.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    return file.equals(((ClassPackModule) obj).file);
+  }
+}
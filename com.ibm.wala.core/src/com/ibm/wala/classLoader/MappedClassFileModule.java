@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.util.io.FileUtil;
+
+/**
+ * A .class file that is memory-mapped, so that the class reader reads it in place instead of from a copy on the heap. The file
+ * is mapped again whenever the reader has been collected, and is unmapped once no reader refers to it.
+ */
+public class MappedClassFileModule extends ClassFileModule implements MappedModuleEntry {
+
+  public MappedClassFileModule(File f, Module container) throws InvalidClassFileException {
+    super(f, container);
+  }
+
+  @Override
+  public ByteBuffer getContents() throws IOException {
+    return FileUtil.map(getFile());
+  }
+
+  @Override
+  public String toString() {
+    return "MappedClassFileModule:" + getFile();
+  }
+}
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ModuleEntry} whose contents can be read in place, typically from a memory-mapped file, rather than copied out of
+ * {@link #getInputStream()}.
+ */
+public interface MappedModuleEntry extends ModuleEntry {
+
+  /**
+   * @return the contents of this entry, from the position to the limit of the result. Callers must not modify them.
+   */
+  ByteBuffer getContents() throws IOException;
+
+}
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import com.ibm.wala.ipa.cha.ClassHierarchySnapshot;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.shrikeBT.Constants;
 import com.ibm.wala.shrikeCT.AnnotationsReader;
@@ -41,6 +42,7 @@ import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.shrike.ShrikeClassReaderHandle;
 import com.ibm.wala.util.strings.Atom;
 import com.ibm.wala.util.strings.ImmutableByteArray;
+import com.ibm.wala.util.warnings.Warning;
 import com.ibm.wala.util.warnings.Warnings;
 
 /**
@@ -55,6 +57,11 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
    */
   private final ShrikeClassReaderHandle reader;
 
+  /**
+   * have the declared fields been read from the class file?
+   */
+  private volatile boolean fieldsComputed;
+
   /**
    * @throws IllegalArgumentException
    *           if reader is null
@@ -72,7 +79,85 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
     computeSuperName();
     computeModifiers();
     computeInterfaceNames();
-    computeFields();
+    if (!reader.isLazy()) {
+      // a lazy reader has not parsed the fields yet, so leave them until they are needed
+      computeFields();
+      fieldsComputed = true;
+    }
+  }
+
+  /**
+   * Create a class whose header comes from a {@link ClassHierarchySnapshot}, without reading the class file. The class file is read
+   * only when the fields, methods, or other attributes of the class are first needed.
+   *
+   * @throws IllegalArgumentException
+   *           if reader or header is null, or header does not describe a valid class
+   */
+  public ShrikeClass(ShrikeClassReaderHandle reader, ClassHierarchySnapshot.ClassRecord header, IClassLoader loader,
+      IClassHierarchy cha) {
+    super(loader, cha);
+    if (reader == null) {
+      throw new IllegalArgumentException("reader is null");
+    }
+    if (header == null || header.getClassName() == null) {
+      throw new IllegalArgumentException("invalid header " + header);
+    }
+    this.reader = reader;
+    typeReference = TypeReference.findOrCreate(getClassLoader().getReference(),
+        TypeName.findOrCreate(ImmutableByteArray.make("L" + header.getClassName())));
+    this.hashCode = 2161 * getReference().hashCode();
+    if (header.getSuperName() != null) {
+      superName = ImmutableByteArray.make("L" + header.getSuperName());
+    }
+    modifiers = header.getModifiers();
+    String[] s = header.getInterfaceNames();
+    interfaceNames = new ImmutableByteArray[s.length];
+    for (int i = 0; i < interfaceNames.length; i++) {
+      interfaceNames[i] = ImmutableByteArray.make("L" + s[i]);
+    }
+  }
+
+  @Override
+  protected void computeFieldsIfNeeded() {
+    if (!fieldsComputed) {
+      synchronized (this) {
+        if (!fieldsComputed) {
+          try {
+            computeFields();
+          } catch (InvalidClassFileException e) {
+            e.printStackTrace();
+            Assertions.UNREACHABLE();
+          }
+          fieldsComputed = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * A warning for a class whose class file turned out to have corrupt member tables after it was loaded lazily. The class is kept
+   * without fields and methods.
+   */
+  private static class InvalidMembers extends Warning {
+
+    final ShrikeClass klass;
+
+    final String reason;
+
+    InvalidMembers(ShrikeClass klass, String reason) {
+      super(Warning.SEVERE);
+      this.klass = klass;
+      this.reason = reason;
+    }
+
+    @Override
+    public String getMsg() {
+      return getClass().toString() + " : " + klass + " " + reason;
+    }
+
+    public static InvalidMembers create(ShrikeClass klass, IllegalStateException e) {
+      return new InvalidMembers(klass, e.getMessage());
+    }
   }
 
   /**
@@ -83,7 +168,16 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
    */
   private void computeFields() throws InvalidClassFileException {
     ClassReader cr = reader.get();
-    int fieldCount = cr.getFieldCount();
+    int fieldCount;
+    try {
+      fieldCount = cr.getFieldCount();
+    } catch (IllegalStateException e) {
+      // a lazy reader found the member tables corrupt
+      Warnings.add(InvalidMembers.create(this, e));
+      instanceFields = new IField[0];
+      staticFields = new IField[0];
+      return;
+    }
     List<FieldImpl> instanceList = new ArrayList<>(fieldCount);
     List<FieldImpl> staticList = new ArrayList<>(fieldCount);
     try {
@@ -176,7 +270,14 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
    */
   @Override
   protected ShrikeCTMethod[] computeDeclaredMethods() throws InvalidClassFileException {
-    int methodCount = reader.get().getMethodCount();
+    int methodCount;
+    try {
+      methodCount = reader.get().getMethodCount();
+    } catch (IllegalStateException e) {
+      // a lazy reader found the member tables corrupt
+      Warnings.add(InvalidMembers.create(this, e));
+      return new ShrikeCTMethod[0];
+    }
     ShrikeCTMethod[] result = new ShrikeCTMethod[methodCount];
     for (int i = 0; i < methodCount; i++) {
       ShrikeCTMethod m = new ShrikeCTMethod(this, i);
@@ -0,0 +1,643 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dataflow.IFDS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.ibm.wala.cfg.ControlFlowGraph;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.analysis.ExplodedControlFlowGraph;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.util.collections.EmptyIterator;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IndiscriminateFilter;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+
+/**
+ * Forward supergraph over the exploded control-flow graphs of the nodes of a {@link CallGraph}, with the same nodes and edges as
+ * an {@link ICFGSupergraph}, built on demand.
+ *
+ * Unlike the {@link ICFGSupergraph}, this supergraph keeps no interprocedural graph of its own: the exploded CFG of a
+ * {@link CGNode} is built when a query first reaches the node, and edges are computed from the CFGs and the call graph. So the IRs
+ * built and the memory used grow with the part of the program a tabulation reaches, not with the call graph. Note that a call
+ * node reaches all its callees, and, for a {@link BackwardsSupergraph}, an entry node reaches all its callers.
+ *
+ * The blocks of a procedure are numbered consecutively, from a base assigned when the procedure is first reached. Queries about
+ * the graph as a whole ({@link #iterator()}, {@link #getNumberOfNodes()} and {@link #getMaxNumber()}) reach every relevant node
+ * of the call graph; after that, queries no longer change the supergraph, so that a parallel {@link TabulationSolver}, which
+ * counts the nodes first, can share it between threads. Otherwise, the supergraph is not thread-safe.
+ */
+public class DemandICFGSupergraph implements ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> {
+
+  /**
+   * Governing call graph
+   */
+  private final CallGraph cg;
+
+  /**
+   * Filter that determines relevant call graph nodes
+   */
+  private final Predicate<CGNode> relevant;
+
+  /**
+   * the procedures reached so far
+   */
+  private final Map<CGNode, Procedure> procedures = HashMapFactory.make();
+
+  /**
+   * the procedures reached so far that have a CFG, in the order of their block numbers
+   */
+  private final List<Procedure> numbered = new ArrayList<>();
+
+  /**
+   * number of the first block of the next procedure reached
+   */
+  private int nextNumber = 0;
+
+  /**
+   * have all relevant nodes of the call graph been reached?
+   */
+  private boolean complete = false;
+
+  /**
+   * A procedure that has been reached, with what has been computed about its interprocedural edges.
+   */
+  private static final class Procedure {
+
+    final CGNode node;
+
+    /**
+     * null if the node has no IR
+     */
+    final ExplodedControlFlowGraph cfg;
+
+    /**
+     * number of the first block
+     */
+    final int base;
+
+    /**
+     * for the call block with local number i, callees[i] holds the relevant callees that have a CFG, or null if not computed yet
+     */
+    final CGNode[][] callees;
+
+    /**
+     * the call blocks of relevant callers that may call this procedure, or null if not computed yet
+     */
+    List<BasicBlockInContext<IExplodedBasicBlock>> callSites;
+
+    Procedure(CGNode node, ExplodedControlFlowGraph cfg, int base) {
+      this.node = node;
+      this.cfg = cfg;
+      this.base = base;
+      this.callees = cfg == null ? null : new CGNode[cfg.getNumberOfNodes()][];
+    }
+  }
+
+  protected DemandICFGSupergraph(CallGraph cg, Predicate<CGNode> relevant) {
+    if (cg == null) {
+      throw new IllegalArgumentException("cg is null");
+    }
+    if (relevant == null) {
+      throw new IllegalArgumentException("relevant is null");
+    }
+    this.cg = cg;
+    this.relevant = relevant;
+  }
+
+  public static DemandICFGSupergraph make(CallGraph cg) {
+    return new DemandICFGSupergraph(cg, IndiscriminateFilter.<CGNode> singleton());
+  }
+
+  /**
+   * @param relevant a filter which accepts those call graph nodes which should be included in the supergraph. Other nodes are
+   *          ignored.
+   */
+  public static DemandICFGSupergraph make(CallGraph cg, Predicate<CGNode> relevant) {
+    return new DemandICFGSupergraph(cg, relevant);
+  }
+
+  private Procedure getProcedure(CGNode n) {
+    Procedure result = procedures.get(n);
+    if (result == null) {
+      IR ir = n.getIR();
+      ExplodedControlFlowGraph cfg = ir == null ? null : ExplodedControlFlowGraph.make(ir);
+      result = new Procedure(n, cfg, nextNumber);
+      if (cfg != null) {
+        nextNumber += cfg.getNumberOfNodes();
+        numbered.add(result);
+      }
+      procedures.put(n, result);
+    }
+    return result;
+  }
+
+  private ExplodedControlFlowGraph getCFGOf(BasicBlockInContext<IExplodedBasicBlock> n) {
+    if (n == null) {
+      throw new IllegalArgumentException("n is null");
+    }
+    ExplodedControlFlowGraph result = getProcedure(n.getNode()).cfg;
+    if (result == null) {
+      throw new IllegalArgumentException("no CFG for " + n.getNode());
+    }
+    return result;
+  }
+
+  /**
+   * @return the relevant callees with a CFG of the given call block
+   */
+  private CGNode[] getCallees(Procedure p, IExplodedBasicBlock call) {
+    CGNode[] result = p.callees[call.getNumber()];
+    if (result == null) {
+      SSAAbstractInvokeInstruction instruction = (SSAAbstractInvokeInstruction) call.getInstruction();
+      List<CGNode> callees = new ArrayList<>();
+      for (CGNode target : cg.getPossibleTargets(p.node, instruction.getCallSite())) {
+        // the cfg might be null if the target is an unmodelled native method
+        if (relevant.test(target) && getProcedure(target).cfg != null) {
+          callees.add(target);
+        }
+      }
+      result = callees.toArray(new CGNode[callees.size()]);
+      p.callees[call.getNumber()] = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return the call blocks of relevant callers that may call p
+   */
+  private List<BasicBlockInContext<IExplodedBasicBlock>> getCallSites(Procedure p) {
+    if (p.callSites == null) {
+      List<BasicBlockInContext<IExplodedBasicBlock>> result = new ArrayList<>();
+      for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(p.node))) {
+        if (!relevant.test(caller)) {
+          continue;
+        }
+        ExplodedControlFlowGraph ccfg = getProcedure(caller).cfg;
+        if (ccfg == null) {
+          continue;
+        }
+        SSAInstruction[] instructions = ccfg.getInstructions();
+        for (int i = 0; i < instructions.length; i++) {
+          if (instructions[i] instanceof SSAAbstractInvokeInstruction) {
+            SSAAbstractInvokeInstruction call = (SSAAbstractInvokeInstruction) instructions[i];
+            if (cg.getPossibleTargets(caller, call.getCallSite()).contains(p.node)) {
+              result.add(new BasicBlockInContext<>(caller, ccfg.getBlockForInstruction(i)));
+            }
+          }
+        }
+      }
+      p.callSites = result;
+    }
+    return p.callSites;
+  }
+
+  private static boolean isCall(IExplodedBasicBlock b) {
+    return b.getInstruction() instanceof SSAAbstractInvokeInstruction;
+  }
+
+  private BasicBlockInContext<IExplodedBasicBlock> getEntry(CGNode n) {
+    ExplodedControlFlowGraph cfg = getProcedure(n).cfg;
+    return cfg == null ? null : new BasicBlockInContext<>(n, cfg.entry());
+  }
+
+  private BasicBlockInContext<IExplodedBasicBlock> getExit(CGNode n) {
+    ExplodedControlFlowGraph cfg = getProcedure(n).cfg;
+    return cfg == null ? null : new BasicBlockInContext<>(n, cfg.exit());
+  }
+
+  /**
+   * Reach every relevant node of the call graph, and compute all interprocedural edges.
+   */
+  private void completeGraph() {
+    if (!complete) {
+      for (CGNode n : cg) {
+        if (relevant.test(n)) {
+          Procedure p = getProcedure(n);
+          if (p.cfg != null) {
+            for (IExplodedBasicBlock b : p.cfg) {
+              if (isCall(b)) {
+                getCallees(p, b);
+              }
+            }
+            getCallSites(p);
+          }
+        }
+      }
+      complete = true;
+    }
+  }
+
+  @Override
+  public Graph<? extends CGNode> getProcedureGraph() {
+    return cg;
+  }
+
+  public CallGraph getCallGraph() {
+    return cg;
+  }
+
+  public IClassHierarchy getClassHierarchy() {
+    return cg.getClassHierarchy();
+  }
+
+  /**
+   * @return the cfg for n, or null if n has no IR
+   */
+  public ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> getCFG(CGNode n) {
+    if (n == null) {
+      throw new IllegalArgumentException("n is null");
+    }
+    return getProcedure(n).cfg;
+  }
+
+  public ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> getCFG(BasicBlockInContext<IExplodedBasicBlock> node) {
+    return getCFGOf(node);
+  }
+
+  @Override
+  public byte classifyEdge(BasicBlockInContext<IExplodedBasicBlock> src, BasicBlockInContext<IExplodedBasicBlock> dest) {
+    if (isCall(src)) {
+      if (isEntry(dest)) {
+        return CALL_EDGE;
+      } else {
+        return CALL_TO_RETURN_EDGE;
+      }
+    } else if (isExit(src)) {
+      return RETURN_EDGE;
+    } else {
+      return OTHER;
+    }
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> getCallSites(BasicBlockInContext<IExplodedBasicBlock> r,
+      CGNode callee) {
+    ExplodedControlFlowGraph cfg = getCFGOf(r);
+    CGNode node = r.getNode();
+    List<BasicBlockInContext<IExplodedBasicBlock>> result = new ArrayList<>();
+    for (IExplodedBasicBlock pb : Iterator2Iterable.make(cfg.getPredNodes(r.getDelegate()))) {
+      if (isCall(pb)) {
+        Set<CGNode> targets = cg.getPossibleTargets(node, ((SSAAbstractInvokeInstruction) pb.getInstruction()).getCallSite());
+        if (callee == null ? targets.isEmpty() : targets.contains(callee)) {
+          result.add(new BasicBlockInContext<>(node, pb));
+        }
+      }
+    }
+    return result.iterator();
+  }
+
+  @Override
+  public Iterator<? extends BasicBlockInContext<IExplodedBasicBlock>> getCalledNodes(
+      BasicBlockInContext<IExplodedBasicBlock> call) {
+    getCFGOf(call);
+    CGNode[] callees = getCallees(getProcedure(call.getNode()), call.getDelegate());
+    List<BasicBlockInContext<IExplodedBasicBlock>> result = new ArrayList<>(callees.length);
+    for (CGNode callee : callees) {
+      result.add(getEntry(callee));
+    }
+    return result.iterator();
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> getNormalSuccessors(BasicBlockInContext<IExplodedBasicBlock> call) {
+    return EmptyIterator.instance();
+  }
+
+  @Override
+  public Iterator<? extends BasicBlockInContext<IExplodedBasicBlock>> getReturnSites(BasicBlockInContext<IExplodedBasicBlock> call,
+      CGNode callee) {
+    ExplodedControlFlowGraph cfg = getCFGOf(call);
+    List<BasicBlockInContext<IExplodedBasicBlock>> result = new ArrayList<>();
+    for (IExplodedBasicBlock s : Iterator2Iterable.make(cfg.getSuccNodes(call.getDelegate()))) {
+      result.add(new BasicBlockInContext<>(call.getNode(), s));
+    }
+    return result.iterator();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public BasicBlockInContext<IExplodedBasicBlock>[] getEntriesForProcedure(CGNode procedure) {
+    return new BasicBlockInContext[] { getEntry(procedure) };
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public BasicBlockInContext<IExplodedBasicBlock>[] getExitsForProcedure(CGNode procedure) {
+    return new BasicBlockInContext[] { getExit(procedure) };
+  }
+
+  @Override
+  public BasicBlockInContext<IExplodedBasicBlock> getLocalBlock(CGNode procedure, int i) {
+    return new BasicBlockInContext<>(procedure, getProcedure(procedure).cfg.getNode(i));
+  }
+
+  @Override
+  public int getLocalBlockNumber(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return n.getDelegate().getNumber();
+  }
+
+  @Override
+  public int getNumberOfBlocks(CGNode procedure) {
+    ExplodedControlFlowGraph cfg = getProcedure(procedure).cfg;
+    return cfg == null ? 0 : cfg.getNumberOfNodes();
+  }
+
+  @Override
+  public CGNode getProcOf(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return n.getNode();
+  }
+
+  @Override
+  public boolean isCall(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return isCall(n.getDelegate());
+  }
+
+  @Override
+  public boolean isEntry(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return n.getDelegate().isEntryBlock();
+  }
+
+  @Override
+  public boolean isExit(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return n.getDelegate().isExitBlock();
+  }
+
+  @Override
+  public boolean isReturn(BasicBlockInContext<IExplodedBasicBlock> n) {
+    for (IExplodedBasicBlock pb : Iterator2Iterable.make(getCFGOf(n).getPredNodes(n.getDelegate()))) {
+      if (isCall(pb)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> getSuccNodes(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return getSuccs(n).iterator();
+  }
+
+  private Collection<BasicBlockInContext<IExplodedBasicBlock>> getSuccs(BasicBlockInContext<IExplodedBasicBlock> n) {
+    ExplodedControlFlowGraph cfg = getCFGOf(n);
+    CGNode node = n.getNode();
+    IExplodedBasicBlock b = n.getDelegate();
+    Set<BasicBlockInContext<IExplodedBasicBlock>> result = HashSetFactory.make(4);
+    for (IExplodedBasicBlock s : Iterator2Iterable.make(cfg.getSuccNodes(b))) {
+      result.add(new BasicBlockInContext<>(node, s));
+    }
+    if (isCall(b)) {
+      for (CGNode callee : getCallees(getProcedure(node), b)) {
+        result.add(getEntry(callee));
+      }
+    }
+    if (b.isExitBlock()) {
+      // edges to the return sites of the callers
+      for (BasicBlockInContext<IExplodedBasicBlock> call : getCallSites(getProcedure(node))) {
+        for (IExplodedBasicBlock r : Iterator2Iterable.make(getCFGOf(call).getSuccNodes(call.getDelegate()))) {
+          result.add(new BasicBlockInContext<>(call.getNode(), r));
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> getPredNodes(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return getPreds(n).iterator();
+  }
+
+  private Collection<BasicBlockInContext<IExplodedBasicBlock>> getPreds(BasicBlockInContext<IExplodedBasicBlock> n) {
+    ExplodedControlFlowGraph cfg = getCFGOf(n);
+    CGNode node = n.getNode();
+    IExplodedBasicBlock b = n.getDelegate();
+    Set<BasicBlockInContext<IExplodedBasicBlock>> result = HashSetFactory.make(4);
+    Procedure p = getProcedure(node);
+    for (IExplodedBasicBlock pb : Iterator2Iterable.make(cfg.getPredNodes(b))) {
+      result.add(new BasicBlockInContext<>(node, pb));
+      if (isCall(pb)) {
+        // edges from the exits of the callees
+        for (CGNode callee : getCallees(p, pb)) {
+          result.add(getExit(callee));
+        }
+      }
+    }
+    if (b.isEntryBlock()) {
+      result.addAll(getCallSites(p));
+    }
+    return result;
+  }
+
+  @Override
+  public int getSuccNodeCount(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return getSuccs(n).size();
+  }
+
+  @Override
+  public int getPredNodeCount(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return getPreds(n).size();
+  }
+
+  @Override
+  public IntSet getSuccNodeNumbers(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return toNumbers(getSuccs(n));
+  }
+
+  @Override
+  public IntSet getPredNodeNumbers(BasicBlockInContext<IExplodedBasicBlock> n) {
+    return toNumbers(getPreds(n));
+  }
+
+  private IntSet toNumbers(Collection<BasicBlockInContext<IExplodedBasicBlock>> nodes) {
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    for (BasicBlockInContext<IExplodedBasicBlock> n : nodes) {
+      result.add(getNumber(n));
+    }
+    return result;
+  }
+
+  @Override
+  public boolean hasEdge(BasicBlockInContext<IExplodedBasicBlock> src, BasicBlockInContext<IExplodedBasicBlock> dst) {
+    ExplodedControlFlowGraph dcfg = getCFGOf(dst);
+    if (src.getNode().equals(dst.getNode()) && dcfg.hasEdge(src.getDelegate(), dst.getDelegate())) {
+      return true;
+    }
+    if (dst.getDelegate().isEntryBlock() && isCall(src)) {
+      getCFGOf(src);
+      return Arrays.asList(getCallees(getProcedure(src.getNode()), src.getDelegate())).contains(dst.getNode());
+    }
+    if (src.getDelegate().isExitBlock()) {
+      // an edge from the exit of a callee to a return site
+      Procedure p = getProcedure(dst.getNode());
+      for (IExplodedBasicBlock pb : Iterator2Iterable.make(dcfg.getPredNodes(dst.getDelegate()))) {
+        if (isCall(pb) && Arrays.asList(getCallees(p, pb)).contains(src.getNode())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean containsNode(BasicBlockInContext<IExplodedBasicBlock> n) {
+    if (n == null || !relevant.test(n.getNode())) {
+      return false;
+    }
+    ExplodedControlFlowGraph cfg = getProcedure(n.getNode()).cfg;
+    return cfg != null && cfg.containsNode(n.getDelegate());
+  }
+
+  @Override
+  public int getNumber(BasicBlockInContext<IExplodedBasicBlock> n) {
+    getCFGOf(n);
+    return getProcedure(n.getNode()).base + n.getDelegate().getNumber();
+  }
+
+  /**
+   * @param number the number of a block of a procedure that has been reached
+   */
+  @Override
+  public BasicBlockInContext<IExplodedBasicBlock> getNode(int number) {
+    if (number < 0 || number >= nextNumber) {
+      throw new IllegalArgumentException("invalid number: " + number);
+    }
+    // the procedure with the greatest base <= number
+    int low = 0;
+    int high = numbered.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (numbered.get(mid).base <= number) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    Procedure p = numbered.get(low);
+    return new BasicBlockInContext<>(p.node, p.cfg.getNode(number - p.base));
+  }
+
+  /**
+   * Reaches every relevant node of the call graph.
+   */
+  @Override
+  public int getMaxNumber() {
+    completeGraph();
+    return nextNumber - 1;
+  }
+
+  /**
+   * Reaches every relevant node of the call graph.
+   */
+  @Override
+  public int getNumberOfNodes() {
+    completeGraph();
+    return nextNumber;
+  }
+
+  /**
+   * Reaches every relevant node of the call graph.
+   */
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> iterator() {
+    completeGraph();
+    List<BasicBlockInContext<IExplodedBasicBlock>> result = new ArrayList<>(nextNumber);
+    for (Procedure p : numbered) {
+      if (relevant.test(p.node)) {
+        for (IExplodedBasicBlock b : p.cfg) {
+          result.add(new BasicBlockInContext<>(p.node, b));
+        }
+      }
+    }
+    return result.iterator();
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> iterateNodes(IntSet s) {
+    List<BasicBlockInContext<IExplodedBasicBlock>> result = new ArrayList<>(s.size());
+    for (IntIterator it = s.intIterator(); it.hasNext();) {
+      result.add(getNode(it.next()));
+    }
+    return result.iterator();
+  }
+
+  /**
+   * @return the procedures reached so far
+   */
+  public Collection<CGNode> getReachedProcedures() {
+    return Collections.unmodifiableCollection(procedures.keySet());
+  }
+
+  @Override
+  public void removeNodeAndEdges(BasicBlockInContext<IExplodedBasicBlock> n) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void addNode(BasicBlockInContext<IExplodedBasicBlock> n) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeNode(BasicBlockInContext<IExplodedBasicBlock> n) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void addEdge(BasicBlockInContext<IExplodedBasicBlock> src, BasicBlockInContext<IExplodedBasicBlock> dst)
+      throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeEdge(BasicBlockInContext<IExplodedBasicBlock> src, BasicBlockInContext<IExplodedBasicBlock> dst)
+      throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeAllIncidentEdges(BasicBlockInContext<IExplodedBasicBlock> node) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeIncomingEdges(BasicBlockInContext<IExplodedBasicBlock> node) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeOutgoingEdges(BasicBlockInContext<IExplodedBasicBlock> node) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String toString() {
+    return "demand supergraph over " + procedures.size() + " of " + cg.getNumberOfNodes() + " call graph nodes";
+  }
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dataflow.IFDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A temporary file of int records, to which a {@link TabulationSolver} writes the path and summary edges of the procedures it
+ * evicts from memory.
+ *
+ * The file is memory-mapped in segments of at least {@link #SEGMENT_SIZE} bytes, and a record never crosses a segment boundary,
+ * so that a record is read back as an {@link IntBuffer} view of the mapping. Each record lives in a slot [capacity, size, data];
+ * a slot given back with {@link #free(long)} is reused for a later record that fits, its unused tail becoming a slot of its own
+ * if it is big enough. The file is deleted by {@link #close()}.
+ */
+final class EdgeSpillFile implements AutoCloseable {
+
+  /**
+   * minimum size of a mapped segment, in bytes
+   */
+  private static final int SEGMENT_SIZE = 64 << 20;
+
+  /**
+   * number of ints in the header of a slot
+   */
+  private static final int HEADER = 2;
+
+  /**
+   * a free slot is split when at least this many ints of it would be left unused
+   */
+  private static final int MIN_SPLIT = 16;
+
+  private final File file;
+
+  private final RandomAccessFile raf;
+
+  private final FileChannel channel;
+
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  /**
+   * offset of the last segment in the file
+   */
+  private long segmentStart;
+
+  /**
+   * number of bytes used in the last segment
+   */
+  private int used;
+
+  /**
+   * handles of the free slots, by capacity in ints
+   */
+  private final TreeMap<Integer, ArrayDeque<Long>> freeSlots = new TreeMap<>();
+
+  /**
+   * number of bytes in free slots
+   */
+  private long freeBytes;
+
+  private boolean closed;
+
+  /**
+   * @param directory directory in which to create the file, or null for the default temporary-file directory
+   */
+  EdgeSpillFile(File directory) throws IOException {
+    file = File.createTempFile("tabulation", ".edges", directory);
+    file.deleteOnExit();
+    raf = new RandomAccessFile(file, "rw");
+    channel = raf.getChannel();
+  }
+
+  /**
+   * @return a handle from which {@link #read(long)} returns the record, until the handle is passed to {@link #free(long)}
+   */
+  long write(Record r) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("closed: " + file);
+    }
+    long handle;
+    int capacity;
+    Map.Entry<Integer, ArrayDeque<Long>> fit = freeSlots.ceilingEntry(r.size);
+    if (fit != null) {
+      capacity = fit.getKey();
+      handle = fit.getValue().pop();
+      if (fit.getValue().isEmpty()) {
+        freeSlots.remove(capacity);
+      }
+      freeBytes -= 4L * (HEADER + capacity);
+      if (capacity - r.size >= HEADER + MIN_SPLIT) {
+        // the tail of the slot becomes a free slot of its own
+        putFree(handle + 4 * (HEADER + r.size), capacity - r.size - HEADER);
+        capacity = r.size;
+      }
+    } else {
+      int bytes = 4 * (HEADER + r.size);
+      MappedByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+      if (segment == null || segment.capacity() - used < bytes) {
+        long start = segment == null ? 0 : segmentStart + segment.capacity();
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.max(SEGMENT_SIZE, bytes));
+        segments.add(segment);
+        segmentStart = start;
+        used = 0;
+      }
+      handle = ((long) (segments.size() - 1) << 32) | used;
+      used += bytes;
+      capacity = r.size;
+    }
+    IntBuffer b = slot(handle);
+    b.put(capacity).put(r.size).put(r.data, 0, r.size);
+    return handle;
+  }
+
+  /**
+   * @return the ints of the record written with the given handle
+   */
+  IntBuffer read(long handle) {
+    IntBuffer result = slot(handle);
+    int size = result.get(1);
+    result.position(HEADER);
+    result = result.slice();
+    result.limit(size);
+    return result;
+  }
+
+  /**
+   * Give back the slot of the record written with the given handle, for reuse by a later {@link #write(Record)}.
+   */
+  void free(long handle) {
+    putFree(handle, slot(handle).get(0));
+  }
+
+  private void putFree(long handle, int capacity) {
+    IntBuffer b = slot(handle);
+    b.put(0, capacity);
+    b.put(1, -1);
+    ArrayDeque<Long> s = freeSlots.get(capacity);
+    if (s == null) {
+      s = new ArrayDeque<>(2);
+      freeSlots.put(capacity, s);
+    }
+    s.push(handle);
+    freeBytes += 4L * (HEADER + capacity);
+  }
+
+  /**
+   * @return a view of the mapping starting at the slot with the given handle
+   */
+  private IntBuffer slot(long handle) {
+    ByteBuffer b = segments.get((int) (handle >>> 32)).duplicate();
+    b.position((int) handle);
+    return b.slice().asIntBuffer();
+  }
+
+  /**
+   * @return number of bytes taken in the file so far, including free slots
+   */
+  long size() {
+    return segments.isEmpty() ? 0 : segmentStart + used;
+  }
+
+  /**
+   * @return number of bytes in free slots
+   */
+  long freeSize() {
+    return freeBytes;
+  }
+
+  /**
+   * Drop the mappings, close the file and delete it. The handles of records written so far become invalid.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    segments.clear();
+    freeSlots.clear();
+    freeBytes = 0;
+    segmentStart = 0;
+    used = 0;
+    try {
+      raf.close();
+    } finally {
+      if (!file.delete() && file.exists()) {
+        throw new IOException("failed to delete " + file);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return file + " (" + size() + " bytes, " + freeBytes + " free)";
+  }
+
+  /**
+   * A growable sequence of ints to be written as one record.
+   */
+  static final class Record {
+
+    private int[] data = new int[64];
+
+    private int size;
+
+    void add(int x) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, 2 * size);
+      }
+      data[size++] = x;
+    }
+
+    void set(int i, int x) {
+      data[i] = x;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void clear() {
+      size = 0;
+    }
+  }
+}
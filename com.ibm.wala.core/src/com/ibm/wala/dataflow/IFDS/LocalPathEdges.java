@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.ibm.wala.dataflow.IFDS;
 
+import java.nio.IntBuffer;
 import java.util.Iterator;
 
 import com.ibm.wala.util.collections.SparseVector;
@@ -133,6 +134,20 @@ public class LocalPathEdges {
     }
   }
 
+  /**
+   * Record a same-level realizable path from (s_p,d_i) to (n,d_j), unless it is already recorded.
+   *
+   * @param n local block number of the basic block n
+   * @return true iff the path edge was not recorded before
+   */
+  public boolean addPathEdgeIfAbsent(int i, int n, int j) {
+    if (contains(i, n, j)) {
+      return false;
+    }
+    addPathEdge(i, n, j);
+    return true;
+  }
+
   /**
    * Record that in this procedure we've discovered a same-level realizable path from (s_p,i) to (n,i)
    * 
@@ -453,4 +468,80 @@ public class LocalPathEdges {
     }
     return result;
   }
+
+  /**
+   * Append all path edges to r, in a form that {@link #readFrom(IntBuffer)} restores.
+   *
+   * @return the number of path edges written
+   */
+  int writeTo(EdgeSpillFile.Record r) {
+    int result = writeSets(zeroPaths, r) + writeSets(identityPaths, r);
+    r.add(paths.size());
+    Iterator<IBinaryNaturalRelation> contents = paths.iterator();
+    for (IntIterator it = paths.iterateIndices(); it.hasNext();) {
+      r.add(it.next());
+      int count = r.size();
+      r.add(0);
+      int n = 0;
+      for (IntPair p : contents.next()) {
+        r.add(p.getX());
+        r.add(p.getY());
+        n++;
+      }
+      r.set(count, n);
+      result += n;
+    }
+    return result;
+  }
+
+  private static int writeSets(SparseVector<IntSet> sets, EdgeSpillFile.Record r) {
+    int result = 0;
+    r.add(sets.size());
+    Iterator<IntSet> contents = sets.iterator();
+    for (IntIterator it = sets.iterateIndices(); it.hasNext();) {
+      r.add(it.next());
+      IntSet s = contents.next();
+      r.add(s.size());
+      for (IntIterator ns = s.intIterator(); ns.hasNext();) {
+        r.add(ns.next());
+      }
+      result += s.size();
+    }
+    return result;
+  }
+
+  /**
+   * Add the path edges written by {@link #writeTo(EdgeSpillFile.Record)}.
+   *
+   * @return the number of path edges read
+   */
+  int readFrom(IntBuffer in) {
+    int result = 0;
+    for (int groups = in.get(); groups > 0; groups--) {
+      int j = in.get();
+      int count = in.get();
+      for (int k = 0; k < count; k++) {
+        addZeroPathEdge(in.get(), j);
+      }
+      result += count;
+    }
+    for (int groups = in.get(); groups > 0; groups--) {
+      int i = in.get();
+      int count = in.get();
+      for (int k = 0; k < count; k++) {
+        addIdentityPathEdge(i, in.get());
+      }
+      result += count;
+    }
+    for (int groups = in.get(); groups > 0; groups--) {
+      int j = in.get();
+      int count = in.get();
+      for (int k = 0; k < count; k++) {
+        int n = in.get();
+        addPathEdge(in.get(), n, j);
+      }
+      result += count;
+    }
+    return result;
+  }
 }
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package com.ibm.wala.dataflow.IFDS;
 
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
 import com.ibm.wala.util.collections.SparseVector;
 import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.IBinaryNaturalRelation;
@@ -54,6 +57,11 @@ public class LocalSummaryEdges {
 
   private int nextEntryExitIndex = 0;
 
+  /**
+   * entryExitPairs[n] is the long l for the (s_p,x) pair identified by n
+   */
+  private long[] entryExitPairs = new long[1];
+
   /**
    * 
    */
@@ -149,8 +157,59 @@ public class LocalSummaryEdges {
     if (result == UNASSIGNED) {
       result = nextEntryExitIndex++;
       entryExitMap.set(id, result);
+      if (result == entryExitPairs.length) {
+        entryExitPairs = Arrays.copyOf(entryExitPairs, 2 * result);
+      }
+      entryExitPairs[result] = id;
     }
     return result;
   }
 
+  /**
+   * Append all summary edges to r, in a form that {@link #readFrom(IntBuffer)} restores.
+   *
+   * @return the number of summary edges written
+   */
+  int writeTo(EdgeSpillFile.Record r) {
+    int result = 0;
+    r.add(nextEntryExitIndex);
+    for (int n = 0; n < nextEntryExitIndex; n++) {
+      r.add((int) (entryExitPairs[n] >>> 32));
+      r.add((int) entryExitPairs[n]);
+      int count = r.size();
+      r.add(0);
+      int k = 0;
+      IBinaryNaturalRelation R = summaries.get(n);
+      if (R != null) {
+        for (IntPair p : R) {
+          r.add(p.getX());
+          r.add(p.getY());
+          k++;
+        }
+      }
+      r.set(count, k);
+      result += k;
+    }
+    return result;
+  }
+
+  /**
+   * Add the summary edges written by {@link #writeTo(EdgeSpillFile.Record)}.
+   *
+   * @return the number of summary edges read
+   */
+  int readFrom(IntBuffer in) {
+    int result = 0;
+    for (int pairs = in.get(); pairs > 0; pairs--) {
+      int s_p = in.get();
+      int x = in.get();
+      int count = in.get();
+      for (int k = 0; k < count; k++) {
+        int d1 = in.get();
+        insertSummaryEdge(s_p, x, d1, in.get());
+      }
+      result += count;
+    }
+    return result;
+  }
 }
@@ -11,8 +11,9 @@
 package com.ibm.wala.dataflow.IFDS;
 
 import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
-import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.debug.Assertions;
@@ -33,7 +34,10 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
     return new PartiallyBalancedTabulationSolver<>(p, monitor);
   }
 
-  private final Collection<Pair<T,Integer>> unbalancedSeeds = HashSetFactory.make();
+  /**
+   * concurrent, since seeds are added while propagating, possibly by several threads
+   */
+  private final Collection<Pair<T,Integer>> unbalancedSeeds = ConcurrentHashMap.newKeySet();
 
   protected PartiallyBalancedTabulationSolver(PartiallyBalancedTabulationProblem<T, P, F> p, IProgressMonitor monitor) {
     super(p, monitor);
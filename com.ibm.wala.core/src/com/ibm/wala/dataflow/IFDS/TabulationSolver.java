@@ -10,21 +10,35 @@
  *******************************************************************************/
 package com.ibm.wala.dataflow.IFDS;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.ibm.wala.cfg.IBasicBlock;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.WalaRuntimeException;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Heap;
@@ -52,6 +66,9 @@ import com.ibm.wala.util.ref.ReferenceCleanser;
  * <li>it stores summary edges at each callee instead of at each call site.
  * </ul>
  * <p>
+ * Path edges can be processed by several threads, see {@link #setSolverThreads(int)}, and the edges of procedures not recently
+ * used can be kept on disk, see {@link #setResidentEdgeBudget(long, File)}.
+ * <p>
  *
  * @param <T> type of node in the supergraph
  * @param <P> type of a procedure (like a box in an RSM)
@@ -114,8 +131,11 @@ public class TabulationSolver<T, P, F> {
    *
    * Logically, this represents a set of edges (s_p,d_i) -&gt; (n, d_j). The data structure is chosen to attempt to save space over
    * representing each edge explicitly.
+   *
+   * This and the other tables below are replaced by concurrent ones if the tabulation is parallel (see
+   * {@link #setSolverThreads(int)}).
    */
-  final private Map<T, LocalPathEdges> pathEdges = HashMapFactory.make();
+  private Map<T, LocalPathEdges> pathEdges = HashMapFactory.make();
 
   /**
    * A map from Object (entry node in supergraph) -&gt; CallFlowEdges.
@@ -123,13 +143,13 @@ public class TabulationSolver<T, P, F> {
    * Logically, this represents a set of edges (c,d_i) -&gt; (s_p, d_j). The data structure is chosen to attempt to save space over
    * representing each edge explicitly.
    */
-  final private Map<T, CallFlowEdges> callFlowEdges = HashMapFactory.make();
+  private Map<T, CallFlowEdges> callFlowEdges = HashMapFactory.make();
 
   /**
    * A map from Object (procedure) -&gt; LocalSummaryEdges.
    *
    */
-  final protected Map<P, LocalSummaryEdges> summaryEdges = HashMapFactory.make();
+  protected Map<P, LocalSummaryEdges> summaryEdges = HashMapFactory.make();
 
   /**
    * the set of all {@link PathEdge}s that were used as seeds during the tabulation, grouped by procedure.
@@ -139,7 +159,7 @@ public class TabulationSolver<T, P, F> {
   /**
    * All seeds, stored redundantly for quick access.
    */
-  private final Set<PathEdge<T>> allSeeds = HashSetFactory.make();
+  private Set<PathEdge<T>> allSeeds = HashSetFactory.make();
 
   /**
    * The worklist
@@ -152,18 +172,66 @@ public class TabulationSolver<T, P, F> {
   protected final IProgressMonitor progressMonitor;
 
   /**
-   * the path edge currently being processed in the main loop of {@link #forwardTabulateSLRPs()}; <code>null</code> if
+   * the path edge the current thread is processing in the main loop of {@link #forwardTabulateSLRPs()}; <code>null</code> if
    * {@link #forwardTabulateSLRPs()} is not currently running. Note that if we are applying a summary edge in
    * {@link #processExit(PathEdge)}, curPathEdge is modified to be the path edge terminating at the call node in the caller, to
    * match the behavior in {@link #processCall(PathEdge)}.
    */
-  private PathEdge<T> curPathEdge;
+  private final ThreadLocal<PathEdge<T>> curPathEdge = new ThreadLocal<>();
 
   /**
-   * the summary edge currently being applied in {@link #processCall(PathEdge)} or {@link #processExit(PathEdge)}, or
+   * the summary edge the current thread is applying in {@link #processCall(PathEdge)} or {@link #processExit(PathEdge)}, or
    * <code>null</code> if summary edges are not currently being processed.
    */
-  private PathEdge<T> curSummaryEdge;
+  private final ThreadLocal<PathEdge<T>> curSummaryEdge = new ThreadLocal<>();
+
+  /**
+   * number of threads processing path edges
+   */
+  private int solverThreads = 1;
+
+  /**
+   * while {@link #forwardTabulateInParallel()} runs, one work list per thread. A path edge goes to the work list chosen by the
+   * procedure of its entry, so that path edges of the same procedure are mostly processed by the same thread.
+   */
+  private ITabulationWorklist<T>[] shards;
+
+  /**
+   * while {@link #forwardTabulateInParallel()} runs, the number of path edges inserted in a shard whose processing has not finished
+   */
+  private final AtomicInteger pendingPathEdges = new AtomicInteger();
+
+  /**
+   * if non-null, the file to which the path and summary edges of procedures not recently used are written; see
+   * {@link #setResidentEdgeBudget(long, File)}
+   */
+  private EdgeSpillFile spillFile;
+
+  /**
+   * maximum number of path and summary edges to keep in memory
+   */
+  private long residentEdgeBudget = Long.MAX_VALUE;
+
+  /**
+   * number of path and summary edges in memory; only counted if {@link #spillFile} is non-null
+   */
+  private long residentEdges;
+
+  /**
+   * Procedures whose edges are in memory, least recently used first. Only used if {@link #spillFile} is non-null.
+   */
+  private final Map<P, ProcedureEdges> residentProcedures = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Procedures whose edges are in {@link #spillFile} only.
+   */
+  private final Map<P, ProcedureEdges> spilledProcedures = HashMapFactory.make();
+
+  /**
+   * true while the main loop runs; procedures are then spilled only between path edges, since the steps of the algorithm hold on
+   * to the edge tables they look up
+   */
+  private boolean tabulating;
 
   /**
    * @param p a description of the dataflow problem to solve
@@ -194,6 +262,85 @@ public class TabulationSolver<T, P, F> {
     return new TabulationSolver<>(p, null);
   }
 
+  /**
+   * @param p a description of the dataflow problem to solve
+   * @param monitor a progress monitor through which tabulation can be canceled; can be null
+   * @throws IllegalArgumentException if p is null
+   */
+  public static <T, P, F> TabulationSolver<T, P, F> make(TabulationProblem<T, P, F> p, IProgressMonitor monitor) {
+    return new TabulationSolver<>(p, monitor);
+  }
+
+  public int getSolverThreads() {
+    return solverThreads;
+  }
+
+  /**
+   * Use several threads to process path edges. The result is the same as with one thread, but the supergraph, the flow functions and
+   * any overridden hooks of subclasses (like {@link #propagate(Object, int, Object, int)} or
+   * {@link #newNormalExplodedEdge(PathEdge, Object, int)}) are then called concurrently. Lazily built supergraphs are completed
+   * before tabulation starts; beyond that they must allow concurrent queries, as must the flow functions. Since the result of a
+   * problem with a merge function depends on the order in which path edges are processed, such problems are always tabulated by
+   * one thread.
+   *
+   * @param solverThreads number of threads; 1 selects the sequential solver
+   * @throws IllegalStateException if tabulation has already begun
+   */
+  public void setSolverThreads(int solverThreads) {
+    if (solverThreads < 1) {
+      throw new IllegalArgumentException("invalid number of solver threads: " + solverThreads);
+    }
+    if (!pathEdges.isEmpty()) {
+      throw new IllegalStateException("tabulation has already begun");
+    }
+    this.solverThreads = solverThreads;
+    if (solverThreads > 1) {
+      pathEdges = new ConcurrentHashMap<>();
+      callFlowEdges = new ConcurrentHashMap<>();
+      summaryEdges = new ConcurrentHashMap<>();
+      allSeeds = ConcurrentHashMap.newKeySet();
+    } else {
+      pathEdges = HashMapFactory.make();
+      callFlowEdges = HashMapFactory.make();
+      summaryEdges = HashMapFactory.make();
+      allSeeds = HashSetFactory.make();
+    }
+  }
+
+  public long getResidentEdgeBudget() {
+    return residentEdgeBudget;
+  }
+
+  /**
+   * Keep about maxResidentEdges path and summary edges in memory. When tabulation exceeds this budget, the edges of the procedures
+   * least recently used are written to a memory-mapped file in spillDirectory, and are read back when a procedure is used again.
+   * Each edge in memory takes from a few bits to a few dozen bytes, depending on how dense the facts and blocks of its procedure
+   * are; the file takes four to eight bytes per edge in use, and the space of a procedure written again is reused. Call flow edges
+   * always stay in memory.
+   *
+   * Tabulation with a budget is sequential, whatever {@link #setSolverThreads(int)} says. The budget still holds once
+   * {@link #solve()} returns: the result reads spilled procedures back as they are queried. Call {@link #dispose()} when the result
+   * is no longer needed, to delete the file.
+   *
+   * @param spillDirectory directory for the file, or null for the default temporary-file directory
+   * @throws IOException if the file cannot be created
+   * @throws IllegalStateException if tabulation has already begun
+   */
+  public void setResidentEdgeBudget(long maxResidentEdges, File spillDirectory) throws IOException {
+    if (maxResidentEdges < 1) {
+      throw new IllegalArgumentException("invalid resident edge budget: " + maxResidentEdges);
+    }
+    if (!pathEdges.isEmpty()) {
+      throw new IllegalStateException("tabulation has already begun");
+    }
+    if (spillFile != null) {
+      spillFile.close();
+      spillFile = null;
+    }
+    this.spillFile = new EdgeSpillFile(spillDirectory);
+    this.residentEdgeBudget = maxResidentEdges;
+  }
+
   /**
    * Solve the dataflow problem.
    *
@@ -203,7 +350,11 @@ public class TabulationSolver<T, P, F> {
 
     try {
       initialize();
-      forwardTabulateSLRPs();
+      if (solverThreads > 1 && problem.getMergeFunction() == null && spillFile == null) {
+        forwardTabulateInParallel();
+      } else {
+        forwardTabulateSLRPs();
+      }
       Result r = new Result();
       return r;
     } catch (CancelException e) {
@@ -214,9 +365,44 @@ public class TabulationSolver<T, P, F> {
       // store a partially-tabulated result in the thrown exception.
       Result r = new Result();
       throw new TabulationCancelException(e, r);
+    } finally {
+      // the last path edges may have taken tabulation over budget
+      if (spillFile != null && residentEdges > residentEdgeBudget) {
+        spillColdProcedures();
+      }
     }
   }
 
+  /**
+   * Drop the path and summary edges, and delete the spill file if there is one (see {@link #setResidentEdgeBudget(long, File)}).
+   * Neither this solver nor its results may be used afterwards.
+   */
+  public void dispose() {
+    pathEdges.clear();
+    summaryEdges.clear();
+    callFlowEdges.clear();
+    residentProcedures.clear();
+    spilledProcedures.clear();
+    residentEdges = 0;
+    if (spillFile != null) {
+      try {
+        spillFile.close();
+      } catch (IOException e) {
+        throw new WalaRuntimeException("failed to delete " + spillFile, e);
+      } finally {
+        spillFile = null;
+      }
+    }
+  }
+
+  /**
+   * @return the number of path and summary edges in memory, if edges are spilled (see {@link #setResidentEdgeBudget(long, File)}),
+   *         or 0
+   */
+  public long getResidentEdgeCount() {
+    return residentEdges;
+  }
+
   /**
    * Start tabulation with the initial seeds.
    */
@@ -230,8 +416,10 @@ public class TabulationSolver<T, P, F> {
    * Restart tabulation from a particular path edge. Use with care.
    */
   public void addSeed(PathEdge<T> seed) {
-    Set<PathEdge<T>> s = MapUtil.findOrCreateSet(seeds, supergraph.getProcOf(seed.entry));
-    s.add(seed);
+    synchronized (seeds) {
+      Set<PathEdge<T>> s = MapUtil.findOrCreateSet(seeds, supergraph.getProcOf(seed.entry));
+      s.add(seed);
+    }
     allSeeds.add(seed);
     propagate(seed.entry, seed.d1, seed.target, seed.d2);
   }
@@ -241,54 +429,198 @@ public class TabulationSolver<T, P, F> {
    *
    * @throws CancelException
    */
-  @SuppressWarnings("unused")
   private void forwardTabulateSLRPs() throws CancelException {
-    assert curPathEdge == null : "curPathEdge should not be non-null here";
+    assert curPathEdge.get() == null : "curPathEdge should not be non-null here";
     if (worklist == null) {
       worklist = makeWorklist();
     }
-    while (worklist.size() > 0) {
-      MonitorUtil.throwExceptionIfCanceled(progressMonitor);
-      if (verbose) {
-        performVerboseAction();
+    tabulating = true;
+    try {
+      while (worklist.size() > 0) {
+        MonitorUtil.throwExceptionIfCanceled(progressMonitor);
+        if (verbose) {
+          performVerboseAction();
+        }
+        if (PERIODIC_WIPE_SOFT_CACHES) {
+          tendToSoftCaches();
+        }
+        if (residentEdges > residentEdgeBudget) {
+          spillColdProcedures();
+        }
+
+        final PathEdge<T> edge = popFromWorkList();
+        processPathEdge(edge);
       }
-      if (PERIODIC_WIPE_SOFT_CACHES) {
-        tendToSoftCaches();
+    } finally {
+      tabulating = false;
+    }
+    curPathEdge.remove();
+  }
+
+  /**
+   * The body of the main loop of the algorithm.
+   */
+  @SuppressWarnings("unused")
+  private void processPathEdge(final PathEdge<T> edge) {
+    if (DEBUG_LEVEL > 0) {
+      System.err.println("TABULATE " + edge);
+    }
+    curPathEdge.set(edge);
+    int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
+    if (j == -1 && DEBUG_LEVEL > 0) {
+      System.err.println("merge -1: DROPPING");
+    }
+    if (j != -1) {
+      if (j != edge.d2) {
+        // this means that we don't want to push the edge. instead,
+        // we'll push the merged fact. a little tricky, but i think should
+        // work.
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("propagating merged fact " + j);
+        }
+        propagate(edge.entry, edge.d1, edge.target, j);
+      } else {
+        if (supergraph.isCall(edge.target)) {
+          // [13]
+          processCall(edge);
+        } else if (supergraph.isExit(edge.target)) {
+          // [21]
+          processExit(edge);
+        } else {
+          // [33]
+          processNormal(edge);
+        }
       }
+    }
+  }
 
-      final PathEdge<T> edge = popFromWorkList();
-      if (DEBUG_LEVEL > 0) {
-        System.err.println("TABULATE " + edge);
+  /**
+   * Parallel variant of {@link #forwardTabulateSLRPs()}.
+   *
+   * The threads share the path edge, call flow and summary edge tables. Each table locks itself, and every step of the algorithm
+   * first records a fact and then looks up the facts it combines with (a call edge then the summary edges of the callee, a summary
+   * edge then the call edges into the callee). So of two steps that should meet, the later one always sees the other's fact, and the
+   * tables reach the same fixed point as in the sequential solver.
+   */
+  @SuppressWarnings("unchecked")
+  private void forwardTabulateInParallel() throws CancelException {
+    // complete lazily built supergraphs, like the ICFGSupergraph, so that the threads only query them
+    supergraph.getNumberOfNodes();
+
+    shards = new ITabulationWorklist[solverThreads];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = makeWorklist();
+    }
+    if (worklist != null) {
+      while (worklist.size() > 0) {
+        PathEdge<T> edge = worklist.take();
+        addToWorkList(edge.entry, edge.d1, edge.target, edge.d2);
       }
-      curPathEdge = edge;
-      int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
-      if (j == -1 && DEBUG_LEVEL > 0) {
-        System.err.println("merge -1: DROPPING");
+    }
+
+    final AtomicBoolean stop = new AtomicBoolean();
+    ExecutorService pool = Executors.newFixedThreadPool(solverThreads);
+    Throwable failure = null;
+    try {
+      List<Future<Void>> workers = new ArrayList<>();
+      for (int i = 0; i < solverThreads; i++) {
+        final int shard = i;
+        workers.add(pool.submit(() -> {
+          work(shard, stop);
+          return null;
+        }));
       }
-      if (j != -1) {
-        if (j != edge.d2) {
-          // this means that we don't want to push the edge. instead,
-          // we'll push the merged fact. a little tricky, but i think should
-          // work.
-          if (DEBUG_LEVEL > 0) {
-            System.err.println("propagating merged fact " + j);
+      InterruptedException interrupted = null;
+      for (Future<Void> worker : workers) {
+        while (true) {
+          try {
+            worker.get();
+            break;
+          } catch (ExecutionException e) {
+            if (failure == null) {
+              failure = e.getCause();
+            }
+            break;
+          } catch (InterruptedException e) {
+            // let the threads finish the path edges they are processing
+            stop.set(true);
+            interrupted = e;
           }
-          propagate(edge.entry, edge.d1, edge.target, j);
+        }
+      }
+      if (interrupted != null) {
+        Thread.currentThread().interrupt();
+        if (failure == null) {
+          failure = new CancelException(interrupted);
+        }
+      }
+    } finally {
+      pool.shutdown();
+      // keep the path edges that were not processed, so that a canceled tabulation can be resumed
+      if (worklist == null) {
+        worklist = makeWorklist();
+      }
+      ITabulationWorklist<T>[] remaining = shards;
+      shards = null;
+      pendingPathEdges.set(0);
+      for (ITabulationWorklist<T> shard : remaining) {
+        while (shard.size() > 0) {
+          worklist.insert(shard.take());
+        }
+      }
+    }
+    if (failure instanceof CancelException) {
+      throw (CancelException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new IllegalStateException(failure);
+    }
+  }
+
+  /**
+   * Process path edges, starting with those of the given shard and taking from the other shards when it is empty, until no path
+   * edges are left or another thread has failed.
+   */
+  private void work(int shard, AtomicBoolean stop) throws CancelException {
+    try {
+      while (!stop.get()) {
+        MonitorUtil.throwExceptionIfCanceled(progressMonitor);
+        PathEdge<T> edge = takeFromShards(shard);
+        if (edge == null) {
+          if (pendingPathEdges.get() == 0) {
+            return;
+          }
+          // other threads are still processing path edges, which may produce more work
+          Thread.yield();
         } else {
-          if (supergraph.isCall(edge.target)) {
-            // [13]
-            processCall(edge);
-          } else if (supergraph.isExit(edge.target)) {
-            // [21]
-            processExit(edge);
-          } else {
-            // [33]
-            processNormal(edge);
+          try {
+            processPathEdge(edge);
+          } finally {
+            pendingPathEdges.decrementAndGet();
           }
         }
       }
+    } catch (CancelException | RuntimeException | Error e) {
+      stop.set(true);
+      throw e;
+    } finally {
+      curPathEdge.remove();
+    }
+  }
+
+  private PathEdge<T> takeFromShards(int first) {
+    for (int i = 0; i < shards.length; i++) {
+      ITabulationWorklist<T> shard = shards[(first + i) % shards.length];
+      synchronized (shard) {
+        if (shard.size() > 0) {
+          return shard.take();
+        }
+      }
     }
-    curPathEdge = null;
+    return null;
   }
 
   /**
@@ -367,9 +699,12 @@ public class TabulationSolver<T, P, F> {
     int x = supergraph.getLocalBlockNumber(edge.target);
     if (!summaries.contains(s_p_n, x, edge.d1, edge.d2)) {
       summaries.insertSummaryEdge(s_p_n, x, edge.d1, edge.d2);
+      if (spillFile != null) {
+        recordNewEdge(supergraph.getProcOf(edge.target));
+      }
     }
-    assert curSummaryEdge == null : "curSummaryEdge should be null here";
-    curSummaryEdge = edge;
+    assert curSummaryEdge.get() == null : "curSummaryEdge should be null here";
+    curSummaryEdge.set(edge);
 
     final CallFlowEdges callFlow = findOrCreateCallFlowEdges(edge.entry);
 
@@ -385,7 +720,7 @@ public class TabulationSolver<T, P, F> {
         propagateToReturnSites(edge, supergraph.getNode(globalC), D4);
       }
     }
-    curSummaryEdge = null;
+    curSummaryEdge.remove();
   }
 
   /**
@@ -495,8 +830,9 @@ public class TabulationSolver<T, P, F> {
             if (D3 != null) {
               D3.foreach(d3 -> {
                 // set curPathEdge to be consistent with its setting in processCall() when applying a summary edge
-                curPathEdge = PathEdge.createPathEdge(s_p, d3, c, d4);
-                newSummaryEdge(curPathEdge, edge, retSite, d5);
+                PathEdge<T> edgeToCallSite = PathEdge.createPathEdge(s_p, d3, c, d4);
+                curPathEdge.set(edgeToCallSite);
+                newSummaryEdge(edgeToCallSite, edge, retSite, d5);
                 propagate(s_p, d3, retSite, d5);
               });
             }
@@ -514,7 +850,7 @@ public class TabulationSolver<T, P, F> {
    */
   protected IntSet getInversePathEdges(T s_p, T n, int d2) {
     int number = supergraph.getLocalBlockNumber(n);
-    LocalPathEdges lp = pathEdges.get(s_p);
+    LocalPathEdges lp = lookupPathEdges(s_p);
     if (lp == null) {
       return null;
     }
@@ -628,7 +964,7 @@ public class TabulationSolver<T, P, F> {
       System.err.println(" reached: " + reached);
     }
     if (reached != null) {
-      final LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(calleeEntry));
+      final P callee = supergraph.getProcOf(calleeEntry);
       final CallFlowEdges callFlow = findOrCreateCallFlowEdges(calleeEntry);
       final int s_p_num = supergraph.getLocalBlockNumber(calleeEntry);
 
@@ -641,11 +977,12 @@ public class TabulationSolver<T, P, F> {
         // call flow
         callFlow.addCallEdge(callNodeNum, edge.d2, d1);
         // handle summary edges now as well. this is different from the PoPL
-        // 95 paper.
+        // 95 paper. note that a parallel tabulation relies on looking up
+        // the summary edges only after recording the call edge.
+        final LocalSummaryEdges summaries = lookupSummaryEdges(callee);
         if (summaries != null) {
           // for each exit from the callee
-          P p = supergraph.getProcOf(calleeEntry);
-          T[] exits = supergraph.getExitsForProcedure(p);
+          T[] exits = supergraph.getExitsForProcedure(callee);
           for (final T exit : exits) {
             if (DEBUG_LEVEL > 0) {
               assert supergraph.containsNode(exit);
@@ -661,13 +998,14 @@ public class TabulationSolver<T, P, F> {
                 if (supergraph.hasEdge(exit, returnSite)) {
                   final IFlowFunction retf = flowFunctionMap.getReturnFlowFunction(edge.target, exit, returnSite);
                   reachedBySummary.foreach(d2 -> {
-                    assert curSummaryEdge == null : "curSummaryEdge should be null here";
-                    curSummaryEdge = PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                    assert curSummaryEdge.get() == null : "curSummaryEdge should be null here";
+                    final PathEdge<T> summaryEdge = PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                    curSummaryEdge.set(summaryEdge);
                     if (retf instanceof IBinaryReturnFlowFunction) {
                       final IntSet D51 = computeBinaryFlow(edge.d2, d2, (IBinaryReturnFlowFunction) retf);
                       if (D51 != null) {
                         D51.foreach(d5 -> {
-                          newSummaryEdge(edge, curSummaryEdge, returnSite, d5);
+                          newSummaryEdge(edge, summaryEdge, returnSite, d5);
                           propagate(edge.entry, edge.d1, returnSite, d5);
                         });
                       }
@@ -675,12 +1013,12 @@ public class TabulationSolver<T, P, F> {
                       final IntSet D52 = computeFlow(d2, (IUnaryFlowFunction) retf);
                       if (D52 != null) {
                         D52.foreach(d5 -> {
-                          newSummaryEdge(edge, curSummaryEdge, returnSite, d5);
+                          newSummaryEdge(edge, summaryEdge, returnSite, d5);
                           propagate(edge.entry, edge.d1, returnSite, d5);
                         });
                       }
                     }
-                    curSummaryEdge = null;
+                    curSummaryEdge.remove();
                   });
                 }
               }
@@ -775,11 +1113,13 @@ public class TabulationSolver<T, P, F> {
 
     assert j >= 0;
 
-    if (!pLocal.contains(i, number, j)) {
+    if (pLocal.addPathEdgeIfAbsent(i, number, j)) {
+      if (spillFile != null) {
+        recordNewEdge(supergraph.getProcOf(s_p));
+      }
       if (DEBUG_LEVEL > 0) {
         System.err.println("propagate " + s_p + "  " + i + " " + number + " " + j);
       }
-      pLocal.addPathEdge(i, number, j);
       addToWorkList(s_p, i, n, j);
       return true;
     }
@@ -787,7 +1127,7 @@ public class TabulationSolver<T, P, F> {
   }
 
   public LocalPathEdges getLocalPathEdges(T s_p) {
-    return pathEdges.get(s_p);
+    return lookupPathEdges(s_p);
   }
 
   /**
@@ -802,7 +1142,7 @@ public class TabulationSolver<T, P, F> {
     assert j >= 0;
     IMergeFunction alpha = problem.getMergeFunction();
     if (alpha != null) {
-      LocalPathEdges lp = pathEdges.get(s_p);
+      LocalPathEdges lp = lookupPathEdges(s_p);
       IntSet preExistFacts = lp.getReachable(supergraph.getLocalBlockNumber(n), i);
       if (preExistFacts == null) {
         return j;
@@ -822,6 +1162,15 @@ public class TabulationSolver<T, P, F> {
 
   @SuppressWarnings("unused")
   protected void addToWorkList(T s_p, int i, T n, int j) {
+    if (shards != null) {
+      int h = supergraph.getProcOf(s_p).hashCode();
+      ITabulationWorklist<T> shard = shards[((h ^ (h >>> 16)) & Integer.MAX_VALUE) % shards.length];
+      pendingPathEdges.incrementAndGet();
+      synchronized (shard) {
+        shard.insert(PathEdge.createPathEdge(s_p, i, n, j));
+      }
+      return;
+    }
     if (worklist == null) {
       worklist = makeWorklist();
     }
@@ -832,23 +1181,32 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected LocalPathEdges findOrCreateLocalPathEdges(T s_p) {
-    LocalPathEdges result = pathEdges.get(s_p);
+    LocalPathEdges result = lookupPathEdges(s_p);
     if (result == null) {
       result = makeLocalPathEdges();
-      pathEdges.put(s_p, result);
+      LocalPathEdges old = pathEdges.putIfAbsent(s_p, result);
+      if (old != null) {
+        result = old;
+      } else if (spillFile != null) {
+        residentProcedures.get(supergraph.getProcOf(s_p)).entries.add(s_p);
+      }
     }
     return result;
   }
 
   private LocalPathEdges makeLocalPathEdges() {
-    return problem.getMergeFunction() == null ? new LocalPathEdges(false) : new LocalPathEdges(true);
+    boolean fastMerge = problem.getMergeFunction() != null;
+    return solverThreads > 1 ? new ConcurrentLocalPathEdges(fastMerge) : new LocalPathEdges(fastMerge);
   }
 
   protected LocalSummaryEdges findOrCreateLocalSummaryEdges(P proc) {
-    LocalSummaryEdges result = summaryEdges.get(proc);
+    LocalSummaryEdges result = lookupSummaryEdges(proc);
     if (result == null) {
-      result = new LocalSummaryEdges();
-      summaryEdges.put(proc, result);
+      result = solverThreads > 1 ? new ConcurrentLocalSummaryEdges() : new LocalSummaryEdges();
+      LocalSummaryEdges old = summaryEdges.putIfAbsent(proc, result);
+      if (old != null) {
+        result = old;
+      }
     }
     return result;
   }
@@ -856,12 +1214,156 @@ public class TabulationSolver<T, P, F> {
   protected CallFlowEdges findOrCreateCallFlowEdges(T s_p) {
     CallFlowEdges result = callFlowEdges.get(s_p);
     if (result == null) {
-      result = new CallFlowEdges();
-      callFlowEdges.put(s_p, result);
+      result = solverThreads > 1 ? new ConcurrentCallFlowEdges() : new CallFlowEdges();
+      CallFlowEdges old = callFlowEdges.putIfAbsent(s_p, result);
+      if (old != null) {
+        result = old;
+      }
     }
     return result;
   }
 
+  private LocalPathEdges lookupPathEdges(T s_p) {
+    if (spillFile != null) {
+      touch(supergraph.getProcOf(s_p));
+    }
+    return pathEdges.get(s_p);
+  }
+
+  private LocalSummaryEdges lookupSummaryEdges(P proc) {
+    if (spillFile != null) {
+      touch(proc);
+    }
+    return summaryEdges.get(proc);
+  }
+
+  /**
+   * Mark proc as the procedure used most recently, reading its edges back from the spill file if they were written there.
+   */
+  private ProcedureEdges touch(P proc) {
+    ProcedureEdges result = residentProcedures.get(proc);
+    if (result == null) {
+      result = spilledProcedures.remove(proc);
+      if (result == null) {
+        result = new ProcedureEdges();
+      } else {
+        readBack(proc, result);
+        residentEdges += result.edges;
+      }
+      residentProcedures.put(proc, result);
+      if (!tabulating && residentEdges > residentEdgeBudget) {
+        spillColdProcedures();
+      }
+    }
+    return result;
+  }
+
+  private void readBack(P proc, ProcedureEdges edges) {
+    for (Entry<T, Long> e : edges.spilledPaths.entrySet()) {
+      LocalPathEdges lp = makeLocalPathEdges();
+      lp.readFrom(spillFile.read(e.getValue()));
+      pathEdges.put(e.getKey(), lp);
+    }
+    if (edges.spilledSummaries != -1) {
+      LocalSummaryEdges summaries = new LocalSummaryEdges();
+      summaries.readFrom(spillFile.read(edges.spilledSummaries));
+      summaryEdges.put(proc, summaries);
+    }
+  }
+
+  private void recordNewEdge(P proc) {
+    ProcedureEdges e = residentProcedures.get(proc);
+    e.edges++;
+    e.dirty = true;
+    residentEdges++;
+  }
+
+  /**
+   * Write the edges of the procedures least recently used to the spill file and drop them from memory, until a quarter of the
+   * budget is free. The procedure used most recently stays in memory.
+   */
+  private void spillColdProcedures() {
+    long target = residentEdgeBudget - residentEdgeBudget / 4;
+    EdgeSpillFile.Record record = new EdgeSpillFile.Record();
+    try {
+      for (Iterator<Entry<P, ProcedureEdges>> it = residentProcedures.entrySet().iterator(); residentEdges > target
+          && it.hasNext();) {
+        Entry<P, ProcedureEdges> e = it.next();
+        if (!it.hasNext()) {
+          break;
+        }
+        it.remove();
+        spill(e.getKey(), e.getValue(), record);
+      }
+    } catch (IOException e) {
+      throw new WalaRuntimeException("failed to write " + spillFile, e);
+    }
+  }
+
+  private void spill(P proc, ProcedureEdges edges, EdgeSpillFile.Record record) throws IOException {
+    // a procedure that did not change since it was read back is still in the file
+    if (edges.dirty) {
+      // the edges last written are stale now
+      for (long handle : edges.spilledPaths.values()) {
+        spillFile.free(handle);
+      }
+      edges.spilledPaths.clear();
+      if (edges.spilledSummaries != -1) {
+        spillFile.free(edges.spilledSummaries);
+        edges.spilledSummaries = -1;
+      }
+      for (T s_p : edges.entries) {
+        record.clear();
+        pathEdges.get(s_p).writeTo(record);
+        edges.spilledPaths.put(s_p, spillFile.write(record));
+      }
+      LocalSummaryEdges summaries = summaryEdges.get(proc);
+      if (summaries != null) {
+        record.clear();
+        summaries.writeTo(record);
+        edges.spilledSummaries = spillFile.write(record);
+      }
+      edges.dirty = false;
+    }
+    for (T s_p : edges.entries) {
+      pathEdges.remove(s_p);
+    }
+    summaryEdges.remove(proc);
+    residentEdges -= edges.edges;
+    spilledProcedures.put(proc, edges);
+  }
+
+  /**
+   * Bookkeeping for the path and summary edges of one procedure, when they may be spilled.
+   */
+  private final class ProcedureEdges {
+
+    /**
+     * the entries s_p of path edges of this procedure
+     */
+    final Set<T> entries = HashSetFactory.make(2);
+
+    /**
+     * number of path and summary edges
+     */
+    long edges;
+
+    /**
+     * have edges been added since the procedure was last written to the spill file?
+     */
+    boolean dirty;
+
+    /**
+     * handles of the path edges of each entry in the spill file, as last written
+     */
+    final Map<T, Long> spilledPaths = HashMapFactory.make(2);
+
+    /**
+     * handle of the summary edges in the spill file, as last written, or -1
+     */
+    long spilledSummaries = -1;
+  }
+
   /**
    * get the bitvector of facts that hold at the entry to a given node
    *
@@ -882,7 +1384,7 @@ public class TabulationSolver<T, P, F> {
     }
 
     for (T entry : allEntries){
-    	LocalPathEdges lp = pathEdges.get(entry);
+    	LocalPathEdges lp = lookupPathEdges(entry);
     	if (lp != null) {
     		result.addAll(lp.getReachable(n));
     	}
@@ -958,7 +1460,18 @@ public class TabulationSolver<T, P, F> {
           result.add(supergraph.getLocalBlock(proc, ii.next()));
         }
       }
-
+      // read spilled procedures without bringing them back into memory
+      for (Entry<P, ProcedureEdges> e : spilledProcedures.entrySet()) {
+        P proc = e.getKey();
+        for (long handle : e.getValue().spilledPaths.values()) {
+          LocalPathEdges lp = makeLocalPathEdges();
+          lp.readFrom(spillFile.read(handle));
+          IntSet reached = lp.getReachedNodeNumbers();
+          for (IntIterator ii = reached.intIterator(); ii.hasNext();) {
+            result.add(supergraph.getLocalBlock(proc, ii.next()));
+          }
+        }
+      }
       return result;
     }
 
@@ -970,7 +1483,7 @@ public class TabulationSolver<T, P, F> {
      */
     @Override
     public IntSet getSummaryTargets(T n1, int d1, T n2) {
-      LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(n1));
+      LocalSummaryEdges summaries = lookupSummaryEdges(supergraph.getProcOf(n1));
       if (summaries == null) {
         return null;
       }
@@ -1033,12 +1546,18 @@ public class TabulationSolver<T, P, F> {
     return progressMonitor;
   }
 
+  /**
+   * @return the path edge the calling thread is processing
+   */
   protected PathEdge<T> getCurPathEdge() {
-    return curPathEdge;
+    return curPathEdge.get();
   }
 
+  /**
+   * @return the summary edge the calling thread is applying
+   */
   protected PathEdge<T> getCurSummaryEdge() {
-    return curSummaryEdge;
+    return curSummaryEdge.get();
   }
 
   /**
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright (c) 2007 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.demandpa.alg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
+
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.demandpa.alg.DemandRefinementPointsTo.PointsToResult;
+import com.ibm.wala.demandpa.alg.refinepolicy.NeverRefineCGPolicy;
+import com.ibm.wala.demandpa.alg.refinepolicy.NeverRefineFieldsPolicy;
+import com.ibm.wala.demandpa.alg.refinepolicy.RefinementPolicyFactory;
+import com.ibm.wala.demandpa.alg.refinepolicy.SinglePassRefinementPolicy;
+import com.ibm.wala.demandpa.alg.statemachine.StateMachineFactory;
+import com.ibm.wala.demandpa.flowgraph.DemandPointerFlowGraph;
+import com.ibm.wala.demandpa.flowgraph.IFlowGraph;
+import com.ibm.wala.demandpa.flowgraph.IFlowLabel;
+import com.ibm.wala.demandpa.flowgraph.SynchronizedFlowGraph;
+import com.ibm.wala.demandpa.util.MemoryAccess;
+import com.ibm.wala.demandpa.util.MemoryAccessMap;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.HeapModel;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.modref.DelegatingExtendedHeapModel;
+import com.ibm.wala.ipa.modref.SynchronizedExtendedHeapModel;
+import com.ibm.wala.util.collections.Pair;
+
+/**
+ * A long-lived demand points-to analysis for clients, such as IDEs, that ask many questions about one program, possibly from
+ * several threads at once.
+ *
+ * All queries share one {@link DemandPointerFlowGraph}, so the subgraph of a method is built once for every query that reaches
+ * it. Each query runs on its own {@link DemandRefinementPointsTo}, which holds the refinement policy, state machine and traversal
+ * budget of that query. Answers are cached per pointer key and per instance key until the refinement policy factory or state
+ * machine factory changes, since those decide the field and call-string precision of the answers.
+ */
+public class DemandPointsToService implements IDemandPointerAnalysis {
+
+  private final CallGraph cg;
+
+  private final ThisFilteringHeapModel heapModel;
+
+  private final MemoryAccessMap mam;
+
+  private final IClassHierarchy cha;
+
+  private final AnalysisOptions options;
+
+  private final IFlowGraph flowGraph;
+
+  /**
+   * the current configuration, with the answers computed under it
+   */
+  private volatile Configuration config;
+
+  /**
+   * the factories that decide the precision of answers, and the answers computed with them. A query reads the configuration
+   * once, so a query that is running when the configuration changes records its answer in a cache that is no longer used.
+   */
+  private static final class Configuration {
+    final RefinementPolicyFactory refinementPolicyFactory;
+
+    final StateMachineFactory<IFlowLabel> stateMachineFactory;
+
+    /**
+     * answers of {@link DemandPointsToService#getPointsTo(PointerKey, Predicate)} for a predicate that no instance key passes,
+     * i.e. after all the refinement the policy allows
+     */
+    final ConcurrentMap<PointerKey, FutureTask<Pair<PointsToResult, Collection<InstanceKey>>>> pointsTo = new ConcurrentHashMap<>();
+
+    final ConcurrentMap<InstanceKey, FutureTask<Pair<PointsToResult, Collection<PointerKey>>>> flowsTo = new ConcurrentHashMap<>();
+
+    Configuration(RefinementPolicyFactory refinementPolicyFactory, StateMachineFactory<IFlowLabel> stateMachineFactory) {
+      this.refinementPolicyFactory = refinementPolicyFactory;
+      this.stateMachineFactory = stateMachineFactory;
+    }
+  }
+
+  /**
+   * @param cg the underlying call graph for the analysis
+   * @param model the heap model to be used for the analysis
+   * @param mam indicates what code reads or writes each field
+   * @param cha
+   * @param options
+   * @param stateMachineFactory factory for state machines to track additional properties like calling context
+   */
+  public DemandPointsToService(CallGraph cg, HeapModel model, MemoryAccessMap mam, IClassHierarchy cha, AnalysisOptions options,
+      StateMachineFactory<IFlowLabel> stateMachineFactory) {
+    if (model == null) {
+      throw new IllegalArgumentException("null model");
+    }
+    if (mam == null) {
+      throw new IllegalArgumentException("null mam");
+    }
+    if (stateMachineFactory == null) {
+      throw new IllegalArgumentException("null stateMachineFactory");
+    }
+    this.cg = cg;
+    this.cha = cha;
+    this.options = options;
+    // key factories cache the keys they create, so the threads share synchronized heap models
+    HeapModel sharedModel = new SynchronizedExtendedHeapModel(new DelegatingExtendedHeapModel(model));
+    this.heapModel = new ThisFilteringHeapModel(sharedModel, cha);
+    this.mam = new SynchronizedMemoryAccessMap(mam, mam.getHeapModel() == model ? sharedModel : null);
+    this.flowGraph = new SynchronizedFlowGraph(new DemandPointerFlowGraph(cg, heapModel, this.mam, cha));
+    this.config = new Configuration(new SinglePassRefinementPolicy.Factory(new NeverRefineFieldsPolicy(), new NeverRefineCGPolicy()),
+        stateMachineFactory);
+  }
+
+  /**
+   * @return a fresh analysis for one query, sharing the flow graph of this service
+   */
+  private DemandRefinementPointsTo makeAnalysis(Configuration c) {
+    DemandRefinementPointsTo analysis = new DemandRefinementPointsTo(cg, heapModel, mam, cha, options, c.stateMachineFactory,
+        flowGraph);
+    analysis.setRefinementPolicyFactory(c.refinementPolicyFactory);
+    return analysis;
+  }
+
+  /**
+   * @return the answer cached under key in cache, computing it on this thread if no other thread is doing so
+   */
+  private static <K, V> V findOrCompute(ConcurrentMap<K, FutureTask<V>> cache, K key, Callable<V> compute) {
+    FutureTask<V> task = cache.get(key);
+    if (task == null) {
+      FutureTask<V> newTask = new FutureTask<>(compute);
+      task = cache.putIfAbsent(key, newTask);
+      if (task == null) {
+        task = newTask;
+        task.run();
+      }
+    }
+    return await(cache, key, task);
+  }
+
+  /**
+   * @return the answer of task, which is cached under key in cache
+   */
+  private static <K, V> V await(ConcurrentMap<K, FutureTask<V>> cache, K key, FutureTask<V> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      // do not keep the failure; a later query may try again
+      cache.remove(key, task);
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * compute a points-to set for a pointer key, aiming to satisfy some predicate, as
+   * {@link DemandRefinementPointsTo#getPointsTo(PointerKey, Predicate)} does.
+   *
+   * If the fully refined points-to set of pk is cached, the answer comes from the cache: it is {@link PointsToResult#SUCCESS} if
+   * that set satisfies ikeyPred. Otherwise a query that does not succeed runs the same passes as a query for the fully refined
+   * set, so its answer is cached for later queries on pk.
+   *
+   * @throws IllegalArgumentException if <code>pk</code> is not a {@link com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey}
+   */
+  public Pair<PointsToResult, Collection<InstanceKey>> getPointsTo(PointerKey pk, Predicate<InstanceKey> ikeyPred)
+      throws IllegalArgumentException {
+    if (ikeyPred == null) {
+      throw new IllegalArgumentException("null ikeyPred");
+    }
+    Configuration c = config;
+    FutureTask<Pair<PointsToResult, Collection<InstanceKey>>> cached = c.pointsTo.get(pk);
+    if (cached != null) {
+      Pair<PointsToResult, Collection<InstanceKey>> p = await(c.pointsTo, pk, cached);
+      if (p.fst != PointsToResult.SUCCESS && !p.snd.isEmpty() && p.snd.stream().allMatch(ikeyPred)) {
+        return Pair.make(PointsToResult.SUCCESS, p.snd);
+      }
+      return p;
+    }
+    Pair<PointsToResult, Collection<InstanceKey>> p = shared(makeAnalysis(c).getPointsTo(pk, ikeyPred));
+    if (p.fst != PointsToResult.SUCCESS || p.snd.isEmpty()) {
+      FutureTask<Pair<PointsToResult, Collection<InstanceKey>>> done = new FutureTask<>(() -> p);
+      done.run();
+      c.pointsTo.putIfAbsent(pk, done);
+    }
+    return p;
+  }
+
+  /**
+   * @return the fully refined points-to set of <code>pk</code>, from the cache if possible
+   */
+  @Override
+  public Collection<InstanceKey> getPointsTo(PointerKey pk) {
+    Configuration c = config;
+    return findOrCompute(c.pointsTo, pk, () -> shared(makeAnalysis(c).getPointsTo(pk, k -> false))).snd;
+  }
+
+  /**
+   * get all the pointer keys that some instance key can flow to, as {@link DemandRefinementPointsTo#getFlowsTo(InstanceKey)}
+   * does, from the cache if possible
+   */
+  public Pair<PointsToResult, Collection<PointerKey>> getFlowsTo(InstanceKey ik) {
+    Configuration c = config;
+    return findOrCompute(c.flowsTo, ik, () -> shared(makeAnalysis(c).getFlowsTo(ik)));
+  }
+
+  /**
+   * @return p, with an unmodifiable set, since cached answers are handed to every thread that asks
+   */
+  private static <T> Pair<PointsToResult, Collection<T>> shared(Pair<PointsToResult, Collection<T>> p) {
+    return p.snd == null ? p : Pair.make(p.fst, Collections.unmodifiableCollection(p.snd));
+  }
+
+  /**
+   * drop all cached answers; the flow graph is kept, since it does not depend on the refinement
+   */
+  public synchronized void clearCache() {
+    config = new Configuration(config.refinementPolicyFactory, config.stateMachineFactory);
+  }
+
+  /**
+   * @return the number of pointer keys and instance keys whose answers are cached
+   */
+  public int getNumCachedAnswers() {
+    Configuration c = config;
+    return c.pointsTo.size() + c.flowsTo.size();
+  }
+
+  public RefinementPolicyFactory getRefinementPolicyFactory() {
+    return config.refinementPolicyFactory;
+  }
+
+  /**
+   * use a new refinement policy for later queries; this drops the cached answers
+   */
+  public synchronized void setRefinementPolicyFactory(RefinementPolicyFactory refinementPolicyFactory) {
+    if (refinementPolicyFactory == null) {
+      throw new IllegalArgumentException("null refinementPolicyFactory");
+    }
+    config = new Configuration(refinementPolicyFactory, config.stateMachineFactory);
+  }
+
+  public StateMachineFactory<IFlowLabel> getStateMachineFactory() {
+    return config.stateMachineFactory;
+  }
+
+  /**
+   * track other properties, such as calling context, in later queries; this drops the cached answers
+   */
+  public synchronized void setStateMachineFactory(StateMachineFactory<IFlowLabel> stateMachineFactory) {
+    if (stateMachineFactory == null) {
+      throw new IllegalArgumentException("null stateMachineFactory");
+    }
+    config = new Configuration(config.refinementPolicyFactory, stateMachineFactory);
+  }
+
+  @Override
+  public HeapModel getHeapModel() {
+    return heapModel;
+  }
+
+  @Override
+  public CallGraph getBaseCallGraph() {
+    return cg;
+  }
+
+  @Override
+  public IClassHierarchy getClassHierarchy() {
+    return cha;
+  }
+
+  /**
+   * A {@link MemoryAccessMap} whose queries are made while holding a lock, since answering them may create keys through a heap
+   * model. Answers are copied before the lock is released.
+   */
+  private static final class SynchronizedMemoryAccessMap implements MemoryAccessMap {
+
+    private final MemoryAccessMap mam;
+
+    private final HeapModel heapModel;
+
+    /**
+     * @param heapModel a synchronized view of the heap model of mam, or null to make one
+     */
+    SynchronizedMemoryAccessMap(MemoryAccessMap mam, HeapModel heapModel) {
+      this.mam = mam;
+      this.heapModel = heapModel != null ? heapModel : new SynchronizedExtendedHeapModel(new DelegatingExtendedHeapModel(
+          mam.getHeapModel()));
+    }
+
+    @Override
+    public synchronized Collection<MemoryAccess> getFieldReads(PointerKey baseRef, IField field) {
+      return new ArrayList<>(mam.getFieldReads(baseRef, field));
+    }
+
+    @Override
+    public synchronized Collection<MemoryAccess> getFieldWrites(PointerKey baseRef, IField field) {
+      return new ArrayList<>(mam.getFieldWrites(baseRef, field));
+    }
+
+    @Override
+    public synchronized Collection<MemoryAccess> getArrayReads(PointerKey arrayRef) {
+      return new ArrayList<>(mam.getArrayReads(arrayRef));
+    }
+
+    @Override
+    public synchronized Collection<MemoryAccess> getArrayWrites(PointerKey arrayRef) {
+      return new ArrayList<>(mam.getArrayWrites(arrayRef));
+    }
+
+    @Override
+    public synchronized Collection<MemoryAccess> getStaticFieldReads(IField field) {
+      return new ArrayList<>(mam.getStaticFieldReads(field));
+    }
+
+    @Override
+    public synchronized Collection<MemoryAccess> getStaticFieldWrites(IField field) {
+      return new ArrayList<>(mam.getStaticFieldWrites(field));
+    }
+
+    @Override
+    public HeapModel getHeapModel() {
+      return heapModel;
+    }
+  }
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2007 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.demandpa.flowgraph;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.demandpa.flowgraph.IFlowLabel.IFlowLabelVisitor;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.StaticFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.CallerSiteContext;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+
+/**
+ * An {@link IFlowGraph} that several demand analyses may share from different threads. Every call to the underlying graph is
+ * made while holding a lock, since subgraphs are added on demand as queries reach new methods. Iterators and sets are copied
+ * before the lock is released, and visitors are run on a copy of the edges, so that a visitor may itself add subgraphs.
+ */
+public class SynchronizedFlowGraph implements IFlowGraph {
+
+  private final IFlowGraph g;
+
+  public SynchronizedFlowGraph(IFlowGraph g) {
+    if (g == null) {
+      throw new IllegalArgumentException("null g");
+    }
+    this.g = g;
+  }
+
+  private static <T> Iterator<T> copy(Iterator<? extends T> it) {
+    List<T> result = new ArrayList<>();
+    while (it.hasNext()) {
+      result.add(it.next());
+    }
+    return result.iterator();
+  }
+
+  /**
+   * append the label and destination of each edge to edges, as alternating elements
+   */
+  private static void addEdges(List<Object> edges, IFlowLabel label, Iterator<?> nodes) {
+    while (nodes.hasNext()) {
+      edges.add(label);
+      edges.add(nodes.next());
+    }
+  }
+
+  private static void visitEdges(List<Object> edges, IFlowLabelVisitor v) {
+    for (int i = 0; i < edges.size(); i += 2) {
+      ((IFlowLabel) edges.get(i)).visit(v, edges.get(i + 1));
+    }
+  }
+
+  @Override
+  public void visitSuccs(Object node, IFlowLabelVisitor v) {
+    List<Object> edges = new ArrayList<>();
+    synchronized (this) {
+      for (IFlowLabel label : Iterator2Collection.toList(g.getSuccLabels(node))) {
+        addEdges(edges, label, g.getSuccNodes(node, label));
+      }
+    }
+    visitEdges(edges, v);
+  }
+
+  @Override
+  public void visitPreds(Object node, IFlowLabelVisitor v) {
+    List<Object> edges = new ArrayList<>();
+    synchronized (this) {
+      for (IFlowLabel label : Iterator2Collection.toList(g.getPredLabels(node))) {
+        addEdges(edges, label, g.getPredNodes(node, label));
+      }
+    }
+    visitEdges(edges, v);
+  }
+
+  @Override
+  public synchronized void addSubgraphForNode(CGNode node) throws IllegalArgumentException {
+    g.addSubgraphForNode(node);
+  }
+
+  @Override
+  public synchronized boolean hasSubgraphForNode(CGNode node) {
+    return g.hasSubgraphForNode(node);
+  }
+
+  @Override
+  public synchronized boolean isParam(LocalPointerKey pk) {
+    return g.isParam(pk);
+  }
+
+  @Override
+  public synchronized Iterator<SSAAbstractInvokeInstruction> getInstrsPassingParam(LocalPointerKey pk) {
+    return copy(g.getInstrsPassingParam(pk));
+  }
+
+  @Override
+  public synchronized SSAAbstractInvokeInstruction getInstrReturningTo(LocalPointerKey pk) {
+    return g.getInstrReturningTo(pk);
+  }
+
+  @Override
+  public synchronized Iterator<? extends Object> getWritesToStaticField(StaticFieldKey sfk) throws IllegalArgumentException {
+    return copy(g.getWritesToStaticField(sfk));
+  }
+
+  @Override
+  public synchronized Iterator<? extends Object> getReadsOfStaticField(StaticFieldKey sfk) throws IllegalArgumentException {
+    return copy(g.getReadsOfStaticField(sfk));
+  }
+
+  @Override
+  public synchronized Iterator<PointerKey> getWritesToInstanceField(PointerKey pk, IField f) {
+    return copy(g.getWritesToInstanceField(pk, f));
+  }
+
+  @Override
+  public synchronized Iterator<PointerKey> getReadsOfInstanceField(PointerKey pk, IField f) {
+    return copy(g.getReadsOfInstanceField(pk, f));
+  }
+
+  @Override
+  public synchronized Set<CallerSiteContext> getPotentialCallers(PointerKey formalPk) {
+    return HashSetFactory.make(g.getPotentialCallers(formalPk));
+  }
+
+  @Override
+  public synchronized Set<CGNode> getPossibleTargets(CGNode caller, CallSiteReference site, LocalPointerKey actualPk) {
+    return HashSetFactory.make(g.getPossibleTargets(caller, site, actualPk));
+  }
+
+  @Override
+  public synchronized void removeNodeAndEdges(Object n) throws UnsupportedOperationException {
+    g.removeNodeAndEdges(n);
+  }
+
+  @Override
+  public synchronized Iterator<Object> iterator() {
+    return copy(g.iterator());
+  }
+
+  @Override
+  public synchronized int getNumberOfNodes() {
+    return g.getNumberOfNodes();
+  }
+
+  @Override
+  public synchronized void addNode(Object n) {
+    g.addNode(n);
+  }
+
+  @Override
+  public synchronized void removeNode(Object n) throws UnsupportedOperationException {
+    g.removeNode(n);
+  }
+
+  @Override
+  public synchronized boolean containsNode(Object n) {
+    return g.containsNode(n);
+  }
+
+  @Override
+  public synchronized Iterator<Object> getPredNodes(Object n) {
+    return copy(g.getPredNodes(n));
+  }
+
+  @Override
+  public synchronized int getPredNodeCount(Object n) {
+    return g.getPredNodeCount(n);
+  }
+
+  @Override
+  public synchronized Iterator<Object> getSuccNodes(Object n) {
+    return copy(g.getSuccNodes(n));
+  }
+
+  @Override
+  public synchronized int getSuccNodeCount(Object N) {
+    return g.getSuccNodeCount(N);
+  }
+
+  @Override
+  public synchronized void addEdge(Object src, Object dst) {
+    g.addEdge(src, dst);
+  }
+
+  @Override
+  public synchronized void removeEdge(Object src, Object dst) throws UnsupportedOperationException {
+    g.removeEdge(src, dst);
+  }
+
+  @Override
+  public synchronized void removeAllIncidentEdges(Object node) throws UnsupportedOperationException {
+    g.removeAllIncidentEdges(node);
+  }
+
+  @Override
+  public synchronized void removeIncomingEdges(Object node) throws UnsupportedOperationException {
+    g.removeIncomingEdges(node);
+  }
+
+  @Override
+  public synchronized void removeOutgoingEdges(Object node) throws UnsupportedOperationException {
+    g.removeOutgoingEdges(node);
+  }
+
+  @Override
+  public synchronized boolean hasEdge(Object src, Object dst) {
+    return g.hasEdge(src, dst);
+  }
+
+  @Override
+  public synchronized IFlowLabel getDefaultLabel() {
+    return g.getDefaultLabel();
+  }
+
+  @Override
+  public synchronized Iterator<Object> getPredNodes(Object N, IFlowLabel label) {
+    return copy(g.getPredNodes(N, label));
+  }
+
+  @Override
+  public synchronized Iterator<? extends IFlowLabel> getPredLabels(Object N) {
+    return copy(g.getPredLabels(N));
+  }
+
+  @Override
+  public synchronized int getPredNodeCount(Object N, IFlowLabel label) {
+    return g.getPredNodeCount(N, label);
+  }
+
+  @Override
+  public synchronized Iterator<? extends Object> getSuccNodes(Object N, IFlowLabel label) {
+    return copy(g.getSuccNodes(N, label));
+  }
+
+  @Override
+  public synchronized Iterator<? extends IFlowLabel> getSuccLabels(Object N) {
+    return copy(g.getSuccLabels(N));
+  }
+
+  @Override
+  public synchronized int getSuccNodeCount(Object N, IFlowLabel label) {
+    return g.getSuccNodeCount(N, label);
+  }
+
+  @Override
+  public synchronized void addEdge(Object src, Object dst, IFlowLabel label) {
+    g.addEdge(src, dst, label);
+  }
+
+  @Override
+  public synchronized void removeEdge(Object src, Object dst, IFlowLabel label) throws UnsupportedOperationException {
+    g.removeEdge(src, dst, label);
+  }
+
+  @Override
+  public synchronized boolean hasEdge(Object src, Object dst, IFlowLabel label) {
+    return g.hasEdge(src, dst, label);
+  }
+
+  @Override
+  public synchronized Set<? extends IFlowLabel> getEdgeLabels(Object src, Object dst) {
+    return HashSetFactory.make(g.getEdgeLabels(src, dst));
+  }
+
+  @Override
+  public synchronized String toString() {
+    return g.toString();
+  }
+}
@@ -12,7 +12,10 @@ package com.ibm.wala.ipa.callgraph;
 
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ssa.AuxiliaryCache;
+import com.ibm.wala.ssa.BoundedAuxiliaryCache;
+import com.ibm.wala.ssa.DefUse;
 import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IAuxiliaryCache;
 import com.ibm.wala.ssa.IRFactory;
 import com.ibm.wala.ssa.SSACache;
 import com.ibm.wala.ssa.SSAOptions;
@@ -22,6 +25,14 @@ public class AnalysisCacheImpl extends AnalysisCache {
   public AnalysisCacheImpl(IRFactory<IMethod> irFactory, SSAOptions ssaOptions) {
     super(irFactory, ssaOptions, new SSACache(irFactory, new AuxiliaryCache(), new AuxiliaryCache()));
   }
+
+  /**
+   * @param irCache where to keep IRs, e.g. a {@link BoundedAuxiliaryCache}
+   * @param duCache where to keep {@link DefUse}s
+   */
+  public AnalysisCacheImpl(IRFactory<IMethod> irFactory, SSAOptions ssaOptions, IAuxiliaryCache irCache, IAuxiliaryCache duCache) {
+    super(irFactory, ssaOptions, new SSACache(irFactory, irCache, duCache));
+  }
   
   public AnalysisCacheImpl(SSAOptions ssaOptions) {
     this(new DefaultIRFactory(), ssaOptions);
@@ -201,6 +201,12 @@ public class AnalysisOptions {
    * Should call graph construction handle arrays of zero-length differently?
    */
   private boolean handleZeroLengthArray = true;
+
+  /**
+   * How many threads may the pointer analysis solver use to evaluate independent constraints? The default of 1 selects the
+   * sequential solver; larger values produce the same result.
+   */
+  private int solverThreads = 1;
   
   // SJF: I'm not sure these factories and caches belong here.
   // TODO: figure out how to clean this up.
@@ -451,6 +457,23 @@ public class AnalysisOptions {
     this.handleZeroLengthArray = handleZeroLengthArray;
   }
 
+  /**
+   * @return the number of threads the pointer analysis solver may use
+   */
+  public int getSolverThreads() {
+    return solverThreads;
+  }
+
+  /**
+   * @param solverThreads the number of threads the pointer analysis solver may use; 1 selects the sequential solver
+   */
+  public void setSolverThreads(int solverThreads) {
+    if (solverThreads < 1) {
+      throw new IllegalArgumentException("invalid number of solver threads: " + solverThreads);
+    }
+    this.solverThreads = solverThreads;
+  }
+
   public UninitializedFieldHelperOptions getFieldHelperOptions() {
     return fieldHelperOptions;
   }
@@ -425,8 +425,11 @@ public class AnalysisScope {
           moduleType = "jarFile";
           modulePath = ((JarFileModule) m).getAbsolutePath();
         } else if (m instanceof BinaryDirectoryTreeModule) {
-          moduleType = "binaryDir";
+          moduleType = ((BinaryDirectoryTreeModule) m).mapsFiles() ? "mappedBinaryDir" : "binaryDir";
           modulePath = ((BinaryDirectoryTreeModule) m).getPath();
+        } else if (m instanceof ClassPackModule) {
+          moduleType = "classPack";
+          modulePath = ((ClassPackModule) m).getAbsolutePath();
         } else if (m instanceof SourceDirectoryTreeModule) {
           moduleType = "sourceDir";
           modulePath = ((SourceDirectoryTreeModule) m).getPath();
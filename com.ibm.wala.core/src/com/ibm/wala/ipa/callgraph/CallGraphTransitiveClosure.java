@@ -10,8 +10,15 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.callgraph;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 import com.ibm.wala.dataflow.graph.BitVectorSolver;
@@ -66,4 +73,58 @@ public class CallGraphTransitiveClosure {
     return result;
     
   }
+
+  /**
+   * Like {@link #collectNodeResults(CallGraph, Function)}, but applies nodeResultComputer to the nodes on the given number of
+   * threads, which must therefore be safe to call concurrently. The map is filled in call graph order, so it is the same as the one
+   * computed by one thread.
+   */
+  public static <T> Map<CGNode, Collection<T>> collectNodeResults(CallGraph cg, Function<CGNode, Collection<T>> nodeResultComputer,
+      int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + threads);
+    }
+    if (threads == 1) {
+      return collectNodeResults(cg, nodeResultComputer);
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return collectNodeResults(cg, nodeResultComputer, pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Like {@link #collectNodeResults(CallGraph, Function)}, but applies nodeResultComputer to the nodes on the threads of the given
+   * executor, which is not shut down. The map is filled in call graph order, so it is the same as the one computed by one thread.
+   */
+  public static <T> Map<CGNode, Collection<T>> collectNodeResults(CallGraph cg, Function<CGNode, Collection<T>> nodeResultComputer,
+      ExecutorService executor) {
+    List<CGNode> nodes = new ArrayList<>(cg.getNumberOfNodes());
+    List<Callable<Collection<T>>> tasks = new ArrayList<>(cg.getNumberOfNodes());
+    for (CGNode n : cg) {
+      nodes.add(n);
+      tasks.add(() -> nodeResultComputer.apply(n));
+    }
+    try {
+      List<Future<Collection<T>>> results = executor.invokeAll(tasks);
+      Map<CGNode, Collection<T>> result = HashMapFactory.make();
+      for (int i = 0; i < results.size(); i++) {
+        result.put(nodes.get(i), results.get(i).get());
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      } else {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
 }
@@ -31,7 +31,6 @@ import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.NonNullSingletonIterator;
-import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
 import com.ibm.wala.util.graph.AbstractNumberedGraph;
 import com.ibm.wala.util.graph.NumberedNodeManager;
@@ -254,9 +253,31 @@ public abstract class BasicCallGraph<T> extends AbstractNumberedGraph<CGNode> im
     return result.toString();
   }
 
+  /**
+   * Remove a node and all its call edges. The edge manager must support {@link #removeAllIncidentEdges(Object)}.
+   */
   @Override
   public void removeNodeAndEdges(CGNode N) throws UnimplementedError {
-    Assertions.UNREACHABLE();
+    if (N == null) {
+      throw new IllegalArgumentException("N is null");
+    }
+    if (!containsNode(N)) {
+      throw new IllegalArgumentException("node not in call graph: " + N);
+    }
+    if (N.equals(fakeRoot) || N.equals(fakeWorldClinit)) {
+      throw new IllegalArgumentException("cannot remove " + N);
+    }
+    getEdgeManager().removeAllIncidentEdges(N);
+    nodes.remove(new Key(N.getMethod(), N.getContext()));
+    Set<CGNode> s = mr2Nodes.get(N.getMethod().getReference());
+    if (s != null) {
+      s.remove(N);
+      if (s.isEmpty()) {
+        mr2Nodes.remove(N.getMethod().getReference());
+      }
+    }
+    entrypointNodes.remove(N);
+    nodeManager.removeNode(N);
   }
 
   /**
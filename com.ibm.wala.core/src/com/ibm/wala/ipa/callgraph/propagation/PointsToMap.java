@@ -126,6 +126,21 @@ public class PointsToMap {
     pointsToSets.set(i, v);
   }
 
+  /**
+   * forget the points-to-set recorded for a key; the key keeps its index, and a later {@link #put(PointerKey, PointsToSetVariable)}
+   * starts afresh
+   */
+  public void remove(PointerKey key) {
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    int i = pointerKeys.getMappedIndex(key);
+    if (i != -1) {
+      assert pointsToSets.get(i) != UNIFIED && uf.find(i) == i : "cannot remove unified key " + key;
+      pointsToSets.set(i, null);
+    }
+  }
+
   private int findOrCreateIndex(PointerKey key) {
     int result = pointerKeys.getMappedIndex(key);
     if (result == -1) {
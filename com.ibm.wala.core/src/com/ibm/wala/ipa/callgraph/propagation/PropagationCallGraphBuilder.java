@@ -29,6 +29,7 @@ import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.perf.Metrics;
 import com.ibm.wala.util.warnings.Warning;
 import com.ibm.wala.util.warnings.Warnings;
 
@@ -154,6 +155,11 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
    */
   final private boolean rememberGetPutHistory = true;
 
+  /**
+   * Should the system keep what it needs to update the call graph incrementally after code changes?
+   */
+  private boolean incremental = false;
+
   /**
    * Has to be valid only when invoked with {@link StandardSolver}
    */
@@ -217,7 +223,9 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     if (options == null) {
       throw new IllegalArgumentException("options is null");
     }
+    long start = Metrics.start();
     system = makeSystem(options);
+    system.setRecordDirectFacts(incremental);
 
     if (DEBUG_GENERAL) {
       System.err.println("Enter makeCallGraph!");
@@ -230,6 +238,7 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     system.setMinEquationsForTopSort(options.getMinEquationsForTopSort());
     system.setTopologicalGrowthFactor(options.getTopologicalGrowthFactor());
     system.setMaxEvalBetweenTopo(options.getMaxEvalBetweenTopo());
+    system.setSolverThreads(options.getSolverThreads());
 
     discoveredNodes = HashSetFactory.make();
     discoveredNodes.add(callGraph.getFakeRootNode());
@@ -279,9 +288,22 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
       throw c;
     }
 
+    Metrics.timed("builder.makeCallGraph", null, start, callGraph.getNumberOfNodes());
     return callGraph;
   }
 
+  /**
+   * Build the next call graph so that it can be updated incrementally after code changes. This costs some memory to remember how
+   * points-to sets were seeded.
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  public boolean isIncremental() {
+    return incremental;
+  }
+
   protected PropagationSystem makeSystem(@SuppressWarnings("unused") AnalysisOptions options) {
     return new PropagationSystem(callGraph, pointerKeyFactory, instanceKeyFactory);
   }
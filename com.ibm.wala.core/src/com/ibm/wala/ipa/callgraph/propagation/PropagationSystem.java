@@ -12,28 +12,41 @@ package com.ibm.wala.ipa.callgraph.propagation;
 
 import com.ibm.wala.classLoader.ArrayClass;
 import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.fixedpoint.impl.ConcurrentNumberedWorklist;
 import com.ibm.wala.fixedpoint.impl.DefaultFixedPointSolver;
-import com.ibm.wala.fixedpoint.impl.Worklist;
+import com.ibm.wala.fixedpoint.impl.IWorklist;
+import com.ibm.wala.fixedpoint.impl.NumberedWorklist;
 import com.ibm.wala.fixpoint.*;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.FilterOperator;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyWarning;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.MapUtil;
+import com.ibm.wala.util.collections.SparseVector;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.VerboseAction;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.*;
+import com.ibm.wala.util.perf.Metrics;
 import com.ibm.wala.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.warnings.Warnings;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 /**
  * System of constraints that define propagation for call graph construction
@@ -91,6 +104,13 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
    */
   final private Map<PointsToSetVariable, Set<UnarySideEffect>> fixedSetMap = HashMapFactory.make();
 
+  /**
+   * If non-null, the instance keys added directly to each points-to set by {@link #newConstraint(PointerKey, InstanceKey)}, indexed
+   * by the number of the pointer key in the {@link PointsToMap}. These are the only values that do not flow from some statement, so
+   * we need them to recompute a points-to set from scratch.
+   */
+  private SparseVector<MutableIntSet> directFacts;
+
   /**
    * Governing call graph;
    */
@@ -100,6 +120,17 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
   private int periodicMaintainInterval = DEFAULT_PERIODIC_MAINTENANCE_INTERVAL;
 
+  /**
+   * How many threads evaluate assignment statements? 1 means the purely sequential solver.
+   */
+  private int solverThreads = 1;
+
+  /**
+   * A tuning parameter: the minimum number of independent assignments in one round before the round is handed to the thread pool.
+   * Smaller rounds are cheaper to evaluate sequentially.
+   */
+  private static final int MIN_PARALLEL_ROUND = 256;
+
   public PropagationSystem(CallGraph cg, PointerKeyFactory pointerKeyFactory, InstanceKeyFactory instanceKeyFactory) {
     if (cg == null) {
       throw new IllegalArgumentException("null cg");
@@ -391,6 +422,16 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     }
     pointsToMap.recordTransitiveRoot(lhs);
 
+    if (directFacts != null) {
+      int i = pointsToMap.getIndex(lhs);
+      MutableIntSet facts = directFacts.get(i);
+      if (facts == null) {
+        facts = IntSetUtil.make();
+        directFacts.set(i, facts);
+      }
+      facts.add(findOrCreateIndexForInstanceKey(value));
+    }
+
     // we don't actually add a constraint.
     // instead, we immediately add the value to the points-to set.
     // This works since the solver is monotonic with TOP = {}
@@ -574,6 +615,15 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     newStatement(null, op, v1, v2, true, true);
   }
 
+  /**
+   * Statements in the flow graph are numbered, so use the cheaper bit vector / bucket queue worklist. With several solver
+   * threads, the threads that evaluate assignments insert their successors concurrently.
+   */
+  @Override
+  protected IWorklist makeWorklist() {
+    return solverThreads > 1 ? new ConcurrentNumberedWorklist() : new NumberedWorklist();
+  }
+
   @Override
   protected void initializeWorkList() {
     addAllStatementsToWorkList();
@@ -665,7 +715,7 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
   /**
    * Use with care.
    */
-  Worklist getWorklist() {
+  IWorklist getWorklist() {
     return workList;
   }
 
@@ -738,6 +788,351 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     this.periodicMaintainInterval = periodicMaintainInteval;
   }
 
+  public int getSolverThreads() {
+    return solverThreads;
+  }
+
+  /**
+   * @param solverThreads number of threads used to evaluate independent assignment statements; 1 selects the sequential solver
+   */
+  public void setSolverThreads(int solverThreads) {
+    if (solverThreads < 1) {
+      throw new IllegalArgumentException("invalid number of solver threads: " + solverThreads);
+    }
+    this.solverThreads = solverThreads;
+    IWorklist pending = workList;
+    workList = makeWorklist();
+    while (!pending.isEmpty()) {
+      workList.insertStatement(pending.takeStatement());
+    }
+  }
+
+  @Override
+  public boolean solve(IProgressMonitor monitor) throws CancelException {
+    boolean result;
+    if (solverThreads <= 1) {
+      result = super.solve(monitor);
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(solverThreads);
+      try {
+        result = solveInRounds(monitor, pool);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    if (Metrics.isEnabled()) {
+      reportSizes();
+    }
+    return result;
+  }
+
+  /**
+   * Sample the number of points-to set variables and the total size of their sets, to track how the solution grows.
+   */
+  private void reportSizes() {
+    long variables = 0;
+    long facts = 0;
+    for (PointerKey key : Iterator2Iterable.make(pointsToMap.iterateKeys())) {
+      if (!pointsToMap.isImplicit(key) && !pointsToMap.isUnified(key)) {
+        PointsToSetVariable v = pointsToMap.getPointsToSet(key);
+        if (v != null) {
+          variables++;
+          facts += v.size();
+        }
+      }
+    }
+    Metrics.gauge("pointsTo.variables", variables);
+    Metrics.gauge("pointsTo.facts", facts);
+    Metrics.gauge("pointsTo.instanceKeys", instanceKeys.getSize());
+  }
+
+  /**
+   * Parallel variant of {@link #solve(IProgressMonitor)}.
+   * 
+   * Each round drains the work list. Assignments in the round are partitioned by the variable they define, so that every
+   * {@link PointsToSetVariable} is written by exactly one thread. An assignment joins the parallel partition only if it reads no
+   * variable written in this partition and defines no variable read in it; all other statements, including every statement with
+   * side effects on the system or call graph, are evaluated sequentially afterwards in topological order. Since the system is
+   * monotone, this computes the same least fixed point as the sequential solver.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean solveInRounds(IProgressMonitor monitor, ForkJoinPool pool) throws CancelException {
+    boolean globalChange = false;
+
+    if (isFirstSolve()) {
+      initForFirstSolve();
+    }
+    long start = Metrics.start();
+    int evaluated = getNumberOfEvaluations();
+
+    while (!workList.isEmpty()) {
+      MonitorUtil.throwExceptionIfCanceled(monitor);
+      // a round evaluates the whole work list, so re-sort only at the growth checkpoint, not at every round
+      orderStatementsIfGrown();
+
+      List<AbstractStatement> round = new ArrayList<>();
+      while (!workList.isEmpty()) {
+        round.add(workList.takeStatement());
+      }
+
+      Map<PointsToSetVariable, List<AssignEquation>> owners = new LinkedHashMap<>();
+      List<AbstractStatement> sequential = new ArrayList<>();
+      MutableIntSet written = new BitVectorIntSet();
+      MutableIntSet read = new BitVectorIntSet();
+      for (AbstractStatement s : round) {
+        if (s instanceof AssignEquation) {
+          AssignEquation eq = (AssignEquation) s;
+          int l = eq.getLHS().getGraphNodeId();
+          int r = eq.getRightHandSide().getGraphNodeId();
+          if (l >= 0 && r >= 0 && !read.contains(l) && !written.contains(r)) {
+            written.add(l);
+            read.add(r);
+            MapUtil.findOrCreateList(owners, eq.getLHS()).add(eq);
+            continue;
+          }
+        }
+        sequential.add(s);
+      }
+
+      if (written.size() < MIN_PARALLEL_ROUND) {
+        // not worth the hand-off; evaluate the round as the sequential solver would
+        sequential = round;
+      } else {
+        globalChange |= evaluateInParallel(pool, owners);
+      }
+
+      for (AbstractStatement s : sequential) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        byte code = s.evaluate();
+        incNumberOfEvaluations();
+        if (isChanged(code)) {
+          globalChange = true;
+          if (s.getLHS() != null) {
+            changedVariable((PointsToSetVariable) s.getLHS());
+          }
+        }
+        if (isFixed(code)) {
+          removeStatement(s);
+        }
+      }
+    }
+    Metrics.timed("solver.solve", getClass(), start, getNumberOfEvaluations() - evaluated);
+    return globalChange;
+  }
+
+  /**
+   * Evaluate each group of assignments on the pool, one task per defined variable. If the work list is a
+   * {@link ConcurrentNumberedWorklist}, each task adds the users of its changed variable; otherwise changes are propagated
+   * sequentially afterwards.
+   * 
+   * @return true iff some variable changed
+   */
+  private boolean evaluateInParallel(ForkJoinPool pool, Map<PointsToSetVariable, List<AssignEquation>> owners) {
+    final boolean concurrentWorkList = workList instanceof ConcurrentNumberedWorklist;
+    List<Callable<Byte>> tasks = new ArrayList<>(owners.size());
+    for (List<AssignEquation> group : owners.values()) {
+      tasks.add(() -> {
+        byte code = NOT_CHANGED;
+        for (AssignEquation eq : group) {
+          code |= eq.evaluate();
+        }
+        if (concurrentWorkList && isChanged(code)) {
+          // the flow graph is not modified during the round, so its use lists can be read by all tasks
+          changedVariable(group.get(0).getLHS());
+        }
+        return code;
+      });
+    }
+
+    List<Future<Byte>> results = pool.invokeAll(tasks);
+
+    boolean change = false;
+    Iterator<List<AssignEquation>> groups = owners.values().iterator();
+    for (Future<Byte> f : results) {
+      List<AssignEquation> group = groups.next();
+      byte code;
+      try {
+        code = f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        } else if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+      for (int i = 0; i < group.size(); i++) {
+        incNumberOfEvaluations();
+      }
+      if (isChanged(code)) {
+        change = true;
+        if (!concurrentWorkList) {
+          changedVariable(group.get(0).getLHS());
+        }
+      }
+    }
+    return change;
+  }
+
+  /**
+   * Should the system remember the instance keys added directly to points-to sets? This is needed to
+   * {@link #resetVariables(Set, IntSet) reset} variables later, and must be set before any constraint is added.
+   */
+  public void setRecordDirectFacts(boolean record) {
+    directFacts = record ? new SparseVector<>() : null;
+  }
+
+  public boolean isRecordingDirectFacts() {
+    return directFacts != null;
+  }
+
+  /**
+   * @return the numbers of all instance keys that satisfy the predicate
+   */
+  public IntSet findInstanceKeys(Predicate<InstanceKey> p) {
+    MutableIntSet result = IntSetUtil.make();
+    for (int i = 0; i <= instanceKeys.getMaximumIndex(); i++) {
+      InstanceKey ik = instanceKeys.getMappedObject(i);
+      if (ik != null && p.test(ik)) {
+        result.add(i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Remove the points-to sets for some pointer keys from the system, with every statement that defines or uses them. The pointer
+   * keys may be used again afterwards, and then start with empty points-to sets.
+   *
+   * @return the variables that are not removed, but lost a statement defining them
+   */
+  public Set<PointsToSetVariable> removeVariables(Collection<PointerKey> keys) {
+    if (keys == null) {
+      throw new IllegalArgumentException("null keys");
+    }
+    Map<PointerKey, PointsToSetVariable> removed = HashMapFactory.make();
+    for (PointerKey key : keys) {
+      if (pointsToMap.isImplicit(key)) {
+        pointsToMap.remove(key);
+      } else if (pointsToMap.getIndex(key) != -1) {
+        PointsToSetVariable v = pointsToMap.getPointsToSet(key);
+        if (v != null) {
+          removed.put(key, v);
+        }
+      }
+    }
+    Set<PointsToSetVariable> dead = HashSetFactory.make(removed.values());
+    Set<AbstractStatement> statements = HashSetFactory.make();
+    for (PointsToSetVariable v : dead) {
+      statements.addAll(Iterator2Collection.toSet(getStatementsThatDef(v)));
+      statements.addAll(Iterator2Collection.toSet(getStatementsThatUse(v)));
+    }
+    Set<PointsToSetVariable> result = HashSetFactory.make();
+    for (AbstractStatement s : statements) {
+      @SuppressWarnings("unchecked")
+      final IFixedPointStatement<PointsToSetVariable> statement = s;
+      flowGraph.removeStatement(statement);
+      PointsToSetVariable lhs = statement.getLHS();
+      if (lhs != null && !dead.contains(lhs)) {
+        result.add(lhs);
+      }
+    }
+    for (Map.Entry<PointerKey, PointsToSetVariable> e : removed.entrySet()) {
+      PointsToSetVariable v = e.getValue();
+      v.removeAll();
+      fixedSetMap.remove(v);
+      if (v.getGraphNodeId() > -1) {
+        flowGraph.removeVariable(v);
+      }
+      pointsToMap.remove(e.getKey());
+      if (directFacts != null) {
+        directFacts.remove(pointsToMap.getIndex(e.getKey()));
+      }
+    }
+    pointerAnalysis = null;
+    return result;
+  }
+
+  /**
+   * Throw away the points-to sets of some variables, of every variable that holds one of some stale instance keys, and of every
+   * variable they flow to, and schedule the statements defining them, so that the next {@link #solve(IProgressMonitor)} recomputes
+   * their values. The stale instance keys are dropped for good.
+   *
+   * Values that side effects (e.g. dispatch or field access) have already processed are not processed again; the statements they
+   * added stay in the system.
+   *
+   * PRECONDITION: the system records direct facts, and has no unified variables
+   *
+   * @return the number of variables reset
+   */
+  public int resetVariables(Set<PointsToSetVariable> seeds, IntSet staleInstances) {
+    if (seeds == null) {
+      throw new IllegalArgumentException("null seeds");
+    }
+    if (staleInstances == null) {
+      throw new IllegalArgumentException("null staleInstances");
+    }
+    if (directFacts == null) {
+      throw new IllegalStateException("direct facts are not recorded");
+    }
+    Set<PointsToSetVariable> reset = HashSetFactory.make(seeds);
+    if (!staleInstances.isEmpty()) {
+      for (PointerKey key : Iterator2Iterable.make(pointsToMap.iterateKeys())) {
+        if (!pointsToMap.isImplicit(key)) {
+          PointsToSetVariable v = pointsToMap.getPointsToSet(key);
+          if (v != null && v.getValue() != null && v.getValue().containsAny(staleInstances)) {
+            reset.add(v);
+          }
+        }
+      }
+    }
+    ArrayDeque<PointsToSetVariable> worklist = new ArrayDeque<>(reset);
+    while (!worklist.isEmpty()) {
+      PointsToSetVariable v = worklist.pop();
+      for (AbstractStatement s : Iterator2Iterable.make(getStatementsThatUse(v))) {
+        PointsToSetVariable lhs = (PointsToSetVariable) s.getLHS();
+        if (lhs != null && reset.add(lhs)) {
+          worklist.push(lhs);
+        }
+      }
+    }
+    for (PointsToSetVariable v : reset) {
+      v.removeAll();
+    }
+    for (PointsToSetVariable v : reset) {
+      MutableIntSet facts = directFacts.get(pointsToMap.getIndex(v.getPointerKey()));
+      if (facts != null) {
+        staleInstances.foreach(facts::remove);
+        if (!facts.isEmpty()) {
+          v.addAll(facts);
+        }
+      }
+      for (AbstractStatement s : Iterator2Iterable.make(getStatementsThatDef(v))) {
+        addToWorkList(s);
+      }
+      // the facts may have to flow on
+      if (v.getValue() != null) {
+        changedVariable(v);
+      }
+    }
+    // an equal instance key created later gets a fresh number, so that side effects that remember the instances they have
+    // processed do not skip it
+    for (IntIterator it = staleInstances.intIterator(); it.hasNext();) {
+      InstanceKey ik = instanceKeys.getMappedObject(it.next());
+      if (ik != null) {
+        instanceKeys.deleteMappedObject(ik);
+      }
+    }
+    for (MutableIntSet s : class2InstanceKey.values()) {
+      staleInstances.foreach(s::remove);
+    }
+    pointerAnalysis = null;
+    return reset.size();
+  }
+
   /**
    * Unify the points-to-sets for the variables identified by the set s
    * 
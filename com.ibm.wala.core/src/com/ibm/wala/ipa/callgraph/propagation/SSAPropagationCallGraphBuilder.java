@@ -15,6 +15,8 @@ import com.ibm.wala.cfg.ControlFlowGraph;
 import com.ibm.wala.cfg.IBasicBlock;
 import com.ibm.wala.classLoader.*;
 import com.ibm.wala.fixpoint.AbstractOperator;
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.fixpoint.IFixedPointStatement;
 import com.ibm.wala.ipa.callgraph.*;
 import com.ibm.wala.ipa.callgraph.impl.AbstractRootMethod;
 import com.ibm.wala.ipa.callgraph.impl.DefaultEntrypoint;
@@ -33,11 +35,14 @@ import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
 import com.ibm.wala.util.intset.*;
+import com.ibm.wala.util.perf.Metrics;
 import com.ibm.wala.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.warnings.Warning;
 import com.ibm.wala.util.warnings.Warnings;
@@ -113,6 +118,16 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
 
   private final Set<IClass> finalizeVisited = HashSetFactory.make();
 
+  /**
+   * in incremental mode, the types that the constraints of each node may depend on
+   */
+  private final Map<CGNode, Set<TypeReference>> mentionedTypes = HashMapFactory.make();
+
+  /**
+   * in incremental mode, the nodes whose constraints may depend on each type; the inverse of {@link #mentionedTypes}
+   */
+  private final Map<TypeReference, Set<CGNode>> mentioningNodes = HashMapFactory.make();
+
   public IProgressMonitor monitor;
 
   protected SSAPropagationCallGraphBuilder(IClassHierarchy cha, AnalysisOptions options, IAnalysisCacheView cache,
@@ -187,16 +202,253 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
       return false;
     }
 
+    long start = Metrics.start();
+    int created = system.getNumberOfStatementsCreated();
+
     addNodeInstructionConstraints(node, monitor);
 
     addNodeValueConstraints(node, monitor);
     
     DefUse du = getCFAContextInterpreter().getDU(node);
     addNodePassthruExceptionConstraints(node, ir, du);
+    if (system.isRecordingDirectFacts()) {
+      indexMentionedTypes(node);
+    }
+    Metrics.timed("builder.constraints", node, start, system.getNumberOfStatementsCreated() - created);
     // conservatively assume something changed
     return true;
   }
 
+  /**
+   * Update the call graph and pointer analysis after some classes were changed, added or removed, without building them again.
+   * <p>
+   * The nodes for methods of changed classes are removed from the call graph, and their IRs are invalidated in the cache. The nodes
+   * that call them, or that refer to a changed type (allocation, call, field access, cast, instanceof, catch, class constant, or
+   * parameter type), lose their constraints and are processed again, as are the calls into those nodes from elsewhere. Every
+   * points-to set that may depend on a removed constraint, or that holds an instance of a changed type, is recomputed; the rest of
+   * the system is left as it is.
+   * <p>
+   * The result is sound, but may be less precise than a fresh build: call edges and field flows that side effects in unaffected
+   * nodes have already added are not retracted, and nodes that become unreachable stay in the graph.
+   * <p>
+   * PRECONDITIONS: the call graph was built in {@link #setIncremental(boolean) incremental} mode with a solver that does not unify
+   * points-to sets, and the class hierarchy already holds the new versions of the classes. Every class whose {@link IClass} was
+   * replaced must be listed, including subclasses that were only reloaded.
+   *
+   * @param changedTypes the classes that were changed, added or removed
+   * @return the updated call graph
+   */
+  public CallGraph updateCallGraph(Collection<TypeReference> changedTypes, IProgressMonitor monitor) throws CancelException {
+    if (changedTypes == null) {
+      throw new IllegalArgumentException("null changedTypes");
+    }
+    if (system == null || !system.isRecordingDirectFacts()) {
+      throw new IllegalStateException("call graph was not built in incremental mode");
+    }
+    this.monitor = monitor;
+    long start = Metrics.start();
+    final Set<TypeReference> changed = HashSetFactory.make(changedTypes);
+
+    final Set<CGNode> retired = HashSetFactory.make();
+    for (CGNode n : callGraph) {
+      if (changed.contains(n.getMethod().getDeclaringClass().getReference())) {
+        retired.add(n);
+      }
+    }
+    Set<CGNode> dirty = HashSetFactory.make();
+    for (CGNode n : retired) {
+      for (CGNode caller : Iterator2Iterable.make(callGraph.getPredNodes(n))) {
+        dirty.add(caller);
+      }
+    }
+    for (TypeReference t : changed) {
+      Set<CGNode> s = mentioningNodes.get(t);
+      if (s != null) {
+        dirty.addAll(s);
+      }
+    }
+    dirty.removeAll(retired);
+    // the constraints for passing parameters into dirty nodes go away, so the calls from other nodes must be processed again
+    Map<CGNode, Set<CallSiteReference>> revisit = HashMapFactory.make();
+    for (CGNode n : dirty) {
+      for (CGNode caller : Iterator2Iterable.make(callGraph.getPredNodes(n))) {
+        if (!dirty.contains(caller) && !retired.contains(caller)) {
+          Set<CallSiteReference> sites = MapUtil.findOrCreateSet(revisit, caller);
+          for (CallSiteReference site : Iterator2Iterable.make(callGraph.getPossibleSites(caller, n))) {
+            sites.add(site);
+          }
+        }
+      }
+    }
+
+    IntSet stale = system.findInstanceKeys(ik -> {
+      if (ik instanceof AbstractTypeInNode && retired.contains(((AbstractTypeInNode) ik).getNode())) {
+        return true;
+      }
+      return ik.getConcreteType() != null && changed.contains(innermostType(ik.getConcreteType().getReference()));
+    });
+
+    List<PointerKey> doomed = new ArrayList<>();
+    for (PointerKey key : Iterator2Iterable.make(system.iteratePointerKeys())) {
+      if (key instanceof AbstractLocalPointerKey) {
+        CGNode n = ((AbstractLocalPointerKey) key).getNode();
+        if (retired.contains(n) || dirty.contains(n)) {
+          doomed.add(key);
+        }
+      } else if (key instanceof InstanceFieldPointerKey) {
+        int ik = system.getInstanceIndex(((InstanceFieldPointerKey) key).getInstanceKey());
+        if ((ik != -1 && stale.contains(ik))
+            || (key instanceof InstanceFieldKey && changed.contains(((InstanceFieldKey) key).getField().getDeclaringClass().getReference()))) {
+          doomed.add(key);
+        }
+      } else if (key instanceof StaticFieldKey) {
+        if (changed.contains(((StaticFieldKey) key).getField().getDeclaringClass().getReference())) {
+          doomed.add(key);
+        }
+      }
+    }
+    for (Map.Entry<CGNode, Set<CallSiteReference>> e : revisit.entrySet()) {
+      IR ir = getCFAContextInterpreter().getIR(e.getKey());
+      if (ir == null) {
+        continue;
+      }
+      for (CallSiteReference site : e.getValue()) {
+        for (SSAAbstractInvokeInstruction call : ir.getCalls(site)) {
+          removeDispatch(e.getKey(), call);
+        }
+      }
+    }
+    Set<PointsToSetVariable> seeds = system.removeVariables(doomed);
+
+    for (CGNode n : retired) {
+      unindexMentionedTypes(n);
+      callGraph.removeNodeAndEdges(n);
+      getAnalysisCache().invalidate(n.getMethod(), n.getContext());
+    }
+    removeFromAlreadyVisitedNodes(retired);
+    for (CGNode n : dirty) {
+      callGraph.getEdgeManager().removeOutgoingEdges(n);
+      markChanged(n);
+    }
+    clinitVisited.removeIf(klass -> changed.contains(klass.getReference()));
+    finalizeVisited.removeIf(klass -> changed.contains(klass.getReference()));
+
+    system.resetVariables(seeds, stale);
+
+    for (Map.Entry<CGNode, Set<CallSiteReference>> e : revisit.entrySet()) {
+      ConstraintVisitor v = makeVisitor(e.getKey());
+      for (CallSiteReference site : e.getValue()) {
+        for (ISSABasicBlock b : v.ir.getBasicBlocksForCall(site)) {
+          v.setBasicBlock(b);
+          b.getLastInstruction().visit(v);
+        }
+      }
+    }
+
+    getSolver().solve(monitor);
+    Metrics.timed("builder.updateCallGraph", null, start, retired.size() + dirty.size());
+    return callGraph;
+  }
+
+  private static TypeReference innermostType(TypeReference t) {
+    return t.isArrayType() ? t.getInnermostElementType() : t;
+  }
+
+  /**
+   * Record the types that the constraints for n may depend on, replacing what was recorded for n before. This runs when the
+   * constraints of n are built, while its IR is at hand, so that an update need not look at the IRs of unaffected nodes.
+   */
+  private void indexMentionedTypes(CGNode n) {
+    unindexMentionedTypes(n);
+    Set<TypeReference> types = HashSetFactory.make();
+    IMethod m = n.getMethod();
+    for (int i = 0; i < m.getNumberOfParameters(); i++) {
+      types.add(innermostType(m.getParameterType(i)));
+    }
+    types.add(innermostType(m.getReturnType()));
+    IR ir = getCFAContextInterpreter().getIR(n);
+    if (ir != null) {
+      for (SSAInstruction s : ir.getInstructions()) {
+        if (s instanceof SSANewInstruction) {
+          types.add(innermostType(((SSANewInstruction) s).getConcreteType()));
+        } else if (s instanceof SSAAbstractInvokeInstruction) {
+          types.add(innermostType(((SSAAbstractInvokeInstruction) s).getDeclaredTarget().getDeclaringClass()));
+        } else if (s instanceof SSAFieldAccessInstruction) {
+          FieldReference f = ((SSAFieldAccessInstruction) s).getDeclaredField();
+          types.add(innermostType(f.getDeclaringClass()));
+          IField field = getClassHierarchy().resolveField(f);
+          if (field != null) {
+            types.add(field.getDeclaringClass().getReference());
+          }
+        } else if (s instanceof SSACheckCastInstruction) {
+          for (TypeReference t : ((SSACheckCastInstruction) s).getDeclaredResultTypes()) {
+            types.add(innermostType(t));
+          }
+        } else if (s instanceof SSAInstanceofInstruction) {
+          types.add(innermostType(((SSAInstanceofInstruction) s).getCheckedType()));
+        } else if (s instanceof SSAArrayReferenceInstruction) {
+          types.add(innermostType(((SSAArrayReferenceInstruction) s).getElementType()));
+        } else if (s instanceof SSALoadMetadataInstruction && ((SSALoadMetadataInstruction) s).getToken() instanceof TypeReference) {
+          types.add(innermostType((TypeReference) ((SSALoadMetadataInstruction) s).getToken()));
+        }
+      }
+      for (ISSABasicBlock b : ir.getControlFlowGraph()) {
+        if (b.isCatchBlock()) {
+          for (TypeReference t : Iterator2Iterable.make(b.getCaughtExceptionTypes())) {
+            types.add(innermostType(t));
+          }
+        }
+      }
+    }
+    mentionedTypes.put(n, types);
+    for (TypeReference t : types) {
+      MapUtil.findOrCreateSet(mentioningNodes, t).add(n);
+    }
+  }
+
+  private void unindexMentionedTypes(CGNode n) {
+    Set<TypeReference> types = mentionedTypes.remove(n);
+    if (types != null) {
+      for (TypeReference t : types) {
+        Set<CGNode> s = mentioningNodes.get(t);
+        s.remove(n);
+        if (s.isEmpty()) {
+          mentioningNodes.remove(t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the side effect that dispatches a call, so that visiting the call again starts afresh.
+   */
+  private void removeDispatch(CGNode caller, SSAAbstractInvokeInstruction call) {
+    Set<AbstractStatement> statements = HashSetFactory.make();
+    for (int i = 0; i < call.getNumberOfUses(); i++) {
+      PointerKey key = getPointerKeyForLocal(caller, call.getUse(i));
+      if (system.isImplicit(key) || system.pointsToMap.getIndex(key) == -1) {
+        continue;
+      }
+      PointsToSetVariable v = system.pointsToMap.getPointsToSet(key);
+      if (v == null) {
+        continue;
+      }
+      for (AbstractStatement s : Iterator2Iterable.make(system.getStatementsThatUse(v))) {
+        if (s.getOperator() instanceof DispatchOperator) {
+          DispatchOperator op = (DispatchOperator) s.getOperator();
+          if (op.node.equals(caller) && op.call.getCallSite().equals(call.getCallSite())) {
+            statements.add(s);
+          }
+        }
+      }
+    }
+    for (AbstractStatement s : statements) {
+      @SuppressWarnings("unchecked")
+      final IFixedPointStatement<PointsToSetVariable> statement = s;
+      system.getFixedPointSystem().removeStatement(statement);
+    }
+  }
+
   /**
    * @return a visitor to examine instructions in the ir
    */
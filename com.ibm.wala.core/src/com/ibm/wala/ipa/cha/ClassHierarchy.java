@@ -17,6 +17,7 @@ import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.*;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
+import com.ibm.wala.util.perf.Metrics;
 import com.ibm.wala.util.ref.CacheReference;
 import com.ibm.wala.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.strings.Atom;
@@ -158,6 +159,7 @@ public class ClassHierarchy implements IClassHierarchy {
     // now is a good time to clear the warnings globally.
     // TODO: think of a better way to guard against warning leaks.
     Warnings.clear();
+    long start = Metrics.start();
 
     this.map = map;
     
@@ -206,7 +208,9 @@ public class ClassHierarchy implements IClassHierarchy {
         }
 
         if (langNames.contains(ref.getLanguage())) {
+          long loaderStart = Metrics.start();
           IClassLoader icl = factory.getLoader(ref, this, scope);
+          Metrics.timed("cha.loader", ref.getName(), loaderStart, icl.getNumberOfClasses());
           loaders[idx++] = icl;
 
           if (progressMonitor != null) {
@@ -219,7 +223,9 @@ public class ClassHierarchy implements IClassHierarchy {
         if (progressMonitor != null) {
           progressMonitor.subTask("From " + icl.getName().toString());
         }
+        long addStart = Metrics.start();
         addAllClasses(icl, progressMonitor);
+        Metrics.timed("cha.addClasses", icl.getName(), addStart, icl.getNumberOfClasses());
 
         if (progressMonitor != null) {
           progressMonitor.worked(idx++);
@@ -241,6 +247,7 @@ public class ClassHierarchy implements IClassHierarchy {
     // perform numbering for subclass tests.
     numberTree();
     ReferenceCleanser.registerClassHierarchy(this);
+    Metrics.timed("cha.make", null, start, getNumberOfClasses());
   }
 
   /**
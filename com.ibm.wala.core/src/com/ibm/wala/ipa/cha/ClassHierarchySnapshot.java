@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ipa.cha;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+
+/**
+ * A persistent summary of the class headers in one {@link Module}: names, supertypes, interfaces and modifiers.
+ *
+ * Snapshots are written once per module content hash (see {@link #contentHash(Module)}) and memory-mapped on reload, so loading
+ * a library whose snapshot exists does not parse any class file; class files are only read when a class's members or bytecodes
+ * are first needed. A module whose contents change gets a new hash, and thus a new snapshot.
+ *
+ * File layout: magic, version, content hash, number of classes n, n record offsets, then n records. A record holds the module
+ * entry name, the class name (empty if the class file is invalid), access flags, superclass name (empty for none) and interface
+ * names. Members are not recorded, since fields and methods need annotations and signatures from the class file anyway. Strings
+ * are a length followed by UTF-8 bytes.
+ */
+public class ClassHierarchySnapshot {
+
+  public static final int MAGIC = 0x57434853;
+
+  public static final int VERSION = 2;
+
+  private static final String SUFFIX = ".chs";
+
+  private final ByteBuffer buffer;
+
+  private final int[] offsets;
+
+  private final String hash;
+
+  private ClassHierarchySnapshot(ByteBuffer buffer, int[] offsets, String hash) {
+    this.buffer = buffer;
+    this.offsets = offsets;
+    this.hash = hash;
+  }
+
+  /**
+   * Load the snapshot for module m from directory dir, first writing it if there is none for the current contents of m.
+   */
+  public static ClassHierarchySnapshot findOrCreate(File dir, Module m) throws IOException {
+    String hash = contentHash(m);
+    File f = new File(dir, hash + SUFFIX);
+    ClassHierarchySnapshot result = f.exists() ? load(f, hash) : null;
+    if (result == null) {
+      if (!dir.exists() && !dir.mkdirs()) {
+        throw new IOException("cannot create snapshot directory " + dir);
+      }
+      // write to a temporary file first, so that concurrent analyses never see a partial snapshot
+      File tmp = File.createTempFile(hash, SUFFIX, dir);
+      try (OutputStream out = new FileOutputStream(tmp)) {
+        write(m, hash, out);
+      }
+      if (!tmp.renameTo(f) && !f.exists()) {
+        throw new IOException("cannot create snapshot " + f);
+      }
+      tmp.delete();
+      result = load(f, hash);
+    }
+    return result;
+  }
+
+  /**
+   * Memory-map a snapshot file.
+   *
+   * @return the snapshot, or null if the file is not a snapshot of this version for a module with the given content hash, or is
+   *         truncated or corrupt
+   */
+  public static ClassHierarchySnapshot load(File f, String expectedHash) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(f, "r"); FileChannel channel = file.getChannel()) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+      String hash = readString(buffer);
+      if (!hash.equals(expectedHash)) {
+        return null;
+      }
+      int[] offsets = new int[readCount(buffer, 4)];
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = buffer.getInt();
+      }
+      ClassHierarchySnapshot result = new ClassHierarchySnapshot(buffer, offsets, hash);
+      // records are decoded on demand, so check them all now rather than fail halfway through loading classes
+      for (int i = 0; i < offsets.length; i++) {
+        result.getRecord(i);
+      }
+      return result;
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  public String getContentHash() {
+    return hash;
+  }
+
+  public int getNumberOfClasses() {
+    return offsets.length;
+  }
+
+  /**
+   * Decode the i-th class record from the mapped file.
+   */
+  public ClassRecord getRecord(int i) {
+    ByteBuffer b = buffer.duplicate();
+    b.position(offsets[i]);
+    return new ClassRecord(b);
+  }
+
+  /**
+   * A class as recorded in a snapshot. Class names are in JVM internal form, e.g. java/lang/Object.
+   */
+  public static final class ClassRecord {
+    private final String entryName;
+
+    private final String className;
+
+    private final int modifiers;
+
+    private final String superName;
+
+    private final String[] interfaceNames;
+
+    private ClassRecord(ByteBuffer b) {
+      entryName = readString(b);
+      className = readString(b);
+      modifiers = b.getInt();
+      String s = readString(b);
+      superName = s.isEmpty() ? null : s;
+      interfaceNames = new String[readCount(b, 4)];
+      for (int i = 0; i < interfaceNames.length; i++) {
+        interfaceNames[i] = readString(b);
+      }
+    }
+
+    /**
+     * @return the name of the module entry holding the class file
+     */
+    public String getEntryName() {
+      return entryName;
+    }
+
+    /**
+     * @return the class name, or null if the class file could not be read
+     */
+    public String getClassName() {
+      return className.isEmpty() ? null : className;
+    }
+
+    public int getModifiers() {
+      return modifiers;
+    }
+
+    /**
+     * @return the superclass name, or null for java/lang/Object
+     */
+    public String getSuperName() {
+      return superName;
+    }
+
+    public String[] getInterfaceNames() {
+      return interfaceNames.clone();
+    }
+
+    @Override
+    public String toString() {
+      return "ClassRecord: " + className + " from " + entryName;
+    }
+  }
+
+  /**
+   * Write the snapshot of all class files in module m.
+   */
+  public static void write(Module m, String hash, OutputStream out) throws IOException {
+    List<byte[]> records = new ArrayList<>();
+    collectRecords(m, records);
+
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    writeString(data, hash);
+    data.writeInt(records.size());
+    int offset = 4 + 4 + 4 + hash.getBytes(StandardCharsets.UTF_8).length + 4 + 4 * records.size();
+    for (byte[] r : records) {
+      data.writeInt(offset);
+      offset += r.length;
+    }
+    for (byte[] r : records) {
+      data.write(r);
+    }
+    data.flush();
+  }
+
+  private static void collectRecords(Module m, List<byte[]> records) throws IOException {
+    for (ModuleEntry entry : Iterator2Iterable.make(m.getEntries())) {
+      if (entry.isClassFile()) {
+        records.add(makeRecord(entry));
+      } else if (entry.isModuleFile()) {
+        collectRecords(entry.asModule(), records);
+      }
+    }
+  }
+
+  private static byte[] makeRecord(ModuleEntry entry) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeString(out, entry.getName());
+    try {
+      ClassReader cr = new ClassReader(readFully(entry));
+      writeString(out, cr.getName());
+      out.writeInt(cr.getAccessFlags());
+      String superName = cr.getSuperName();
+      writeString(out, superName == null ? "" : superName);
+      String[] interfaces = cr.getInterfaceNames();
+      out.writeInt(interfaces.length);
+      for (String i : interfaces) {
+        writeString(out, i);
+      }
+    } catch (InvalidClassFileException e) {
+      // record the entry as invalid, so that loading from the snapshot reports it just like loading from the module
+      bytes.reset();
+      out = new DataOutputStream(bytes);
+      writeString(out, entry.getName());
+      writeString(out, "");
+      out.writeInt(0);
+      writeString(out, "");
+      out.writeInt(0);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] readFully(ModuleEntry entry) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (InputStream s = entry.getInputStream()) {
+      byte[] buffer = new byte[8192];
+      for (int n = s.read(buffer); n > -1; n = s.read(buffer)) {
+        result.write(buffer, 0, n);
+      }
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Compute a hash of the contents of a module. For jar files, this uses the names, sizes and CRCs in the central directory, so
+   * no entry needs to be inflated; for other modules, it reads the class files.
+   */
+  public static String contentHash(Module m) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    digest.update(ByteBuffer.allocate(4).putInt(VERSION).array());
+    hash(m, digest);
+    StringBuilder result = new StringBuilder();
+    for (byte b : digest.digest()) {
+      result.append(String.format("%02x", b & 0xff));
+    }
+    return result.toString();
+  }
+
+  private static void hash(Module m, MessageDigest digest) throws IOException {
+    if (m instanceof JarFileModule) {
+      JarFile jar = ((JarFileModule) m).getJarFile();
+      for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements();) {
+        JarEntry entry = e.nextElement();
+        digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+        digest.update(ByteBuffer.allocate(16).putLong(entry.getSize()).putLong(entry.getCrc()).array());
+      }
+    } else {
+      for (ModuleEntry entry : Iterator2Iterable.make(m.getEntries())) {
+        if (entry.isClassFile()) {
+          digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+          digest.update(readFully(entry));
+        } else if (entry.isModuleFile()) {
+          hash(entry.asModule(), digest);
+        }
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+  }
+
+  /**
+   * Read the number of elements that follow in b, each at least elementSize bytes long.
+   * 
+   * @throws BufferUnderflowException if b is too short to hold them
+   */
+  private static int readCount(ByteBuffer b, int elementSize) {
+    int count = b.getInt();
+    if (count < 0 || count > b.remaining() / elementSize) {
+      throw new BufferUnderflowException();
+    }
+    return count;
+  }
+
+  private static String readString(ByteBuffer b) {
+    byte[] bytes = new byte[readCount(b, 1)];
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -13,6 +13,8 @@ package com.ibm.wala.ipa.modref;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IField;
@@ -47,9 +49,64 @@ public class ModRef<T extends InstanceKey> {
     return new ModRef<>();
   }
 
+  /**
+   * number of threads used to scan call graph nodes, and by the slicer to compute heap reaching definitions
+   */
+  private int threads = 1;
+
+  /**
+   * the threads used if {@link #threads} is more than one; created when first needed
+   */
+  private ForkJoinPool pool;
+
   public ModRef() {
   }
 
+  public synchronized int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Scan call graph nodes for the locations they read or write on several threads; the {@link com.ibm.wala.ipa.slicer.PDG}s built
+   * with this object also compute heap reaching definitions for several locations at once. The results are the same as with one
+   * thread. The threads share the heap model from {@link #makeSynchronizedHeapModel(PointerAnalysis)}; the pointer analysis is only
+   * queried for points-to sets. All of these computations run on one pool of threads, from {@link #getExecutor()}.
+   * 
+   * @param threads number of threads; 1 scans the nodes one after another
+   */
+  public synchronized void setThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + threads);
+    }
+    if (threads != this.threads) {
+      shutdown();
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * @return the pool of {@link #getThreads()} threads on which this object and the {@link com.ibm.wala.ipa.slicer.PDG}s built with
+   *         it compute in parallel. Do not shut it down; call {@link #shutdown()} instead.
+   */
+  public synchronized ExecutorService getExecutor() {
+    if (pool == null) {
+      pool = new ForkJoinPool(threads);
+    }
+    return pool;
+  }
+
+  /**
+   * Stop the threads of the pool from {@link #getExecutor()}, once the results computed with this object are complete; a later
+   * parallel computation starts a new pool. The threads are daemon threads that also stop after a while when idle, so this is not
+   * needed to let the virtual machine exit.
+   */
+  public synchronized void shutdown() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
   /**
    * For each call graph node, what heap locations (as determined by a heap model) may it write, including its callees transitively
    * 
@@ -101,8 +158,11 @@ public class ModRef<T extends InstanceKey> {
    * @param heapExclude
    */
   private Map<CGNode, Collection<PointerKey>> scanForMod(CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
-
-    return CallGraphTransitiveClosure.collectNodeResults(cg, n -> scanNodeForMod(n, pa, heapExclude));
+    if (threads > 1) {
+      final ExtendedHeapModel h = makeSynchronizedHeapModel(pa);
+      return CallGraphTransitiveClosure.collectNodeResults(cg, n -> scanNodeForMod(n, pa, h, heapExclude), getExecutor());
+    }
+    return CallGraphTransitiveClosure.collectNodeResults(cg, n -> scanNodeForMod(n, pa, makeHeapModel(pa), heapExclude));
   }
 
   /**
@@ -112,21 +172,33 @@ public class ModRef<T extends InstanceKey> {
    * @param heapExclude
    */
   private Map<CGNode, Collection<PointerKey>> scanForRef(CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
-    return CallGraphTransitiveClosure.collectNodeResults(cg, n -> scanNodeForRef(n, pa, heapExclude));
+    if (threads > 1) {
+      final ExtendedHeapModel h = makeSynchronizedHeapModel(pa);
+      return CallGraphTransitiveClosure.collectNodeResults(cg, n -> scanNodeForRef(n, pa, h, heapExclude), getExecutor());
+    }
+    return CallGraphTransitiveClosure.collectNodeResults(cg, n -> scanNodeForRef(n, pa, makeHeapModel(pa), heapExclude));
   }
 
   public ExtendedHeapModel makeHeapModel(PointerAnalysis<T> pa) {
     return new DelegatingExtendedHeapModel(pa.getHeapModel());
   }
+
+  /**
+   * @return a heap model for pa that several threads may use at once; see {@link #setThreads(int)}
+   */
+  public ExtendedHeapModel makeSynchronizedHeapModel(PointerAnalysis<T> pa) {
+    return new SynchronizedExtendedHeapModel(makeHeapModel(pa));
+  }
+
   /**
    * For a call graph node, what heap locations (as determined by a heap model) may it write, <b> NOT </b> including it's callees
    * transitively
    * 
    * @param heapExclude
    */
-  private Collection<PointerKey> scanNodeForMod(final CGNode n, final PointerAnalysis<T> pa, HeapExclusions heapExclude) {
+  private Collection<PointerKey> scanNodeForMod(final CGNode n, final PointerAnalysis<T> pa, ExtendedHeapModel h,
+      HeapExclusions heapExclude) {
     Collection<PointerKey> result = HashSetFactory.make();
-    final ExtendedHeapModel h = makeHeapModel(pa);
     SSAInstruction.Visitor v = makeModVisitor(n, result, pa, h);
     IR ir = n.getIR();
     if (ir != null) {
@@ -145,9 +217,9 @@ public class ModRef<T extends InstanceKey> {
    * For a call graph node, what heap locations (as determined by a heap model) may it read, <b> NOT </b> including it's callees
    * transitively
    */
-  private Collection<PointerKey> scanNodeForRef(final CGNode n, final PointerAnalysis<T> pa, HeapExclusions heapExclude) {
+  private Collection<PointerKey> scanNodeForRef(final CGNode n, final PointerAnalysis<T> pa, ExtendedHeapModel h,
+      HeapExclusions heapExclude) {
     Collection<PointerKey> result = HashSetFactory.make();
-    final ExtendedHeapModel h = makeHeapModel(pa);
     SSAInstruction.Visitor v = makeRefVisitor(n, result, pa, h);
     IR ir = n.getIR();
     if (ir != null) {
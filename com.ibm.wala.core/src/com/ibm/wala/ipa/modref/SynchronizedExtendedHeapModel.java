@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ipa.modref;
+
+import java.util.Iterator;
+
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.classLoader.ProgramCounter;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.TypeReference;
+
+/**
+ * An {@link ExtendedHeapModel} that may be used by several threads at once: every call to the underlying model is made while
+ * holding a lock, since instance key and pointer key factories usually cache the keys they create.
+ */
+public class SynchronizedExtendedHeapModel implements ExtendedHeapModel {
+
+  private final ExtendedHeapModel h;
+
+  public SynchronizedExtendedHeapModel(ExtendedHeapModel h) {
+    if (h == null) {
+      throw new IllegalArgumentException("null h");
+    }
+    this.h = h;
+  }
+
+  @Override
+  public synchronized IClassHierarchy getClassHierarchy() {
+    return h.getClassHierarchy();
+  }
+
+  @Override
+  public synchronized FilteredPointerKey getFilteredPointerKeyForLocal(CGNode node, int valueNumber,
+      FilteredPointerKey.TypeFilter filter) {
+    return h.getFilteredPointerKeyForLocal(node, valueNumber, filter);
+  }
+
+  @Override
+  public synchronized InstanceKey getInstanceKeyForAllocation(CGNode node, NewSiteReference allocation) {
+    return h.getInstanceKeyForAllocation(node, allocation);
+  }
+
+  @Override
+  public synchronized InstanceKey getInstanceKeyForMetadataObject(Object obj, TypeReference objType) {
+    return h.getInstanceKeyForMetadataObject(obj, objType);
+  }
+
+  @Override
+  public synchronized <T> InstanceKey getInstanceKeyForConstant(TypeReference type, T S) {
+    return h.getInstanceKeyForConstant(type, S);
+  }
+
+  @Override
+  public synchronized InstanceKey getInstanceKeyForMultiNewArray(CGNode node, NewSiteReference allocation, int dim) {
+    return h.getInstanceKeyForMultiNewArray(node, allocation, dim);
+  }
+
+  @Override
+  public synchronized InstanceKey getInstanceKeyForPEI(CGNode node, ProgramCounter instr, TypeReference type) {
+    return h.getInstanceKeyForPEI(node, instr, type);
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForArrayContents(InstanceKey I) {
+    return h.getPointerKeyForArrayContents(I);
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForExceptionalReturnValue(CGNode node) {
+    return h.getPointerKeyForExceptionalReturnValue(node);
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForInstanceField(InstanceKey I, IField field) {
+    return h.getPointerKeyForInstanceField(I, field);
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForLocal(CGNode node, int valueNumber) {
+    return h.getPointerKeyForLocal(node, valueNumber);
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForReturnValue(CGNode node) {
+    return h.getPointerKeyForReturnValue(node);
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForStaticField(IField f) {
+    return h.getPointerKeyForStaticField(f);
+  }
+
+  /**
+   * The returned iterator is not synchronized; do not use it while other threads create keys.
+   */
+  @Override
+  public synchronized Iterator<PointerKey> iteratePointerKeys() {
+    return h.iteratePointerKeys();
+  }
+
+  @Override
+  public synchronized PointerKey getPointerKeyForArrayLength(InstanceKey I) {
+    return h.getPointerKeyForArrayLength(I);
+  }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ipa.slicer;
+
+import com.ibm.wala.dataflow.IFDS.IBinaryReturnFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IPartiallyBalancedFlowFunctions;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IdentityFlowFunction;
+import com.ibm.wala.util.intset.SparseIntSet;
+
+/**
+ * flow functions for slicing from several seeds in one tabulation.
+ *
+ * In the procedures of the seeds, and in the callers they return to without a matching call, fact i+1 means "in the slice of seed
+ * i". In callees, every seed is represented by fact 0, so that a callee is explored, and its summary edges computed, once for all
+ * the seeds that reach it; returning from a callee maps fact 0 back to the fact at the call. Otherwise, these functions are the
+ * {@link SliceFunctions}, with reachability replaced by the identity.
+ */
+class BatchSliceFunctions implements IPartiallyBalancedFlowFunctions<Statement> {
+
+  /**
+   * enter a callee with fact 0
+   */
+  private static final IUnaryFlowFunction ENTER_CALLEE = new IUnaryFlowFunction() {
+    @Override
+    public SparseIntSet getTargets(int d1) {
+      return SparseIntSet.singleton(0);
+    }
+
+    @Override
+    public String toString() {
+      return "enterCallee";
+    }
+  };
+
+  /**
+   * return from a callee with the fact at the call
+   */
+  private static final IBinaryReturnFlowFunction RETURN_TO_CALLER = new IBinaryReturnFlowFunction() {
+    @Override
+    public SparseIntSet getTargets(int call_d, int exit_d) {
+      return SparseIntSet.singleton(call_d);
+    }
+
+    @Override
+    public String toString() {
+      return "returnToCaller";
+    }
+  };
+
+  private final SliceFunctions delegate = new SliceFunctions();
+
+  /**
+   * @return f, with reachability replaced by the identity, so that facts keep their seed
+   */
+  private static IUnaryFlowFunction keepSeed(IFlowFunction f) {
+    return f == ReachabilityFunctions.FLOW_REACHES ? IdentityFlowFunction.identity() : (IUnaryFlowFunction) f;
+  }
+
+  @Override
+  public IUnaryFlowFunction getCallFlowFunction(Statement src, Statement dest, Statement ret) {
+    IUnaryFlowFunction f = delegate.getCallFlowFunction(src, dest, ret);
+    return f == ReachabilityFunctions.KILL_FLOW ? f : ENTER_CALLEE;
+  }
+
+  @Override
+  public IUnaryFlowFunction getCallNoneToReturnFlowFunction(Statement src, Statement dest) {
+    return keepSeed(delegate.getCallNoneToReturnFlowFunction(src, dest));
+  }
+
+  @Override
+  public IUnaryFlowFunction getCallToReturnFlowFunction(Statement src, Statement dest) {
+    return keepSeed(delegate.getCallToReturnFlowFunction(src, dest));
+  }
+
+  @Override
+  public IUnaryFlowFunction getNormalFlowFunction(Statement src, Statement dest) {
+    return keepSeed(delegate.getNormalFlowFunction(src, dest));
+  }
+
+  @Override
+  public IFlowFunction getReturnFlowFunction(Statement call, Statement src, Statement dest) {
+    IFlowFunction f = delegate.getReturnFlowFunction(call, src, dest);
+    return f == ReachabilityFunctions.KILL_FLOW ? f : RETURN_TO_CALLER;
+  }
+
+  @Override
+  public IFlowFunction getUnbalancedReturnFlowFunction(Statement src, Statement dest) {
+    return keepSeed(delegate.getUnbalancedReturnFlowFunction(src, dest));
+  }
+}
@@ -13,10 +13,15 @@ package com.ibm.wala.ipa.slicer;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
 import com.ibm.wala.analysis.stackMachine.AbstractIntStackMachine;
@@ -74,7 +79,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
 /** BEGIN Custom change: control deps */                
   public enum Dependency {CONTROL_DEP, DATA_AND_CONTROL_DEP}
   
-  private final SlowSparseNumberedLabeledGraph<Statement, Dependency> delegate =
+  private SlowSparseNumberedLabeledGraph<Statement, Dependency> delegate =
     new SlowSparseNumberedLabeledGraph<>(Dependency.DATA_AND_CONTROL_DEP);
 /** END Custom change: control deps */                
 
@@ -90,15 +95,15 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
    * TODO: using CallSiteReference is sloppy. clean it up.
    */
 
-  private final Map<CallSiteReference, Statement> callSite2Statement = HashMapFactory.make();
+  private Map<CallSiteReference, Statement> callSite2Statement = HashMapFactory.make();
 
-  private final Map<CallSiteReference, Set<Statement>> callerParamStatements = HashMapFactory.make();
+  private Map<CallSiteReference, Set<Statement>> callerParamStatements = HashMapFactory.make();
 
-  private final Map<CallSiteReference, Set<Statement>> callerReturnStatements = HashMapFactory.make();
+  private Map<CallSiteReference, Set<Statement>> callerReturnStatements = HashMapFactory.make();
 
   private final HeapExclusions exclusions;
 
-  private final Collection<PointerKey> locationsHandled = HashSetFactory.make();
+  private Collection<PointerKey> locationsHandled = HashSetFactory.make();
 
   private final PointerAnalysis<T> pa;
 
@@ -120,6 +125,16 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
 
   private boolean isPopulated = false;
 
+  /**
+   * if this PDG has been released, its statements in the order of their numbers, so that repopulating it numbers them the same way
+   */
+  private Statement[] releasedStatements;
+
+  /**
+   * if non-null, the SDG to notify when this PDG is populated
+   */
+  private SDG<T> owner;
+
   /**
    * @param mod the set of heap locations which may be written (transitively) by this node. These are logically return values in the
    *          SDG.
@@ -170,13 +185,60 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
       // is live.
       IR ir = node.getIR();
       isPopulated = true;
+      restoreNumbering();
 
       Map<SSAInstruction, Integer> instructionIndices = computeInstructionIndices(ir);
       createNodes(ref, ir);
       createScalarEdges(cOptions, ir, instructionIndices);
+      if (owner != null) {
+        owner.populated(this);
+      }
     }
   }
 
+  /**
+   * Drop the edges and the per-call-site tables of this PDG, which are recomputed when it is next used. Its statements are kept, so
+   * that they keep their numbers.
+   */
+  void release() {
+    if (isPopulated) {
+      Statement[] statements = new Statement[delegate.getMaxNumber() + 1];
+      for (int i = 0; i < statements.length; i++) {
+        statements[i] = delegate.getNode(i);
+      }
+      releasedStatements = statements;
+      // allocate fresh tables rather than clearing these, since iterators over them may still be live
+      delegate = new SlowSparseNumberedLabeledGraph<>(Dependency.DATA_AND_CONTROL_DEP);
+      callSite2Statement = HashMapFactory.make();
+      callerParamStatements = HashMapFactory.make();
+      callerReturnStatements = HashMapFactory.make();
+      locationsHandled = HashSetFactory.make();
+      paramCalleeStatements = null;
+      returnStatements = null;
+      isPopulated = false;
+    }
+  }
+
+  /**
+   * Before statements are added to a released PDG, add its old statements back in their old order.
+   */
+  private void restoreNumbering() {
+    if (releasedStatements != null) {
+      for (Statement s : releasedStatements) {
+        delegate.addNode(s);
+      }
+      releasedStatements = null;
+    }
+  }
+
+  boolean isPopulated() {
+    return isPopulated;
+  }
+
+  void setOwner(SDG<T> owner) {
+    this.owner = owner;
+  }
+
   private void createScalarEdges(ControlDependenceOptions cOptions, IR ir, Map<SSAInstruction, Integer> instructionIndices) {
     createScalarDataDependenceEdges(ir, instructionIndices);
     createControlDependenceEdges(cOptions, ir, instructionIndices);
@@ -636,21 +698,21 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
   }
 
   /**
-   * Create heap data dependence edges in this PDG relevant to a particular {@link PointerKey}.
+   * Create heap data dependence edges in this PDG relevant to particular {@link PointerKey}s. If {@link ModRef#getThreads()} is
+   * more than one, the reaching definitions of the locations are computed concurrently; the edges are still added in the order of
+   * the locations.
    */
-  private void createHeapDataDependenceEdges(final PointerKey pk) {
-
-    if (locationsHandled.contains(pk)) {
-      return;
-    } else {
-      locationsHandled.add(pk);
-    }
-    if (dOptions.isIgnoreHeap() || (exclusions != null && exclusions.excludes(pk))) {
-      return;
+  private void createHeapDataDependenceEdges(Collection<PointerKey> pks) {
+    List<PointerKey> todo = new ArrayList<>();
+    for (PointerKey pk : pks) {
+      if (!locationsHandled.contains(pk)) {
+        locationsHandled.add(pk);
+        if (!dOptions.isIgnoreHeap() && (exclusions == null || !exclusions.excludes(pk)) && HeapExclusions.getType(pk) != null) {
+          todo.add(pk);
+        }
+      }
     }
-
-    TypeReference t = HeapExclusions.getType(pk);
-    if (t == null) {
+    if (todo.isEmpty()) {
       return;
     }
 
@@ -660,6 +722,56 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
       return;
     }
 
+    // the first location is done by this thread, which also computes the parts of the IR that are built lazily
+    addHeapDataDependenceEdges(computeHeapDataDependenceEdges(ir, todo.get(0), heapModel));
+    if (todo.size() == 1) {
+      return;
+    }
+    if (modRef.getThreads() == 1) {
+      for (PointerKey pk : todo.subList(1, todo.size())) {
+        addHeapDataDependenceEdges(computeHeapDataDependenceEdges(ir, pk, heapModel));
+      }
+      return;
+    }
+
+    ExtendedHeapModel h = modRef.makeSynchronizedHeapModel(pa);
+    List<Callable<List<Pair<Statement, Statement>>>> tasks = new ArrayList<>(todo.size() - 1);
+    for (PointerKey pk : todo.subList(1, todo.size())) {
+      tasks.add(() -> computeHeapDataDependenceEdges(ir, pk, h));
+    }
+    try {
+      for (Future<List<Pair<Statement, Statement>>> edges : modRef.getExecutor().invokeAll(tasks)) {
+        addHeapDataDependenceEdges(edges.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      } else {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+
+  private void addHeapDataDependenceEdges(List<Pair<Statement, Statement>> edges) {
+    for (Pair<Statement, Statement> edge : edges) {
+      delegate.addEdge(edge.fst, edge.snd);
+    }
+  }
+
+  /**
+   * Compute the heap data dependence edges in this PDG relevant to a particular {@link PointerKey}, without adding them. This does
+   * not change the PDG, so it may run concurrently for several locations.
+   * 
+   * @return the edges, as (definition, use) pairs
+   */
+  private List<Pair<Statement, Statement>> computeHeapDataDependenceEdges(IR ir, final PointerKey pk, ExtendedHeapModel h) {
+    TypeReference t = HeapExclusions.getType(pk);
+
     if (VERBOSE) {
       System.err.println("Location " + pk);
     }
@@ -668,17 +780,18 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     // irrelevant.
     Predicate<Statement> f = o -> {
       if (o instanceof HeapStatement) {
-        HeapStatement h = (HeapStatement) o;
-        return h.getLocation().equals(pk);
+        HeapStatement hs = (HeapStatement) o;
+        return hs.getLocation().equals(pk);
       } else {
         return true;
       }
     };
-    Collection<Statement> relevantStatements = Iterator2Collection.toSet(new FilterIterator<>(iterator(), f));
+    Collection<Statement> relevantStatements = Iterator2Collection.toSet(new FilterIterator<>(delegate.iterator(), f));
 
-    Map<Statement, OrdinalSet<Statement>> heapReachingDefs = new HeapReachingDefs<>(modRef, heapModel).computeReachingDefs(node, ir, pa, mod,
+    Map<Statement, OrdinalSet<Statement>> heapReachingDefs = new HeapReachingDefs<>(modRef, h).computeReachingDefs(node, ir, pa, mod,
         relevantStatements, new HeapExclusions(SetComplement.complement(new SingletonSet(t))), cg);
 
+    List<Pair<Statement, Statement>> result = new ArrayList<>();
     for (Statement st : heapReachingDefs.keySet()) {
       switch (st.getKind()) {
       case NORMAL:
@@ -688,7 +801,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
         OrdinalSet<Statement> defs = heapReachingDefs.get(st);
         if (defs != null) {
           for (Statement def : defs) {
-            delegate.addEdge(def, st);
+            result.add(Pair.make(def, st));
           }
         }
       }
@@ -706,7 +819,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
         OrdinalSet<Statement> defs = heapReachingDefs.get(st);
         if (defs != null) {
           for (Statement def : defs) {
-            delegate.addEdge(def, st);
+            result.add(Pair.make(def, st));
           }
         }
         break;
@@ -721,6 +834,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
         break;
       }
     }
+    return result;
   }
 
   private static boolean hasBasePointer(SSAInstruction use) {
@@ -917,6 +1031,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
    */
   private void createCalleeParams() {
     if (paramCalleeStatements == null) {
+      restoreNumbering();
       ArrayList<Statement> list = new ArrayList<>();
       int paramCount = node.getMethod().getNumberOfParameters();
       
@@ -1101,9 +1216,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
       NormalStatement st = (NormalStatement) N;
       if (!(ignoreAllocHeapDefs && st.getInstruction() instanceof SSANewInstruction)) {
         Collection<PointerKey> ref = modRef.getRef(node, heapModel, pa, st.getInstruction(), exclusions);
-        for (PointerKey pk : ref) {
-          createHeapDataDependenceEdges(pk);
-        }
+        createHeapDataDependenceEdges(ref);
       }
       break;
     case HEAP_PARAM_CALLEE:
@@ -1111,7 +1224,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     case HEAP_RET_CALLEE:
     case HEAP_RET_CALLER:
       HeapStatement h = (HeapStatement) N;
-      createHeapDataDependenceEdges(h.getLocation());
+      createHeapDataDependenceEdges(Collections.singleton(h.getLocation()));
       break;
     default:
       // do nothing
@@ -1124,9 +1237,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
       NormalStatement st = (NormalStatement) N;
       if (!(ignoreAllocHeapDefs && st.getInstruction() instanceof SSANewInstruction)) {
         Collection<PointerKey> mod = modRef.getMod(node, heapModel, pa, st.getInstruction(), exclusions);
-        for (PointerKey pk : mod) {
-          createHeapDataDependenceEdges(pk);
-        }
+        createHeapDataDependenceEdges(mod);
       }
       break;
     case HEAP_PARAM_CALLEE:
@@ -1134,7 +1245,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     case HEAP_RET_CALLEE:
     case HEAP_RET_CALLER:
       HeapStatement h = (HeapStatement) N;
-      createHeapDataDependenceEdges(h.getLocation());
+      createHeapDataDependenceEdges(Collections.singleton(h.getLocation()));
       break;
     default:
       // do nothing
@@ -13,6 +13,7 @@ package com.ibm.wala.ipa.slicer;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.ibm.wala.classLoader.CallSiteReference;
@@ -50,7 +51,13 @@ import com.ibm.wala.util.intset.OrdinalSet;
 /**
  * System dependence graph.
  * 
- * An SDG comprises a set of PDGs, one for each method. We compute these lazily.
+ * An SDG comprises a set of PDGs, one for each method. We compute these lazily: a PDG is built when a traversal, like the
+ * {@link Slicer}, first reaches a statement of its method, and statements are numbered in the order in which their PDGs are
+ * reached. Only queries about the graph as a whole, like {@link #iterator()} and {@link #getNumberOfNodes()}, build every PDG.
+ * 
+ * By default, every PDG that has been built is kept. Under a budget set with {@link #setResidentStatementBudget(long)}, the edges
+ * of the least recently used PDGs are dropped and recomputed when they are next needed; their statements, and so the numbering,
+ * are kept.
  * 
  * Prototype implementation. Not efficient.
  */
@@ -123,6 +130,26 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
    */
   private boolean eagerComputed = false;
 
+  /**
+   * the populated PDGs, least recently used first
+   */
+  private final Map<CGNode, PDG<T>> populatedPDGs = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * number of statements counted in {@link #residentStatements} for each populated PDG, as it was when the PDG was populated
+   */
+  private final Map<CGNode, Integer> chargedStatements = HashMapFactory.make();
+
+  /**
+   * number of statements in the populated PDGs
+   */
+  private long residentStatements = 0;
+
+  /**
+   * maximum number of statements in populated PDGs before the least recently used ones are released
+   */
+  private long residentStatementBudget = Long.MAX_VALUE;
+
   public SDG(final CallGraph cg, PointerAnalysis<T> pa, DataDependenceOptions dOptions, ControlDependenceOptions cOptions) {
     this(cg, pa, new ModRef<T>(), dOptions, cOptions, null);
   }
@@ -215,8 +242,11 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
         // first try it without eager construction.
         return true;
       }
-      // this may be bad. Are you sure you want to call this?
-      eagerConstruction();
+      // every statement belongs to the PDG of its node, so there is no need to construct the others
+      if (N == null || !cg.containsNode(N.getNode())) {
+        return false;
+      }
+      addPDGStatementNodes(N.getNode());
       return super.containsNode(N);
     }
 
@@ -787,15 +817,62 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     PDG<T> result = pdgMap.get(node);
     if (result == null) {
       result = new PDG<>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
+      result.setOwner(this);
       pdgMap.put(node, result);
       // Let's not eagerly add nodes, shall we?
       // for (Iterator<? extends Statement> it = result.iterator(); it.hasNext();) {
       // nodeMgr.addNode(it.next());
       // }
+    } else if (result.isPopulated()) {
+      // mark it as recently used
+      populatedPDGs.get(node);
     }
     return result;
   }
 
+  /**
+   * Called by a PDG of this SDG when it has been populated; releases the least recently used PDGs if the budget is exceeded.
+   */
+  void populated(PDG<T> pdg) {
+    CGNode node = pdg.getCallGraphNode();
+    populatedPDGs.put(node, pdg);
+    Integer previous = chargedStatements.put(node, pdg.getNumberOfNodes());
+    if (previous != null) {
+      residentStatements -= previous;
+    }
+    residentStatements += pdg.getNumberOfNodes();
+    for (Iterator<PDG<T>> it = populatedPDGs.values().iterator(); residentStatements > residentStatementBudget && it.hasNext();) {
+      PDG<T> victim = it.next();
+      if (victim != pdg) {
+        // the victim may have gained statements since it was populated, so release what it was charged
+        residentStatements -= chargedStatements.remove(victim.getCallGraphNode());
+        victim.release();
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * @return maximum number of statements in populated PDGs
+   */
+  public long getResidentStatementBudget() {
+    return residentStatementBudget;
+  }
+
+  /**
+   * Bound the memory used by PDGs. When the PDGs in memory hold more than the given number of statements, the edges of the least
+   * recently used PDGs are dropped, to be recomputed if the PDGs are used again. A small budget saves memory at the price of
+   * recomputing the edges of PDGs that are used repeatedly.
+   * 
+   * @param maxResidentStatements maximum number of statements in populated PDGs, or {@link Long#MAX_VALUE} to keep every PDG
+   */
+  public void setResidentStatementBudget(long maxResidentStatements) {
+    if (maxResidentStatements <= 0) {
+      throw new IllegalArgumentException("invalid budget: " + maxResidentStatements);
+    }
+    this.residentStatementBudget = maxResidentStatements;
+  }
+
   @Override
   public ControlDependenceOptions getCOptions() {
     return cOptions;
@@ -10,13 +10,21 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.slicer;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.ibm.wala.dataflow.IFDS.BackwardsSupergraph;
 import com.ibm.wala.dataflow.IFDS.IMergeFunction;
 import com.ibm.wala.dataflow.IFDS.IPartiallyBalancedFlowFunctions;
 import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.LocalPathEdges;
 import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationProblem;
 import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
 import com.ibm.wala.dataflow.IFDS.PathEdge;
@@ -29,7 +37,11 @@ import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.modref.ModRef;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
 
 /**
  * A demand-driven context-sensitive slicer.
@@ -221,6 +233,26 @@ public class Slicer {
     return computeSlice(sdg, ss, true);
   }
 
+  /**
+   * Compute the backward slices of several statements on the passed-in SDG, in one tabulation. This is much cheaper than slicing
+   * from each statement in turn, since the exploration of a callee, and its summary edges, are shared by all the slices that reach
+   * it.
+   *
+   * @param ss statements of interest
+   * @return a map from each statement of interest to its backward slice, the same as {@link #computeBackwardSlice(SDG, Statement)}
+   * @throws CancelException
+   */
+  public static Map<Statement, Collection<Statement>> computeBackwardSlices(SDG sdg, Collection<Statement> ss)
+      throws IllegalArgumentException, CancelException {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    if (ss == null) {
+      throw new IllegalArgumentException("ss cannot be null");
+    }
+    return new Slicer().sliceEach(sdg, ss, null);
+  }
+
   /**
    * @param ss a collection of statements of interest
    * @throws CancelException
@@ -276,6 +308,111 @@ public class Slicer {
     return slice;
   }
 
+  /**
+   * Compute the backward slice of each of several roots in one tabulation.
+   *
+   * @param sdg governing system dependence graph
+   * @param roots roots to slice from
+   * @param monitor to cancel analysis if needed
+   * @return a map from each root to the {@link Statement}s found by the slicer
+   * @throws CancelException
+   */
+  public Map<Statement, Collection<Statement>> sliceEach(SDG sdg, Collection<Statement> roots, IProgressMonitor monitor)
+      throws CancelException {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+
+    List<Statement> seeds = new ArrayList<>(new LinkedHashSet<>(roots));
+    BatchSliceProblem p = new BatchSliceProblem(seeds, sdg);
+
+    PartiallyBalancedTabulationSolver<Statement, PDG<?>, Object> solver = PartiallyBalancedTabulationSolver
+        .createPartiallyBalancedTabulationSolver(p, monitor);
+    TabulationResult<Statement, PDG<?>, Object> tr = solver.solve();
+    ISupergraph<Statement, PDG<?>> supergraph = p.getSupergraph();
+
+    // the statements reached in the contexts of each seed, where facts are seed numbers
+    List<Set<Statement>> slices = new ArrayList<>(seeds.size());
+    for (int i = 0; i < seeds.size(); i++) {
+      slices.add(HashSetFactory.<Statement> make());
+    }
+    for (Statement st : tr.getSupergraphNodesReached()) {
+      for (IntIterator it = tr.getResult(st).intIterator(); it.hasNext();) {
+        int d = it.next();
+        if (d > 0) {
+          slices.get(d - 1).add(st);
+        }
+      }
+    }
+
+    // add the statements of the callees entered from each slice, which were explored with fact 0 on behalf of all the seeds
+    Map<Statement, Collection<Statement>> calleeStatements = HashMapFactory.make();
+    Map<Statement, Collection<Statement>> calleeEntries = HashMapFactory.make();
+    Map<Statement, Collection<Statement>> result = new LinkedHashMap<>();
+    for (int i = 0; i < seeds.size(); i++) {
+      Set<Statement> slice = slices.get(i);
+      Set<Statement> entered = HashSetFactory.make();
+      ArrayDeque<Statement> worklist = new ArrayDeque<>();
+      for (Statement st : slice) {
+        if (supergraph.isCall(st)) {
+          addCalleeEntries(supergraph, st, entered, worklist);
+        }
+      }
+      Collection<Statement> reached = new ArrayList<>();
+      while (!worklist.isEmpty()) {
+        Statement entry = worklist.pop();
+        Collection<Statement> statements = calleeStatements.get(entry);
+        if (statements == null) {
+          statements = new ArrayList<>();
+          Collection<Statement> entries = HashSetFactory.make();
+          LocalPathEdges pathEdges = solver.getLocalPathEdges(entry);
+          if (pathEdges != null) {
+            PDG<?> pdg = supergraph.getProcOf(entry);
+            for (IntIterator it = pathEdges.getReachedNodeNumbers().intIterator(); it.hasNext();) {
+              int n = it.next();
+              IntSet facts = pathEdges.getReachable(n, 0);
+              if (facts != null && !facts.isEmpty()) {
+                Statement st = supergraph.getLocalBlock(pdg, n);
+                statements.add(st);
+                if (supergraph.isCall(st)) {
+                  addCalleeEntries(supergraph, st, entries, null);
+                }
+              }
+            }
+          }
+          calleeStatements.put(entry, statements);
+          calleeEntries.put(entry, entries);
+        }
+        reached.addAll(statements);
+        for (Statement e : calleeEntries.get(entry)) {
+          if (entered.add(e)) {
+            worklist.push(e);
+          }
+        }
+      }
+      slice.addAll(reached);
+      result.put(seeds.get(i), slice);
+    }
+
+    if (VERBOSE) {
+      System.err.println("Slicer done.");
+    }
+
+    return result;
+  }
+
+  /**
+   * add the entries of the callees of call to entries, and to worklist if they were not in entries yet
+   */
+  private static void addCalleeEntries(ISupergraph<Statement, PDG<?>> supergraph, Statement call, Collection<Statement> entries,
+      ArrayDeque<Statement> worklist) {
+    for (Statement e : Iterator2Iterable.make(supergraph.getCalledNodes(call))) {
+      if (entries.add(e) && worklist != null) {
+        worklist.push(e);
+      }
+    }
+  }
+
   /**
    * Return an object which encapsulates the tabulation logic for the slice problem. Subclasses can override this method to
    * implement special semantics.
@@ -375,4 +512,35 @@ public class Slicer {
 
   }
 
+  /**
+   * Tabulation problem representing backward slicing from several seeds at once, with the {@link BatchSliceFunctions}: fact i+1
+   * represents the slice of the i-th seed.
+   */
+  public static class BatchSliceProblem extends SliceProblem {
+
+    private final List<Statement> seeds;
+
+    private final BatchSliceFunctions f = new BatchSliceFunctions();
+
+    public BatchSliceProblem(List<Statement> seeds, ISDG sdg) {
+      super(seeds, sdg, true);
+      this.seeds = seeds;
+    }
+
+    @Override
+    public IPartiallyBalancedFlowFunctions<Statement> getFunctionMap() {
+      return f;
+    }
+
+    @Override
+    public Collection<PathEdge<Statement>> initialSeeds() {
+      Collection<PathEdge<Statement>> result = HashSetFactory.make();
+      for (int i = 0; i < seeds.size(); i++) {
+        Statement st = seeds.get(i);
+        result.add(PathEdge.createPathEdge(new MethodExitStatement(st.getNode()), i + 1, st, i + 1));
+      }
+      return result;
+    }
+  }
+
 }
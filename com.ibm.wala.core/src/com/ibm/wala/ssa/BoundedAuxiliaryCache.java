@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ssa;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.MapUtil;
+import com.ibm.wala.util.collections.Pair;
+
+/**
+ * A cache for auxiliary information with a fixed budget of (estimated) bytes, holding its entries strongly.
+ *
+ * Unlike {@link AuxiliaryCache}, which leaves eviction to the garbage collector via soft references, this cache decides what to
+ * drop itself, according to one of two policies:
+ * <ul>
+ * <li>{@link Policy#LRU}: evict the least recently used entries.
+ * <li>{@link Policy#TINY_LFU}: new entries go to a small LRU window; an entry leaving the window is only admitted to the main LRU
+ * region if it has been requested more often than the entries it would displace, as estimated by a count-min sketch. This keeps a
+ * burst of methods analyzed once from flushing out the hot ones (W-TinyLFU, with a single-segment main region).
+ * </ul>
+ *
+ * Note that a cached {@link DefUse} keeps its {@link IR} reachable, whether or not the IR is still in a cache.
+ */
+public class BoundedAuxiliaryCache implements IAuxiliaryCache {
+
+  public enum Policy {
+    LRU, TINY_LFU
+  }
+
+  /**
+   * percentage of the budget given to the admission window under {@link Policy#TINY_LFU}
+   */
+  private static final int WINDOW_PERCENT = 1;
+
+  private static final class Key {
+    private final IMethod method;
+
+    private final Context context;
+
+    private final SSAOptions options;
+
+    private final int hash;
+
+    Key(IMethod method, Context context, SSAOptions options) {
+      this.method = method;
+      this.context = context;
+      this.options = options;
+      this.hash = 31 * (31 * method.hashCode() + (context == null ? 0 : context.hashCode()))
+          + (options == null ? 0 : options.hashCode());
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hash == other.hash && method.equals(other.method) && (context == null ? other.context == null : context.equals(other.context))
+          && (options == null ? other.options == null : options.equals(other.options));
+    }
+  }
+
+  private static final class Entry {
+    private final Object value;
+
+    private final long weight;
+
+    Entry(Object value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  private final long budget;
+
+  private final long windowBudget;
+
+  private final Policy policy;
+
+  private final ToLongFunction<Object> weigher;
+
+  /**
+   * admission window, in access order; empty under {@link Policy#LRU}
+   */
+  private final LinkedHashMap<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * main region, in access order
+   */
+  private final LinkedHashMap<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * the cached keys for each &lt;method,context&gt; pair, for invalidation
+   */
+  private final Map<Pair<IMethod, Context>, Set<Key>> keys = HashMapFactory.make();
+
+  private final FrequencySketch sketch;
+
+  private long windowWeight = 0;
+
+  private long mainWeight = 0;
+
+  private long hits = 0;
+
+  private long misses = 0;
+
+  private long evictions = 0;
+
+  /**
+   * Create a cache that weighs entries with {@link #estimateFootprint(Object)}.
+   *
+   * @param budget maximum total estimated size of the cached objects, in bytes
+   */
+  public BoundedAuxiliaryCache(long budget, Policy policy) {
+    this(budget, policy, BoundedAuxiliaryCache::estimateFootprint);
+  }
+
+  /**
+   * @param budget maximum total weight of the cached objects
+   * @param weigher gives the weight of an object to cache
+   */
+  public BoundedAuxiliaryCache(long budget, Policy policy, ToLongFunction<Object> weigher) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("invalid budget: " + budget);
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("null policy");
+    }
+    if (weigher == null) {
+      throw new IllegalArgumentException("null weigher");
+    }
+    this.budget = budget;
+    this.policy = policy;
+    this.weigher = weigher;
+    this.windowBudget = policy == Policy.TINY_LFU ? Math.max(1, budget * WINDOW_PERCENT / 100) : 0;
+    this.sketch = policy == Policy.TINY_LFU ? new FrequencySketch() : null;
+  }
+
+  /**
+   * A rough estimate of the number of bytes held by an {@link IR}, including its {@link SymbolTable} and {@link SSACFG}, or by a
+   * {@link DefUse}, not counting its IR. Other objects are assumed to take 1KB.
+   */
+  public static long estimateFootprint(Object aux) {
+    if (aux instanceof IR) {
+      IR ir = (IR) aux;
+      long result = 256 + 8L * ir.getInstructions().length;
+      for (Iterator<SSAInstruction> it = ir.iterateAllInstructions(); it.hasNext();) {
+        SSAInstruction s = it.next();
+        result += 32 + 4L * (s.getNumberOfUses() + s.getNumberOfDefs());
+      }
+      result += 24L * (ir.getSymbolTable().getMaxValueNumber() + 1);
+      result += 128L * ir.getControlFlowGraph().getNumberOfNodes();
+      return result;
+    } else if (aux instanceof DefUse) {
+      return ((DefUse) aux).estimateFootprint();
+    } else {
+      return 1024;
+    }
+  }
+
+  @Override
+  public synchronized void wipe() {
+    window.clear();
+    main.clear();
+    keys.clear();
+    windowWeight = 0;
+    mainWeight = 0;
+  }
+
+  @Override
+  public synchronized Object find(IMethod m, Context c, SSAOptions options) {
+    Key k = new Key(m, c, options);
+    if (sketch != null) {
+      sketch.increment(k);
+    }
+    Entry e = window.get(k);
+    if (e == null) {
+      e = main.get(k);
+    }
+    if (e == null) {
+      misses++;
+      return null;
+    } else {
+      hits++;
+      return e.value;
+    }
+  }
+
+  @Override
+  public synchronized void cache(IMethod m, Context c, SSAOptions options, Object aux) {
+    Key k = new Key(m, c, options);
+    remove(k);
+    long weight = weigher.applyAsLong(aux);
+    if (weight > budget) {
+      evictions++;
+      return;
+    }
+    MapUtil.findOrCreateSet(keys, Pair.make(m, c)).add(k);
+    Entry e = new Entry(aux, weight);
+    if (policy == Policy.LRU) {
+      main.put(k, e);
+      mainWeight += weight;
+      while (mainWeight > budget) {
+        Map.Entry<Key, Entry> victim = main.entrySet().iterator().next();
+        mainWeight -= victim.getValue().weight;
+        evict(victim.getKey(), main);
+      }
+    } else {
+      window.put(k, e);
+      windowWeight += weight;
+      while (windowWeight > windowBudget) {
+        Iterator<Map.Entry<Key, Entry>> it = window.entrySet().iterator();
+        Map.Entry<Key, Entry> candidate = it.next();
+        it.remove();
+        windowWeight -= candidate.getValue().weight;
+        admit(candidate.getKey(), candidate.getValue());
+      }
+    }
+  }
+
+  /**
+   * Move a candidate leaving the window into the main region, if it is more popular than every entry it displaces. Either all
+   * the victims needed to make room are evicted, or none of them is.
+   */
+  private void admit(Key k, Entry e) {
+    long mainBudget = budget - windowBudget;
+    if (e.weight > mainBudget) {
+      evict(k, null);
+      return;
+    }
+    int frequency = sketch.frequency(k);
+    List<Key> victims = new ArrayList<>();
+    long freed = 0;
+    for (Iterator<Map.Entry<Key, Entry>> it = main.entrySet().iterator(); mainWeight - freed + e.weight > mainBudget;) {
+      Map.Entry<Key, Entry> victim = it.next();
+      if (frequency <= sketch.frequency(victim.getKey())) {
+        evict(k, null);
+        return;
+      }
+      victims.add(victim.getKey());
+      freed += victim.getValue().weight;
+    }
+    for (Key victim : victims) {
+      evict(victim, main);
+    }
+    mainWeight -= freed;
+    main.put(k, e);
+    mainWeight += e.weight;
+  }
+
+  /**
+   * drop k, removing it from region if that is not null
+   */
+  private void evict(Key k, Map<Key, Entry> region) {
+    if (region != null) {
+      region.remove(k);
+    }
+    unregister(k);
+    evictions++;
+  }
+
+  private void unregister(Key k) {
+    Pair<IMethod, Context> p = Pair.make(k.method, k.context);
+    Set<Key> s = keys.get(p);
+    if (s != null) {
+      s.remove(k);
+      if (s.isEmpty()) {
+        keys.remove(p);
+      }
+    }
+  }
+
+  private void remove(Key k) {
+    Entry e = window.remove(k);
+    if (e != null) {
+      windowWeight -= e.weight;
+    }
+    e = main.remove(k);
+    if (e != null) {
+      mainWeight -= e.weight;
+    }
+    unregister(k);
+  }
+
+  @Override
+  public synchronized void invalidate(IMethod method, Context c) {
+    Set<Key> s = keys.remove(Pair.make(method, c));
+    if (s != null) {
+      for (Key k : s) {
+        remove(k);
+      }
+    }
+  }
+
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * @return the number of entries dropped to stay within budget, including entries not admitted to the cache at all
+   */
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  /**
+   * @return the total weight of the cached objects
+   */
+  public synchronized long getWeight() {
+    return windowWeight + mainWeight;
+  }
+
+  public long getBudget() {
+    return budget;
+  }
+
+  public synchronized int size() {
+    return window.size() + main.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "BoundedAuxiliaryCache(" + policy + "): " + size() + " entries, " + getWeight() + "/" + budget + " bytes, " + hits
+        + " hits, " + misses + " misses, " + evictions + " evictions";
+  }
+
+  /**
+   * A count-min sketch of how often keys are requested, with 4 rows of saturating 8-bit counters. All counters are halved
+   * periodically, so that the estimates follow changes in popularity.
+   */
+  private static final class FrequencySketch {
+    private static final int WIDTH = 1 << 14;
+
+    private static final int MAX_COUNT = 255;
+
+    private static final int[] SEEDS = { 0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f };
+
+    private final byte[][] counters = new byte[SEEDS.length][WIDTH];
+
+    private final int resetPeriod = 10 * WIDTH;
+
+    private int additions = 0;
+
+    private static int index(Object k, int seed) {
+      int h = k.hashCode() * seed;
+      return (h ^ (h >>> 17)) & (WIDTH - 1);
+    }
+
+    void increment(Object k) {
+      for (int i = 0; i < SEEDS.length; i++) {
+        int j = index(k, SEEDS[i]);
+        if ((counters[i][j] & 0xff) < MAX_COUNT) {
+          counters[i][j]++;
+        }
+      }
+      if (++additions == resetPeriod) {
+        for (byte[] row : counters) {
+          for (int j = 0; j < row.length; j++) {
+            row[j] = (byte) ((row[j] & 0xff) >>> 1);
+          }
+        }
+        additions = 0;
+      }
+    }
+
+    int frequency(Object k) {
+      int result = MAX_COUNT;
+      for (int i = 0; i < SEEDS.length; i++) {
+        result = Math.min(result, counters[i][index(k, SEEDS[i])] & 0xff);
+      }
+      return result;
+    }
+  }
+}
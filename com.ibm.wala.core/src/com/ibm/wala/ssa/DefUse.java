@@ -187,4 +187,17 @@ public class DefUse {
   public int getNumberOfUses(int v) {
     return uses[v] == null ? 0 : uses[v].size();
   }
+
+  /**
+   * @return a rough estimate of the number of bytes held by this object, not counting the IR
+   */
+  long estimateFootprint() {
+    long result = 64 + 8L * (defs.length + uses.length + allInstructions.size());
+    for (MutableIntSet u : uses) {
+      if (u != null) {
+        result += 32 + 4L * u.size();
+      }
+    }
+    return result;
+  }
 }
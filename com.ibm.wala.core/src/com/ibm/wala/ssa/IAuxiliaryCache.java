@@ -13,7 +13,14 @@ package com.ibm.wala.ssa;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
 
-interface IAuxiliaryCache {
+/**
+ * A cache for information derived from methods, such as {@link IR}s and {@link DefUse}s, keyed by method, context and
+ * {@link SSAOptions}.
+ * 
+ * @see AuxiliaryCache
+ * @see BoundedAuxiliaryCache
+ */
+public interface IAuxiliaryCache {
 
   /**
    * The existence of this is unfortunate.
@@ -0,0 +1,1143 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ssa;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.ibm.wala.cfg.ShrikeCFG;
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.JavaLanguage;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.classLoader.ShrikeCTMethod;
+import com.ibm.wala.shrikeBT.ExceptionHandler;
+import com.ibm.wala.shrikeBT.IBinaryOpInstruction;
+import com.ibm.wala.shrikeBT.IComparisonInstruction;
+import com.ibm.wala.shrikeBT.IConditionalBranchInstruction;
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.shrikeBT.IShiftInstruction;
+import com.ibm.wala.shrikeBT.IUnaryOpInstruction;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.ssa.ShrikeIndirectionData.ShrikeLocalName;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.FieldReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.intset.IntPair;
+import com.ibm.wala.util.strings.Atom;
+
+/**
+ * An on-disk store of {@link IR}s built from Shrike bytecode, so that a later analysis run can read the IR of an unchanged method
+ * back instead of running SSA construction again.
+ *
+ * Records are keyed by the method's class loader and signature, and carry a hash of the method's decoded instructions and
+ * exception handlers; a record whose hash does not match the current bytecodes is ignored, and storing the new IR appends a
+ * record that supersedes it. The file is memory-mapped, and records are decoded from the mapping directly.
+ *
+ * A record holds the symbol table (constants and phi values), the instructions, the phis and catch instructions of each basic
+ * block, the local variable map and the indirection data. The basic blocks themselves are not stored: they are rebuilt from the
+ * bytecodes by {@link ShrikeCFG}, which is cheap compared to SSA construction.
+ *
+ * Only IRs built by {@link com.ibm.wala.classLoader.ShrikeIRFactory} for {@link ShrikeCTMethod}s without pi nodes are stored.
+ * IRs that refer to types from class loaders other than the method's own and the three standard ones, or that contain
+ * invokedynamic, metadata other than types, or indirect memory access are not stored either.
+ *
+ * File layout: magic, version, then records. A record is its length, the key, the 20-byte hash and the encoded IR. Strings are a
+ * length followed by UTF-8 bytes.
+ */
+public class IRStore implements Closeable {
+
+  public static final int MAGIC = 0x57495253;
+
+  public static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 8;
+
+  private static final int HASH_SIZE = 20;
+
+  /*
+   * instruction tags
+   */
+  private static final byte NULL = 0;
+
+  private static final byte ARRAY_LENGTH = 1;
+
+  private static final byte ARRAY_LOAD = 2;
+
+  private static final byte ARRAY_STORE = 3;
+
+  private static final byte BINARY_OP = 4;
+
+  private static final byte SHIFT_OP = 5;
+
+  private static final byte CHECK_CAST = 6;
+
+  private static final byte COMPARISON = 7;
+
+  private static final byte CONDITIONAL_BRANCH = 8;
+
+  private static final byte CONVERSION = 9;
+
+  private static final byte GET = 10;
+
+  private static final byte GOTO = 11;
+
+  private static final byte INSTANCEOF = 12;
+
+  private static final byte INVOKE = 13;
+
+  private static final byte LOAD_METADATA = 14;
+
+  private static final byte MONITOR = 15;
+
+  private static final byte NEW = 16;
+
+  private static final byte PUT = 17;
+
+  private static final byte RETURN = 18;
+
+  private static final byte SWITCH = 19;
+
+  private static final byte THROW = 20;
+
+  private static final byte UNARY_OP = 21;
+
+  /*
+   * symbol table value tags
+   */
+  private static final byte VALUE = 0;
+
+  private static final byte PHI_VALUE = 1;
+
+  private static final byte NULL_CONSTANT = 2;
+
+  private static final byte BOOLEAN_CONSTANT = 3;
+
+  private static final byte INT_CONSTANT = 4;
+
+  private static final byte LONG_CONSTANT = 5;
+
+  private static final byte FLOAT_CONSTANT = 6;
+
+  private static final byte DOUBLE_CONSTANT = 7;
+
+  private static final byte STRING_CONSTANT = 8;
+
+  /*
+   * class loader codes for type references
+   */
+  private static final byte NULL_TYPE = -1;
+
+  private static final byte METHOD_LOADER = 0;
+
+  private static final byte PRIMORDIAL = 1;
+
+  private static final byte EXTENSION = 2;
+
+  private static final byte APPLICATION = 3;
+
+  private final RandomAccessFile file;
+
+  private final FileChannel channel;
+
+  /**
+   * maps each key to the offset of its latest record
+   */
+  private final Map<String, Long> index = HashMapFactory.make();
+
+  private MappedByteBuffer mapped;
+
+  /**
+   * Open the store in file f, creating it if it does not exist. A file that is not a store of this version is emptied.
+   */
+  public IRStore(File f) throws IOException {
+    if (f == null) {
+      throw new IllegalArgumentException("null f");
+    }
+    file = new RandomAccessFile(f, "rw");
+    channel = file.getChannel();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    if (channel.size() < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC
+        || header.getInt(4) != VERSION) {
+      channel.truncate(0);
+      header.clear();
+      header.putInt(MAGIC).putInt(VERSION).flip();
+      channel.write(header, 0);
+    }
+    remap();
+    readIndex();
+  }
+
+  private void remap() throws IOException {
+    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+  }
+
+  /**
+   * Find the latest record for each key. A partial record at the end, left by an interrupted write, is dropped.
+   */
+  private void readIndex() throws IOException {
+    ByteBuffer b = mapped.duplicate();
+    int pos = HEADER_SIZE;
+    while (pos + 4 <= b.limit()) {
+      int length = b.getInt(pos);
+      if (length < 0 || pos + 4L + length > b.limit()) {
+        break;
+      }
+      b.position(pos + 4);
+      index.put(readString(b), Long.valueOf(pos));
+      pos += 4 + length;
+    }
+    if (pos < b.limit()) {
+      mapped = null;
+      channel.truncate(pos);
+      remap();
+    }
+  }
+
+  /**
+   * @return the number of methods with a record in this store
+   */
+  public synchronized int size() {
+    return index.size();
+  }
+
+  /**
+   * @return does the store hold IRs for this method?
+   */
+  public static boolean isStorable(IMethod m, SSAOptions options) {
+    return m instanceof ShrikeCTMethod && (options == null || options.getPiNodePolicy() == null);
+  }
+
+  private static String key(IMethod m) {
+    return m.getDeclaringClass().getClassLoader().getName() + " " + m.getSignature();
+  }
+
+  /**
+   * A hash of everything in a method's bytecode that SSA construction depends on.
+   */
+  private static byte[] hash(ShrikeCTMethod m) throws InvalidClassFileException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    StringBuilder s = new StringBuilder();
+    s.append(VERSION).append(' ').append(m.getMaxLocals()).append('\n');
+    for (IInstruction i : m.getInstructions()) {
+      s.append(i).append('\n');
+    }
+    for (ExceptionHandler[] hs : m.getHandlers()) {
+      for (ExceptionHandler h : hs) {
+        s.append(h.getHandler()).append(' ').append(h.getCatchClass()).append(';');
+      }
+      s.append('\n');
+    }
+    return digest.digest(s.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read the stored IR of a method.
+   *
+   * @return the IR, or null if there is no record for the current bytecodes of m
+   */
+  public synchronized IR load(IMethod m, SSAOptions options) throws IOException {
+    if (!isStorable(m, options)) {
+      return null;
+    }
+    Long offset = index.get(key(m));
+    if (offset == null) {
+      return null;
+    }
+    ShrikeCTMethod method = (ShrikeCTMethod) m;
+    if (offset >= mapped.limit()) {
+      remap();
+    }
+    try {
+      ByteBuffer b = mapped.duplicate();
+      int pos = offset.intValue();
+      b.position(pos + 4);
+      b.limit(pos + 4 + b.getInt(pos));
+      readString(b);
+      byte[] storedHash = new byte[HASH_SIZE];
+      b.get(storedHash);
+      if (!Arrays.equals(storedHash, hash(method))) {
+        return null;
+      }
+      return new Reader(method, b).read(options);
+    } catch (InvalidClassFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Write the IR of a method, superseding any earlier record for the method.
+   *
+   * @return true if the IR was stored, false if this store cannot hold it
+   */
+  public synchronized boolean store(IR ir) throws IOException {
+    if (ir == null) {
+      throw new IllegalArgumentException("null ir");
+    }
+    if (!isStorable(ir.getMethod(), ir.getOptions()) || !(ir.getLocalMap() instanceof SSABuilder.SSA2LocalMap)
+        || !(ir.<ShrikeLocalName> getIndirectionData() instanceof ShrikeIndirectionData)) {
+      return false;
+    }
+    ShrikeCTMethod method = (ShrikeCTMethod) ir.getMethod();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    String key = key(method);
+    try {
+      writeString(out, key);
+      out.write(hash(method));
+      if (!new Writer(method, out).write(ir)) {
+        return false;
+      }
+    } catch (InvalidClassFileException e) {
+      return false;
+    }
+    out.flush();
+
+    long pos = channel.size();
+    if (pos + 4 + bytes.size() > Integer.MAX_VALUE) {
+      // a mapped buffer cannot address it
+      return false;
+    }
+    ByteBuffer record = ByteBuffer.allocate(4 + bytes.size());
+    record.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+    while (record.hasRemaining()) {
+      channel.write(record, pos + record.position());
+    }
+    // the mapping is extended lazily, by the first load of a record beyond it
+    index.put(key, Long.valueOf(pos));
+    return true;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    mapped = null;
+    index.clear();
+    file.close();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "IRStore: " + index.size() + " methods";
+  }
+
+  /**
+   * Encodes one IR; the write methods return false for anything this store cannot represent.
+   */
+  private static final class Writer {
+    private final ShrikeCTMethod method;
+
+    private final ClassLoaderReference loader;
+
+    private final DataOutputStream out;
+
+    Writer(ShrikeCTMethod method, DataOutputStream out) {
+      this.method = method;
+      this.loader = method.getDeclaringClass().getClassLoader().getReference();
+      this.out = out;
+    }
+
+    boolean write(IR ir) throws IOException {
+      return writeSymbolTable(ir.getSymbolTable()) && writeInstructions(ir.getInstructions()) && writeBlocks(ir)
+          && writeLocalMap((SSABuilder.SSA2LocalMap) ir.getLocalMap())
+          && writeIndirectionData((ShrikeIndirectionData) ir.<ShrikeLocalName> getIndirectionData(), ir.getInstructions().length);
+    }
+
+    private boolean writeSymbolTable(SymbolTable symbolTable) throws IOException {
+      int max = symbolTable.getMaxValueNumber();
+      out.writeInt(max);
+      for (int v = symbolTable.getNumberOfParameters() + 1; v <= max; v++) {
+        Value value = symbolTable.getValue(v);
+        if (value == null) {
+          out.writeByte(VALUE);
+        } else if (value instanceof PhiValue) {
+          SSAPhiInstruction phi = ((PhiValue) value).getPhiInstruction();
+          out.writeByte(PHI_VALUE);
+          writeUses(phi);
+        } else if (value instanceof ConstantValue) {
+          Object c = ((ConstantValue) value).getValue();
+          if (c == null) {
+            out.writeByte(NULL_CONSTANT);
+          } else if (c instanceof Boolean) {
+            out.writeByte(BOOLEAN_CONSTANT);
+            out.writeBoolean((Boolean) c);
+          } else if (c instanceof Integer) {
+            out.writeByte(INT_CONSTANT);
+            out.writeInt((Integer) c);
+          } else if (c instanceof Long) {
+            out.writeByte(LONG_CONSTANT);
+            out.writeLong((Long) c);
+          } else if (c instanceof Float) {
+            out.writeByte(FLOAT_CONSTANT);
+            out.writeFloat((Float) c);
+          } else if (c instanceof Double) {
+            out.writeByte(DOUBLE_CONSTANT);
+            out.writeDouble((Double) c);
+          } else if (c instanceof String) {
+            out.writeByte(STRING_CONSTANT);
+            writeString(out, (String) c);
+          } else {
+            return false;
+          }
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void writeUses(SSAInstruction s) throws IOException {
+      out.writeInt(s.getNumberOfUses());
+      for (int i = 0; i < s.getNumberOfUses(); i++) {
+        out.writeInt(s.getUse(i));
+      }
+    }
+
+    private void writeInts(int[] x) throws IOException {
+      out.writeInt(x.length);
+      for (int i : x) {
+        out.writeInt(i);
+      }
+    }
+
+    private boolean writeType(TypeReference t) throws IOException {
+      if (t == null) {
+        out.writeByte(NULL_TYPE);
+        return true;
+      }
+      ClassLoaderReference cl = t.getClassLoader();
+      if (cl.equals(ClassLoaderReference.Primordial)) {
+        out.writeByte(PRIMORDIAL);
+      } else if (cl.equals(ClassLoaderReference.Extension)) {
+        out.writeByte(EXTENSION);
+      } else if (cl.equals(ClassLoaderReference.Application)) {
+        out.writeByte(APPLICATION);
+      } else if (cl.equals(loader)) {
+        out.writeByte(METHOD_LOADER);
+      } else {
+        return false;
+      }
+      writeString(out, t.getName().toString());
+      return true;
+    }
+
+    private boolean writeField(FieldReference f) throws IOException {
+      if (!writeType(f.getDeclaringClass())) {
+        return false;
+      }
+      writeString(out, f.getName().toString());
+      return writeType(f.getFieldType());
+    }
+
+    private boolean writeMethod(MethodReference m) throws IOException {
+      if (!writeType(m.getDeclaringClass())) {
+        return false;
+      }
+      writeString(out, m.getSelector().toString());
+      return true;
+    }
+
+    private boolean writeInstructions(SSAInstruction[] instructions) throws IOException {
+      out.writeInt(instructions.length);
+      for (int i = 0; i < instructions.length; i++) {
+        SSAInstruction s = instructions[i];
+        if (s == null) {
+          out.writeByte(NULL);
+        } else if (s.iindex != i || !writeInstruction(s)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean writeInstruction(SSAInstruction s) throws IOException {
+      if (s instanceof SSAArrayLengthInstruction) {
+        SSAArrayLengthInstruction x = (SSAArrayLengthInstruction) s;
+        out.writeByte(ARRAY_LENGTH);
+        out.writeInt(x.getDef());
+        out.writeInt(x.getArrayRef());
+        return true;
+      } else if (s instanceof SSAArrayLoadInstruction) {
+        SSAArrayLoadInstruction x = (SSAArrayLoadInstruction) s;
+        out.writeByte(ARRAY_LOAD);
+        out.writeInt(x.getDef());
+        out.writeInt(x.getArrayRef());
+        out.writeInt(x.getIndex());
+        return writeType(x.getElementType());
+      } else if (s instanceof SSAArrayStoreInstruction) {
+        SSAArrayStoreInstruction x = (SSAArrayStoreInstruction) s;
+        out.writeByte(ARRAY_STORE);
+        out.writeInt(x.getArrayRef());
+        out.writeInt(x.getIndex());
+        out.writeInt(x.getValue());
+        return writeType(x.getElementType());
+      } else if (s instanceof SSABinaryOpInstruction) {
+        SSABinaryOpInstruction x = (SSABinaryOpInstruction) s;
+        IBinaryOpInstruction.IOperator op = x.getOperator();
+        if (op instanceof IBinaryOpInstruction.Operator) {
+          out.writeByte(BINARY_OP);
+          out.writeByte(((IBinaryOpInstruction.Operator) op).ordinal());
+        } else if (op instanceof IShiftInstruction.Operator) {
+          out.writeByte(SHIFT_OP);
+          out.writeByte(((IShiftInstruction.Operator) op).ordinal());
+        } else {
+          return false;
+        }
+        out.writeInt(x.getDef());
+        out.writeInt(x.getUse(0));
+        out.writeInt(x.getUse(1));
+        out.writeBoolean(x.mayBeIntegerOp());
+        return true;
+      } else if (s instanceof SSACheckCastInstruction) {
+        SSACheckCastInstruction x = (SSACheckCastInstruction) s;
+        out.writeByte(CHECK_CAST);
+        out.writeInt(x.getResult());
+        out.writeInt(x.getVal());
+        TypeReference[] types = x.getDeclaredResultTypes();
+        out.writeInt(types.length);
+        for (TypeReference t : types) {
+          if (!writeType(t)) {
+            return false;
+          }
+        }
+        out.writeBoolean(x.isPEI());
+        return true;
+      } else if (s instanceof SSAComparisonInstruction) {
+        SSAComparisonInstruction x = (SSAComparisonInstruction) s;
+        out.writeByte(COMPARISON);
+        out.writeByte(x.getOperator().ordinal());
+        out.writeInt(x.getDef());
+        out.writeInt(x.getUse(0));
+        out.writeInt(x.getUse(1));
+        return true;
+      } else if (s instanceof SSAConditionalBranchInstruction) {
+        SSAConditionalBranchInstruction x = (SSAConditionalBranchInstruction) s;
+        if (!(x.getOperator() instanceof IConditionalBranchInstruction.Operator)) {
+          return false;
+        }
+        out.writeByte(CONDITIONAL_BRANCH);
+        out.writeByte(((IConditionalBranchInstruction.Operator) x.getOperator()).ordinal());
+        out.writeInt(x.getUse(0));
+        out.writeInt(x.getUse(1));
+        out.writeInt(x.getTarget());
+        return writeType(x.getType());
+      } else if (s instanceof SSAConversionInstruction) {
+        SSAConversionInstruction x = (SSAConversionInstruction) s;
+        out.writeByte(CONVERSION);
+        out.writeInt(x.getDef());
+        out.writeInt(x.getUse(0));
+        return writeType(x.getFromType()) && writeType(x.getToType());
+      } else if (s instanceof SSAGetInstruction) {
+        SSAGetInstruction x = (SSAGetInstruction) s;
+        out.writeByte(GET);
+        out.writeInt(x.getDef());
+        out.writeBoolean(x.isStatic());
+        out.writeInt(x.getRef());
+        return writeField(x.getDeclaredField());
+      } else if (s instanceof SSAGotoInstruction) {
+        out.writeByte(GOTO);
+        out.writeInt(((SSAGotoInstruction) s).getTarget());
+        return true;
+      } else if (s instanceof SSAInstanceofInstruction) {
+        SSAInstanceofInstruction x = (SSAInstanceofInstruction) s;
+        out.writeByte(INSTANCEOF);
+        out.writeInt(x.getDef());
+        out.writeInt(x.getRef());
+        return writeType(x.getCheckedType());
+      } else if (s instanceof SSAInvokeInstruction && !(s instanceof SSAInvokeDynamicInstruction)) {
+        SSAInvokeInstruction x = (SSAInvokeInstruction) s;
+        CallSiteReference site = x.getCallSite();
+        if (!(site.getInvocationCode() instanceof IInvokeInstruction.Dispatch)) {
+          return false;
+        }
+        out.writeByte(INVOKE);
+        out.writeBoolean(x.hasDef());
+        out.writeInt(x.hasDef() ? x.getReturnValue(0) : -1);
+        int[] params = new int[x.getNumberOfParameters()];
+        for (int i = 0; i < params.length; i++) {
+          params[i] = x.getUse(i);
+        }
+        writeInts(params);
+        out.writeInt(x.getException());
+        out.writeInt(site.getProgramCounter());
+        out.writeByte(((IInvokeInstruction.Dispatch) site.getInvocationCode()).ordinal());
+        return writeMethod(site.getDeclaredTarget());
+      } else if (s instanceof SSALoadMetadataInstruction) {
+        SSALoadMetadataInstruction x = (SSALoadMetadataInstruction) s;
+        if (!(x.getToken() instanceof TypeReference)) {
+          return false;
+        }
+        out.writeByte(LOAD_METADATA);
+        out.writeInt(x.getDef());
+        return writeType(x.getType()) && writeType((TypeReference) x.getToken());
+      } else if (s instanceof SSAMonitorInstruction) {
+        SSAMonitorInstruction x = (SSAMonitorInstruction) s;
+        out.writeByte(MONITOR);
+        out.writeInt(x.getRef());
+        out.writeBoolean(x.isMonitorEnter());
+        return true;
+      } else if (s instanceof SSANewInstruction) {
+        SSANewInstruction x = (SSANewInstruction) s;
+        out.writeByte(NEW);
+        out.writeInt(x.getDef());
+        out.writeInt(x.getNewSite().getProgramCounter());
+        if (!writeType(x.getConcreteType())) {
+          return false;
+        }
+        int[] params = new int[x.getNumberOfUses()];
+        for (int i = 0; i < params.length; i++) {
+          params[i] = x.getUse(i);
+        }
+        writeInts(params);
+        // see ShrikeIRFactory: array allocations whose sizes are known to be non-negative are marked by their exception types
+        out.writeBoolean(x.getExceptionTypes() == JavaLanguage.getNewSafeArrayExceptions());
+        return true;
+      } else if (s instanceof SSAPutInstruction) {
+        SSAPutInstruction x = (SSAPutInstruction) s;
+        out.writeByte(PUT);
+        out.writeBoolean(x.isStatic());
+        out.writeInt(x.getRef());
+        out.writeInt(x.getVal());
+        return writeField(x.getDeclaredField());
+      } else if (s instanceof SSAReturnInstruction) {
+        SSAReturnInstruction x = (SSAReturnInstruction) s;
+        out.writeByte(RETURN);
+        out.writeBoolean(x.returnsVoid());
+        out.writeInt(x.getResult());
+        out.writeBoolean(x.returnsPrimitiveType());
+        return true;
+      } else if (s instanceof SSASwitchInstruction) {
+        SSASwitchInstruction x = (SSASwitchInstruction) s;
+        out.writeByte(SWITCH);
+        out.writeInt(x.getUse(0));
+        out.writeInt(x.getDefault());
+        writeInts(x.getCasesAndLabels());
+        return true;
+      } else if (s instanceof SSAThrowInstruction) {
+        out.writeByte(THROW);
+        out.writeInt(((SSAThrowInstruction) s).getException());
+        return true;
+      } else if (s instanceof SSAUnaryOpInstruction) {
+        SSAUnaryOpInstruction x = (SSAUnaryOpInstruction) s;
+        if (!(x.getOpcode() instanceof IUnaryOpInstruction.Operator)) {
+          return false;
+        }
+        out.writeByte(UNARY_OP);
+        out.writeByte(((IUnaryOpInstruction.Operator) x.getOpcode()).ordinal());
+        out.writeInt(x.getDef());
+        out.writeInt(x.getUse(0));
+        return true;
+      } else {
+        return false;
+      }
+    }
+
+    /**
+     * For each basic block, the value number of its caught exception (or -1), and the defs of its phis, which must be the phi
+     * instructions of the corresponding {@link PhiValue}s.
+     */
+    private boolean writeBlocks(IR ir) throws IOException {
+      SSACFG cfg = ir.getControlFlowGraph();
+      SymbolTable symbolTable = ir.getSymbolTable();
+      out.writeInt(cfg.getNumberOfNodes());
+      for (int i = 0; i < cfg.getNumberOfNodes(); i++) {
+        SSACFG.BasicBlock bb = cfg.getNode(i);
+        if (bb.iteratePis().hasNext()) {
+          return false;
+        }
+        SSAGetCaughtExceptionInstruction c = bb instanceof SSACFG.ExceptionHandlerBasicBlock
+            ? ((SSACFG.ExceptionHandlerBasicBlock) bb).getCatchInstruction() : null;
+        out.writeInt(c == null ? -1 : c.getException());
+        int n = 0;
+        for (Iterator<SSAPhiInstruction> it = bb.iteratePhis(); it.hasNext(); it.next()) {
+          n++;
+        }
+        out.writeInt(n);
+        for (Iterator<SSAPhiInstruction> it = bb.iteratePhis(); it.hasNext();) {
+          SSAPhiInstruction phi = it.next();
+          Value v = symbolTable.getValue(phi.getDef());
+          if (!(v instanceof PhiValue) || ((PhiValue) v).getPhiInstruction() != phi) {
+            return false;
+          }
+          out.writeInt(phi.getDef());
+        }
+      }
+      return true;
+    }
+
+    private boolean writeLocalMap(SSABuilder.SSA2LocalMap localMap) throws IOException {
+      IntPair[] localStoreMap = localMap.getLocalStoreMap();
+      out.writeInt(localStoreMap.length);
+      int n = 0;
+      for (IntPair p : localStoreMap) {
+        if (p != null) {
+          n++;
+        }
+      }
+      out.writeInt(n);
+      for (int i = 0; i < localStoreMap.length; i++) {
+        if (localStoreMap[i] != null) {
+          out.writeInt(i);
+          out.writeInt(localStoreMap[i].getX());
+          out.writeInt(localStoreMap[i].getY());
+        }
+      }
+      int[][] block2LocalState = localMap.getBlock2LocalState();
+      out.writeInt(block2LocalState.length);
+      for (int[] locals : block2LocalState) {
+        if (locals == null) {
+          out.writeInt(-1);
+        } else {
+          writeInts(locals);
+        }
+      }
+      return true;
+    }
+
+    private boolean writeIndirectionData(ShrikeIndirectionData data, int length) throws IOException {
+      Collection<ShrikeLocalName> names = data.getNames();
+      out.writeInt(names.size());
+      for (ShrikeLocalName name : names) {
+        out.writeInt(name.getBytecodeLocalNumber());
+        for (int i = 0; i < length; i++) {
+          int def = data.getDef(i, name);
+          int use = data.getUse(i, name);
+          if (def != -1 || use != -1) {
+            out.writeInt(i);
+            out.writeInt(def);
+            out.writeInt(use);
+          }
+        }
+        out.writeInt(-1);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Decodes one IR from a record
+   */
+  private static final class Reader {
+    private final ShrikeCTMethod method;
+
+    private final ClassLoaderReference loader;
+
+    private final SSAInstructionFactory insts;
+
+    private final ByteBuffer b;
+
+    Reader(ShrikeCTMethod method, ByteBuffer b) {
+      this.method = method;
+      this.loader = method.getDeclaringClass().getClassLoader().getReference();
+      this.insts = method.getDeclaringClass().getClassLoader().getInstructionFactory();
+      this.b = b;
+    }
+
+    /**
+     * @return the IR, or null if the record does not fit the method
+     */
+    IR read(SSAOptions options) {
+      SymbolTable symbolTable = readSymbolTable();
+      if (symbolTable == null) {
+        return null;
+      }
+      SSAInstruction[] instructions = new SSAInstruction[b.getInt()];
+      for (int i = 0; i < instructions.length; i++) {
+        instructions[i] = readInstruction(i);
+      }
+      @SuppressWarnings("unchecked")
+      final IBytecodeMethod<IInstruction> bytecodeMethod = (IBytecodeMethod<IInstruction>) method;
+      ShrikeCFG shrikeCFG = ShrikeCFG.make(bytecodeMethod);
+      SSACFG cfg = new SSACFG(method, shrikeCFG, instructions);
+      if (!readBlocks(cfg, symbolTable)) {
+        return null;
+      }
+      SSABuilder.SSA2LocalMap localMap = readLocalMap(shrikeCFG);
+      ShrikeIndirectionData indirectionData = readIndirectionData(instructions.length);
+      return new StoredIR(method, instructions, symbolTable, cfg, options, localMap, indirectionData);
+    }
+
+    private SymbolTable readSymbolTable() {
+      SymbolTable symbolTable = new SymbolTable(method.getNumberOfParameters());
+      int max = b.getInt();
+      for (int v = method.getNumberOfParameters() + 1; v <= max; v++) {
+        byte tag = b.get();
+        int vn;
+        switch (tag) {
+        case VALUE:
+          vn = symbolTable.newSymbol();
+          break;
+        case PHI_VALUE:
+          vn = symbolTable.newPhi(readInts());
+          break;
+        case NULL_CONSTANT:
+          vn = symbolTable.getNullConstant();
+          break;
+        case BOOLEAN_CONSTANT:
+          vn = symbolTable.getConstant(b.get() != 0);
+          break;
+        case INT_CONSTANT:
+          vn = symbolTable.getConstant(b.getInt());
+          break;
+        case LONG_CONSTANT:
+          vn = symbolTable.getConstant(b.getLong());
+          break;
+        case FLOAT_CONSTANT:
+          vn = symbolTable.getConstant(b.getFloat());
+          break;
+        case DOUBLE_CONSTANT:
+          vn = symbolTable.getConstant(b.getDouble());
+          break;
+        case STRING_CONSTANT:
+          vn = symbolTable.getConstant(readString(b));
+          break;
+        default:
+          throw new IllegalStateException("bad value tag " + tag);
+        }
+        if (vn != v) {
+          return null;
+        }
+      }
+      return symbolTable;
+    }
+
+    private int[] readInts() {
+      int[] result = new int[b.getInt()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = b.getInt();
+      }
+      return result;
+    }
+
+    private boolean readBoolean() {
+      return b.get() != 0;
+    }
+
+    private TypeReference readType() {
+      byte code = b.get();
+      ClassLoaderReference cl;
+      switch (code) {
+      case NULL_TYPE:
+        return null;
+      case METHOD_LOADER:
+        cl = loader;
+        break;
+      case PRIMORDIAL:
+        cl = ClassLoaderReference.Primordial;
+        break;
+      case EXTENSION:
+        cl = ClassLoaderReference.Extension;
+        break;
+      case APPLICATION:
+        cl = ClassLoaderReference.Application;
+        break;
+      default:
+        throw new IllegalStateException("bad class loader code " + code);
+      }
+      return TypeReference.findOrCreate(cl, readString(b));
+    }
+
+    private FieldReference readField() {
+      TypeReference declaringClass = readType();
+      Atom name = Atom.findOrCreateUnicodeAtom(readString(b));
+      return FieldReference.findOrCreate(declaringClass, name, readType());
+    }
+
+    private MethodReference readMethod() {
+      TypeReference declaringClass = readType();
+      return MethodReference.findOrCreate(declaringClass, Selector.make(readString(b)));
+    }
+
+    private SSAInstruction readInstruction(int iindex) {
+      byte tag = b.get();
+      switch (tag) {
+      case NULL:
+        return null;
+      case ARRAY_LENGTH: {
+        int result = b.getInt();
+        return insts.ArrayLengthInstruction(iindex, result, b.getInt());
+      }
+      case ARRAY_LOAD: {
+        int result = b.getInt();
+        int arrayRef = b.getInt();
+        int index = b.getInt();
+        return insts.ArrayLoadInstruction(iindex, result, arrayRef, index, readType());
+      }
+      case ARRAY_STORE: {
+        int arrayRef = b.getInt();
+        int index = b.getInt();
+        int value = b.getInt();
+        return insts.ArrayStoreInstruction(iindex, arrayRef, index, value, readType());
+      }
+      case BINARY_OP:
+      case SHIFT_OP: {
+        int ordinal = b.get();
+        IBinaryOpInstruction.IOperator op = tag == BINARY_OP ? IBinaryOpInstruction.Operator.values()[ordinal]
+            : IShiftInstruction.Operator.values()[ordinal];
+        int result = b.getInt();
+        int val1 = b.getInt();
+        int val2 = b.getInt();
+        return insts.BinaryOpInstruction(iindex, op, false, false, result, val1, val2, readBoolean());
+      }
+      case CHECK_CAST: {
+        int result = b.getInt();
+        int val = b.getInt();
+        TypeReference[] types = new TypeReference[b.getInt()];
+        for (int i = 0; i < types.length; i++) {
+          types[i] = readType();
+        }
+        return insts.CheckCastInstruction(iindex, result, val, types, readBoolean());
+      }
+      case COMPARISON: {
+        IComparisonInstruction.Operator op = IComparisonInstruction.Operator.values()[b.get()];
+        int result = b.getInt();
+        int val1 = b.getInt();
+        return insts.ComparisonInstruction(iindex, op, result, val1, b.getInt());
+      }
+      case CONDITIONAL_BRANCH: {
+        IConditionalBranchInstruction.Operator op = IConditionalBranchInstruction.Operator.values()[b.get()];
+        int val1 = b.getInt();
+        int val2 = b.getInt();
+        int target = b.getInt();
+        return insts.ConditionalBranchInstruction(iindex, op, readType(), val1, val2, target);
+      }
+      case CONVERSION: {
+        int result = b.getInt();
+        int val = b.getInt();
+        TypeReference fromType = readType();
+        return insts.ConversionInstruction(iindex, result, val, fromType, readType(), false);
+      }
+      case GET: {
+        int result = b.getInt();
+        boolean isStatic = readBoolean();
+        int ref = b.getInt();
+        FieldReference field = readField();
+        return isStatic ? insts.GetInstruction(iindex, result, field) : insts.GetInstruction(iindex, result, ref, field);
+      }
+      case GOTO:
+        return insts.GotoInstruction(iindex, b.getInt());
+      case INSTANCEOF: {
+        int result = b.getInt();
+        int ref = b.getInt();
+        return insts.InstanceofInstruction(iindex, result, ref, readType());
+      }
+      case INVOKE: {
+        boolean hasDef = readBoolean();
+        int result = b.getInt();
+        int[] params = readInts();
+        int exception = b.getInt();
+        int pc = b.getInt();
+        IInvokeInstruction.Dispatch code = IInvokeInstruction.Dispatch.values()[b.get()];
+        CallSiteReference site = CallSiteReference.make(pc, readMethod(), code);
+        return hasDef ? insts.InvokeInstruction(iindex, result, params, exception, site, null)
+            : insts.InvokeInstruction(iindex, params, exception, site, null);
+      }
+      case LOAD_METADATA: {
+        int result = b.getInt();
+        TypeReference entityType = readType();
+        return insts.LoadMetadataInstruction(iindex, result, entityType, readType());
+      }
+      case MONITOR: {
+        int ref = b.getInt();
+        return insts.MonitorInstruction(iindex, ref, readBoolean());
+      }
+      case NEW: {
+        int result = b.getInt();
+        int pc = b.getInt();
+        NewSiteReference site = NewSiteReference.make(pc, readType());
+        int[] params = readInts();
+        boolean safe = readBoolean();
+        if (safe) {
+          return new SSANewInstruction(iindex, result, site, params) {
+            @Override
+            public Collection<TypeReference> getExceptionTypes() {
+              return JavaLanguage.getNewSafeArrayExceptions();
+            }
+          };
+        } else if (site.getDeclaredType().isArrayType()) {
+          return insts.NewInstruction(iindex, result, site, params);
+        } else {
+          return insts.NewInstruction(iindex, result, site);
+        }
+      }
+      case PUT: {
+        boolean isStatic = readBoolean();
+        int ref = b.getInt();
+        int value = b.getInt();
+        FieldReference field = readField();
+        return isStatic ? insts.PutInstruction(iindex, value, field) : insts.PutInstruction(iindex, ref, value, field);
+      }
+      case RETURN: {
+        boolean isVoid = readBoolean();
+        int result = b.getInt();
+        boolean isPrimitive = readBoolean();
+        return isVoid ? insts.ReturnInstruction(iindex) : insts.ReturnInstruction(iindex, result, isPrimitive);
+      }
+      case SWITCH: {
+        int val = b.getInt();
+        int defaultLabel = b.getInt();
+        return insts.SwitchInstruction(iindex, val, defaultLabel, readInts());
+      }
+      case THROW:
+        return insts.ThrowInstruction(iindex, b.getInt());
+      case UNARY_OP: {
+        IUnaryOpInstruction.Operator op = IUnaryOpInstruction.Operator.values()[b.get()];
+        int result = b.getInt();
+        return insts.UnaryOpInstruction(iindex, op, result, b.getInt());
+      }
+      default:
+        throw new IllegalStateException("bad instruction tag " + tag);
+      }
+    }
+
+    private boolean readBlocks(SSACFG cfg, SymbolTable symbolTable) {
+      int n = b.getInt();
+      if (n != cfg.getNumberOfNodes()) {
+        return false;
+      }
+      for (int i = 0; i < n; i++) {
+        SSACFG.BasicBlock bb = cfg.getNode(i);
+        int exception = b.getInt();
+        if (exception != -1) {
+          ((SSACFG.ExceptionHandlerBasicBlock) bb).setCatchInstruction(insts.GetCaughtExceptionInstruction(SSAInstruction.NO_INDEX,
+              i, exception));
+        }
+        int phis = b.getInt();
+        for (int j = 0; j < phis; j++) {
+          bb.addPhiForLocal(j, symbolTable.getPhiValue(b.getInt()).getPhiInstruction());
+        }
+      }
+      return true;
+    }
+
+    private SSABuilder.SSA2LocalMap readLocalMap(ShrikeCFG shrikeCFG) {
+      IntPair[] localStoreMap = new IntPair[b.getInt()];
+      for (int n = b.getInt(); n > 0; n--) {
+        int i = b.getInt();
+        int vn = b.getInt();
+        localStoreMap[i] = new IntPair(vn, b.getInt());
+      }
+      int[][] block2LocalState = new int[b.getInt()][];
+      for (int i = 0; i < block2LocalState.length; i++) {
+        int length = b.getInt();
+        if (length != -1) {
+          block2LocalState[i] = new int[length];
+          for (int j = 0; j < length; j++) {
+            block2LocalState[i][j] = b.getInt();
+          }
+        }
+      }
+      return new SSABuilder.SSA2LocalMap(shrikeCFG, localStoreMap, block2LocalState);
+    }
+
+    private ShrikeIndirectionData readIndirectionData(int length) {
+      ShrikeIndirectionData result = new ShrikeIndirectionData(length);
+      for (int n = b.getInt(); n > 0; n--) {
+        ShrikeLocalName name = new ShrikeLocalName(b.getInt());
+        for (int i = b.getInt(); i != -1; i = b.getInt()) {
+          int def = b.getInt();
+          int use = b.getInt();
+          if (def != -1) {
+            result.setDef(i, name, def);
+          }
+          if (use != -1) {
+            result.setUse(i, name, use);
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * An IR read from a store; like the IRs made by {@link com.ibm.wala.classLoader.ShrikeIRFactory}, it takes source positions
+   * and local names from the method's bytecode.
+   */
+  private static final class StoredIR extends IR {
+    private final ShrikeCTMethod method;
+
+    private final SSA2LocalMap localMap;
+
+    private final ShrikeIndirectionData indirectionData;
+
+    StoredIR(ShrikeCTMethod method, SSAInstruction[] instructions, SymbolTable symbolTable, SSACFG cfg, SSAOptions options,
+        SSA2LocalMap localMap, ShrikeIndirectionData indirectionData) {
+      super(method, instructions, symbolTable, cfg, options);
+      this.method = method;
+      this.localMap = localMap;
+      this.indirectionData = indirectionData;
+      setupLocationMap();
+    }
+
+    @Override
+    protected String instructionPosition(int instructionIndex) {
+      try {
+        int bcIndex = method.getBytecodeIndex(instructionIndex);
+        int lineNumber = method.getLineNumber(bcIndex);
+
+        if (lineNumber == -1) {
+          return "";
+        } else {
+          return "(line " + lineNumber + ")";
+        }
+      } catch (InvalidClassFileException e) {
+        return "";
+      }
+    }
+
+    @Override
+    public SSA2LocalMap getLocalMap() {
+      return localMap;
+    }
+
+    @Override
+    protected <T extends SSAIndirectionData.Name> SSAIndirectionData<T> getIndirectionData() {
+      @SuppressWarnings("unchecked")
+      final SSAIndirectionData<T> result = (SSAIndirectionData<T>) (SSAIndirectionData<?>) indirectionData;
+      return result;
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+  }
+
+  private static String readString(ByteBuffer b) {
+    byte[] bytes = new byte[b.getInt()];
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
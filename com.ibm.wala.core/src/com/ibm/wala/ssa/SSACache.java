@@ -10,9 +10,13 @@
  *******************************************************************************/
 package com.ibm.wala.ssa;
 
+import java.io.IOException;
+
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
 import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.util.WalaRuntimeException;
+import com.ibm.wala.util.perf.Metrics;
 
 /**
  * A mapping from IMethod -&gt; SSAOptions -&gt; SoftReference -&gt; Something
@@ -41,6 +45,11 @@ public class SSACache {
    */
   final private IAuxiliaryCache duCache;
 
+  /**
+   * An on-disk store of IRs from earlier runs, or null
+   */
+  private IRStore irStore;
+
   /**
    * @param factory a factory for creating IRs
    */
@@ -50,6 +59,17 @@ public class SSACache {
     this.duCache = duCache;
   }
 
+  /**
+   * Read IRs from, and write newly built IRs to, the given store; null to build all IRs in memory.
+   */
+  public synchronized void setIRStore(IRStore irStore) {
+    this.irStore = irStore;
+  }
+
+  public synchronized IRStore getIRStore() {
+    return irStore;
+  }
+
   /**
    * @param m a "normal" (bytecode-based) method
    * @param options options governing ssa construction
@@ -75,12 +95,33 @@ public class SSACache {
 
     IR ir = (IR) irCache.find(m, c, options);
     if (ir == null) {
-      ir = factory.makeIR(m, c, options);
+      long start = Metrics.start();
+      if (irStore != null && c == Everywhere.EVERYWHERE) {
+        ir = findOrCreateStoredIR(m, c, options);
+      } else {
+        ir = factory.makeIR(m, c, options);
+      }
       irCache.cache(m, c, options, ir);
+      Metrics.timed("ssa.makeIR", m, start, ir == null ? 0 : ir.getInstructions().length);
+    } else {
+      Metrics.count("ssa.irHit", 1);
     }
     return ir;
   }
 
+  private IR findOrCreateStoredIR(IMethod m, Context c, SSAOptions options) {
+    try {
+      IR ir = irStore.load(m, options);
+      if (ir == null) {
+        ir = factory.makeIR(m, c, options);
+        irStore.store(ir);
+      }
+      return ir;
+    } catch (IOException e) {
+      throw new WalaRuntimeException("failed to access IR store", e);
+    }
+  }
+
   /**
    * @param m a method
    * @param options options governing ssa construction
@@ -101,8 +142,12 @@ public class SSACache {
     DefUse du = (DefUse) duCache.find(m, c, options);
     if (du == null) {
       IR ir = findOrCreateIR(m, c, options);
+      long start = Metrics.start();
       du = new DefUse(ir);
       duCache.cache(m, c, options, du);
+      Metrics.timed("ssa.makeDU", m, start, ir.getInstructions().length);
+    } else {
+      Metrics.count("ssa.duHit", 1);
     }
     return du;
   }
@@ -117,8 +162,12 @@ public class SSACache {
     }
     DefUse du = (DefUse) duCache.find(ir.getMethod(), C, ir.getOptions());
     if (du == null) {
+      long start = Metrics.start();
       du = new DefUse(ir);
       duCache.cache(ir.getMethod(), C, ir.getOptions(), du);
+      Metrics.timed("ssa.makeDU", ir.getMethod(), start, ir.getInstructions().length);
+    } else {
+      Metrics.count("ssa.duHit", 1);
     }
     return du;
   }
@@ -30,6 +30,10 @@ public class ShrikeIndirectionData implements SSAIndirectionData<ShrikeIndirecti
       this.bytecodeLocalNumber = bytecodeLocalNumber;
     }
 
+    public int getBytecodeLocalNumber() {
+      return bytecodeLocalNumber;
+    }
+
     @Override
     public int hashCode() {
       final int prime = 31;
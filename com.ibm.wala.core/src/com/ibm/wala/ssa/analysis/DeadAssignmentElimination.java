@@ -11,8 +11,6 @@
 package com.ibm.wala.ssa.analysis;
 
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import com.ibm.wala.cfg.ControlFlowGraph;
 import com.ibm.wala.fixedpoint.impl.DefaultFixedPointSolver;
@@ -22,9 +20,11 @@ import com.ibm.wala.ssa.*;
 import com.ibm.wala.ssa.SSACFG.BasicBlock;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.CancelRuntimeException;
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IntObjectHashMap;
 import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
 
 /**
  * Eliminate dead assignments (phis) from an SSA IR.
@@ -89,12 +89,12 @@ public class DeadAssignmentElimination {
     /**
      * Map: value number -&gt; BooleanVariable isLive
      */
-    final private Map<Integer, BooleanVariable> vars = HashMapFactory.make();
+    final private IntObjectHashMap<BooleanVariable> vars = new IntObjectHashMap<>();
 
     /**
      * set of value numbers that are trivially dead
      */
-    final private HashSet<Integer> trivialDead = HashSetFactory.make();
+    final private MutableSparseIntSet trivialDead = MutableSparseIntSet.makeEmpty();
 
     /**
      * @param ir the IR to analyze
@@ -110,7 +110,7 @@ public class DeadAssignmentElimination {
         int def = phi.getDef();
         if (DU.getNumberOfUses(def) == 0) {
           // the phi is certainly dead ... record this with a dataflow fact.
-          trivialDead.add(new Integer(def));
+          trivialDead.add(def);
         } else {
           boolean maybeDead = true;
           for (SSAInstruction u : Iterator2Iterable.make(DU.getUses(def))) {
@@ -123,22 +123,22 @@ public class DeadAssignmentElimination {
           if (maybeDead) {
             // perhaps the phi is dead .. create a variable
             BooleanVariable B = new BooleanVariable(false);
-            vars.put(new Integer(def), B);
+            vars.put(def, B);
           }
         }
       }
 
       // Now create dataflow equations; v is live iff any phi that uses v is live
-      for (Entry<Integer, BooleanVariable> E : vars.entrySet()) {
-        Integer def = E.getKey();
-        BooleanVariable B = E.getValue();
-        for (SSAInstruction use : Iterator2Iterable.make(DU.getUses(def.intValue()))) {
+      for (IntIterator it = vars.keyIterator(); it.hasNext();) {
+        int def = it.next();
+        BooleanVariable B = vars.get(def);
+        for (SSAInstruction use : Iterator2Iterable.make(DU.getUses(def))) {
           SSAPhiInstruction u = (SSAPhiInstruction) use;
-          Integer ud = new Integer(u.getDef());
+          int ud = u.getDef();
           if (trivialDead.contains(ud)) {
             // do nothing ... u will not keep def live
           } else {
-            if (!vars.keySet().contains(ud)) {
+            if (!vars.containsKey(ud)) {
               // u is not potentially dead ... certainly v is live.
               // record this.
               B.set(true);
@@ -168,11 +168,10 @@ public class DeadAssignmentElimination {
      * @return true iff there are no uses of the given value number
      */
     private boolean isDead(int value) {
-      Integer V = Integer.valueOf(value);
-      if (trivialDead.contains(V)) {
+      if (trivialDead.contains(value)) {
         return true;
       } else {
-        BooleanVariable B = vars.get(V);
+        BooleanVariable B = vars.get(value);
         if (B == null) {
           return false;
         } else {
@@ -10,7 +10,7 @@
  *******************************************************************************/
 package com.ibm.wala.types;
 
-import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.InternTable;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.strings.Atom;
 import com.ibm.wala.util.strings.ImmutableByteArray;
@@ -18,7 +18,6 @@ import com.ibm.wala.util.strings.StringStuff;
 
 import java.io.Serializable;
 import java.io.UTFDataFormatException;
-import java.util.Map;
 
 /**
  * We've introduced this class to canonicalize Atoms that represent package names.
@@ -41,16 +40,10 @@ public final class TypeName implements Serializable {
   /**
    * canonical mapping from TypeNameKey -&gt; TypeName
    */
-  private final static Map<TypeNameKey, TypeName> map = HashMapFactory.make();
+  private final static InternTable<TypeNameKey, TypeName> map = InternTable.make();
 
-  private static synchronized TypeName findOrCreate(TypeNameKey t) {
-    TypeName result = map.get(t);
-    if (result == null) {
-      result = new TypeName(t);
-      map.put(t, result);
-
-    }
-    return result;
+  private static TypeName findOrCreate(TypeNameKey t) {
+    return map.findOrCreate(t, TypeName::new);
   }
 
   /**
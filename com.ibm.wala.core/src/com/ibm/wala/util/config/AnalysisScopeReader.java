@@ -21,6 +21,7 @@ import java.util.StringTokenizer;
 import java.util.jar.JarFile;
 
 import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
+import com.ibm.wala.classLoader.ClassPackModule;
 import com.ibm.wala.classLoader.Module;
 import com.ibm.wala.classLoader.SourceDirectoryTreeModule;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
@@ -164,6 +165,13 @@ public class AnalysisScopeReader {
       File bd = fp.getFile(entryPathname, javaLoader);
       assert bd.isDirectory();
       scope.addToScope(walaLoader, new BinaryDirectoryTreeModule(bd));
+    } else if ("mappedBinaryDir".equals(entryType)) {
+      File bd = fp.getFile(entryPathname, javaLoader);
+      assert bd.isDirectory();
+      scope.addToScope(walaLoader, new BinaryDirectoryTreeModule(bd, true));
+    } else if ("classPack".equals(entryType)) {
+      File cp = fp.getFile(entryPathname, javaLoader);
+      scope.addToScope(walaLoader, new ClassPackModule(cp));
     } else if ("sourceDir".equals(entryType)) {
       File sd = fp.getFile(entryPathname, javaLoader);
       assert sd.isDirectory();
@@ -14,6 +14,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import com.ibm.wala.classLoader.MappedModuleEntry;
 import com.ibm.wala.classLoader.ModuleEntry;
 import com.ibm.wala.shrikeCT.ClassReader;
 import com.ibm.wala.shrikeCT.InvalidClassFileException;
@@ -37,16 +38,33 @@ public class ShrikeClassReaderHandle {
 
   private Object reader;
 
+  /**
+   * build lazy readers, which parse the member tables on first access?
+   */
+  private final boolean lazy;
+
   /**
    * The number of times we hydrate the reader
    */
   private int hydrateCount = 0;
 
   public ShrikeClassReaderHandle(ModuleEntry entry) {
+    this(entry, false);
+  }
+
+  /**
+   * @param lazy build lazy readers; see {@link ClassReader#ClassReader(byte[], boolean)}
+   */
+  public ShrikeClassReaderHandle(ModuleEntry entry, boolean lazy) {
     if (entry == null) {
       throw new IllegalArgumentException("null entry");
     }
     this.entry = entry;
+    this.lazy = lazy;
+  }
+
+  public boolean isLazy() {
+    return lazy;
   }
 
   /**
@@ -68,16 +86,26 @@ public class ShrikeClassReaderHandle {
           }
         }
       }
-      ByteArrayOutputStream S = new ByteArrayOutputStream();
-      try {
-        InputStream s = entry.getInputStream();
-        readBytes(s, S);
-        s.close();
-      } catch (IOException e) {
-        e.printStackTrace();
-        Assertions.UNREACHABLE();
+      if (entry instanceof MappedModuleEntry) {
+        // read the class in place; only the reader's offset tables live on the heap
+        try {
+          result = new ClassReader(((MappedModuleEntry) entry).getContents(), lazy);
+        } catch (IOException e) {
+          e.printStackTrace();
+          Assertions.UNREACHABLE();
+        }
+      } else {
+        ByteArrayOutputStream S = new ByteArrayOutputStream();
+        try {
+          InputStream s = entry.getInputStream();
+          readBytes(s, S);
+          s.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+          Assertions.UNREACHABLE();
+        }
+        result = new ClassReader(S.toByteArray(), lazy);
       }
-      result = new ClassReader(S.toByteArray());
       reader = CacheReference.make(result);
     }
     return result;
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dalvik.test.cha;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
+import com.ibm.wala.core.tests.util.ClassHierarchySummary;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dalvik.test.util.Util;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.io.FileProvider;
+import com.ibm.wala.util.io.TemporaryFile;
+
+/**
+ * Check that constructing dex classes on several threads gives the same class hierarchy and method bodies as constructing them
+ * one after the other.
+ */
+public class ParallelDexLoadingTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelDexLoadingTest.class);
+  }
+
+  private static Map<String, String> summarize(File dex, int threads) throws IOException, ClassHierarchyException {
+    AnalysisScope scope = Util.makeDalvikScope(null, null, dex.getAbsolutePath());
+    ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+    factory.setLoaderThreads(threads);
+    return ClassHierarchySummary.summarizeWithInstructions(ClassHierarchyFactory.make(scope, factory), scope.getApplicationLoader());
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    File jar = File.createTempFile("walatest", ".jar");
+    jar.deleteOnExit();
+    TemporaryFile.urlToFile(jar, (new FileProvider()).getResource("com.ibm.wala.core.testdata_1.0.0a.jar"));
+    File dex = Util.convertJarToDex(jar.getAbsolutePath());
+    Map<String, String> sequential = summarize(dex, 1);
+    Assert.assertFalse(sequential.isEmpty());
+    Assert.assertEquals(sequential, summarize(dex, 4));
+  }
+}
@@ -66,6 +66,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jf.dexlib2.Opcode;
 import org.jf.dexlib2.analysis.ClassPath;
@@ -179,13 +180,24 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 	 */
 	private TypeReference typeReference;
 
-	private ExceptionHandler[][] handlers;
+	private volatile ExceptionHandler[][] handlers;
 	
+	/**
+	 * decoded lazily by {@link #parseBytecode()}, so that methods that are never analyzed stay in their dex form
+	 */
 	protected InstructionArray instructions;
 
+	/**
+	 * true once {@link #instructions} is completely decoded; methods of a class hierarchy may be analyzed on several threads
+	 */
+	private volatile boolean bytecodeParsed = false;
+
 
 
-	private static int totalInsts = 0;
+	/**
+	 * number of instructions decoded so far, by all threads
+	 */
+	private static final AtomicInteger totalInsts = new AtomicInteger();
 
 	public DexIMethod(Method encodedMethod, DexIClass klass) {
 		eMethod = encodedMethod;
@@ -193,7 +205,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 	}
 
 	public static int getTotalInsts() {
-		return totalInsts;
+		return totalInsts.get();
 	}
 
 	//------------------------------------------
@@ -636,9 +648,11 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 		//          }
 		//      }
 
-		this.handlers = new ExceptionHandler[instructions().size()][];
+		// publish the handlers only once they are complete
+		ExceptionHandler[][] handlers = new ExceptionHandler[instructions().size()][];
 		if (tryBlocks == null){
 			//          return new ExceptionHandler[instructions.size()][];
+			this.handlers = handlers;
 			return handlers;
 		}
 
@@ -700,6 +714,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 			*/
 		}
 
+		this.handlers = handlers;
 		return handlers;
 	}
 
@@ -707,10 +722,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 
 	@Override
 	public Instruction[] getInstructions() {
-		if (instructions == null)
-			parseBytecode();
-
-		return instructions.toArray(new Instruction[ instructions.size() ]);
+		return instructions().toArray(new Instruction[ instructions().size() ]);
 	}
 
 	private boolean odexMethod() {
@@ -867,7 +879,6 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 		int currentCodeAddress = 0;
 		for (org.jf.dexlib2.iface.instruction.Instruction inst: instrucs)
 		{
-			totalInsts++;
 			instCounter++;
 			//          instLoc = pc - instCounter;
 			instLoc = currentCodeAddress;
@@ -2319,6 +2330,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 			}
 			currentCodeAddress += inst.getCodeUnits();
 		}
+		totalInsts.addAndGet(instCounter + 1);
 
 		//// comment out start
 		////        Instruction[] iinstructions = new Instruction[instrucs.length];
@@ -3211,8 +3223,21 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 
 
 	protected InstructionArray instructions(){
-		if (instructions == null)
-			parseBytecode();
+		if (!bytecodeParsed) {
+			synchronized (this) {
+				// while parseBytecode() runs, instructions is non-null, and only the parsing thread gets here; it looks up the
+				// instructions decoded so far
+				if (!bytecodeParsed && instructions == null) {
+					try {
+						parseBytecode();
+					} catch (RuntimeException | Error e) {
+						instructions = null;
+						throw e;
+					}
+					bytecodeParsed = true;
+				}
+			}
+		}
 		return instructions;
 	}
 
@@ -48,10 +48,15 @@
 package com.ibm.wala.dalvik.classLoader;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import com.ibm.wala.classLoader.ClassLoaderImpl;
 import com.ibm.wala.classLoader.IClass;
@@ -100,17 +105,27 @@ public class WDexClassLoaderImpl extends ClassLoaderImpl {
     	super.init(modules);
         // module are loaded according to the given order (same as in Java VM)
         Set<ModuleEntry> classModuleEntries = HashSetFactory.make();
+        List<ModuleEntry> parallelEntries = new ArrayList<>();
         
         for (Module archive : modules) {
             Set<ModuleEntry> classFiles = getDexFiles(archive);
             
             removeClassFiles(classFiles, classModuleEntries);
-            loadAllDexClasses(classFiles);
+            if (getLoaderThreads() > 1) {
+            	// classes of later dex files can only be shadowed by earlier ones, which removeClassFiles took care of
+            	parallelEntries.addAll(classFiles);
+            } else {
+            	loadAllDexClasses(classFiles);
+            }
             
             for (ModuleEntry file : classFiles) {
             	classModuleEntries.add(file);
             }
         }                       
+
+        if (!parallelEntries.isEmpty()) {
+        	loadAllDexClassesInParallel(parallelEntries);
+        }
     }
     
 
@@ -172,26 +187,79 @@ public class WDexClassLoaderImpl extends ClassLoaderImpl {
     			//                              .create(dexEntry.getClassName()));
     			//                  }
     			else {
-    				IClass iClass = new DexIClass(this, cha, dexEntry);
-    				if (iClass.getReference().getName().equals(tName)) {
-    					
-    					// className is a descriptor, so strip the 'L'
-    					if (exclusions != null && exclusions.contains(className.substring(1))) {
-    						if (DEBUG_LEVEL > 0) {
-    							System.err.println("Excluding " + className);
-    						}
-    						continue;
-    					}
- 
-    					loadedClasses.put(tName, iClass);
-    				} else {
-    					Warnings.add(InvalidDexFile.create(className));
-    				}
+    				addDexClass(className, tName, new DexIClass(this, cha, dexEntry));
     			}
     		}
     	}
     }
 
+    private void addDexClass(String className, TypeName tName, IClass iClass) {
+    	if (iClass.getReference().getName().equals(tName)) {
+
+    		// className is a descriptor, so strip the 'L'
+    		if (exclusions != null && exclusions.contains(className.substring(1))) {
+    			if (DEBUG_LEVEL > 0) {
+    				System.err.println("Excluding " + className);
+    			}
+    			return;
+    		}
+
+    		loadedClasses.put(tName, iClass);
+    	} else {
+    		Warnings.add(InvalidDexFile.create(className));
+    	}
+    }
+
+    /**
+     * Like {@link #loadAllDexClasses(Collection)}, but constructs the classes of all dex files on {@link #getLoaderThreads()}
+     * threads. Which entries to load is decided up front, and the classes are then registered in entry order, so the outcome is
+     * the same as loading the dex files one after the other.
+     */
+    private void loadAllDexClassesInParallel(List<ModuleEntry> moduleEntries) {
+    	List<DexModuleEntry> entries = new ArrayList<>();
+    	List<TypeName> names = new ArrayList<>();
+    	Set<TypeName> pending = HashSetFactory.make();
+    	for (ModuleEntry entry : moduleEntries) {
+    		DexModuleEntry dexEntry = (DexModuleEntry) entry;
+    		TypeName tName = TypeName.string2TypeName(dexEntry.getClassName());
+    		if (loadedClasses.get(tName) != null || pending.contains(tName)) {
+    			Warnings.add(MultipleDexImplementationsWarning.create(dexEntry.getClassName()));
+    		} else if (lParent != null && lParent.lookupClass(tName) != null) {
+    			Warnings.add(MultipleDexImplementationsWarning.create(dexEntry.getClassName()));
+    		} else {
+    			pending.add(tName);
+    			entries.add(dexEntry);
+    			names.add(tName);
+    		}
+    	}
+
+    	List<Callable<IClass>> tasks = new ArrayList<>(entries.size());
+    	for (final DexModuleEntry dexEntry : entries) {
+    		tasks.add(() -> new DexIClass(this, cha, dexEntry));
+    	}
+
+    	ForkJoinPool pool = new ForkJoinPool(getLoaderThreads());
+    	try {
+    		List<Future<IClass>> results = pool.invokeAll(tasks);
+    		for (int i = 0; i < results.size(); i++) {
+    			addDexClass(entries.get(i).getClassName(), names.get(i), results.get(i).get());
+    		}
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    		throw new RuntimeException(e);
+    	} catch (ExecutionException e) {
+    		if (e.getCause() instanceof RuntimeException) {
+    			throw (RuntimeException) e.getCause();
+    		} else if (e.getCause() instanceof Error) {
+    			throw (Error) e.getCause();
+    		} else {
+    			throw new RuntimeException(e.getCause());
+    		}
+    	} finally {
+    		pool.shutdown();
+    	}
+    }
+
 
     /**
      * @return the IClassHierarchy of this classLoader.
@@ -0,0 +1,195 @@
+/******************************************************************************
+ * Copyright (c) 2002 - 2014 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *****************************************************************************/
+package com.ibm.wala.shrike.cg;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+
+/**
+ * A call graph read from a trace written by {@link StreamingRuntime}. The nodes are the methods that were called, identified by
+ * class and method name as in the trace of {@link Runtime}, plus three pseudo-methods for callers the runtime does not see: the
+ * fake root that calls main, the fake world clinit that calls static initializers, and the callbacks node that calls methods
+ * invoked by uninstrumented code. These correspond to the fake root, the fake world clinit and the library nodes of a WALA
+ * CallGraph, so edges can be compared one by one.
+ */
+public class DynamicCallGraph extends SlowSparseNumberedGraph<DynamicCallGraph.Method> {
+
+  private static final long serialVersionUID = -2170349263841744815L;
+
+  /**
+   * A method of the traced program.
+   */
+  public static final class Method {
+    private final String className;
+
+    private final String selector;
+
+    Method(String className, String selector) {
+      this.className = className;
+      this.selector = selector;
+    }
+
+    /**
+     * @return the class name without the leading L, e.g. "java/lang/Object", or "root", "clinit" or "callbacks" for the
+     *         pseudo-methods
+     */
+    public String getClassName() {
+      return className;
+    }
+
+    /**
+     * @return the method name and descriptor, e.g. "toString()Ljava/lang/String;", or null for the pseudo-methods
+     */
+    public String getSelector() {
+      return selector;
+    }
+
+    @Override
+    public int hashCode() {
+      return className.hashCode() * 31 + (selector == null ? 0 : selector.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Method)) {
+        return false;
+      }
+      Method other = (Method) obj;
+      return className.equals(other.className) && (selector == null ? other.selector == null : selector.equals(other.selector));
+    }
+
+    @Override
+    public String toString() {
+      return selector == null ? className : className + "." + selector;
+    }
+  }
+
+  private final Method fakeRoot = new Method("root", null);
+
+  private final Method fakeWorldClinit = new Method("clinit", null);
+
+  private final Method callbacks = new Method("callbacks", null);
+
+  private final HashMap<Method, Method> methods = new HashMap<>();
+
+  private DynamicCallGraph() {
+    addNode(fakeRoot);
+    addNode(fakeWorldClinit);
+    addNode(callbacks);
+  }
+
+  /**
+   * Read a trace written by {@link StreamingRuntime}. A trace cut short, e.g. because the program was killed, yields the edges
+   * written up to that point.
+   *
+   * @throws IllegalArgumentException if f is null
+   * @throws IOException if f cannot be read or is not a trace
+   */
+  public static DynamicCallGraph read(File f) throws IOException, IllegalArgumentException {
+    if (f == null) {
+      throw new IllegalArgumentException("f is null");
+    }
+    DynamicCallGraph result = new DynamicCallGraph();
+    List<Method> byId = new ArrayList<>();
+    byId.add(result.fakeRoot);
+    byId.add(result.fakeWorldClinit);
+    byId.add(result.callbacks);
+    try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+      if (in.readInt() != StreamingRuntime.MAGIC) {
+        throw new IOException(f + " is not a call trace");
+      }
+      int version = in.readInt();
+      if (version != StreamingRuntime.VERSION) {
+        throw new IOException("unsupported call trace version " + version + " in " + f);
+      }
+      try {
+        read: while (true) {
+          byte tag = in.readByte();
+          switch (tag) {
+          case StreamingRuntime.END:
+            break read;
+          case StreamingRuntime.METHOD:
+            int id = in.readInt();
+            if (id != byId.size()) {
+              throw new IOException("method " + id + " out of order in " + f);
+            }
+            byId.add(result.findOrCreate(in.readUTF(), in.readUTF()));
+            break;
+          case StreamingRuntime.EDGES:
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+              int caller = in.readInt();
+              int callee = in.readInt();
+              if (caller < 0 || caller >= byId.size() || callee < 0 || callee >= byId.size()) {
+                throw new IOException("undeclared method in edge " + caller + " -> " + callee + " in " + f);
+              }
+              result.addEdge(byId.get(caller), byId.get(callee));
+            }
+            break;
+          default:
+            throw new IOException("bad record " + tag + " in " + f);
+          }
+        }
+      } catch (EOFException e) {
+        // truncated trace; keep what we have
+      }
+    }
+    return result;
+  }
+
+  private Method findOrCreate(String className, String selector) {
+    Method m = new Method(className, selector);
+    Method old = methods.get(m);
+    if (old != null) {
+      return old;
+    }
+    methods.put(m, m);
+    addNode(m);
+    return m;
+  }
+
+  /**
+   * @return the pseudo-method that calls main and finalizers
+   */
+  public Method getFakeRootNode() {
+    return fakeRoot;
+  }
+
+  /**
+   * @return the pseudo-method that calls static initializers
+   */
+  public Method getFakeWorldClinitNode() {
+    return fakeWorldClinit;
+  }
+
+  /**
+   * @return the pseudo-method that calls the methods invoked by uninstrumented code
+   */
+  public Method getCallbacksNode() {
+    return callbacks;
+  }
+
+  /**
+   * @return the node for the given method, or null if it was not called
+   */
+  public Method getNode(String className, String selector) {
+    return methods.get(new Method(className, selector));
+  }
+}
@@ -105,6 +105,13 @@ public class OfflineDynamicCallGraph {
   
   private static Class<?> runtime = Runtime.class;
 
+  /**
+   * Select the class whose static methods the instrumented code calls, e.g. {@link Runtime} or {@link StreamingRuntime}.
+   */
+  static void setRuntime(Class<?> runtime) {
+    OfflineDynamicCallGraph.runtime = runtime;
+  }
+
   private static SetOfClasses filter;
 
   private static ClassHierarchyStore cha = new ClassHierarchyStore();
@@ -116,7 +123,8 @@ public class OfflineDynamicCallGraph {
 
       for(int i = 0; i < args.length; i++) {
         if ("--runtime".equals(args[i])) {
-          runtime = Class.forName(args[i+1]);
+          // only the name and members of the runtime are needed here; do not run its static initializer
+          runtime = Class.forName(args[i+1], false, OfflineDynamicCallGraph.class.getClassLoader());
         } else if ("--exclusions".equals(args[i])) {
           filter = new FileOfClasses(new FileInputStream(args[i+1]));
         } else if ("--dont-patch-exits".equals(args[i])) {
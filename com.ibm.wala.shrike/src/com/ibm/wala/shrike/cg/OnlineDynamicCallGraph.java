@@ -23,6 +23,15 @@ public class OnlineDynamicCallGraph implements ClassFileTransformer {
   private Writer out = new PrintWriter(System.err);
   
   public OnlineDynamicCallGraph() throws IllegalArgumentException, IOException, InvalidClassFileException {
+    String runtimeClass = System.getProperty("dynamicCGRuntime");
+    if (runtimeClass != null) {
+      try {
+        OfflineDynamicCallGraph.setRuntime(Class.forName(runtimeClass));
+      } catch (ClassNotFoundException e) {
+        throw new IllegalArgumentException("cannot find runtime " + runtimeClass);
+      }
+    }
+
     OfflineInstrumenter libReader = new OfflineInstrumenter();
     for (String cps : new String[]{ System.getProperty("java.class.path"), System.getProperty("sun.boot.class.path") }) {
       for (String cp : cps.split(File.pathSeparator)) {
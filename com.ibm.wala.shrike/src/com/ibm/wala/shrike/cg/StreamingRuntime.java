@@ -0,0 +1,460 @@
+/******************************************************************************
+ * Copyright (c) 2002 - 2014 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *****************************************************************************/
+package com.ibm.wala.shrike.cg;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import com.ibm.wala.util.config.FileOfClasses;
+import com.ibm.wala.util.config.SetOfClasses;
+
+/**
+ * A drop-in replacement for {@link Runtime} for instrumented programs that make many calls. Select it with
+ * <code>--runtime com.ibm.wala.shrike.cg.StreamingRuntime</code> when running {@link OfflineDynamicCallGraph}, or with
+ * <code>-DdynamicCGRuntime=com.ibm.wala.shrike.cg.StreamingRuntime</code> for {@link OnlineDynamicCallGraph}.
+ *
+ * Rather than formatting and printing a line for every call under a global lock, each thread maps the class and method strings
+ * passed by the instrumentation to int ids through a private cache, keeps its call stack as an int array and puts edges into a
+ * private ring buffer. A background thread drains the buffers into the binary trace named by the <code>dynamicCGFile</code>
+ * property, which {@link DynamicCallGraph#read(java.io.File)} turns into a graph. A thread skips edges it recorded recently, so
+ * the trace holds every edge that was taken, but not how often.
+ *
+ * The <code>dynamicCGFilter</code> property works as for {@link Runtime}. {@link Runtime.Policy} callbacks are not supported:
+ * instead of walking the stack, a call is attributed to the instrumented caller only if that caller announced a call to a method
+ * of the same name and descriptor; otherwise it is recorded as a callback from uninstrumented code.
+ *
+ * The trace is the int {@link #MAGIC} and the int {@link #VERSION}, followed by records starting with a tag byte:
+ * {@link #METHOD} (int id, UTF class name, UTF method name and descriptor), {@link #EDGES} (int count, then count pairs of caller
+ * and callee ids) and finally {@link #END}. Every method is declared before the first edge that uses it.
+ */
+public class StreamingRuntime {
+
+  static final int MAGIC = 0x57444347;
+
+  static final int VERSION = 1;
+
+  static final byte END = 0;
+
+  static final byte METHOD = 1;
+
+  static final byte EDGES = 2;
+
+  /**
+   * the caller of main and of finalizers
+   */
+  static final int ROOT = 0;
+
+  /**
+   * the caller of static initializers
+   */
+  static final int CLINIT = 1;
+
+  /**
+   * the caller of methods called back by uninstrumented code
+   */
+  static final int CALLBACKS = 2;
+
+  private static final int FIRST_METHOD = 3;
+
+  /**
+   * edges per ring buffer; a power of 2
+   */
+  private static final int CAPACITY = 8192;
+
+  /**
+   * log2 of the entries of the recently recorded edges cache
+   */
+  private static final int RECENT_EDGES_BITS = 12;
+
+  public static final Object NULL_TAG = new Object() {
+    @Override
+    public String toString() {
+      return "NULL TAG";
+    }
+  };
+
+  private static final SetOfClasses filter;
+
+  private static DataOutputStream output;
+
+  private static volatile boolean closed;
+
+  private static final Thread writer;
+
+  /**
+   * guards {@link #output}
+   */
+  private static final Object outputLock = new Object();
+
+  /**
+   * maps "class\tmethod" to the id of the method times 2, plus 1 if the filter excludes the class
+   */
+  private static final HashMap<String, Integer> methodIds = new HashMap<>();
+
+  /**
+   * class and method names of the methods not yet declared in the trace, from id {@link #declaredMethods} on
+   */
+  private static final List<String> undeclaredMethods = new ArrayList<>();
+
+  private static int declaredMethods = FIRST_METHOD;
+
+  private static final List<ThreadTrace> threads = new CopyOnWriteArrayList<>();
+
+  private static final ThreadLocal<ThreadTrace> currentThread = ThreadLocal.withInitial(() -> {
+    ThreadTrace t = new ThreadTrace(Thread.currentThread());
+    threads.add(t);
+    return t;
+  });
+
+  static {
+    SetOfClasses f;
+    try (final FileInputStream in = new FileInputStream(System.getProperty("dynamicCGFilter"))) {
+      f = new FileOfClasses(in);
+    } catch (Exception e) {
+      f = null;
+    }
+    filter = f;
+
+    String fileName = System.getProperty("dynamicCGFile");
+    if (fileName != null) {
+      try {
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+      } catch (IOException e) {
+        System.err.println("cannot write call trace to " + fileName + ": " + e.getMessage());
+        output = null;
+      }
+    }
+
+    if (output == null) {
+      closed = true;
+      writer = null;
+    } else {
+      writer = new Thread("dynamic call graph writer") {
+        @Override
+        public void run() {
+          try {
+            while (!closed) {
+              if (drain() == 0) {
+                LockSupport.parkNanos(this, 1000000L);
+              }
+            }
+          } catch (IOException e) {
+            e.printStackTrace();
+            closed = true;
+          }
+        }
+      };
+      writer.setDaemon(true);
+      writer.start();
+
+      java.lang.Runtime.getRuntime().addShutdownHook(new Thread() {
+        @Override
+        public void run() {
+          endTrace();
+        }
+      });
+    }
+  }
+
+  /**
+   * The state of one thread of the instrumented program. Only the writer thread reads the ring buffer and advances
+   * {@link #head}; only the owning thread touches everything else.
+   */
+  private static final class ThreadTrace {
+    private final Thread thread;
+
+    private String[] cachedClasses = new String[64];
+
+    private String[] cachedMethods = new String[64];
+
+    private int[] cachedIds = new int[64];
+
+    private int cacheSize;
+
+    /**
+     * ids of the methods on the call stack; stack[0] is {@link StreamingRuntime#ROOT}
+     */
+    private int[] stack = new int[64];
+
+    private int depth = 1;
+
+    /**
+     * method name and descriptor of the call the top method is about to make, or null
+     */
+    private String calling;
+
+    /**
+     * recently recorded edges as caller << 32 | callee, by hash
+     */
+    private final long[] recentEdges = new long[1 << RECENT_EDGES_BITS];
+
+    /**
+     * pairs of caller and callee ids
+     */
+    private final int[] buffer = new int[2 * CAPACITY];
+
+    /**
+     * edges drained so far
+     */
+    private volatile long head;
+
+    /**
+     * edges recorded so far
+     */
+    private volatile long tail;
+
+    ThreadTrace(Thread thread) {
+      this.thread = thread;
+      stack[0] = ROOT;
+    }
+
+    /**
+     * @return the id of the method times 2, plus 1 if the filter excludes its class
+     */
+    int methodId(String klass, String method) {
+      // the instrumentation passes string constants, so identity is the common case
+      int mask = cachedMethods.length - 1;
+      int i = (System.identityHashCode(klass) * 31 + System.identityHashCode(method)) & mask;
+      while (cachedMethods[i] != null) {
+        if (cachedMethods[i] == method && cachedClasses[i] == klass) {
+          return cachedIds[i];
+        }
+        i = (i + 1) & mask;
+      }
+      int id = internMethod(klass, method);
+      cachedClasses[i] = klass;
+      cachedMethods[i] = method;
+      cachedIds[i] = id;
+      if (++cacheSize * 2 > cachedMethods.length) {
+        growCache();
+      }
+      return id;
+    }
+
+    private void growCache() {
+      String[] oldClasses = cachedClasses;
+      String[] oldMethods = cachedMethods;
+      int[] oldIds = cachedIds;
+      cachedClasses = new String[2 * oldClasses.length];
+      cachedMethods = new String[2 * oldMethods.length];
+      cachedIds = new int[2 * oldIds.length];
+      int mask = cachedMethods.length - 1;
+      for (int j = 0; j < oldMethods.length; j++) {
+        if (oldMethods[j] != null) {
+          int i = (System.identityHashCode(oldClasses[j]) * 31 + System.identityHashCode(oldMethods[j])) & mask;
+          while (cachedMethods[i] != null) {
+            i = (i + 1) & mask;
+          }
+          cachedClasses[i] = oldClasses[j];
+          cachedMethods[i] = oldMethods[j];
+          cachedIds[i] = oldIds[j];
+        }
+      }
+    }
+
+    void push(int method) {
+      if (depth == stack.length) {
+        int[] old = stack;
+        stack = new int[2 * old.length];
+        System.arraycopy(old, 0, stack, 0, old.length);
+      }
+      stack[depth++] = method;
+    }
+
+    void pop() {
+      if (depth > 1) {
+        depth--;
+      }
+    }
+
+    void record(int caller, int callee) {
+      long edge = ((long) caller << 32) | callee;
+      int slot = (int) ((edge * 0x9E3779B97F4A7C15L) >>> (64 - RECENT_EDGES_BITS));
+      if (recentEdges[slot] == edge) {
+        return;
+      }
+      recentEdges[slot] = edge;
+
+      long t = tail;
+      while (t - head >= CAPACITY) {
+        if (closed) {
+          return;
+        }
+        LockSupport.unpark(writer);
+        Thread.yield();
+      }
+      int i = 2 * (int) (t & (CAPACITY - 1));
+      buffer[i] = caller;
+      buffer[i + 1] = callee;
+      tail = t + 1;
+    }
+  }
+
+  private static String bashToDescriptor(String className) {
+    if (className.startsWith("class ")) {
+      className = className.substring(6);
+    }
+    if (className.indexOf('.') >= 0) {
+      className = className.replace('.', '/');
+    }
+    return className;
+  }
+
+  private static int internMethod(String klass, String method) {
+    String className = bashToDescriptor(klass);
+    String key = className + "\t" + method;
+    synchronized (methodIds) {
+      Integer id = methodIds.get(key);
+      if (id == null) {
+        int n = declaredMethods + undeclaredMethods.size() / 2;
+        id = 2 * n + (filter != null && filter.contains(className) ? 1 : 0);
+        methodIds.put(key, id);
+        undeclaredMethods.add(className);
+        undeclaredMethods.add(method);
+      }
+      return id;
+    }
+  }
+
+  /**
+   * Write the edges recorded so far, and the methods they use, to the trace.
+   *
+   * @return the number of edges written
+   */
+  private static int drain() throws IOException {
+    synchronized (outputLock) {
+      if (output == null) {
+        return 0;
+      }
+
+      ThreadTrace[] ts = threads.toArray(new ThreadTrace[0]);
+      long[] tails = new long[ts.length];
+      for (int i = 0; i < ts.length; i++) {
+        tails[i] = ts[i].tail;
+      }
+
+      // the edges up to tails use only methods interned by now
+      synchronized (methodIds) {
+        for (int i = 0; i < undeclaredMethods.size(); i += 2) {
+          output.writeByte(METHOD);
+          output.writeInt(declaredMethods++);
+          output.writeUTF(undeclaredMethods.get(i));
+          output.writeUTF(undeclaredMethods.get(i + 1));
+        }
+        undeclaredMethods.clear();
+      }
+
+      int written = 0;
+      for (int i = 0; i < ts.length; i++) {
+        ThreadTrace t = ts[i];
+        long h = t.head;
+        if (h < tails[i]) {
+          output.writeByte(EDGES);
+          output.writeInt((int) (tails[i] - h));
+          for (long e = h; e < tails[i]; e++) {
+            int j = 2 * (int) (e & (CAPACITY - 1));
+            output.writeInt(t.buffer[j]);
+            output.writeInt(t.buffer[j + 1]);
+          }
+          written += (int) (tails[i] - h);
+          t.head = tails[i];
+        } else if (!t.thread.isAlive() && t.tail == h) {
+          threads.remove(t);
+        }
+      }
+      return written;
+    }
+  }
+
+  /**
+   * Write the remaining edges and close the trace. Calls made afterwards are not recorded. This is called by a shutdown hook.
+   */
+  public static void endTrace() {
+    closed = true;
+    if (writer != null && writer != Thread.currentThread()) {
+      LockSupport.unpark(writer);
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (outputLock) {
+      if (output != null) {
+        try {
+          drain();
+          output.writeByte(END);
+          output.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+        output = null;
+      }
+    }
+  }
+
+  public static void execution(String klass, String method, Object receiver) {
+    if (closed) {
+      return;
+    }
+    ThreadTrace t = currentThread.get();
+    int callee = t.methodId(klass, method);
+    int caller;
+    if (method.startsWith("<clinit>")) {
+      caller = CLINIT;
+    } else if (t.depth == 1) {
+      // like Runtime, treat only main and finalizers as called by the VM itself
+      caller = method.startsWith("main(") || method.startsWith("finalize(") ? ROOT : CALLBACKS;
+    } else if (method == t.calling || method.equals(t.calling)) {
+      caller = t.stack[t.depth - 1];
+    } else {
+      caller = CALLBACKS;
+    }
+    t.calling = null;
+    if ((callee & 1) == 0) {
+      t.record(caller, callee >>> 1);
+    }
+    t.push(callee >>> 1);
+  }
+
+  @SuppressWarnings("unused")
+  public static void termination(String klass, String method, Object receiver, boolean exception) {
+    if (closed) {
+      return;
+    }
+    currentThread.get().pop();
+  }
+
+  @SuppressWarnings("unused")
+  public static void addToCallStack(String klass, String method, Object receiver) {
+    if (closed) {
+      return;
+    }
+    currentThread.get().calling = method;
+  }
+
+  public static void pop() {
+    if (closed) {
+      return;
+    }
+    currentThread.get().calling = null;
+  }
+}
@@ -11,11 +11,12 @@
 package com.ibm.wala.shrikeBT;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 
 import com.ibm.wala.shrikeBT.IBinaryOpInstruction.Operator;
 import com.ibm.wala.util.graph.dominators.Dominators;
-import com.ibm.wala.util.graph.impl.BasicGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
 
 /**
  * A Decoder translates a method's Java bytecode into shrikeBT code, i.e. an array of Instruction objects and an array of lists of
@@ -1078,14 +1079,21 @@ public abstract class Decoder implements Constants {
     while (changed) {
       changed = false;
 
-      // TODO: use NumberedGraph?
-      BasicGraph<Integer> G = new BasicGraph<>();
+      // most methods have no instruction with more than two predecessors; they need neither graph nor dominators
+      if (!hasJoinOfMoreThanTwo()) {
+        break;
+      }
+
+      // node i is numbered i, so the dominators are computed over arrays rather than maps of boxed indices
+      SlowSparseNumberedGraph<Integer> G = new SlowSparseNumberedGraph<>(2);
       for (int i = 0; i < instructions.length; i++) {
         G.addNode(i);
+      }
+      for (int i = 0; i < instructions.length; i++) {
         for (int target : instructions[i].getBranchTargets()) {
           G.addEdge(i, target);
         }
-        if (instructions[i].isFallThrough()) {
+        if (instructions[i].isFallThrough() && i + 1 < instructions.length) {
           G.addEdge(i, i + 1);
         }
       }
@@ -1101,13 +1109,14 @@ public abstract class Decoder implements Constants {
         int minX = -1;
         int minY = -1;
 
-        Iterator<Integer> it1 = G.getPredNodes(i);
+        IntSet preds = G.getPredNodeNumbers(i);
+        IntIterator it1 = preds.intIterator();
         while (it1.hasNext()) {
           int x = it1.next();
           if (dominators.isDominatedBy(x, i)) {
             continue;
           }
-          Iterator<Integer> it2 = G.getPredNodes(i);
+          IntIterator it2 = preds.intIterator();
           while (it2.hasNext()) {
             int y = it2.next();
             if (x <= y || dominators.isDominatedBy(y, i)) {
@@ -1142,6 +1151,25 @@ public abstract class Decoder implements Constants {
     //TODO: fix instructionsToBytecodes
   }
 
+  /**
+   * @return true if some instruction may have more than two predecessors. Duplicate branch targets are counted twice, which
+   *         errs on the safe side.
+   */
+  private boolean hasJoinOfMoreThanTwo() {
+    int[] predCount = new int[instructions.length + 1];
+    for (int i = 0; i < instructions.length; i++) {
+      for (int target : instructions[i].getBranchTargets()) {
+        if (++predCount[target] > 2) {
+          return true;
+        }
+      }
+      if (instructions[i].isFallThrough() && ++predCount[i + 1] > 2) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void rewireControlFlow(int x, int y, int c) {
     int oldLength = instructions.length;
 
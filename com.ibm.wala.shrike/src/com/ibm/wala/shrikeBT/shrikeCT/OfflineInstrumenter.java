@@ -36,6 +36,15 @@ final public class OfflineInstrumenter extends OfflineInstrumenterBase {
     }
   }
 
+  @Override
+  protected Object makeClassFromBytes(String inputName, byte[] bytes) throws IOException {
+    try {
+      return new ClassInstrumenter(inputName, bytes, cha);
+    } catch (InvalidClassFileException e) {
+      throw new IOException("Class is invalid: " + e.getMessage());
+    }
+  }
+
   @Override
   protected String getClassName(Object cl) {
     try {
@@ -63,6 +72,36 @@ final public class OfflineInstrumenter extends OfflineInstrumenterBase {
     return (ClassInstrumenter) internalNextClass();
   }
 
+  /**
+   * Instrumentation of one class by {@link OfflineInstrumenter#instrumentClasses(ClassTransformer, int)}.
+   */
+  public static interface ClassTransformer {
+    /**
+     * Instrument a class, e.g. with a MethodEditor for each method returned by ci.visitMethod(). This is called on several threads
+     * at once, each time with a different class, so any state shared between calls must be thread-safe.
+     * 
+     * @return the class to output, usually ci.emitClass(), or null if the class should not be output
+     */
+    public ClassWriter transform(ClassInstrumenter ci) throws InvalidClassFileException, IOException;
+  }
+
+  /**
+   * Instrument the remaining classes on the given number of threads. This produces the same output JAR as handing each class
+   * returned by nextClass() to t and calling outputModifiedClass(ci, w) whenever t returns a ClassWriter w, but parses,
+   * instruments and compiles the classes concurrently. The output entries are still written in input order.
+   * 
+   * The class hierarchy provider, if any, is shared by all threads and must not be changed until this returns.
+   * 
+   * @return the number of classes written to the output JAR
+   * @throws IllegalArgumentException if t is null or threads &lt; 1
+   */
+  public int instrumentClasses(final ClassTransformer t, int threads) throws IllegalArgumentException, IOException {
+    if (t == null) {
+      throw new IllegalArgumentException("t is null");
+    }
+    return internalTransformClasses(cl -> t.transform((ClassInstrumenter) cl), threads);
+  }
+
   /**
    * Update the original class with some method changes. 'code' should be the result of out.emitClass(). You can add new fields and
    * methods to 'code' (or make other changes) before calling this method.
@@ -12,16 +12,22 @@ package com.ibm.wala.shrikeBT.tools;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -368,6 +374,14 @@ public abstract class OfflineInstrumenterBase {
 
   protected abstract Object makeClassFromStream(String inputName, BufferedInputStream s) throws IOException;
 
+  /**
+   * Make a class from the complete contents of a class file. The default implementation goes through
+   * {@link #makeClassFromStream(String, BufferedInputStream)}; subclasses can avoid the extra copy.
+   */
+  protected Object makeClassFromBytes(String inputName, byte[] bytes) throws IOException {
+    return makeClassFromStream(inputName, new BufferedInputStream(new ByteArrayInputStream(bytes)));
+  }
+
   protected abstract String getClassName(Object cl);
 
   protected abstract void writeClassTo(Object cl, Object mods, OutputStream s) throws IOException;
@@ -392,6 +406,123 @@ public abstract class OfflineInstrumenterBase {
     }
   }
 
+  /**
+   * A transformation applied to every class by {@link #internalTransformClasses(ClassTransform, int)}. It is called on several
+   * threads at once, each time with a different class.
+   */
+  protected static interface ClassTransform {
+    /**
+     * @return the modifications to pass to {@link #writeClassTo(Object, Object, OutputStream)}, or null if cl should not be output
+     */
+    public Object apply(Object cl) throws Exception;
+  }
+
+  /**
+   * The outcome of transforming one class on a worker thread.
+   */
+  private static final class TransformedClass {
+    final String className;
+
+    /**
+     * the class file to output, or null if the class is not output
+     */
+    final byte[] bytes;
+
+    TransformedClass(String className, byte[] bytes) {
+      this.className = className;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Transform the remaining classes of the traversal on the given number of threads. This is equivalent to calling
+   * {@link #internalNextClass()} until it returns null and outputting every class for which t returns modifications, and produces
+   * the same output JAR. The calling thread reads the inputs and writes the output entries in input order, while the pool parses,
+   * transforms and serializes up to 4 classes per thread ahead of the writer.
+   * 
+   * @return the number of classes written to the output JAR
+   * @throws IllegalArgumentException if t is null or threads &lt; 1
+   */
+  final protected int internalTransformClasses(final ClassTransform t, int threads) throws IOException, IllegalArgumentException {
+    if (t == null) {
+      throw new IllegalArgumentException("t is null");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be positive: " + threads);
+    }
+    makeOutputJar();
+    int window = 4 * threads;
+    ArrayDeque<Input> pendingInputs = new ArrayDeque<>(window);
+    ArrayDeque<Future<TransformedClass>> pending = new ArrayDeque<>(window);
+    int written = 0;
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      while (inputIndex < inputs.size() || !pending.isEmpty()) {
+        if (pending.size() < window && inputIndex < inputs.size()) {
+          final Input in = inputs.get(inputIndex);
+          inputIndex++;
+          if (ignoringInputs.get(inputIndex - 1) || !in.isClass()) {
+            continue;
+          }
+          final byte[] bytes;
+          try (final InputStream s = in.open()) {
+            ByteArrayOutputStream b = new ByteArrayOutputStream();
+            copyStream(s, b);
+            bytes = b.toByteArray();
+          }
+          pendingInputs.add(in);
+          pending.add(pool.submit(() -> {
+            Object cl = makeClassFromBytes(in.getInputName(), bytes);
+            Object mods = t.apply(cl);
+            if (mods == null) {
+              return new TransformedClass(getClassName(cl), null);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length + bytes.length / 4);
+            writeClassTo(cl, mods, out);
+            return new TransformedClass(getClassName(cl), out.toByteArray());
+          }));
+        } else {
+          Input in = pendingInputs.remove();
+          TransformedClass r = getTransformedClass(in, pending.remove());
+          in.setClassName(r.className);
+          String name = in.getInputName();
+          if (r.bytes != null && !entryNames.contains(name)) {
+            putNextEntry(new ZipEntry(name));
+            outputJar.write(r.bytes);
+            outputJar.closeEntry();
+            written++;
+          }
+        }
+      }
+    } finally {
+      for (Future<TransformedClass> f : pending) {
+        f.cancel(true);
+      }
+      pool.shutdown();
+    }
+    return written;
+  }
+
+  private static TransformedClass getTransformedClass(Input in, Future<TransformedClass> f) throws IOException {
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while instrumenting " + in);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new IOException("Error instrumenting " + in + ": " + cause.getMessage(), cause);
+      }
+    }
+  }
+
   private static String toEntryName(String className) {
     return className.replace('.', '/') + ".class";
   }
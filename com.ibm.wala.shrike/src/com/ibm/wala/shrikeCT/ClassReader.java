@@ -10,13 +10,27 @@
  *******************************************************************************/
 package com.ibm.wala.shrikeCT;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * This is the core class for reading class file data.
  * 
  * ClassReader performs lazy parsing, and thus most of the methods can throw an InvalidClassFileException.
+ * 
+ * The class data may be a byte array or any {@link ByteBuffer}, such as a slice of a memory-mapped file; it is read in place and
+ * never copied, unless a client asks for it as an array with {@link #getBytes()}.
  */
 public final class ClassReader implements ClassConstants {
-  private final byte[] bytes;
+  /**
+   * the class data, big-endian, starting at index 0
+   */
+  private final ByteBuffer data;
+
+  /**
+   * the class data as an array, if the reader was built on one or {@link #getBytes()} has copied it
+   */
+  private volatile byte[] bytes;
 
   private int[] methodOffsets;
 
@@ -30,6 +44,17 @@ public final class ClassReader implements ClassConstants {
 
   private int interfaceCount;
 
+  /**
+   * the offset of the field count, where the member tables start
+   */
+  private int memberInfoOffset;
+
+  /**
+   * have the field and method tables been parsed? They are parsed in the constructor unless the reader is lazy, and otherwise on
+   * first access.
+   */
+  private volatile boolean membersParsed;
+
   /**
    * Build a reader.
    * 
@@ -40,18 +65,63 @@ public final class ClassReader implements ClassConstants {
    * @throws InvalidClassFileException the class file data is corrupt
    */
   public ClassReader(byte[] bytes) throws InvalidClassFileException {
+    this(bytes, false);
+  }
+
+  /**
+   * Build a reader, which is lazy if requested. A lazy reader reads only the header, up to and including the interfaces, when it is
+   * built; the field, method and attribute tables are read when first needed. This makes classes cheap to load when most of them
+   * are only asked for their names, superclasses and interfaces, as in building a class hierarchy.
+   * 
+   * A lazy reader checks the rest of the class file only when it reads the member tables, and then reports corrupt data with an
+   * {@link IllegalStateException} from the member access methods.
+   * 
+   * @param bytes the class file data
+   * @param lazy read the member tables on first access?
+   * @throws InvalidClassFileException the class file data is corrupt
+   */
+  public ClassReader(byte[] bytes, boolean lazy) throws InvalidClassFileException {
+    if (bytes == null) {
+      throw new IllegalArgumentException("null bytes");
+    }
+    this.data = ByteBuffer.wrap(bytes);
     this.bytes = bytes;
-    parse();
+    parse(lazy);
+  }
+
+  /**
+   * Build a reader on the remaining bytes of a buffer, without copying them. The buffer's position and limit are not changed, and
+   * its contents must not change while the reader is in use.
+   * 
+   * @param data the class file data
+   * @throws InvalidClassFileException the class file data is corrupt
+   */
+  public ClassReader(ByteBuffer data) throws InvalidClassFileException {
+    this(data, false);
+  }
+
+  /**
+   * Build a reader on the remaining bytes of a buffer, which is lazy if requested.
+   * 
+   * @see #ClassReader(ByteBuffer)
+   * @see #ClassReader(byte[], boolean)
+   */
+  public ClassReader(ByteBuffer data, boolean lazy) throws InvalidClassFileException {
+    if (data == null) {
+      throw new IllegalArgumentException("null data");
+    }
+    this.data = data.slice().order(ByteOrder.BIG_ENDIAN);
+    parse(lazy);
   }
 
   private void checkLength(int offset, int required) throws InvalidClassFileException {
-    if (bytes.length < offset + required) {
+    if (data.limit() < offset + required) {
       throw new InvalidClassFileException(offset, "file truncated, expected " + required + " bytes, saw only "
-          + (bytes.length - offset));
+          + (data.limit() - offset));
     }
   }
 
-  private void parse() throws InvalidClassFileException {
+  private void parse(boolean lazy) throws InvalidClassFileException {
     int offset = 0;
 
     checkLength(offset, 10);
@@ -68,7 +138,7 @@ public final class ClassReader implements ClassConstants {
       throw new InvalidClassFileException(offset, "unknown class file version: " + majorVersion + "." + minorVersion);
     }
     
-    cpParser = new ConstantPoolParser(bytes, offset, constantPoolCount);
+    cpParser = new ConstantPoolParser(data, offset, constantPoolCount);
     offset += cpParser.getRawSize();
 
     classInfoOffset = offset;
@@ -84,6 +154,35 @@ public final class ClassReader implements ClassConstants {
     checkLength(offset, interfaceCount * 2);
     offset += interfaceCount * 2;
 
+    memberInfoOffset = offset;
+    if (!lazy) {
+      parseMembers();
+    }
+  }
+
+  /**
+   * @return true iff the field and method tables have been parsed, which a lazy reader does only when they are first accessed
+   */
+  public boolean isMembersParsed() {
+    return membersParsed;
+  }
+
+  private void parseMembersIfNeeded() {
+    if (!membersParsed) {
+      synchronized (this) {
+        if (!membersParsed) {
+          try {
+            parseMembers();
+          } catch (InvalidClassFileException e) {
+            throw new IllegalStateException("invalid class file: " + e.getMessage(), e);
+          }
+        }
+      }
+    }
+  }
+
+  private void parseMembers() throws InvalidClassFileException {
+    int offset = memberInfoOffset;
     checkLength(offset, 2);
     int fieldCount = getUShort(offset);
     if (fieldCount < 0) {
@@ -103,9 +202,10 @@ public final class ClassReader implements ClassConstants {
     int attrCount = getUShort(offset);
     offset = skipAttributes(offset + 2, attrCount);
 
-    if (offset != bytes.length) {
+    if (offset != data.limit()) {
       throw new InvalidClassFileException(offset, "extra data in class file");
     }
+    membersParsed = true;
   }
 
   private int skipAttributes(int offset, int count) throws InvalidClassFileException {
@@ -149,10 +249,37 @@ public final class ClassReader implements ClassConstants {
   }
 
   /**
-   * @return the raw class data bytes
+   * @return the raw class data bytes. If the reader was not built on an array, they are copied into one the first time this is
+   *         called.
    */
   public byte[] getBytes() {
-    return bytes;
+    byte[] result = bytes;
+    if (result == null) {
+      if (data.hasArray() && data.arrayOffset() == 0 && data.array().length == data.limit()) {
+        result = data.array();
+      } else {
+        result = new byte[data.limit()];
+        ByteBuffer d = data.duplicate();
+        d.position(0);
+        d.get(result);
+      }
+      bytes = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return a read-only view of the raw class data, with its own position, starting at index 0
+   */
+  public ByteBuffer getByteBuffer() {
+    return data.asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * @return the length of the raw class data, in bytes
+   */
+  public int getLength() {
+    return data.limit();
   }
 
   /**
@@ -302,52 +429,54 @@ public final class ClassReader implements ClassConstants {
    * @return the signed 32-bit value at offset i in the class data
    */
   public int getInt(int i) {
-    return (bytes[i] << 24) + ((bytes[i + 1] & 0xFF) << 16) + ((bytes[i + 2] & 0xFF) << 8) + (bytes[i + 3] & 0xFF);
+    return data.getInt(i);
   }
   
   /**
    * @return the unsigned 32-bit value at offset i in the class data
    */
   public long getUInt(int i) {
-    return ((bytes[i] & 0xFF) << 24) + ((bytes[i + 1] & 0xFF) << 16) + ((bytes[i + 2] & 0xFF) << 8) + (bytes[i + 3] & 0xFF);
+    return data.getInt(i);
   }
 
   /**
    * @return the unsigned 16-bit value at offset i in the class data
    */
   public int getUShort(int i) {
-    return ((bytes[i] & 0xFF) << 8) + (bytes[i + 1] & 0xFF);
+    return data.getShort(i) & 0xFFFF;
   }
 
   /**
    * @return the signed 16-bit value at offset i in the class data
    */
   public int getShort(int i) {
-    return (bytes[i] << 8) + (bytes[i + 1] & 0xFF);
+    return data.getShort(i);
   }
 
   /**
    * @return the signed 8-bit value at offset i in the class data
    */
   public byte getByte(int i) {
-    return bytes[i];
+    return data.get(i);
   }
   
   /**
    * @return the unsigned 8-bit value at offset i in the class data
    */
   public int getUnsignedByte(int i) {
-    return bytes[i] & 0xff;
+    return data.get(i) & 0xff;
   }
 
   /**
    * @return the number of fields in the class
    */
   public int getFieldCount() {
+    parseMembersIfNeeded();
     return fieldOffsets.length - 1;
   }
 
   private void verifyFieldIndex(int f) {
+    parseMembersIfNeeded();
     if (f < 0 || f >= fieldOffsets.length - 1) {
       throw new IllegalArgumentException("Invalid field index: " + f);
     }
@@ -589,10 +718,12 @@ public final class ClassReader implements ClassConstants {
    * @return the number of methods in the class
    */
   public int getMethodCount() {
+    parseMembersIfNeeded();
     return methodOffsets.length - 1;
   }
 
   private void verifyMethodIndex(int m) {
+    parseMembersIfNeeded();
     if (m < 0 || m >= methodOffsets.length - 1) {
       throw new IllegalArgumentException("Invalid method index: " + m);
     }
@@ -676,6 +807,7 @@ public final class ClassReader implements ClassConstants {
     if (iter == null) {
       throw new IllegalArgumentException("iter is null");
     }
+    parseMembersIfNeeded();
     iter.init(this, attrInfoOffset);
   }
 }
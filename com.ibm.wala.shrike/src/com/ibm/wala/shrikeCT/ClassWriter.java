@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.ibm.wala.shrikeCT;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -785,7 +786,9 @@ public class ClassWriter implements ClassConstants {
     if (rawCP != null) {
       int len = rawCP.getRawSize();
       int offset = reserveBuf(len);
-      System.arraycopy(rawCP.getRawBytes(), rawCP.getRawOffset(), buf, offset, len);
+      ByteBuffer data = rawCP.getRawBuffer();
+      data.position(rawCP.getRawOffset());
+      data.get(buf, offset, len);
     }
 
     char[] chars = noChars;
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.ibm.wala.shrikeCT;
 
+import java.nio.ByteBuffer;
+
 /**
  * This attribute reader reads Code attributes from methods.
  */
@@ -69,7 +71,9 @@ public final class CodeReader extends AttributeReader {
    */
   public byte[] getBytecode() {
     byte[] r = new byte[codeLen];
-    System.arraycopy(cr.getBytes(), attr + 14, r, 0, r.length);
+    ByteBuffer data = cr.getByteBuffer();
+    data.position(attr + 14);
+    data.get(r);
     return r;
   }
 
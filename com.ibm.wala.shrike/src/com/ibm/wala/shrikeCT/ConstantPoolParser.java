@@ -10,6 +10,9 @@
  *******************************************************************************/
 package com.ibm.wala.shrikeCT;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import com.ibm.wala.shrikeCT.BootstrapMethodsReader.BootstrapMethod;
 import com.ibm.wala.shrikeCT.ClassReader.AttrIterator;
 
@@ -87,7 +90,15 @@ public final class ConstantPoolParser implements ClassConstants {
     }
   }
 
-  final private byte[] bytes;
+  /**
+   * the raw class file data, big-endian, starting at index 0
+   */
+  final private ByteBuffer data;
+
+  /**
+   * the raw class file data as an array, if the parser was built on one or {@link #getRawBytes()} has copied it
+   */
+  private volatile byte[] bytes;
 
   private int[] cpOffsets;
 
@@ -100,7 +111,7 @@ public final class ConstantPoolParser implements ClassConstants {
 
   private BootstrapMethodsReader getBootstrapReader() throws InvalidClassFileException {
     if (invokeDynamicBootstraps == null) { 
-      ClassReader thisClass = new ClassReader(bytes);
+      ClassReader thisClass = new ClassReader(data);
       AttrIterator attrs = new AttrIterator();
       thisClass.initClassAttributeIterator(attrs);
       for (; attrs.isValid(); attrs.advance()) {
@@ -121,7 +132,20 @@ public final class ConstantPoolParser implements ClassConstants {
    * @param itemCount the number of items in the pool
    */
   public ConstantPoolParser(byte[] bytes, int offset, int itemCount) throws InvalidClassFileException {
+    this(bytes == null ? null : ByteBuffer.wrap(bytes), offset, itemCount);
     this.bytes = bytes;
+  }
+
+  /**
+   * @param data the raw class file data, from index 0 to its limit; it is read in place, not copied
+   * @param offset the start of the constant pool data
+   * @param itemCount the number of items in the pool
+   */
+  public ConstantPoolParser(ByteBuffer data, int offset, int itemCount) throws InvalidClassFileException {
+    if (data == null) {
+      throw new IllegalArgumentException("null data");
+    }
+    this.data = data.duplicate().order(ByteOrder.BIG_ENDIAN);
     if (offset < 0) {
       throw new IllegalArgumentException("invalid offset: " + offset);
     }
@@ -132,10 +156,30 @@ public final class ConstantPoolParser implements ClassConstants {
   }
 
   /**
-   * @return the buffer holding the raw class file data
+   * @return the buffer holding the raw class file data. If the parser was not built on an array, the data is copied into one the
+   *         first time this is called.
    */
   public byte[] getRawBytes() {
-    return bytes;
+    byte[] result = bytes;
+    if (result == null) {
+      if (data.hasArray() && data.arrayOffset() == 0 && data.array().length == data.limit()) {
+        result = data.array();
+      } else {
+        result = new byte[data.limit()];
+        ByteBuffer d = data.duplicate();
+        d.position(0);
+        d.get(result);
+      }
+      bytes = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return a read-only view of the raw class file data, with its own position
+   */
+  public ByteBuffer getRawBuffer() {
+    return data.asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
   }
 
   /**
@@ -166,9 +210,9 @@ public final class ConstantPoolParser implements ClassConstants {
   }
 
   private void checkLength(int offset, int required) throws InvalidClassFileException {
-    if (bytes.length < offset + required) {
+    if (data.limit() < offset + required) {
       throw new InvalidClassFileException(offset, "file truncated, expected " + required + " bytes, saw only "
-          + (bytes.length - offset));
+          + (data.limit() - offset));
     }
   }
 
@@ -649,11 +693,11 @@ public final class ConstantPoolParser implements ClassConstants {
   }
 
   private byte getByte(int i) {
-    return bytes[i];
+    return data.get(i);
   }
 
   private int getUShort(int i) {
-    return ((bytes[i] & 0xFF) << 8) + (bytes[i + 1] & 0xFF);
+    return data.getShort(i) & 0xFFFF;
   }
 
   // private short getShort(int i) {
@@ -661,11 +705,11 @@ public final class ConstantPoolParser implements ClassConstants {
   // }
 
   private int getInt(int i) {
-    return (bytes[i] << 24) + ((bytes[i + 1] & 0xFF) << 16) + ((bytes[i + 2] & 0xFF) << 8) + (bytes[i + 3] & 0xFF);
+    return data.getInt(i);
   }
 
   private long getLong(int i) {
-    return ((long) getInt(i) << 32) + (getInt(i + 4) & 0xFFFFFFFFL);
+    return data.getLong(i);
   }
 
   private float getFloat(int i) {
@@ -12,6 +12,7 @@
 package com.ibm.wala.shrikeCT;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import com.ibm.wala.shrikeCT.ClassReader.AttrIterator;
 import com.ibm.wala.sourcepos.CRTable;
@@ -125,10 +126,11 @@ public final class SourcePositionTableReader extends AttributeReader {
   
   private static final byte[] getData(ClassReader cr, int rawOffset, int rawSize) {
     // prepare raw data of attribute to pass to sourceinfo
-    byte klass[] = cr.getBytes();
+    ByteBuffer klass = cr.getByteBuffer();
     int size = rawSize - ATTRIBUTE_HEADER_SIZE;
     byte data[] = new byte[size];
-    System.arraycopy(klass, rawOffset + ATTRIBUTE_HEADER_SIZE, data, 0, size);
+    klass.position(rawOffset + ATTRIBUTE_HEADER_SIZE);
+    klass.get(data);
     
     return data;
   }
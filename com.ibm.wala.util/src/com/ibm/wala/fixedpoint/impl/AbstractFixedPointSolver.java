@@ -27,6 +27,7 @@ import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.debug.VerboseAction;
 import com.ibm.wala.util.graph.INodeWithNumber;
+import com.ibm.wala.util.perf.Metrics;
 
 /**
  * Represents a set of {@link IFixedPointStatement}s to be solved by a {@link IFixedPointSolver}
@@ -96,7 +97,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
   /**
    * worklist for the iterative solver
    */
-  protected Worklist workList = new Worklist();
+  protected IWorklist workList = makeWorklist();
 
   /**
    * A boolean which is initially true, but set to false after the first call to solve();
@@ -104,6 +105,14 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
   private boolean firstSolve = true;
 
   protected abstract T[] makeStmtRHS(int size);
+
+  /**
+   * Create an empty worklist. Subclasses may override to plug in a different implementation, e.g. {@link NumberedWorklist}. Note
+   * that this is called during construction, before subclass fields are initialized.
+   */
+  protected IWorklist makeWorklist() {
+    return new Worklist();
+  }
   
   /**
    * Some setup which occurs only before the first solve
@@ -115,6 +124,13 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
     firstSolve = false;
   }
 
+  /**
+   * @return true iff {@link #initForFirstSolve()} has not run yet
+   */
+  protected boolean isFirstSolve() {
+    return firstSolve;
+  }
+
   /**
    * @return true iff work list is empty
    */
@@ -138,6 +154,8 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
     if (firstSolve) {
       initForFirstSolve();
     }
+    long start = Metrics.start();
+    int evaluated = nEvaluated;
 
     while (!workList.isEmpty()) {
       MonitorUtil.throwExceptionIfCanceled(monitor);
@@ -171,6 +189,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
         removeStatement(s);
       }
     }
+    Metrics.timed("solver.solve", getClass(), start, nEvaluated - evaluated);
     return globalChange;
   }
 
@@ -474,7 +493,9 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
         System.err.println("Reorder " + nEvaluated + " " + nCreated);
       }
     }
+    long start = Metrics.start();
     reorder();
+    Metrics.timed("solver.reorder", getClass(), start, nextOrderNumber);
     if (verbose) {
       if (nEvaluated > 0) {
         System.err.println("Reorder finished " + nEvaluated + " " + nCreated);
@@ -489,11 +510,9 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
    */
   public void orderStatements() {
 
-    if (nextOrderNumber > minSizeForTopSort) {
-      if (((double) topologicalCounter / (double) nextOrderNumber) > topologicalGrowthFactor) {
-        orderStatementsInternal();
-        return;
-      }
+    if (hasGrownSinceOrdering()) {
+      orderStatementsInternal();
+      return;
     }
 
     if ((nEvaluated - evaluationsAtLastOrdering) > maxEvalBetweenTopo) {
@@ -502,6 +521,24 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
     }
   }
 
+  /**
+   * Number the graph in topological order, but only if enough equations have been added since the last ordering. Unlike
+   * {@link #orderStatements()}, the number of evaluations alone never triggers a re-ordering.
+   */
+  protected void orderStatementsIfGrown() {
+    if (hasGrownSinceOrdering()) {
+      orderStatementsInternal();
+    }
+  }
+
+  /**
+   * @return true iff the number of equations added since the last topological sort exceeds the growth checkpoint
+   */
+  private boolean hasGrownSinceOrdering() {
+    return nextOrderNumber > minSizeForTopSort
+        && ((double) topologicalCounter / (double) nextOrderNumber) > topologicalGrowthFactor;
+  }
+
   /**
    * Re-order the step definitions.
    */
@@ -512,7 +549,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
       AbstractStatement eq = workList.takeStatement();
       temp.add(eq);
     }
-    workList = new Worklist();
+    workList = makeWorklist();
 
     // compute new ordering
     getFixedPointSystem().reorder();
@@ -576,6 +613,10 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>> implement
     nEvaluated++;
   }
 
+  public int getNumberOfStatementsCreated() {
+    return nCreated;
+  }
+
   /**
    * a method that will be called every N evaluations. subclasses should override as desired.
    */
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.fixedpoint.impl;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+
+/**
+ * Thread-safe, lock-free variant of {@link NumberedWorklist}, for solvers that insert and take statements from several threads.
+ *
+ * Membership is a segmented bit vector updated with compare-and-set; priority buckets are concurrent queues in a skip list keyed by
+ * order number. A statement taken by one thread may be re-inserted by another thread at any time, so the same statement may be
+ * evaluated concurrently with its own re-evaluation request; solvers must tolerate that.
+ */
+@SuppressWarnings("rawtypes")
+public class ConcurrentNumberedWorklist implements IWorklist {
+
+  private static final int SEGMENT_BITS = 1 << 16;
+
+  private static final int WORDS_PER_SEGMENT = SEGMENT_BITS / Long.SIZE;
+
+  private static final int SEGMENTS = (Integer.MAX_VALUE / SEGMENT_BITS) + 1;
+
+  /**
+   * graph node ids of pending statements, allocated a segment at a time
+   */
+  private final AtomicReferenceArray<AtomicLongArray> members = new AtomicReferenceArray<>(SEGMENTS);
+
+  /**
+   * pending statements with no graph node id
+   */
+  private final Set<AbstractStatement> unnumbered = ConcurrentHashMap.newKeySet();
+
+  private final ConcurrentSkipListMap<Integer, ConcurrentLinkedQueue<AbstractStatement>> buckets = new ConcurrentSkipListMap<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  @Override
+  public void insertStatement(AbstractStatement eq) {
+    int id = eq.getGraphNodeId();
+    if (id >= 0) {
+      if (!setMember(id)) {
+        return;
+      }
+    } else if (!unnumbered.add(eq)) {
+      return;
+    }
+    size.incrementAndGet();
+    enqueue(Math.max(0, eq.getOrderNumber()), eq);
+  }
+
+  /**
+   * Add eq to the bucket for order number k. A bucket may be retired by {@link #takeStatement()} concurrently; if eq landed in a
+   * retired bucket, whoever removes it from there re-enqueues it.
+   */
+  private void enqueue(int k, AbstractStatement eq) {
+    while (true) {
+      ConcurrentLinkedQueue<AbstractStatement> q = buckets.computeIfAbsent(k, x -> new ConcurrentLinkedQueue<>());
+      q.add(eq);
+      if (buckets.get(k) == q || !q.remove(eq)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the pending statement with the lowest order number, or null if none is available
+   */
+  public AbstractStatement pollStatement() {
+    while (true) {
+      Map.Entry<Integer, ConcurrentLinkedQueue<AbstractStatement>> e = buckets.firstEntry();
+      if (e == null) {
+        return null;
+      }
+      ConcurrentLinkedQueue<AbstractStatement> q = e.getValue();
+      AbstractStatement s = q.poll();
+      if (s != null) {
+        int id = s.getGraphNodeId();
+        if (id >= 0) {
+          clearMember(id);
+        } else {
+          unnumbered.remove(s);
+        }
+        size.decrementAndGet();
+        return s;
+      }
+      if (buckets.remove(e.getKey(), q)) {
+        // rescue anything added between the poll and the removal
+        for (AbstractStatement r = q.poll(); r != null; r = q.poll()) {
+          enqueue(e.getKey(), r);
+        }
+      }
+    }
+  }
+
+  @Override
+  public AbstractStatement takeStatement() throws NoSuchElementException {
+    AbstractStatement s = pollStatement();
+    if (s == null) {
+      throw new NoSuchElementException("empty worklist");
+    }
+    return s;
+  }
+
+  /**
+   * @return true iff the bit for id was clear before
+   */
+  private boolean setMember(int id) {
+    AtomicLongArray segment = members.get(id / SEGMENT_BITS);
+    if (segment == null) {
+      members.compareAndSet(id / SEGMENT_BITS, null, new AtomicLongArray(WORDS_PER_SEGMENT));
+      segment = members.get(id / SEGMENT_BITS);
+    }
+    int word = (id % SEGMENT_BITS) / Long.SIZE;
+    long mask = 1L << (id % Long.SIZE);
+    while (true) {
+      long old = segment.get(word);
+      if ((old & mask) != 0) {
+        return false;
+      }
+      if (segment.compareAndSet(word, old, old | mask)) {
+        return true;
+      }
+    }
+  }
+
+  private void clearMember(int id) {
+    AtomicLongArray segment = members.get(id / SEGMENT_BITS);
+    int word = (id % SEGMENT_BITS) / Long.SIZE;
+    long mask = 1L << (id % Long.SIZE);
+    while (true) {
+      long old = segment.get(word);
+      if (segment.compareAndSet(word, old, old & ~mask)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Note that in the presence of concurrent insertions, the answer may be stale by the time it is returned.
+   */
+  @Override
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrentNumberedWorklist: " + size.get() + " pending";
+  }
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.fixedpoint.impl;
+
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+
+/**
+ * A worklist of statements for a fixed-point solver. Implementations suppress duplicate insertions and hand out statements roughly
+ * in increasing {@link AbstractStatement#getOrderNumber() order number}.
+ */
+@SuppressWarnings("rawtypes")
+public interface IWorklist {
+
+  /**
+   * @return the pending statement with the lowest order number
+   * @throws NoSuchElementException if the worklist is empty
+   */
+  AbstractStatement takeStatement() throws NoSuchElementException;
+
+  /**
+   * Add a statement, unless it is already pending.
+   */
+  void insertStatement(AbstractStatement eq);
+
+  boolean isEmpty();
+
+  int size();
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.fixedpoint.impl;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.intset.BitVector;
+
+/**
+ * Worklist keyed by the graph numbers of statements.
+ *
+ * Duplicate suppression is a bit vector indexed by {@link AbstractStatement#getGraphNodeId()}, and priority is a bucket queue
+ * indexed by {@link AbstractStatement#getOrderNumber()}, so neither insertion nor removal hashes or re-sifts. Statements within one
+ * bucket come out in LIFO order. Statements that are not numbered (graph node id -1, e.g. implicitly represented equations) fall
+ * back to a hash set.
+ */
+@SuppressWarnings("rawtypes")
+public class NumberedWorklist implements IWorklist {
+
+  private static final int INITIAL_BUCKETS = 128;
+
+  private static final int INITIAL_BUCKET_SIZE = 2;
+
+  /**
+   * graph node ids of pending statements
+   */
+  private final BitVector members = new BitVector();
+
+  /**
+   * pending statements with no graph node id
+   */
+  private final HashSet<AbstractStatement> unnumbered = HashSetFactory.make();
+
+  /**
+   * order numbers whose bucket is non-empty
+   */
+  private final BitVector occupied = new BitVector();
+
+  /**
+   * buckets[k] holds the pending statements with order number k
+   */
+  private AbstractStatement[][] buckets = new AbstractStatement[INITIAL_BUCKETS][];
+
+  /**
+   * ids[k][i] is the graph node id of buckets[k][i] at the time of insertion
+   */
+  private int[][] ids = new int[INITIAL_BUCKETS][];
+
+  private int[] bucketSizes = new int[INITIAL_BUCKETS];
+
+  /**
+   * no bucket below this order number is occupied
+   */
+  private int lowest = 0;
+
+  private int size = 0;
+
+  @Override
+  public void insertStatement(AbstractStatement eq) {
+    int id = eq.getGraphNodeId();
+    if (id >= 0) {
+      if (members.get(id)) {
+        return;
+      }
+      members.set(id);
+    } else if (!unnumbered.add(eq)) {
+      return;
+    }
+
+    int k = Math.max(0, eq.getOrderNumber());
+    ensureBuckets(k);
+    int n = bucketSizes[k];
+    if (buckets[k] == null) {
+      buckets[k] = new AbstractStatement[INITIAL_BUCKET_SIZE];
+      ids[k] = new int[INITIAL_BUCKET_SIZE];
+    } else if (n == buckets[k].length) {
+      AbstractStatement[] b = new AbstractStatement[2 * n];
+      System.arraycopy(buckets[k], 0, b, 0, n);
+      buckets[k] = b;
+      int[] i = new int[2 * n];
+      System.arraycopy(ids[k], 0, i, 0, n);
+      ids[k] = i;
+    }
+    buckets[k][n] = eq;
+    ids[k][n] = id;
+    bucketSizes[k] = n + 1;
+    occupied.set(k);
+    if (k < lowest) {
+      lowest = k;
+    }
+    size++;
+  }
+
+  @Override
+  public AbstractStatement takeStatement() throws NoSuchElementException {
+    if (size == 0) {
+      throw new NoSuchElementException("empty worklist");
+    }
+    int k = occupied.nextSetBit(lowest);
+    lowest = k;
+    int n = bucketSizes[k] - 1;
+    AbstractStatement result = buckets[k][n];
+    int id = ids[k][n];
+    buckets[k][n] = null;
+    bucketSizes[k] = n;
+    if (n == 0) {
+      occupied.clear(k);
+    }
+    if (id >= 0) {
+      members.clear(id);
+    } else {
+      unnumbered.remove(result);
+    }
+    size--;
+    return result;
+  }
+
+  private void ensureBuckets(int k) {
+    if (k >= buckets.length) {
+      int newLength = Math.max(k + 1, 2 * buckets.length);
+      AbstractStatement[][] b = new AbstractStatement[newLength][];
+      System.arraycopy(buckets, 0, b, 0, buckets.length);
+      buckets = b;
+      int[][] i = new int[newLength][];
+      System.arraycopy(ids, 0, i, 0, ids.length);
+      ids = i;
+      int[] s = new int[newLength];
+      System.arraycopy(bucketSizes, 0, s, 0, bucketSizes.length);
+      bucketSizes = s;
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "NumberedWorklist: " + size + " pending";
+  }
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.util.intset.IntIterator;
+
+/**
+ * A map from ints to ints that boxes neither. {@link #get(int)} returns -1 for absent keys, which suits the usual use of
+ * mapping numbers to non-negative numbers.
+ *
+ * Entries are iterated in insertion order, as with the maps of {@link HashMapFactory}, so that clients stay deterministic.
+ */
+public class IntIntHashMap implements Serializable {
+
+  private static final long serialVersionUID = 7360349713286911203L;
+
+  /**
+   * open-addressed hash table: each slot holds 0 if free, {@link OpenHashing#REMOVED} if its entry was removed, and otherwise the
+   * index of its entry plus one
+   */
+  private int[] table;
+
+  private int[] keys;
+
+  private int[] values;
+
+  /**
+   * number of entries used, including removed ones
+   */
+  private int entries;
+
+  private int size;
+
+  public IntIntHashMap() {
+    this(0);
+  }
+
+  public IntIntHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("illegal expectedSize: " + expectedSize);
+    }
+    allocate(expectedSize);
+  }
+
+  private void allocate(int expectedSize) {
+    int capacity = OpenHashing.tableSize(expectedSize);
+    table = new int[capacity];
+    keys = new int[OpenHashing.maxEntries(capacity)];
+    values = new int[keys.length];
+    entries = 0;
+  }
+
+  /**
+   * @return the slot of key, or -1 if it is not in the map
+   */
+  private int findSlot(int key) {
+    int mask = table.length - 1;
+    for (int s = OpenHashing.mix(key) & mask;; s = (s + 1) & mask) {
+      int t = table[s];
+      if (t == 0) {
+        return -1;
+      }
+      if (t > 0 && keys[t - 1] == key) {
+        return s;
+      }
+    }
+  }
+
+  /**
+   * Removed entries keep their key and value until the next rehash, so an entry is live iff the table still refers to it.
+   */
+  private boolean isLive(int e) {
+    int s = findSlot(keys[e]);
+    return s >= 0 && table[s] == e + 1;
+  }
+
+  /**
+   * @return the value of key, or -1 if it is not in the map
+   */
+  public int get(int key) {
+    return getOrDefault(key, -1);
+  }
+
+  public int getOrDefault(int key, int defaultValue) {
+    int s = findSlot(key);
+    return s < 0 ? defaultValue : values[table[s] - 1];
+  }
+
+  public boolean containsKey(int key) {
+    return findSlot(key) >= 0;
+  }
+
+  /**
+   * @return the previous value of key, or -1 if there was none
+   */
+  public int put(int key, int value) {
+    int s = findSlot(key);
+    if (s >= 0) {
+      int e = table[s] - 1;
+      int old = values[e];
+      values[e] = value;
+      return old;
+    }
+    if (entries == keys.length) {
+      rehash();
+    }
+    int e = entries++;
+    keys[e] = key;
+    values[e] = value;
+    size++;
+    OpenHashing.insert(table, OpenHashing.mix(key), e);
+    return -1;
+  }
+
+  /**
+   * @return the value key had, or -1 if it was not in the map
+   */
+  public int remove(int key) {
+    int s = findSlot(key);
+    if (s < 0) {
+      return -1;
+    }
+    int e = table[s] - 1;
+    table[s] = OpenHashing.REMOVED;
+    size--;
+    return values[e];
+  }
+
+  /**
+   * rebuild the table with room for the live entries to double, dropping removed entries
+   */
+  private void rehash() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] live = new boolean[entries];
+    for (int i = 0; i < entries; i++) {
+      live[i] = isLive(i);
+    }
+    allocate(Math.max(2 * size, 4));
+    for (int i = 0; i < live.length; i++) {
+      if (live[i]) {
+        int e = entries++;
+        keys[e] = oldKeys[i];
+        values[e] = oldValues[i];
+        OpenHashing.insert(table, OpenHashing.mix(keys[e]), e);
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(table, 0);
+    entries = 0;
+    size = 0;
+  }
+
+  /**
+   * @return the keys, in insertion order
+   */
+  public IntIterator keyIterator() {
+    return new IntIterator() {
+      private int next = skipRemoved(0);
+
+      @Override
+      public boolean hasNext() {
+        return next < entries;
+      }
+
+      @Override
+      public int next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int key = keys[next];
+        next = skipRemoved(next + 1);
+        return key;
+      }
+    };
+  }
+
+  private int skipRemoved(int e) {
+    if (size == entries) {
+      return e;
+    }
+    while (e < entries && !isLive(e)) {
+      e++;
+    }
+    return e;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int e = skipRemoved(0); e < entries; e = skipRemoved(e + 1)) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(keys[e]).append('=').append(values[e]);
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.util.intset.IntIterator;
+
+/**
+ * A map from ints to non-null objects that does not box its keys.
+ *
+ * Entries are iterated in insertion order, as with the maps of {@link HashMapFactory}, so that clients stay deterministic.
+ */
+public class IntObjectHashMap<V> implements Serializable {
+
+  private static final long serialVersionUID = -3325093648516302218L;
+
+  /**
+   * open-addressed hash table: each slot holds 0 if free, {@link OpenHashing#REMOVED} if its entry was removed, and otherwise the
+   * index of its entry plus one
+   */
+  private int[] table;
+
+  private int[] keys;
+
+  /**
+   * the value of each entry; null for removed entries
+   */
+  private Object[] values;
+
+  /**
+   * number of entries used, including removed ones
+   */
+  private int entries;
+
+  private int size;
+
+  public IntObjectHashMap() {
+    this(0);
+  }
+
+  public IntObjectHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("illegal expectedSize: " + expectedSize);
+    }
+    allocate(expectedSize);
+  }
+
+  private void allocate(int expectedSize) {
+    int capacity = OpenHashing.tableSize(expectedSize);
+    table = new int[capacity];
+    keys = new int[OpenHashing.maxEntries(capacity)];
+    values = new Object[keys.length];
+    entries = 0;
+  }
+
+  /**
+   * @return the slot of key, or -1 if it is not in the map
+   */
+  private int findSlot(int key) {
+    int mask = table.length - 1;
+    for (int s = OpenHashing.mix(key) & mask;; s = (s + 1) & mask) {
+      int t = table[s];
+      if (t == 0) {
+        return -1;
+      }
+      if (t > 0 && keys[t - 1] == key) {
+        return s;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    int s = findSlot(key);
+    return s < 0 ? null : (V) values[table[s] - 1];
+  }
+
+  public boolean containsKey(int key) {
+    return findSlot(key) >= 0;
+  }
+
+  /**
+   * @return the previous value of key, or null if there was none
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("null value");
+    }
+    int s = findSlot(key);
+    if (s >= 0) {
+      int e = table[s] - 1;
+      V old = (V) values[e];
+      values[e] = value;
+      return old;
+    }
+    if (entries == keys.length) {
+      rehash();
+    }
+    int e = entries++;
+    keys[e] = key;
+    values[e] = value;
+    size++;
+    OpenHashing.insert(table, OpenHashing.mix(key), e);
+    return null;
+  }
+
+  /**
+   * @return the value key had, or null if it was not in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int s = findSlot(key);
+    if (s < 0) {
+      return null;
+    }
+    int e = table[s] - 1;
+    V old = (V) values[e];
+    values[e] = null;
+    table[s] = OpenHashing.REMOVED;
+    size--;
+    return old;
+  }
+
+  /**
+   * rebuild the table with room for the live entries to double, dropping removed entries
+   */
+  private void rehash() {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    int oldEntries = entries;
+    allocate(Math.max(2 * size, 4));
+    for (int i = 0; i < oldEntries; i++) {
+      if (oldValues[i] != null) {
+        int e = entries++;
+        keys[e] = oldKeys[i];
+        values[e] = oldValues[i];
+        OpenHashing.insert(table, OpenHashing.mix(keys[e]), e);
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(table, 0);
+    Arrays.fill(values, 0, entries, null);
+    entries = 0;
+    size = 0;
+  }
+
+  /**
+   * @return the keys, in insertion order
+   */
+  public IntIterator keyIterator() {
+    return new IntIterator() {
+      private int next = skipRemoved(0);
+
+      @Override
+      public boolean hasNext() {
+        return next < entries;
+      }
+
+      @Override
+      public int next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int key = keys[next];
+        next = skipRemoved(next + 1);
+        return key;
+      }
+    };
+  }
+
+  /**
+   * @return the values, in insertion order of their keys
+   */
+  public Iterator<V> valueIterator() {
+    return new Iterator<V>() {
+      private int next = skipRemoved(0);
+
+      @Override
+      public boolean hasNext() {
+        return next < entries;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public V next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        V value = (V) values[next];
+        next = skipRemoved(next + 1);
+        return value;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private int skipRemoved(int e) {
+    while (e < entries && values[e] == null) {
+      e++;
+    }
+    return e;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int e = skipRemoved(0); e < entries; e = skipRemoved(e + 1)) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(keys[e]).append('=').append(values[e]);
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A thread-safe table of canonical instances, keyed by value.
+ *
+ * Lookups of existing instances take no lock. Insertions lock one of several stripes, chosen by key hash, so threads interning
+ * different keys rarely contend, and the factory that makes a new instance runs outside any lock. If two threads race to create an
+ * instance for the same key, one of them wins and both get the winner.
+ *
+ * A weak table holds its instances only weakly: once an instance is no longer referenced from outside the table, it may be
+ * reclaimed, and a later lookup of its key makes a fresh one. Since nothing can observe the old instance at that point, identity
+ * comparisons stay correct. This lets long-running processes that run many analyses release the names and references of earlier
+ * ones.
+ */
+public class InternTable<K, V> {
+
+  /**
+   * If this system property is "true", the interning tables made by {@link #make()} are weak.
+   */
+  public static final String WEAK_INTERNING_PROPERTY_NAME = "com.ibm.wala.weakInterning";
+
+  private static final int DEFAULT_STRIPES = 32;
+
+  /**
+   * @return a table with the default number of stripes, weak iff the {@link #WEAK_INTERNING_PROPERTY_NAME} property is set
+   */
+  public static <K, V> InternTable<K, V> make() {
+    return new InternTable<>(DEFAULT_STRIPES, Boolean.getBoolean(WEAK_INTERNING_PROPERTY_NAME));
+  }
+
+  /**
+   * A weakly-held value, which remembers its key so that its entry can be removed once the value is reclaimed
+   */
+  private static final class WeakValue<K, V> extends WeakReference<V> {
+    private final K key;
+
+    WeakValue(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+  }
+
+  private static final class Stripe<K, V> {
+    /**
+     * maps each key to its value, or to a {@link WeakValue} for the value
+     */
+    private final ConcurrentHashMap<K, Object> map = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+  }
+
+  private final Stripe<K, V>[] stripes;
+
+  private final int mask;
+
+  private final boolean weak;
+
+  /**
+   * @param stripes the number of lock stripes; rounded up to a power of two
+   * @param weak should the table hold its instances weakly?
+   */
+  @SuppressWarnings("unchecked")
+  public InternTable(int stripes, boolean weak) {
+    if (stripes < 1) {
+      throw new IllegalArgumentException("invalid number of stripes: " + stripes);
+    }
+    int n = Integer.highestOneBit(stripes);
+    if (n < stripes) {
+      n <<= 1;
+    }
+    this.stripes = new Stripe[n];
+    for (int i = 0; i < n; i++) {
+      this.stripes[i] = new Stripe<>();
+    }
+    this.mask = n - 1;
+    this.weak = weak;
+  }
+
+  public boolean isWeak() {
+    return weak;
+  }
+
+  private Stripe<K, V> stripeFor(K key) {
+    int h = key.hashCode();
+    return stripes[(h ^ (h >>> 16)) & mask];
+  }
+
+  @SuppressWarnings("unchecked")
+  private V get(Stripe<K, V> s, K key) {
+    Object o = s.map.get(key);
+    if (o instanceof WeakValue) {
+      return ((WeakValue<K, V>) o).get();
+    } else {
+      return (V) o;
+    }
+  }
+
+  /**
+   * @return the canonical instance for key, or null if there is none
+   */
+  public V find(K key) {
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    return get(stripeFor(key), key);
+  }
+
+  /**
+   * @return the canonical instance for key, made by factory if there is none yet
+   */
+  public V findOrCreate(K key, Function<? super K, ? extends V> factory) {
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    Stripe<K, V> s = stripeFor(key);
+    V result = get(s, key);
+    if (result != null) {
+      return result;
+    }
+    V created = factory.apply(key);
+    synchronized (s) {
+      result = get(s, key);
+      if (result != null) {
+        return result;
+      }
+      if (weak) {
+        expungeStaleEntries(s);
+        s.map.put(key, new WeakValue<>(key, created, s.queue));
+      } else {
+        s.map.put(key, created);
+      }
+      return created;
+    }
+  }
+
+  /**
+   * remove entries whose values have been reclaimed; must hold the lock on s
+   */
+  private void expungeStaleEntries(Stripe<K, V> s) {
+    for (Reference<? extends V> r = s.queue.poll(); r != null; r = s.queue.poll()) {
+      WeakValue<?, ?> w = (WeakValue<?, ?>) r;
+      s.map.remove(w.key, w);
+    }
+  }
+
+  /**
+   * @return the number of entries; for a weak table, this may include entries whose values have been reclaimed but not yet
+   *         removed
+   */
+  public int size() {
+    int result = 0;
+    for (Stripe<K, V> s : stripes) {
+      synchronized (s) {
+        if (weak) {
+          expungeStaleEntries(s);
+        }
+        result += s.map.size();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "InternTable: " + size() + " entries" + (weak ? " (weak)" : "");
+  }
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map from non-null objects to ints that does not box its values. {@link #get(Object)} returns -1 for absent keys, which
+ * suits the usual use of mapping objects to non-negative numbers.
+ *
+ * Entries are iterated in insertion order, as with the maps of {@link HashMapFactory}, so that clients stay deterministic.
+ */
+public class ObjectIntHashMap<K> implements Serializable {
+
+  private static final long serialVersionUID = 6043727371830425178L;
+
+  /**
+   * compare keys with == and {@link System#identityHashCode(Object)} rather than equals and hashCode?
+   */
+  private final boolean identity;
+
+  /**
+   * open-addressed hash table: each slot holds 0 if free, {@link OpenHashing#REMOVED} if its entry was removed, and otherwise the
+   * index of its entry plus one. Hash codes need not survive serialization, so the table is rebuilt on reading.
+   */
+  private transient int[] table;
+
+  /**
+   * the key of each entry; null for removed entries
+   */
+  private Object[] keys;
+
+  /**
+   * the mixed hash code of each key
+   */
+  private transient int[] hashes;
+
+  private int[] values;
+
+  /**
+   * number of entries used, including removed ones
+   */
+  private int entries;
+
+  private int size;
+
+  public ObjectIntHashMap() {
+    this(0);
+  }
+
+  public ObjectIntHashMap(int expectedSize) {
+    this(expectedSize, false);
+  }
+
+  private ObjectIntHashMap(int expectedSize, boolean identity) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("illegal expectedSize: " + expectedSize);
+    }
+    this.identity = identity;
+    allocate(expectedSize);
+  }
+
+  /**
+   * @return a copy of m, which compares keys the same way m does
+   */
+  public ObjectIntHashMap(ObjectIntHashMap<? extends K> m) {
+    if (m == null) {
+      throw new IllegalArgumentException("null m");
+    }
+    this.identity = m.identity;
+    this.table = m.table.clone();
+    this.keys = m.keys.clone();
+    this.hashes = m.hashes.clone();
+    this.values = m.values.clone();
+    this.entries = m.entries;
+    this.size = m.size;
+  }
+
+  /**
+   * @return a map that compares its keys by identity, like {@link java.util.IdentityHashMap}
+   */
+  public static <K> ObjectIntHashMap<K> makeIdentityMap() {
+    return new ObjectIntHashMap<>(0, true);
+  }
+
+  private void allocate(int expectedSize) {
+    int capacity = OpenHashing.tableSize(expectedSize);
+    table = new int[capacity];
+    keys = new Object[OpenHashing.maxEntries(capacity)];
+    hashes = new int[keys.length];
+    values = new int[keys.length];
+    entries = 0;
+  }
+
+  private int hash(Object key) {
+    return OpenHashing.mix(identity ? System.identityHashCode(key) : key.hashCode());
+  }
+
+  /**
+   * @return the slot of key, or -1 if it is not in the map
+   */
+  private int findSlot(Object key) {
+    if (key == null) {
+      return -1;
+    }
+    int h = hash(key);
+    int mask = table.length - 1;
+    for (int s = h & mask;; s = (s + 1) & mask) {
+      int t = table[s];
+      if (t == 0) {
+        return -1;
+      }
+      if (t > 0 && hashes[t - 1] == h) {
+        Object k = keys[t - 1];
+        // like HashMap, compare hash codes first and then call key.equals(k), since some keys do not have symmetric equals
+        if (k == key || (!identity && key.equals(k))) {
+          return s;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the value of key, or -1 if it is not in the map
+   */
+  public int get(Object key) {
+    return getOrDefault(key, -1);
+  }
+
+  public int getOrDefault(Object key, int defaultValue) {
+    int s = findSlot(key);
+    return s < 0 ? defaultValue : values[table[s] - 1];
+  }
+
+  public boolean containsKey(Object key) {
+    return findSlot(key) >= 0;
+  }
+
+  /**
+   * @return the previous value of key, or -1 if there was none
+   */
+  public int put(K key, int value) {
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    int s = findSlot(key);
+    if (s >= 0) {
+      int e = table[s] - 1;
+      int old = values[e];
+      values[e] = value;
+      return old;
+    }
+    if (entries == keys.length) {
+      rehash();
+    }
+    int e = entries++;
+    keys[e] = key;
+    hashes[e] = hash(key);
+    values[e] = value;
+    size++;
+    OpenHashing.insert(table, hashes[e], e);
+    return -1;
+  }
+
+  /**
+   * @return the value key had, or -1 if it was not in the map
+   */
+  public int remove(Object key) {
+    int s = findSlot(key);
+    if (s < 0) {
+      return -1;
+    }
+    int e = table[s] - 1;
+    keys[e] = null;
+    table[s] = OpenHashing.REMOVED;
+    size--;
+    return values[e];
+  }
+
+  /**
+   * rebuild the table with room for the live entries to double, dropping removed entries
+   */
+  private void rehash() {
+    Object[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    int[] oldValues = values;
+    int oldEntries = entries;
+    allocate(Math.max(2 * size, 4));
+    for (int i = 0; i < oldEntries; i++) {
+      if (oldKeys[i] != null) {
+        int e = entries++;
+        keys[e] = oldKeys[i];
+        hashes[e] = oldHashes[i];
+        values[e] = oldValues[i];
+        OpenHashing.insert(table, hashes[e], e);
+      }
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    table = new int[OpenHashing.tableSize(keys.length)];
+    hashes = new int[keys.length];
+    for (int e = 0; e < entries; e++) {
+      if (keys[e] != null) {
+        hashes[e] = hash(keys[e]);
+        OpenHashing.insert(table, hashes[e], e);
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(table, 0);
+    Arrays.fill(keys, 0, entries, null);
+    entries = 0;
+    size = 0;
+  }
+
+  /**
+   * @return an unmodifiable view of the keys, iterated in insertion order
+   */
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        return new Iterator<K>() {
+          private int next = skipRemoved(0);
+
+          @Override
+          public boolean hasNext() {
+            return next < entries;
+          }
+
+          @SuppressWarnings("unchecked")
+          @Override
+          public K next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            K key = (K) keys[next];
+            next = skipRemoved(next + 1);
+            return key;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private int skipRemoved(int e) {
+    while (e < entries && keys[e] == null) {
+      e++;
+    }
+    return e;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int e = skipRemoved(0); e < entries; e = skipRemoved(e + 1)) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(keys[e]).append('=').append(values[e]);
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+/**
+ * Table arithmetic shared by the open-addressed primitive maps of this package.
+ *
+ * Each map keeps its entries in dense arrays, in insertion order, and an int table of power-of-two size that maps hashes to
+ * entries by linear probing. Entries, including removed ones, never fill more than two thirds of the table, so a probe always
+ * reaches a free slot.
+ */
+final class OpenHashing {
+
+  /**
+   * marks a table slot whose entry was removed
+   */
+  static final int REMOVED = -1;
+
+  private OpenHashing() {
+  }
+
+  /**
+   * spread the bits of a hash code, since keys such as instruction indices are dense in their low bits
+   */
+  static int mix(int h) {
+    int x = h * 0x9E3779B9;
+    return x ^ (x >>> 16);
+  }
+
+  /**
+   * @return a power-of-two table size that holds expectedSize entries
+   */
+  static int tableSize(int expectedSize) {
+    int capacity = 8;
+    while (maxEntries(capacity) < expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * @return the number of entries a table of the given size may hold
+   */
+  static int maxEntries(int capacity) {
+    return capacity / 3 * 2;
+  }
+
+  /**
+   * record entry e, whose key has the given mixed hash, in the first free or removed slot of its probe sequence
+   */
+  static void insert(int[] table, int hash, int e) {
+    int mask = table.length - 1;
+    int s = hash & mask;
+    while (table[s] > 0) {
+      s = (s + 1) & mask;
+    }
+    table[s] = e + 1;
+  }
+}
@@ -0,0 +1,1022 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The elements of one chunk of a {@link ChunkedMutableIntSet}, i.e. a set of 16-bit values, as a sorted array, a bitmap or a
+ * sorted list of runs.
+ *
+ * Arrays are used for at most {@link #ARRAY_LIMIT} values and bitmaps for more; the binary operations keep to that, so that a
+ * result of an operation is again in the smaller of the two. Runs are only made by {@link #runOptimize()} and are dropped again
+ * when they stop being smaller than the alternative.
+ *
+ * The operations that change a container may do so in place, and return the container to use from then on, which need not be
+ * the same object.
+ */
+abstract class ChunkContainer implements Serializable {
+
+  private static final long serialVersionUID = -2301553829148460651L;
+
+  /**
+   * the largest cardinality kept in an {@link ArrayContainer}
+   */
+  static final int ARRAY_LIMIT = 4096;
+
+  /**
+   * number of longs in a bitmap
+   */
+  static final int WORDS = 1 << 10;
+
+  /**
+   * @return the number of values
+   */
+  abstract int cardinality();
+
+  abstract boolean contains(int low);
+
+  abstract ChunkContainer add(int low);
+
+  abstract ChunkContainer remove(int low);
+
+  /**
+   * union with other, which is not changed
+   */
+  abstract ChunkContainer or(ChunkContainer other);
+
+  /**
+   * @return a new container for the intersection with other; it may be empty
+   */
+  abstract ChunkContainer and(ChunkContainer other);
+
+  abstract boolean intersects(ChunkContainer other);
+
+  abstract boolean isSubset(ChunkContainer other);
+
+  /**
+   * @return the largest value; the container must not be empty
+   */
+  abstract int max();
+
+  /**
+   * apply action to base | v for each value v, in increasing order
+   */
+  abstract void foreach(int base, IntSetAction action);
+
+  /**
+   * @return an iterator over base | v for each value v, in increasing order
+   */
+  abstract IntIterator iterator(int base);
+
+  abstract ChunkContainer copy();
+
+  /**
+   * @return a new bitmap with the same values
+   */
+  abstract BitmapContainer toBitmap();
+
+  abstract int numberOfRuns();
+
+  /**
+   * @return the smallest of the three representations of these values
+   */
+  ChunkContainer runOptimize() {
+    int card = cardinality();
+    int runBytes = 4 * numberOfRuns();
+    int otherBytes = card <= ARRAY_LIMIT ? 2 * card : 8 * WORDS;
+    if (runBytes < otherBytes) {
+      return this instanceof RunContainer ? this : RunContainer.of(this);
+    } else if (this instanceof RunContainer) {
+      return card <= ARRAY_LIMIT ? ((RunContainer) this).toArray() : toBitmap();
+    } else {
+      return this;
+    }
+  }
+
+  /**
+   * @return a container for the low 16 bits of a[from], ..., a[to-1], which must be sorted
+   */
+  static ChunkContainer ofSorted(int[] a, int from, int to) {
+    if (to - from <= ARRAY_LIMIT) {
+      char[] values = new char[to - from];
+      int n = 0;
+      for (int i = from; i < to; i++) {
+        char v = (char) a[i];
+        if (n == 0 || values[n - 1] != v) {
+          values[n++] = v;
+        }
+      }
+      return new ArrayContainer(values, n);
+    } else {
+      BitmapContainer b = new BitmapContainer();
+      for (int i = from; i < to; i++) {
+        b.words[(a[i] & 0xffff) >>> 6] |= 1L << a[i];
+      }
+      b.card = popCount(b.words);
+      return b.card <= ARRAY_LIMIT ? b.toArray() : b;
+    }
+  }
+
+  /**
+   * @return a container for the bits of words, which holds card bits; words is not copied
+   */
+  static ChunkContainer ofWords(long[] words, int card) {
+    BitmapContainer b = new BitmapContainer(words, card);
+    return card <= ARRAY_LIMIT ? b.toArray() : b;
+  }
+
+  static int popCount(long[] words) {
+    int n = 0;
+    for (long w : words) {
+      n += Long.bitCount(w);
+    }
+    return n;
+  }
+
+  /**
+   * set bits start to end, inclusive
+   */
+  static void setRange(long[] words, int start, int end) {
+    int first = start >>> 6;
+    int last = end >>> 6;
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> (63 - (end & 63));
+    if (first == last) {
+      words[first] |= firstMask & lastMask;
+    } else {
+      words[first] |= firstMask;
+      for (int i = first + 1; i < last; i++) {
+        words[i] = -1L;
+      }
+      words[last] |= lastMask;
+    }
+  }
+
+  /**
+   * A sorted array of at most {@link ChunkContainer#ARRAY_LIMIT} values.
+   */
+  static final class ArrayContainer extends ChunkContainer {
+
+    private static final long serialVersionUID = 4181356467383442153L;
+
+    char[] values;
+
+    int card;
+
+    ArrayContainer(char[] values, int card) {
+      this.values = values;
+      this.card = card;
+    }
+
+    static ArrayContainer singleton(int low) {
+      return new ArrayContainer(new char[] { (char) low }, 1);
+    }
+
+    @Override
+    int cardinality() {
+      return card;
+    }
+
+    @Override
+    boolean contains(int low) {
+      return Arrays.binarySearch(values, 0, card, (char) low) >= 0;
+    }
+
+    @Override
+    ChunkContainer add(int low) {
+      int idx = Arrays.binarySearch(values, 0, card, (char) low);
+      if (idx >= 0) {
+        return this;
+      }
+      if (card == ARRAY_LIMIT) {
+        return toBitmap().add(low);
+      }
+      idx = -idx - 1;
+      if (card == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, 2 * card)));
+      }
+      System.arraycopy(values, idx, values, idx + 1, card - idx);
+      values[idx] = (char) low;
+      card++;
+      return this;
+    }
+
+    @Override
+    ChunkContainer remove(int low) {
+      int idx = Arrays.binarySearch(values, 0, card, (char) low);
+      if (idx >= 0) {
+        System.arraycopy(values, idx + 1, values, idx, card - idx - 1);
+        card--;
+      }
+      return this;
+    }
+
+    @Override
+    ChunkContainer or(ChunkContainer other) {
+      if (other instanceof ArrayContainer) {
+        ArrayContainer o = (ArrayContainer) other;
+        if (card + o.card <= ARRAY_LIMIT) {
+          char[] result = new char[card + o.card];
+          card = union(values, card, o.values, o.card, result);
+          values = result;
+          return this;
+        }
+        return toBitmap().or(o);
+      } else if (other instanceof BitmapContainer) {
+        return other.copy().or(this);
+      } else {
+        return RunContainer.of(this).or(other);
+      }
+    }
+
+    private static int union(char[] a, int na, char[] b, int nb, char[] result) {
+      int i = 0, j = 0, n = 0;
+      while (i < na && j < nb) {
+        char x = a[i];
+        char y = b[j];
+        if (x < y) {
+          result[n++] = x;
+          i++;
+        } else if (y < x) {
+          result[n++] = y;
+          j++;
+        } else {
+          result[n++] = x;
+          i++;
+          j++;
+        }
+      }
+      System.arraycopy(a, i, result, n, na - i);
+      n += na - i;
+      System.arraycopy(b, j, result, n, nb - j);
+      return n + nb - j;
+    }
+
+    @Override
+    ChunkContainer and(ChunkContainer other) {
+      char[] result = new char[card];
+      int n = 0;
+      if (other instanceof ArrayContainer) {
+        ArrayContainer o = (ArrayContainer) other;
+        if (card * 32 < o.card) {
+          n = gallopingIntersection(values, card, o.values, o.card, result);
+        } else if (o.card * 32 < card) {
+          n = gallopingIntersection(o.values, o.card, values, card, result);
+        } else {
+          int i = 0, j = 0;
+          while (i < card && j < o.card) {
+            char x = values[i];
+            char y = o.values[j];
+            if (x < y) {
+              i++;
+            } else if (y < x) {
+              j++;
+            } else {
+              result[n++] = x;
+              i++;
+              j++;
+            }
+          }
+        }
+      } else {
+        for (int i = 0; i < card; i++) {
+          if (other.contains(values[i])) {
+            result[n++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, n);
+    }
+
+    /**
+     * intersection of a small array with a large one: binary search the large one, from the last position found
+     */
+    private static int gallopingIntersection(char[] small, int ns, char[] large, int nl, char[] result) {
+      int n = 0;
+      int from = 0;
+      for (int i = 0; i < ns && from < nl; i++) {
+        int idx = Arrays.binarySearch(large, from, nl, small[i]);
+        if (idx >= 0) {
+          result[n++] = small[i];
+          from = idx + 1;
+        } else {
+          from = -idx - 1;
+        }
+      }
+      return n;
+    }
+
+    @Override
+    boolean intersects(ChunkContainer other) {
+      if (other instanceof ArrayContainer) {
+        ArrayContainer o = (ArrayContainer) other;
+        int i = 0, j = 0;
+        while (i < card && j < o.card) {
+          char x = values[i];
+          char y = o.values[j];
+          if (x < y) {
+            i++;
+          } else if (y < x) {
+            j++;
+          } else {
+            return true;
+          }
+        }
+        return false;
+      }
+      for (int i = 0; i < card; i++) {
+        if (other.contains(values[i])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean isSubset(ChunkContainer other) {
+      if (card > other.cardinality()) {
+        return false;
+      }
+      for (int i = 0; i < card; i++) {
+        if (!other.contains(values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    int max() {
+      return values[card - 1];
+    }
+
+    @Override
+    void foreach(int base, IntSetAction action) {
+      for (int i = 0; i < card; i++) {
+        action.act(base | values[i]);
+      }
+    }
+
+    @Override
+    IntIterator iterator(final int base) {
+      return new IntIterator() {
+        private int i = 0;
+
+        @Override
+        public boolean hasNext() {
+          return i < card;
+        }
+
+        @Override
+        public int next() {
+          if (i >= card) {
+            throw new NoSuchElementException();
+          }
+          return base | values[i++];
+        }
+      };
+    }
+
+    @Override
+    ChunkContainer copy() {
+      return new ArrayContainer(Arrays.copyOf(values, card), card);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+      BitmapContainer b = new BitmapContainer();
+      for (int i = 0; i < card; i++) {
+        b.words[values[i] >>> 6] |= 1L << values[i];
+      }
+      b.card = card;
+      return b;
+    }
+
+    @Override
+    int numberOfRuns() {
+      int runs = 0;
+      for (int i = 0; i < card; i++) {
+        if (i == 0 || values[i] != values[i - 1] + 1) {
+          runs++;
+        }
+      }
+      return runs;
+    }
+  }
+
+  /**
+   * A bitmap of 2^16 bits. The word loops are kept free of branches and early exits where possible, so that the JIT can
+   * vectorize them.
+   */
+  static final class BitmapContainer extends ChunkContainer {
+
+    private static final long serialVersionUID = -6227409547316386640L;
+
+    final long[] words;
+
+    int card;
+
+    BitmapContainer() {
+      this(new long[WORDS], 0);
+    }
+
+    BitmapContainer(long[] words, int card) {
+      this.words = words;
+      this.card = card;
+    }
+
+    @Override
+    int cardinality() {
+      return card;
+    }
+
+    @Override
+    boolean contains(int low) {
+      return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    ChunkContainer add(int low) {
+      int w = low >>> 6;
+      long before = words[w];
+      long after = before | (1L << low);
+      if (before != after) {
+        words[w] = after;
+        card++;
+      }
+      return this;
+    }
+
+    @Override
+    ChunkContainer remove(int low) {
+      int w = low >>> 6;
+      long before = words[w];
+      long after = before & ~(1L << low);
+      if (before != after) {
+        words[w] = after;
+        card--;
+        if (card <= ARRAY_LIMIT) {
+          return toArray();
+        }
+      }
+      return this;
+    }
+
+    @Override
+    ChunkContainer or(ChunkContainer other) {
+      if (other instanceof BitmapContainer) {
+        long[] a = words;
+        long[] b = ((BitmapContainer) other).words;
+        for (int i = 0; i < WORDS; i++) {
+          a[i] |= b[i];
+        }
+        card = popCount(a);
+      } else if (other instanceof ArrayContainer) {
+        ArrayContainer o = (ArrayContainer) other;
+        for (int i = 0; i < o.card; i++) {
+          add(o.values[i]);
+        }
+      } else {
+        RunContainer o = (RunContainer) other;
+        for (int k = 0; k < o.nRuns; k++) {
+          setRange(words, o.start(k), o.end(k));
+        }
+        card = popCount(words);
+      }
+      return card <= ARRAY_LIMIT ? toArray() : this;
+    }
+
+    @Override
+    ChunkContainer and(ChunkContainer other) {
+      if (other instanceof ArrayContainer) {
+        return other.and(this);
+      }
+      long[] a = words;
+      long[] result = new long[WORDS];
+      if (other instanceof BitmapContainer) {
+        long[] b = ((BitmapContainer) other).words;
+        for (int i = 0; i < WORDS; i++) {
+          result[i] = a[i] & b[i];
+        }
+      } else {
+        RunContainer o = (RunContainer) other;
+        for (int k = 0; k < o.nRuns; k++) {
+          setRange(result, o.start(k), o.end(k));
+        }
+        for (int i = 0; i < WORDS; i++) {
+          result[i] &= a[i];
+        }
+      }
+      return ofWords(result, popCount(result));
+    }
+
+    @Override
+    boolean intersects(ChunkContainer other) {
+      if (other instanceof BitmapContainer) {
+        long[] a = words;
+        long[] b = ((BitmapContainer) other).words;
+        // test a block of words at a time, so that the inner loop has no exit
+        for (int i = 0; i < WORDS; i += 64) {
+          long any = 0;
+          for (int j = i; j < i + 64; j++) {
+            any |= a[j] & b[j];
+          }
+          if (any != 0) {
+            return true;
+          }
+        }
+        return false;
+      } else if (other instanceof RunContainer) {
+        RunContainer o = (RunContainer) other;
+        for (int k = 0; k < o.nRuns; k++) {
+          if (anyInRange(o.start(k), o.end(k))) {
+            return true;
+          }
+        }
+        return false;
+      }
+      return other.intersects(this);
+    }
+
+    /**
+     * is any of the bits start to end, inclusive, set?
+     */
+    private boolean anyInRange(int start, int end) {
+      int first = start >>> 6;
+      int last = end >>> 6;
+      long firstMask = -1L << start;
+      long lastMask = -1L >>> (63 - (end & 63));
+      if (first == last) {
+        return (words[first] & firstMask & lastMask) != 0;
+      }
+      long any = (words[first] & firstMask) | (words[last] & lastMask);
+      for (int i = first + 1; i < last; i++) {
+        any |= words[i];
+      }
+      return any != 0;
+    }
+
+    @Override
+    boolean isSubset(ChunkContainer other) {
+      if (card > other.cardinality()) {
+        return false;
+      }
+      if (other instanceof BitmapContainer) {
+        long[] a = words;
+        long[] b = ((BitmapContainer) other).words;
+        for (int i = 0; i < WORDS; i += 64) {
+          long extra = 0;
+          for (int j = i; j < i + 64; j++) {
+            extra |= a[j] & ~b[j];
+          }
+          if (extra != 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+      for (IntIterator it = iterator(0); it.hasNext();) {
+        if (!other.contains(it.next())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    int max() {
+      for (int i = WORDS - 1; i >= 0; i--) {
+        if (words[i] != 0) {
+          return 64 * i + 63 - Long.numberOfLeadingZeros(words[i]);
+        }
+      }
+      throw new IllegalStateException("empty bitmap");
+    }
+
+    @Override
+    void foreach(int base, IntSetAction action) {
+      for (int i = 0; i < WORDS; i++) {
+        long w = words[i];
+        while (w != 0) {
+          action.act(base | (64 * i + Long.numberOfTrailingZeros(w)));
+          w &= w - 1;
+        }
+      }
+    }
+
+    @Override
+    IntIterator iterator(final int base) {
+      return new IntIterator() {
+        private int i = -1;
+
+        private long w = 0;
+
+        {
+          advance();
+        }
+
+        private void advance() {
+          while (w == 0 && ++i < WORDS) {
+            w = words[i];
+          }
+        }
+
+        @Override
+        public boolean hasNext() {
+          return w != 0;
+        }
+
+        @Override
+        public int next() {
+          if (w == 0) {
+            throw new NoSuchElementException();
+          }
+          int result = base | (64 * i + Long.numberOfTrailingZeros(w));
+          w &= w - 1;
+          advance();
+          return result;
+        }
+      };
+    }
+
+    @Override
+    ChunkContainer copy() {
+      return new BitmapContainer(words.clone(), card);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+      return new BitmapContainer(words.clone(), card);
+    }
+
+    ArrayContainer toArray() {
+      char[] values = new char[card];
+      int n = 0;
+      for (int i = 0; i < WORDS; i++) {
+        long w = words[i];
+        while (w != 0) {
+          values[n++] = (char) (64 * i + Long.numberOfTrailingZeros(w));
+          w &= w - 1;
+        }
+      }
+      return new ArrayContainer(values, n);
+    }
+
+    @Override
+    int numberOfRuns() {
+      // a run starts at each set bit whose predecessor is clear
+      int runs = 0;
+      long carry = 0;
+      for (int i = 0; i < WORDS; i++) {
+        long w = words[i];
+        runs += Long.bitCount(w & ~((w << 1) | carry));
+        carry = w >>> 63;
+      }
+      return runs;
+    }
+  }
+
+  /**
+   * A sorted list of disjoint, non-adjacent runs of consecutive values. runs[2k] is the first value of run k, and runs[2k+1] is
+   * its length minus one.
+   */
+  static final class RunContainer extends ChunkContainer {
+
+    private static final long serialVersionUID = 6962245862296151546L;
+
+    char[] runs;
+
+    int nRuns;
+
+    int card;
+
+    RunContainer(char[] runs, int nRuns, int card) {
+      this.runs = runs;
+      this.nRuns = nRuns;
+      this.card = card;
+    }
+
+    static RunContainer of(ChunkContainer c) {
+      char[] runs = new char[2 * c.numberOfRuns()];
+      int n = -1;
+      int last = -2;
+      for (IntIterator it = c.iterator(0); it.hasNext();) {
+        int v = it.next();
+        if (v == last + 1) {
+          runs[2 * n + 1]++;
+        } else {
+          n++;
+          runs[2 * n] = (char) v;
+        }
+        last = v;
+      }
+      return new RunContainer(runs, n + 1, c.cardinality());
+    }
+
+    int start(int k) {
+      return runs[2 * k];
+    }
+
+    int end(int k) {
+      return runs[2 * k] + runs[2 * k + 1];
+    }
+
+    /**
+     * @return the index of the last run that starts at or before low, or -1
+     */
+    private int find(int low) {
+      int lo = 0;
+      int hi = nRuns - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        if (start(mid) <= low) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return hi;
+    }
+
+    private void insertRun(int k, int start, int end) {
+      if (2 * nRuns == runs.length) {
+        runs = Arrays.copyOf(runs, Math.max(4, 2 * runs.length));
+      }
+      System.arraycopy(runs, 2 * k, runs, 2 * k + 2, 2 * (nRuns - k));
+      runs[2 * k] = (char) start;
+      runs[2 * k + 1] = (char) (end - start);
+      nRuns++;
+    }
+
+    private void deleteRun(int k) {
+      System.arraycopy(runs, 2 * k + 2, runs, 2 * k, 2 * (nRuns - k - 1));
+      nRuns--;
+    }
+
+    /**
+     * @return this, or an array or bitmap with the same values if that is smaller
+     */
+    private ChunkContainer shrink() {
+      int otherBytes = card <= ARRAY_LIMIT ? 2 * card : 8 * WORDS;
+      if (4 * nRuns > otherBytes) {
+        return card <= ARRAY_LIMIT ? toArray() : toBitmap();
+      }
+      return this;
+    }
+
+    @Override
+    int cardinality() {
+      return card;
+    }
+
+    @Override
+    boolean contains(int low) {
+      int k = find(low);
+      return k >= 0 && low <= end(k);
+    }
+
+    @Override
+    ChunkContainer add(int low) {
+      int k = find(low);
+      if (k >= 0 && low <= end(k)) {
+        return this;
+      }
+      boolean joinsPrevious = k >= 0 && end(k) + 1 == low;
+      boolean joinsNext = k + 1 < nRuns && start(k + 1) == low + 1;
+      if (joinsPrevious && joinsNext) {
+        runs[2 * k + 1] = (char) (end(k + 1) - start(k));
+        deleteRun(k + 1);
+      } else if (joinsPrevious) {
+        runs[2 * k + 1]++;
+      } else if (joinsNext) {
+        runs[2 * k + 2]--;
+        runs[2 * k + 3]++;
+      } else {
+        insertRun(k + 1, low, low);
+      }
+      card++;
+      return shrink();
+    }
+
+    @Override
+    ChunkContainer remove(int low) {
+      int k = find(low);
+      if (k < 0 || low > end(k)) {
+        return this;
+      }
+      int start = start(k);
+      int end = end(k);
+      if (start == end) {
+        deleteRun(k);
+      } else if (low == start) {
+        runs[2 * k]++;
+        runs[2 * k + 1]--;
+      } else if (low == end) {
+        runs[2 * k + 1]--;
+      } else {
+        runs[2 * k + 1] = (char) (low - 1 - start);
+        insertRun(k + 1, low + 1, end);
+      }
+      card--;
+      return shrink();
+    }
+
+    @Override
+    ChunkContainer or(ChunkContainer other) {
+      RunContainer o = other instanceof RunContainer ? (RunContainer) other : of(other);
+      char[] result = new char[2 * (nRuns + o.nRuns)];
+      int n = 0;
+      int newCard = 0;
+      int i = 0, j = 0;
+      int curStart = -1, curEnd = -2;
+      while (i < nRuns || j < o.nRuns) {
+        int s, e;
+        if (j == o.nRuns || (i < nRuns && start(i) <= o.start(j))) {
+          s = start(i);
+          e = end(i++);
+        } else {
+          s = o.start(j);
+          e = o.end(j++);
+        }
+        if (s <= curEnd + 1) {
+          curEnd = Math.max(curEnd, e);
+        } else {
+          if (curStart >= 0) {
+            result[2 * n] = (char) curStart;
+            result[2 * n++ + 1] = (char) (curEnd - curStart);
+            newCard += curEnd - curStart + 1;
+          }
+          curStart = s;
+          curEnd = e;
+        }
+      }
+      if (curStart >= 0) {
+        result[2 * n] = (char) curStart;
+        result[2 * n++ + 1] = (char) (curEnd - curStart);
+        newCard += curEnd - curStart + 1;
+      }
+      runs = result;
+      nRuns = n;
+      card = newCard;
+      return shrink();
+    }
+
+    @Override
+    ChunkContainer and(ChunkContainer other) {
+      if (!(other instanceof RunContainer)) {
+        return other.and(this);
+      }
+      RunContainer o = (RunContainer) other;
+      RunContainer result = new RunContainer(new char[2 * (nRuns + o.nRuns)], 0, 0);
+      int i = 0, j = 0;
+      while (i < nRuns && j < o.nRuns) {
+        int s = Math.max(start(i), o.start(j));
+        int e = Math.min(end(i), o.end(j));
+        if (s <= e) {
+          result.runs[2 * result.nRuns] = (char) s;
+          result.runs[2 * result.nRuns + 1] = (char) (e - s);
+          result.nRuns++;
+          result.card += e - s + 1;
+        }
+        if (end(i) < o.end(j)) {
+          i++;
+        } else {
+          j++;
+        }
+      }
+      return result.shrink();
+    }
+
+    @Override
+    boolean intersects(ChunkContainer other) {
+      if (other instanceof RunContainer) {
+        RunContainer o = (RunContainer) other;
+        int i = 0, j = 0;
+        while (i < nRuns && j < o.nRuns) {
+          if (Math.max(start(i), o.start(j)) <= Math.min(end(i), o.end(j))) {
+            return true;
+          }
+          if (end(i) < o.end(j)) {
+            i++;
+          } else {
+            j++;
+          }
+        }
+        return false;
+      }
+      return other.intersects(this);
+    }
+
+    @Override
+    boolean isSubset(ChunkContainer other) {
+      if (card > other.cardinality()) {
+        return false;
+      }
+      if (other instanceof RunContainer) {
+        RunContainer o = (RunContainer) other;
+        int j = 0;
+        for (int i = 0; i < nRuns; i++) {
+          while (j < o.nRuns && o.end(j) < start(i)) {
+            j++;
+          }
+          if (j == o.nRuns || o.start(j) > start(i) || o.end(j) < end(i)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      for (IntIterator it = iterator(0); it.hasNext();) {
+        if (!other.contains(it.next())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    int max() {
+      return end(nRuns - 1);
+    }
+
+    @Override
+    void foreach(int base, IntSetAction action) {
+      for (int k = 0; k < nRuns; k++) {
+        for (int v = start(k), e = end(k); v <= e; v++) {
+          action.act(base | v);
+        }
+      }
+    }
+
+    @Override
+    IntIterator iterator(final int base) {
+      return new IntIterator() {
+        private int k = 0;
+
+        private int v = nRuns == 0 ? 0 : start(0);
+
+        @Override
+        public boolean hasNext() {
+          return k < nRuns;
+        }
+
+        @Override
+        public int next() {
+          if (k >= nRuns) {
+            throw new NoSuchElementException();
+          }
+          int result = base | v;
+          if (v == end(k)) {
+            if (++k < nRuns) {
+              v = start(k);
+            }
+          } else {
+            v++;
+          }
+          return result;
+        }
+      };
+    }
+
+    @Override
+    ChunkContainer copy() {
+      return new RunContainer(Arrays.copyOf(runs, 2 * nRuns), nRuns, card);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+      BitmapContainer b = new BitmapContainer();
+      for (int k = 0; k < nRuns; k++) {
+        setRange(b.words, start(k), end(k));
+      }
+      b.card = card;
+      return b;
+    }
+
+    ArrayContainer toArray() {
+      char[] values = new char[card];
+      int n = 0;
+      for (int k = 0; k < nRuns; k++) {
+        for (int v = start(k), e = end(k); v <= e; v++) {
+          values[n++] = (char) v;
+        }
+      }
+      return new ArrayContainer(values, n);
+    }
+
+    @Override
+    int numberOfRuns() {
+      return nRuns;
+    }
+  }
+}
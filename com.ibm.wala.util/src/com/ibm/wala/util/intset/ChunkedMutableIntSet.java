@@ -0,0 +1,544 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of non-negative integers in the style of Roaring bitmaps: the integers are split into chunks of 2^16 by their high
+ * bits, and the low bits of each non-empty chunk are kept in a container chosen by its density, a sorted array for sparse
+ * chunks, a bitmap for dense ones and, after {@link #runOptimize()}, a list of runs for contiguous ones. Clustered sets that are
+ * spread over a wide range, like sets of instance key or statement numbers, thus cost little more than their clusters.
+ *
+ * Operations between two chunked sets work chunk by chunk. {@link SparseIntSet}s and {@link BitVectorIntSet}s are added without
+ * going element by element.
+ */
+public class ChunkedMutableIntSet implements MutableIntSet {
+
+  private static final long serialVersionUID = -3791578301126538823L;
+
+  private static final int[] NO_KEYS = new int[0];
+
+  private static final ChunkContainer[] NO_CHUNKS = new ChunkContainer[0];
+
+  /**
+   * the high 16 bits of the elements of each chunk, in increasing order
+   */
+  private int[] keys = NO_KEYS;
+
+  /**
+   * the low 16 bits of the elements of each chunk; none of these is empty
+   */
+  private ChunkContainer[] chunks = NO_CHUNKS;
+
+  private int nChunks = 0;
+
+  private int size = 0;
+
+  public ChunkedMutableIntSet() {
+  }
+
+  public ChunkedMutableIntSet(ChunkedMutableIntSet set) throws IllegalArgumentException {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    copySet(set);
+  }
+
+  /**
+   * @return the index of the chunk for key, or (-(insertion point) - 1)
+   */
+  private int indexOf(int key) {
+    // elements often arrive in increasing order, so try the last chunk first
+    if (nChunks > 0 && keys[nChunks - 1] == key) {
+      return nChunks - 1;
+    }
+    return Arrays.binarySearch(keys, 0, nChunks, key);
+  }
+
+  private void insertChunk(int idx, int key, ChunkContainer c) {
+    if (nChunks == keys.length) {
+      int capacity = Math.max(2, 2 * nChunks);
+      keys = Arrays.copyOf(keys, capacity);
+      chunks = Arrays.copyOf(chunks, capacity);
+    }
+    System.arraycopy(keys, idx, keys, idx + 1, nChunks - idx);
+    System.arraycopy(chunks, idx, chunks, idx + 1, nChunks - idx);
+    keys[idx] = key;
+    chunks[idx] = c;
+    nChunks++;
+    size += c.cardinality();
+  }
+
+  /**
+   * replace chunk idx, whose cardinality was before, with c, dropping it if c is empty
+   */
+  private void setChunk(int idx, ChunkContainer c, int before) {
+    size += c.cardinality() - before;
+    if (c.cardinality() == 0) {
+      System.arraycopy(keys, idx + 1, keys, idx, nChunks - idx - 1);
+      System.arraycopy(chunks, idx + 1, chunks, idx, nChunks - idx - 1);
+      chunks[--nChunks] = null;
+    } else {
+      chunks[idx] = c;
+    }
+  }
+
+  /**
+   * add the values of c, which this set may keep, to the chunk for key
+   */
+  private void orChunk(int key, ChunkContainer c) {
+    int idx = indexOf(key);
+    if (idx < 0) {
+      insertChunk(-idx - 1, key, c);
+    } else {
+      ChunkContainer old = chunks[idx];
+      int before = old.cardinality();
+      setChunk(idx, old.or(c), before);
+    }
+  }
+
+  @Override
+  public boolean contains(int i) {
+    if (i < 0) {
+      return false;
+    }
+    int idx = indexOf(i >>> 16);
+    return idx >= 0 && chunks[idx].contains(i & 0xffff);
+  }
+
+  @Override
+  public boolean add(int i) {
+    if (i < 0) {
+      throw new IllegalArgumentException("illegal i: " + i);
+    }
+    int key = i >>> 16;
+    int idx = indexOf(key);
+    if (idx < 0) {
+      insertChunk(-idx - 1, key, ChunkContainer.ArrayContainer.singleton(i & 0xffff));
+      return true;
+    }
+    ChunkContainer old = chunks[idx];
+    int before = old.cardinality();
+    ChunkContainer c = old.add(i & 0xffff);
+    chunks[idx] = c;
+    if (c.cardinality() == before) {
+      return false;
+    }
+    size++;
+    return true;
+  }
+
+  @Override
+  public boolean remove(int i) {
+    if (i < 0) {
+      return false;
+    }
+    int idx = indexOf(i >>> 16);
+    if (idx < 0) {
+      return false;
+    }
+    ChunkContainer old = chunks[idx];
+    int before = old.cardinality();
+    ChunkContainer c = old.remove(i & 0xffff);
+    if (c.cardinality() == before) {
+      chunks[idx] = c;
+      return false;
+    }
+    setChunk(idx, c, before);
+    return true;
+  }
+
+  @Override
+  public boolean addAll(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set == this) {
+      return false;
+    }
+    int before = size;
+    if (set instanceof ChunkedMutableIntSet) {
+      addAllChunks((ChunkedMutableIntSet) set);
+    } else if (set instanceof SparseIntSet) {
+      SparseIntSet s = (SparseIntSet) set;
+      addAllSorted(s.elements, s.size);
+    } else if (set instanceof BitVectorIntSet) {
+      addAllBits(((BitVectorIntSet) set).getBitVector().bits);
+    } else {
+      set.foreach(this::add);
+    }
+    return size != before;
+  }
+
+  private void addAllChunks(ChunkedMutableIntSet other) {
+    int newKeys = 0;
+    for (int i = 0, j = 0; j < other.nChunks; j++) {
+      while (i < nChunks && keys[i] < other.keys[j]) {
+        i++;
+      }
+      if (i == nChunks || keys[i] != other.keys[j]) {
+        newKeys++;
+      }
+    }
+    if (newKeys == 0) {
+      // every chunk of other is here already: update in place
+      for (int i = 0, j = 0; j < other.nChunks; j++) {
+        while (keys[i] < other.keys[j]) {
+          i++;
+        }
+        int before = chunks[i].cardinality();
+        chunks[i] = chunks[i].or(other.chunks[j]);
+        size += chunks[i].cardinality() - before;
+      }
+      return;
+    }
+    int capacity = nChunks + newKeys;
+    int[] k = new int[capacity];
+    ChunkContainer[] c = new ChunkContainer[capacity];
+    int i = 0, j = 0, n = 0;
+    size = 0;
+    while (i < nChunks || j < other.nChunks) {
+      if (j == other.nChunks || (i < nChunks && keys[i] < other.keys[j])) {
+        k[n] = keys[i];
+        c[n] = chunks[i++];
+      } else if (i == nChunks || other.keys[j] < keys[i]) {
+        k[n] = other.keys[j];
+        c[n] = other.chunks[j++].copy();
+      } else {
+        k[n] = keys[i];
+        c[n] = chunks[i++].or(other.chunks[j++]);
+      }
+      size += c[n++].cardinality();
+    }
+    keys = k;
+    chunks = c;
+    nChunks = n;
+  }
+
+  /**
+   * add elements[0], ..., elements[count-1], which are sorted but may repeat
+   */
+  void addAllSorted(int[] elements, int count) {
+    if (count > 0 && elements[0] < 0) {
+      throw new IllegalArgumentException("illegal element: " + elements[0]);
+    }
+    for (int from = 0; from < count;) {
+      int key = elements[from] >>> 16;
+      int to = from + 1;
+      while (to < count && (elements[to] >>> 16) == key) {
+        to++;
+      }
+      orChunk(key, ChunkContainer.ofSorted(elements, from, to));
+      from = to;
+    }
+  }
+
+  /**
+   * add the bits of a {@link BitVector}
+   */
+  private void addAllBits(int[] bits) {
+    // a chunk is 2^16 bits, i.e. 2^11 ints
+    for (int base = 0; base < bits.length; base += 1 << 11) {
+      long[] words = null;
+      int card = 0;
+      int end = Math.min(bits.length, base + (1 << 11));
+      for (int b = base; b < end; b += 2) {
+        long w = (bits[b] & 0xffffffffL) | (b + 1 < end ? (long) bits[b + 1] << 32 : 0L);
+        if (w != 0) {
+          if (words == null) {
+            words = new long[ChunkContainer.WORDS];
+          }
+          words[(b - base) >>> 1] = w;
+          card += Long.bitCount(w);
+        }
+      }
+      if (words != null) {
+        orChunk(base >>> 11, ChunkContainer.ofWords(words, card));
+      }
+    }
+  }
+
+  @Override
+  public void intersectWith(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set == this) {
+      return;
+    }
+    ChunkedMutableIntSet other;
+    if (set instanceof ChunkedMutableIntSet) {
+      other = (ChunkedMutableIntSet) set;
+    } else if (set instanceof SparseIntSet || set instanceof BitVectorIntSet) {
+      other = new ChunkedMutableIntSet();
+      other.addAll(set);
+    } else {
+      ChunkedMutableIntSet kept = new ChunkedMutableIntSet();
+      foreach(i -> {
+        if (set.contains(i)) {
+          kept.add(i);
+        }
+      });
+      copySet(kept);
+      return;
+    }
+    int n = 0;
+    size = 0;
+    for (int i = 0, j = 0; i < nChunks && j < other.nChunks;) {
+      if (keys[i] < other.keys[j]) {
+        i++;
+      } else if (other.keys[j] < keys[i]) {
+        j++;
+      } else {
+        ChunkContainer c = chunks[i].and(other.chunks[j]);
+        if (c.cardinality() > 0) {
+          keys[n] = keys[i];
+          chunks[n++] = c;
+          size += c.cardinality();
+        }
+        i++;
+        j++;
+      }
+    }
+    Arrays.fill(chunks, n, nChunks, null);
+    nChunks = n;
+  }
+
+  @Override
+  public IntSet intersection(IntSet that) {
+    ChunkedMutableIntSet result = new ChunkedMutableIntSet(this);
+    result.intersectWith(that);
+    return result;
+  }
+
+  @Override
+  public IntSet union(IntSet that) {
+    ChunkedMutableIntSet result = new ChunkedMutableIntSet(this);
+    result.addAll(that);
+    return result;
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (other == null) {
+      throw new IllegalArgumentException("other == null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter == null");
+    }
+    ChunkedMutableIntSet common = new ChunkedMutableIntSet();
+    common.addAll(other);
+    common.intersectWith(filter);
+    return addAll(common);
+  }
+
+  @Override
+  public boolean containsAny(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set instanceof ChunkedMutableIntSet) {
+      ChunkedMutableIntSet other = (ChunkedMutableIntSet) set;
+      for (int i = 0, j = 0; i < nChunks && j < other.nChunks;) {
+        if (keys[i] < other.keys[j]) {
+          i++;
+        } else if (other.keys[j] < keys[i]) {
+          j++;
+        } else if (chunks[i++].intersects(other.chunks[j++])) {
+          return true;
+        }
+      }
+      return false;
+    }
+    for (IntIterator it = set.intIterator(); it.hasNext();) {
+      if (contains(it.next())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isSubset(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    if (that instanceof ChunkedMutableIntSet) {
+      ChunkedMutableIntSet other = (ChunkedMutableIntSet) that;
+      if (size > other.size) {
+        return false;
+      }
+      int j = 0;
+      for (int i = 0; i < nChunks; i++) {
+        while (j < other.nChunks && other.keys[j] < keys[i]) {
+          j++;
+        }
+        if (j == other.nChunks || other.keys[j] != keys[i] || !chunks[i].isSubset(other.chunks[j])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (size > that.size()) {
+      return false;
+    }
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      if (!that.contains(it.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean sameValue(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    if (that instanceof ChunkedMutableIntSet) {
+      ChunkedMutableIntSet other = (ChunkedMutableIntSet) that;
+      if (size != other.size || nChunks != other.nChunks) {
+        return false;
+      }
+      for (int i = 0; i < nChunks; i++) {
+        if (keys[i] != other.keys[i] || chunks[i].cardinality() != other.chunks[i].cardinality()
+            || !chunks[i].isSubset(other.chunks[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return size == that.size() && isSubset(that);
+  }
+
+  @Override
+  public void copySet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set == this) {
+      return;
+    }
+    if (set instanceof ChunkedMutableIntSet) {
+      ChunkedMutableIntSet other = (ChunkedMutableIntSet) set;
+      keys = Arrays.copyOf(other.keys, other.nChunks);
+      chunks = new ChunkContainer[other.nChunks];
+      for (int i = 0; i < other.nChunks; i++) {
+        chunks[i] = other.chunks[i].copy();
+      }
+      nChunks = other.nChunks;
+      size = other.size;
+    } else {
+      clear();
+      addAll(set);
+    }
+  }
+
+  @Override
+  public void clear() {
+    keys = NO_KEYS;
+    chunks = NO_CHUNKS;
+    nChunks = 0;
+    size = 0;
+  }
+
+  /**
+   * Store each chunk in the smallest of its possible representations, which may be a list of runs. Worth calling on sets that
+   * will not change much anymore.
+   */
+  public void runOptimize() {
+    for (int i = 0; i < nChunks; i++) {
+      chunks[i] = chunks[i].runOptimize();
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int max() {
+    return size == 0 ? -1 : (keys[nChunks - 1] << 16) | chunks[nChunks - 1].max();
+  }
+
+  @Override
+  public void foreach(IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    for (int i = 0; i < nChunks; i++) {
+      chunks[i].foreach(keys[i] << 16, action);
+    }
+  }
+
+  @Override
+  public void foreachExcluding(IntSet X, IntSetAction action) {
+    if (X == null) {
+      throw new IllegalArgumentException("null X");
+    }
+    foreach(i -> {
+      if (!X.contains(i)) {
+        action.act(i);
+      }
+    });
+  }
+
+  @Override
+  public IntIterator intIterator() {
+    return new IntIterator() {
+      private int chunk = 0;
+
+      private IntIterator current = nChunks == 0 ? null : chunks[0].iterator(keys[0] << 16);
+
+      @Override
+      public boolean hasNext() {
+        return current != null && current.hasNext();
+      }
+
+      @Override
+      public int next() {
+        if (current == null) {
+          throw new NoSuchElementException();
+        }
+        int result = current.next();
+        if (!current.hasNext()) {
+          current = ++chunk < nChunks ? chunks[chunk].iterator(keys[chunk] << 16) : null;
+        }
+        return result;
+      }
+    };
+  }
+
+  /**
+   * the elements are always iterated in increasing order
+   */
+  @Override
+  public IntIterator intIteratorSorted() {
+    return intIterator();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{ ");
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      sb.append(it.next()).append(' ');
+    }
+    return sb.append('}').toString();
+  }
+}
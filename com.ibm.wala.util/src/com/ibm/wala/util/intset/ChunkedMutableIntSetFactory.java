@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import java.util.Arrays;
+
+/**
+ * A factory for {@link ChunkedMutableIntSet}s. Sets made from arrays or strings are run-optimized, since they are usually
+ * built once and then mostly read.
+ */
+public class ChunkedMutableIntSetFactory implements MutableIntSetFactory<ChunkedMutableIntSet> {
+
+  /**
+   * @throws IllegalArgumentException if set is null
+   */
+  @Override
+  public ChunkedMutableIntSet make(int[] set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    int[] sorted = set.clone();
+    Arrays.sort(sorted);
+    ChunkedMutableIntSet result = new ChunkedMutableIntSet();
+    result.addAllSorted(sorted, sorted.length);
+    result.runOptimize();
+    return result;
+  }
+
+  @Override
+  public ChunkedMutableIntSet parse(String string) throws NumberFormatException {
+    return make(SparseIntSet.parseIntArray(string));
+  }
+
+  @Override
+  public ChunkedMutableIntSet makeCopy(IntSet x) {
+    ChunkedMutableIntSet y = new ChunkedMutableIntSet();
+    y.copySet(x);
+    return y;
+  }
+
+  @Override
+  public ChunkedMutableIntSet make() {
+    return new ChunkedMutableIntSet();
+  }
+}
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import com.ibm.wala.util.collections.EmptyIntIterator;
+import com.ibm.wala.util.intset.HashConsedIntSetFactory.Node;
+
+/**
+ * A mutable set of integers whose large values are hash-consed tries shared with the other sets of its
+ * {@link HashConsedIntSetFactory}. Changing a set replaces its root, so copying a set is O(1), and equality and subset tests between
+ * sets of the same factory are pointer comparisons (the latter through a memoized union).
+ *
+ * Small sets are kept in a private {@link MutableSparseIntSet}, since a trie path per element costs more than an int.
+ */
+public class HashConsedIntSet implements MutableIntSet {
+
+  private static final long serialVersionUID = 2453412187523618231L;
+
+  /**
+   * sets with more elements than this are kept as tries
+   */
+  private static final int SMALL_LIMIT = 16;
+
+  private final HashConsedIntSetFactory factory;
+
+  /**
+   * the elements, if this set has never had more than {@link #SMALL_LIMIT} of them; otherwise null
+   */
+  private MutableSparseIntSet small;
+
+  /**
+   * the elements, as a canonical trie, if {@link #small} is not used; null if this set is empty
+   */
+  private Node root;
+
+  HashConsedIntSet(HashConsedIntSetFactory factory) {
+    this.factory = factory;
+  }
+
+  public HashConsedIntSetFactory getFactory() {
+    return factory;
+  }
+
+  /**
+   * is x a set of the same factory that is stored as a trie?
+   */
+  private boolean isSharedTrie(IntSet x) {
+    return x instanceof HashConsedIntSet && ((HashConsedIntSet) x).factory == factory && ((HashConsedIntSet) x).root != null;
+  }
+
+  /**
+   * @return the elements of this set as a trie, converting the small set if needed
+   */
+  private Node trie() {
+    if (small != null) {
+      root = factory.build(small.intIterator());
+      small = null;
+    }
+    return root;
+  }
+
+  /**
+   * @return the elements of x as a trie of this factory
+   */
+  private Node trieOf(IntSet x) {
+    if (x instanceof HashConsedIntSet && ((HashConsedIntSet) x).factory == factory) {
+      HashConsedIntSet h = (HashConsedIntSet) x;
+      return h.small == null ? h.root : factory.build(h.small.intIterator());
+    }
+    return factory.build(x.intIteratorSorted());
+  }
+
+  @Override
+  public boolean contains(int i) {
+    if (small != null) {
+      return small.contains(i);
+    }
+    return HashConsedIntSetFactory.contains(root, i);
+  }
+
+  @Override
+  public boolean containsAny(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (root != null && isSharedTrie(set)) {
+      return HashConsedIntSetFactory.intersects(root, ((HashConsedIntSet) set).root);
+    }
+    if (size() <= set.size()) {
+      for (IntIterator it = intIterator(); it.hasNext();) {
+        if (set.contains(it.next())) {
+          return true;
+        }
+      }
+    } else {
+      for (IntIterator it = set.intIterator(); it.hasNext();) {
+        if (contains(it.next())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public IntSet intersection(IntSet that) {
+    HashConsedIntSet result = factory.makeCopy(this);
+    result.intersectWith(that);
+    return result;
+  }
+
+  @Override
+  public IntSet union(IntSet that) {
+    HashConsedIntSet result = factory.makeCopy(this);
+    result.addAll(that);
+    return result;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public int size() {
+    if (small != null) {
+      return small.size();
+    }
+    return root == null ? 0 : root.size;
+  }
+
+  @Override
+  public IntIterator intIterator() {
+    if (small != null) {
+      return small.intIterator();
+    }
+    return root == null ? EmptyIntIterator.instance() : new HashConsedIntSetFactory.TrieIterator(root);
+  }
+
+  /**
+   * the elements are always iterated in increasing order
+   */
+  @Override
+  public IntIterator intIteratorSorted() {
+    return intIterator();
+  }
+
+  @Override
+  public void foreach(IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    if (small != null) {
+      small.foreach(action);
+    } else if (root != null) {
+      HashConsedIntSetFactory.foreach(root, 0, action);
+    }
+  }
+
+  @Override
+  public void foreachExcluding(IntSet X, IntSetAction action) {
+    if (X == null) {
+      throw new IllegalArgumentException("null X");
+    }
+    foreach(i -> {
+      if (!X.contains(i)) {
+        action.act(i);
+      }
+    });
+  }
+
+  @Override
+  public int max() {
+    if (isEmpty()) {
+      return -1;
+    }
+    return small != null ? small.max() : HashConsedIntSetFactory.max(root);
+  }
+
+  @Override
+  public boolean sameValue(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    if (root != null && isSharedTrie(that)) {
+      return root == ((HashConsedIntSet) that).root;
+    }
+    return size() == that.size() && isSubset(that);
+  }
+
+  @Override
+  public boolean isSubset(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    if (root != null && isSharedTrie(that)) {
+      Node r = ((HashConsedIntSet) that).root;
+      return factory.union(root, r) == r;
+    }
+    if (size() > that.size()) {
+      return false;
+    }
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      if (!that.contains(it.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void copySet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set == this) {
+      return;
+    }
+    if (set instanceof HashConsedIntSet && ((HashConsedIntSet) set).factory == factory) {
+      HashConsedIntSet h = (HashConsedIntSet) set;
+      root = h.root;
+      small = h.small == null ? null : MutableSparseIntSet.make(h.small);
+    } else {
+      clear();
+      addAll(set);
+    }
+  }
+
+  @Override
+  public boolean addAll(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set == this || set.isEmpty()) {
+      return false;
+    }
+    if (root == null && !isSharedTrie(set) && size() + set.size() <= SMALL_LIMIT) {
+      if (small == null) {
+        small = MutableSparseIntSet.makeEmpty();
+      }
+      return small.addAll(set);
+    }
+    int before = size();
+    root = factory.union(trie(), trieOf(set));
+    return root.size != before;
+  }
+
+  @Override
+  public boolean add(int i) {
+    if (root == null) {
+      if (small == null) {
+        small = MutableSparseIntSet.makeEmpty();
+      }
+      if (!small.add(i)) {
+        return false;
+      }
+      if (small.size() > SMALL_LIMIT) {
+        trie();
+      }
+      return true;
+    }
+    Node r = factory.add(root, i);
+    if (r == root) {
+      return false;
+    }
+    root = r;
+    return true;
+  }
+
+  @Override
+  public boolean remove(int i) {
+    if (small != null) {
+      return small.remove(i);
+    }
+    Node r = factory.remove(root, i);
+    if (r == root) {
+      return false;
+    }
+    root = r;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    small = null;
+    root = null;
+  }
+
+  @Override
+  public void intersectWith(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (small != null) {
+      small.intersectWith(set);
+    } else if (root != null) {
+      if (isSharedTrie(set)) {
+        root = factory.intersect(root, ((HashConsedIntSet) set).root);
+      } else {
+        MutableSparseIntSet kept = MutableSparseIntSet.makeEmpty();
+        HashConsedIntSetFactory.foreach(root, 0, i -> {
+          if (set.contains(i)) {
+            kept.add(i);
+          }
+        });
+        root = factory.build(kept.intIterator());
+      }
+    }
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (other == null) {
+      throw new IllegalArgumentException("other == null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter == null");
+    }
+    if (isSharedTrie(other) && isSharedTrie(filter)) {
+      Node common = factory.intersect(((HashConsedIntSet) other).root, ((HashConsedIntSet) filter).root);
+      if (common == null) {
+        return false;
+      }
+      int before = size();
+      root = factory.union(trie(), common);
+      return root.size != before;
+    }
+    MutableSparseIntSet common = MutableSparseIntSet.makeEmpty();
+    IntSet smaller = other.size() <= filter.size() ? other : filter;
+    IntSet larger = smaller == other ? filter : other;
+    smaller.foreach(i -> {
+      if (larger.contains(i)) {
+        common.add(i);
+      }
+    });
+    return addAll(common);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{ ");
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      sb.append(it.next()).append(' ');
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * the tries are only canonical within their factory, so a serialized set is a plain {@link MutableSparseIntSet}
+   */
+  private Object writeReplace() {
+    return MutableSparseIntSet.make(this);
+  }
+}
@@ -0,0 +1,875 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * A factory for {@link HashConsedIntSet}s, and the home of the nodes they share.
+ *
+ * A large set is a trie: leaves are 64-bit words, and inner nodes have up to 16 children. The factory hash-conses the nodes, so each
+ * distinct node exists once no matter how many sets contain it: sets that differ in a few elements share everything but the paths
+ * to those elements, and equal sets have the same root. Unions of inner nodes are memoized in a fixed-size cache, like the
+ * operation cache of a BDD package, so propagating the same set into many near-identical sets is cheap.
+ *
+ * The node table is thread-safe and holds its nodes weakly, so the nodes of sets that are changed or discarded are reclaimed. Sets
+ * only share nodes with sets of the same factory; to use this representation for points-to sets, install one factory with
+ * {@link IntSetUtil#setDefaultIntSetFactory(MutableIntSetFactory)} (or the {@link IntSetUtil#INT_SET_FACTORY_CONFIG_PROPERTY_NAME}
+ * property) before building the call graph.
+ */
+public class HashConsedIntSetFactory implements MutableIntSetFactory<HashConsedIntSet> {
+
+  /**
+   * log2 of the number of elements in a leaf
+   */
+  private static final int LEAF_SHIFT = 6;
+
+  /**
+   * log2 of the number of children of an inner node
+   */
+  private static final int BRANCH_SHIFT = 4;
+
+  private static final int DEFAULT_UNION_CACHE_SIZE = 1 << 16;
+
+  private static final int STRIPES = 32;
+
+  /**
+   * A node of a trie. Nodes are immutable; the only nodes in use are the canonical ones returned by {@link #intern(Node)}, so that
+   * structurally equal nodes are identical.
+   */
+  abstract static class Node {
+    /**
+     * number of elements below this node
+     */
+    final int size;
+
+    /**
+     * structural hash code, computed from the contents and the hashes of the children
+     */
+    final int hash;
+
+    Node(int size, int hash) {
+      this.size = size;
+      this.hash = hash;
+    }
+  }
+
+  /**
+   * 64 consecutive elements, as a bit mask; never empty
+   */
+  static final class Leaf extends Node {
+    final long bits;
+
+    Leaf(long bits) {
+      super(Long.bitCount(bits), mix(Long.hashCode(bits)));
+      this.bits = bits;
+    }
+  }
+
+  /**
+   * An inner node of level l covers 64 * 16^l elements. Its non-empty children, of level l-1, are stored densely in the order of
+   * their index; mask has bit i set iff child i is present.
+   */
+  static final class Inner extends Node {
+    final int level;
+
+    final int mask;
+
+    final Node[] children;
+
+    Inner(int level, int mask, Node[] children) {
+      super(sizeOf(children), hashOf(level, mask, children));
+      this.level = level;
+      this.mask = mask;
+      this.children = children;
+    }
+
+    private static int sizeOf(Node[] children) {
+      int result = 0;
+      for (Node c : children) {
+        result += c.size;
+      }
+      return result;
+    }
+
+    private static int hashOf(int level, int mask, Node[] children) {
+      int result = level * 31 + mask;
+      for (Node c : children) {
+        result = result * 31 + c.hash;
+      }
+      return mix(result);
+    }
+  }
+
+  private static int mix(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * A weak reference to a canonical node, chained in a bucket of a {@link Stripe}
+   */
+  private static final class NodeRef extends WeakReference<Node> {
+    private final int hash;
+
+    private NodeRef next;
+
+    NodeRef(Node n, ReferenceQueue<Node> queue, NodeRef next) {
+      super(n, queue);
+      this.hash = n.hash;
+      this.next = next;
+    }
+  }
+
+  private static final class Stripe {
+    private NodeRef[] buckets = new NodeRef[64];
+
+    private int count;
+
+    private final ReferenceQueue<Node> queue = new ReferenceQueue<>();
+  }
+
+  /**
+   * A memoized union; the entries are immutable, so racing threads can only lose entries, never see torn ones
+   */
+  private static final class UnionEntry {
+    private final Node a;
+
+    private final Node b;
+
+    private final Node result;
+
+    UnionEntry(Node a, Node b, Node result) {
+      this.a = a;
+      this.b = b;
+      this.result = result;
+    }
+  }
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  private final UnionEntry[] unionCache;
+
+  public HashConsedIntSetFactory() {
+    this(DEFAULT_UNION_CACHE_SIZE);
+  }
+
+  /**
+   * @param unionCacheSize number of memoized unions; rounded up to a power of two
+   */
+  public HashConsedIntSetFactory(int unionCacheSize) {
+    if (unionCacheSize < 1) {
+      throw new IllegalArgumentException("invalid union cache size: " + unionCacheSize);
+    }
+    int n = Integer.highestOneBit(unionCacheSize);
+    if (n < unionCacheSize) {
+      n <<= 1;
+    }
+    this.unionCache = new UnionEntry[n];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /*
+   * @see com.ibm.wala.util.intset.MutableIntSetFactory#make(int[])
+   */
+  @Override
+  public HashConsedIntSet make(int[] set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    HashConsedIntSet result = new HashConsedIntSet(this);
+    for (int i : set) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  /*
+   * @see com.ibm.wala.util.intset.MutableIntSetFactory#parse(java.lang.String)
+   */
+  @Override
+  public HashConsedIntSet parse(String string) throws NumberFormatException {
+    return make(SparseIntSet.parseIntArray(string));
+  }
+
+  /*
+   * @see com.ibm.wala.util.intset.MutableIntSetFactory#makeCopy(com.ibm.wala.util.intset.IntSet)
+   */
+  @Override
+  public HashConsedIntSet makeCopy(IntSet x) throws IllegalArgumentException {
+    if (x == null) {
+      throw new IllegalArgumentException("x == null");
+    }
+    HashConsedIntSet result = new HashConsedIntSet(this);
+    result.copySet(x);
+    return result;
+  }
+
+  /*
+   * @see com.ibm.wala.util.intset.MutableIntSetFactory#make()
+   */
+  @Override
+  public HashConsedIntSet make() {
+    return new HashConsedIntSet(this);
+  }
+
+  /**
+   * @return the number of canonical nodes that are still referenced; this is the memory the sets of this factory share
+   */
+  public int getNumberOfNodes() {
+    int result = 0;
+    for (Stripe s : stripes) {
+      synchronized (s) {
+        expungeStaleEntries(s);
+        result += s.count;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the canonical node structurally equal to n
+   */
+  private Node intern(Node n) {
+    Stripe s = stripes[n.hash & (STRIPES - 1)];
+    synchronized (s) {
+      expungeStaleEntries(s);
+      int b = (n.hash >>> 5) & (s.buckets.length - 1);
+      for (NodeRef r = s.buckets[b]; r != null; r = r.next) {
+        if (r.hash == n.hash) {
+          Node m = r.get();
+          if (m != null && sameStructure(m, n)) {
+            return m;
+          }
+        }
+      }
+      s.buckets[b] = new NodeRef(n, s.queue, s.buckets[b]);
+      if (++s.count > s.buckets.length - (s.buckets.length >>> 2)) {
+        grow(s);
+      }
+      return n;
+    }
+  }
+
+  private static boolean sameStructure(Node m, Node n) {
+    if (m instanceof Leaf) {
+      return n instanceof Leaf && ((Leaf) m).bits == ((Leaf) n).bits;
+    }
+    if (!(n instanceof Inner)) {
+      return false;
+    }
+    Inner x = (Inner) m;
+    Inner y = (Inner) n;
+    if (x.level != y.level || x.mask != y.mask) {
+      return false;
+    }
+    for (int i = 0; i < x.children.length; i++) {
+      if (x.children[i] != y.children[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void grow(Stripe s) {
+    NodeRef[] old = s.buckets;
+    NodeRef[] buckets = new NodeRef[old.length * 2];
+    for (NodeRef r : old) {
+      while (r != null) {
+        NodeRef next = r.next;
+        int b = (r.hash >>> 5) & (buckets.length - 1);
+        r.next = buckets[b];
+        buckets[b] = r;
+        r = next;
+      }
+    }
+    s.buckets = buckets;
+  }
+
+  /**
+   * remove the references to reclaimed nodes; must hold the lock on s
+   */
+  private static void expungeStaleEntries(Stripe s) {
+    for (Reference<? extends Node> x = s.queue.poll(); x != null; x = s.queue.poll()) {
+      NodeRef r = (NodeRef) x;
+      int b = (r.hash >>> 5) & (s.buckets.length - 1);
+      NodeRef prev = null;
+      for (NodeRef p = s.buckets[b]; p != null; prev = p, p = p.next) {
+        if (p == r) {
+          if (prev == null) {
+            s.buckets[b] = p.next;
+          } else {
+            prev.next = p.next;
+          }
+          s.count--;
+          break;
+        }
+      }
+    }
+  }
+
+  private Node leaf(long bits) {
+    return intern(new Leaf(bits));
+  }
+
+  private Node inner(int level, int mask, Node[] children) {
+    return intern(new Inner(level, mask, children));
+  }
+
+  private static int level(Node n) {
+    return n instanceof Leaf ? 0 : ((Inner) n).level;
+  }
+
+  /**
+   * @return the position of the bits of a child index in the elements below an inner node of the given level
+   */
+  private static int shift(int level) {
+    return LEAF_SHIFT + BRANCH_SHIFT * (level - 1);
+  }
+
+  /**
+   * does a node of the given level, at the root of a trie, cover i?
+   */
+  private static boolean covers(int level, int i) {
+    int bits = LEAF_SHIFT + BRANCH_SHIFT * level;
+    return bits >= 31 || (i >>> bits) == 0;
+  }
+
+  /**
+   * @return the non-empty child 0 of n, or null
+   */
+  private static Node firstChild(Inner n) {
+    return (n.mask & 1) != 0 ? n.children[0] : null;
+  }
+
+  /**
+   * drop the inner nodes at the top of a trie that have child 0 only, so that equal sets have identical roots
+   */
+  private static Node normalize(Node n) {
+    while (n instanceof Inner && ((Inner) n).mask == 1) {
+      n = ((Inner) n).children[0];
+    }
+    return n;
+  }
+
+  /**
+   * @return n, with the child at position pos of n's children replaced by c, or removed if c is null
+   */
+  private Node replaceChild(Inner n, int index, int pos, Node c) {
+    if (c == null) {
+      if (n.children.length == 1) {
+        return null;
+      }
+      Node[] children = new Node[n.children.length - 1];
+      System.arraycopy(n.children, 0, children, 0, pos);
+      System.arraycopy(n.children, pos + 1, children, pos, children.length - pos);
+      return inner(n.level, n.mask & ~(1 << index), children);
+    }
+    Node[] children = n.children.clone();
+    children[pos] = c;
+    return inner(n.level, n.mask, children);
+  }
+
+  /**
+   * @return n, with c inserted as its child with the given index, which n does not have yet
+   */
+  private Node insertChild(Inner n, int index, Node c) {
+    int pos = Integer.bitCount(n.mask & ((1 << index) - 1));
+    Node[] children = new Node[n.children.length + 1];
+    System.arraycopy(n.children, 0, children, 0, pos);
+    children[pos] = c;
+    System.arraycopy(n.children, pos, children, pos + 1, n.children.length - pos);
+    return inner(n.level, n.mask | (1 << index), children);
+  }
+
+  static boolean contains(Node root, int i) {
+    if (root == null || i < 0 || !covers(level(root), i)) {
+      return false;
+    }
+    Node n = root;
+    while (n instanceof Inner) {
+      Inner in = (Inner) n;
+      int index = (i >>> shift(in.level)) & ((1 << BRANCH_SHIFT) - 1);
+      int bit = 1 << index;
+      if ((in.mask & bit) == 0) {
+        return false;
+      }
+      n = in.children[Integer.bitCount(in.mask & (bit - 1))];
+    }
+    return (((Leaf) n).bits & (1L << i)) != 0;
+  }
+
+  /**
+   * @return a trie of the given level holding just i
+   */
+  private Node path(int level, int i) {
+    if (level == 0) {
+      return leaf(1L << i);
+    }
+    int index = (i >>> shift(level)) & ((1 << BRANCH_SHIFT) - 1);
+    return inner(level, 1 << index, new Node[] { path(level - 1, i) });
+  }
+
+  Node add(Node root, int i) {
+    if (i < 0) {
+      throw new IllegalArgumentException("invalid element: " + i);
+    }
+    if (root == null) {
+      int level = 0;
+      while (!covers(level, i)) {
+        level++;
+      }
+      return path(level, i);
+    }
+    int level = level(root);
+    if (!covers(level, i)) {
+      // i goes to a new child of a new root, with the old root as child 0
+      while (!covers(level, i)) {
+        level++;
+      }
+      Node lifted = root;
+      for (int l = level(root) + 1; l < level; l++) {
+        lifted = inner(l, 1, new Node[] { lifted });
+      }
+      int index = (i >>> shift(level)) & ((1 << BRANCH_SHIFT) - 1);
+      return inner(level, 1 | (1 << index), new Node[] { lifted, path(level - 1, i) });
+    }
+    return addBelow(root, i);
+  }
+
+  private Node addBelow(Node n, int i) {
+    if (n instanceof Leaf) {
+      long bits = ((Leaf) n).bits | (1L << i);
+      return bits == ((Leaf) n).bits ? n : leaf(bits);
+    }
+    Inner in = (Inner) n;
+    int index = (i >>> shift(in.level)) & ((1 << BRANCH_SHIFT) - 1);
+    int bit = 1 << index;
+    if ((in.mask & bit) == 0) {
+      return insertChild(in, index, path(in.level - 1, i));
+    }
+    int pos = Integer.bitCount(in.mask & (bit - 1));
+    Node c = in.children[pos];
+    Node d = addBelow(c, i);
+    return d == c ? n : replaceChild(in, index, pos, d);
+  }
+
+  Node remove(Node root, int i) {
+    if (root == null || i < 0 || !covers(level(root), i)) {
+      return root;
+    }
+    return normalize(removeBelow(root, i));
+  }
+
+  private Node removeBelow(Node n, int i) {
+    if (n instanceof Leaf) {
+      long bits = ((Leaf) n).bits & ~(1L << i);
+      return bits == ((Leaf) n).bits ? n : bits == 0 ? null : leaf(bits);
+    }
+    Inner in = (Inner) n;
+    int index = (i >>> shift(in.level)) & ((1 << BRANCH_SHIFT) - 1);
+    int bit = 1 << index;
+    if ((in.mask & bit) == 0) {
+      return n;
+    }
+    int pos = Integer.bitCount(in.mask & (bit - 1));
+    Node c = in.children[pos];
+    Node d = removeBelow(c, i);
+    return d == c ? n : replaceChild(in, index, pos, d);
+  }
+
+  /**
+   * @return the union of two tries
+   */
+  Node union(Node a, Node b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null || a == b) {
+      return a;
+    }
+    int la = level(a);
+    int lb = level(b);
+    if (la > lb) {
+      // all of b goes below child 0 of a
+      Inner x = (Inner) a;
+      Node c = firstChild(x);
+      Node d = union(c, b);
+      return d == c ? a : c == null ? insertChild(x, 0, lift(d, la - 1)) : replaceChild(x, 0, 0, lift(d, la - 1));
+    } else if (lb > la) {
+      return union(b, a);
+    }
+    return unionBelow(a, b);
+  }
+
+  /**
+   * @return n, as a node of the given level
+   */
+  private Node lift(Node n, int level) {
+    for (int l = level(n) + 1; l <= level; l++) {
+      n = inner(l, 1, new Node[] { n });
+    }
+    return n;
+  }
+
+  /**
+   * union of two nodes of the same level
+   */
+  private Node unionBelow(Node a, Node b) {
+    if (a == b) {
+      return a;
+    }
+    if (a instanceof Leaf) {
+      long x = ((Leaf) a).bits;
+      long y = ((Leaf) b).bits;
+      long bits = x | y;
+      return bits == x ? a : bits == y ? b : leaf(bits);
+    }
+    if (a.hash > b.hash) {
+      Node t = a;
+      a = b;
+      b = t;
+    }
+    int slot = mix(a.hash * 31 + b.hash) & (unionCache.length - 1);
+    UnionEntry e = unionCache[slot];
+    if (e != null && e.a == a && e.b == b) {
+      return e.result;
+    }
+    Inner x = (Inner) a;
+    Inner y = (Inner) b;
+    int mask = x.mask | y.mask;
+    Node[] children = new Node[Integer.bitCount(mask)];
+    boolean sameAsX = mask == x.mask;
+    boolean sameAsY = mask == y.mask;
+    int px = 0;
+    int py = 0;
+    int pos = 0;
+    for (int m = mask; m != 0; m &= m - 1) {
+      int bit = m & -m;
+      Node cx = (x.mask & bit) != 0 ? x.children[px++] : null;
+      Node cy = (y.mask & bit) != 0 ? y.children[py++] : null;
+      Node c = cx == null ? cy : cy == null ? cx : unionBelow(cx, cy);
+      sameAsX &= c == cx;
+      sameAsY &= c == cy;
+      children[pos++] = c;
+    }
+    Node result = sameAsX ? x : sameAsY ? y : inner(x.level, mask, children);
+    unionCache[slot] = new UnionEntry(a, b, result);
+    return result;
+  }
+
+  /**
+   * @return the intersection of two tries
+   */
+  Node intersect(Node a, Node b) {
+    if (a == null || b == null) {
+      return null;
+    }
+    if (a == b) {
+      return a;
+    }
+    // the elements of the trie of lower level are all below child 0 of the other
+    while (level(a) > level(b)) {
+      a = firstChild((Inner) a);
+      if (a == null) {
+        return null;
+      }
+    }
+    while (level(b) > level(a)) {
+      b = firstChild((Inner) b);
+      if (b == null) {
+        return null;
+      }
+    }
+    return normalize(intersectBelow(a, b));
+  }
+
+  private Node intersectBelow(Node a, Node b) {
+    if (a == b) {
+      return a;
+    }
+    if (a instanceof Leaf) {
+      long x = ((Leaf) a).bits;
+      long y = ((Leaf) b).bits;
+      long bits = x & y;
+      return bits == 0 ? null : bits == x ? a : bits == y ? b : leaf(bits);
+    }
+    Inner x = (Inner) a;
+    Inner y = (Inner) b;
+    int both = x.mask & y.mask;
+    Node[] children = new Node[Integer.bitCount(both)];
+    int mask = 0;
+    int n = 0;
+    for (int m = both; m != 0; m &= m - 1) {
+      int bit = m & -m;
+      Node cx = x.children[Integer.bitCount(x.mask & (bit - 1))];
+      Node cy = y.children[Integer.bitCount(y.mask & (bit - 1))];
+      Node c = intersectBelow(cx, cy);
+      if (c != null) {
+        mask |= bit;
+        children[n++] = c;
+      }
+    }
+    if (n == 0) {
+      return null;
+    }
+    if (mask == x.mask && sameChildren(x.children, children, n)) {
+      return x;
+    }
+    if (mask == y.mask && sameChildren(y.children, children, n)) {
+      return y;
+    }
+    if (n < children.length) {
+      Node[] trimmed = new Node[n];
+      System.arraycopy(children, 0, trimmed, 0, n);
+      children = trimmed;
+    }
+    return inner(x.level, mask, children);
+  }
+
+  private static boolean sameChildren(Node[] x, Node[] children, int n) {
+    for (int i = 0; i < n; i++) {
+      if (x[i] != children[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * do two tries have an element in common?
+   */
+  static boolean intersects(Node a, Node b) {
+    if (a == null || b == null) {
+      return false;
+    }
+    if (a == b) {
+      return true;
+    }
+    while (level(a) > level(b)) {
+      a = firstChild((Inner) a);
+      if (a == null) {
+        return false;
+      }
+    }
+    while (level(b) > level(a)) {
+      b = firstChild((Inner) b);
+      if (b == null) {
+        return false;
+      }
+    }
+    return intersectsBelow(a, b);
+  }
+
+  private static boolean intersectsBelow(Node a, Node b) {
+    if (a == b) {
+      return true;
+    }
+    if (a instanceof Leaf) {
+      return (((Leaf) a).bits & ((Leaf) b).bits) != 0;
+    }
+    Inner x = (Inner) a;
+    Inner y = (Inner) b;
+    for (int m = x.mask & y.mask; m != 0; m &= m - 1) {
+      int bit = m & -m;
+      if (intersectsBelow(x.children[Integer.bitCount(x.mask & (bit - 1))], y.children[Integer.bitCount(y.mask & (bit - 1))])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return a trie holding the elements of a sorted iterator
+   */
+  Node build(IntIterator sorted) {
+    // leaves, with their index among all leaves
+    int[] keys = new int[16];
+    Node[] nodes = new Node[16];
+    int count = 0;
+    int key = -1;
+    long bits = 0;
+    while (sorted.hasNext()) {
+      int i = sorted.next();
+      if (i < 0) {
+        throw new IllegalArgumentException("invalid element: " + i);
+      }
+      int k = i >>> LEAF_SHIFT;
+      if (k != key) {
+        if (bits != 0) {
+          if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            nodes = Arrays.copyOf(nodes, count * 2);
+          }
+          keys[count] = key;
+          nodes[count++] = leaf(bits);
+        }
+        key = k;
+        bits = 0;
+      }
+      bits |= 1L << i;
+    }
+    if (bits == 0) {
+      return null;
+    }
+    if (count == keys.length) {
+      keys = Arrays.copyOf(keys, count + 1);
+      nodes = Arrays.copyOf(nodes, count + 1);
+    }
+    keys[count] = key;
+    nodes[count++] = leaf(bits);
+    // group 16 siblings at a time into the inner nodes of the next level, until a single node remains
+    int level = 0;
+    while (count > 1 || keys[0] != 0) {
+      level++;
+      int n = 0;
+      for (int from = 0; from < count;) {
+        int parent = keys[from] >>> BRANCH_SHIFT;
+        int to = from;
+        int mask = 0;
+        while (to < count && keys[to] >>> BRANCH_SHIFT == parent) {
+          mask |= 1 << (keys[to] & ((1 << BRANCH_SHIFT) - 1));
+          to++;
+        }
+        Node[] children = new Node[to - from];
+        System.arraycopy(nodes, from, children, 0, to - from);
+        keys[n] = parent;
+        nodes[n++] = inner(level, mask, children);
+        from = to;
+      }
+      for (int j = n; j < count; j++) {
+        nodes[j] = null;
+      }
+      count = n;
+    }
+    return nodes[0];
+  }
+
+  static int max(Node root) {
+    int base = 0;
+    Node n = root;
+    while (n instanceof Inner) {
+      Inner in = (Inner) n;
+      int index = 31 - Integer.numberOfLeadingZeros(in.mask);
+      base += index << shift(in.level);
+      n = in.children[in.children.length - 1];
+    }
+    return base + 63 - Long.numberOfLeadingZeros(((Leaf) n).bits);
+  }
+
+  static void foreach(Node n, int base, IntSetAction action) {
+    if (n instanceof Leaf) {
+      for (long bits = ((Leaf) n).bits; bits != 0; bits &= bits - 1) {
+        action.act(base + Long.numberOfTrailingZeros(bits));
+      }
+    } else {
+      Inner in = (Inner) n;
+      int pos = 0;
+      for (int m = in.mask; m != 0; m &= m - 1) {
+        foreach(in.children[pos++], base + (Integer.numberOfTrailingZeros(m) << shift(in.level)), action);
+      }
+    }
+  }
+
+  /**
+   * iterates over the elements of a trie in increasing order
+   */
+  static final class TrieIterator implements IntIterator {
+    private static final int MAX_DEPTH = 8;
+
+    private final Inner[] stack = new Inner[MAX_DEPTH];
+
+    /**
+     * for each inner node on the stack, the first element it covers
+     */
+    private final int[] bases = new int[MAX_DEPTH];
+
+    /**
+     * for each inner node on the stack, the indices of the children not visited yet
+     */
+    private final int[] remaining = new int[MAX_DEPTH];
+
+    /**
+     * for each inner node on the stack, the position of its next child
+     */
+    private final int[] positions = new int[MAX_DEPTH];
+
+    private int depth;
+
+    /**
+     * the elements of the current leaf not returned yet
+     */
+    private long bits;
+
+    private int leafBase;
+
+    TrieIterator(Node root) {
+      if (root instanceof Leaf) {
+        bits = ((Leaf) root).bits;
+      } else if (root != null) {
+        push((Inner) root, 0);
+        advance();
+      }
+    }
+
+    private void push(Inner n, int base) {
+      stack[depth] = n;
+      bases[depth] = base;
+      remaining[depth] = n.mask;
+      positions[depth] = 0;
+      depth++;
+    }
+
+    /**
+     * move to the next leaf
+     */
+    private void advance() {
+      while (depth > 0) {
+        int d = depth - 1;
+        if (remaining[d] == 0) {
+          depth--;
+          continue;
+        }
+        Inner top = stack[d];
+        int index = Integer.numberOfTrailingZeros(remaining[d]);
+        remaining[d] &= remaining[d] - 1;
+        Node child = top.children[positions[d]++];
+        int base = bases[d] + (index << shift(top.level));
+        if (child instanceof Leaf) {
+          bits = ((Leaf) child).bits;
+          leafBase = base;
+          return;
+        }
+        push((Inner) child, base);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return bits != 0;
+    }
+
+    @Override
+    public int next() {
+      int result = leafBase + Long.numberOfTrailingZeros(bits);
+      bits &= bits - 1;
+      if (bits == 0) {
+        advance();
+      }
+      return result;
+    }
+  }
+}
@@ -88,6 +88,10 @@ public class IntSetUtil {
       return new MutableSharedBitVectorIntSet((MutableSharedBitVectorIntSet) set);
     } else if (set instanceof SemiSparseMutableIntSet) {
       return new SemiSparseMutableIntSet((SemiSparseMutableIntSet) set);
+    } else if (set instanceof ChunkedMutableIntSet) {
+      return new ChunkedMutableIntSet((ChunkedMutableIntSet) set);
+    } else if (set instanceof HashConsedIntSet) {
+      return ((HashConsedIntSet) set).getFactory().makeCopy(set);
     } else if (set instanceof DebuggingMutableIntSet) {
       MutableIntSet pCopy = makeMutableCopy(((DebuggingMutableIntSet) set).primaryImpl);
       MutableIntSet sCopy = makeMutableCopy(((DebuggingMutableIntSet) set).secondaryImpl);
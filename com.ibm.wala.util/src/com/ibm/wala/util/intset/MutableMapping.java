@@ -12,12 +12,9 @@ package com.ibm.wala.util.intset;
 
 import java.io.Serializable;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.Map;
 
-import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
 
 /**
  * A bit set mapping based on an object array. This is not terribly efficient, but is useful for prototyping.
@@ -35,7 +32,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
   }
   
   public static <T> MutableMapping<T> makeIdentityMapping() {
-    return new MutableMapping<>(new IdentityHashMap<T, Integer>());
+    return new MutableMapping<>(ObjectIntHashMap.<T> makeIdentityMap());
   }
 
   private Object[] array;
@@ -43,28 +40,28 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
   private int nextIndex = 0;
 
   /**
-   * A mapping from object to Integer.
+   * A mapping from object to index, without boxing: points-to analysis maps every pointer and instance key through one of these.
    */
-  final Map<T, Integer> map;
+  final ObjectIntHashMap<T> map;
 
   /**
    * @throws IllegalArgumentException if array is null
    */
   @SuppressWarnings("unchecked")
   public MutableMapping(final Object[] array) {
-    map = HashMapFactory.make();
     if (array == null) {
       throw new IllegalArgumentException("array is null");
     }
+    map = new ObjectIntHashMap<>(array.length);
     this.array = new Object[2 * array.length];
     for (int i = 0; i < array.length; i++) {
       this.array[i] = array[i];
-      map.put((T) array[i], Integer.valueOf(i));
+      map.put((T) array[i], i);
     }
     nextIndex = array.length;
   }
 
-  protected MutableMapping(Map<T, Integer> mmap) {
+  protected MutableMapping(ObjectIntHashMap<T> mmap) {
     if (!mmap.isEmpty()) throw new IllegalArgumentException();
     
     map = mmap;
@@ -73,7 +70,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
   }
   
   protected MutableMapping() {
-    map = HashMapFactory.make();
+    map = new ObjectIntHashMap<>();
     array = new Object[INITIAL_CAPACITY];
     nextIndex = 0;
   }
@@ -90,18 +87,12 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
 
   @Override
   public int getMappedIndex(Object o) {
-    Integer I = map.get(o);
-    if (I == null) {
-      return -1;
-    } else {
-      return I.intValue();
-    }
-
+    return map.get(o);
   }
 
   @Override
   public boolean hasMappedIndex(T o) {
-    return map.get(o) != null;
+    return map.containsKey(o);
   }
 
   /**
@@ -111,9 +102,9 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
    */
   @Override
   public int add(T o) {
-    Integer I = map.get(o);
-    if (I != null) {
-      return I.intValue();
+    int i = map.get(o);
+    if (i != -1) {
+      return i;
     }
     map.put(o, nextIndex);
     if (nextIndex >= array.length) {
@@ -162,7 +153,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
   }
 
   public Collection<T> getObjects() {
-    return Collections.unmodifiableCollection(map.keySet());
+    return map.keySet();
   }
 
   /**
@@ -186,8 +177,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
     if (i < 0 || i > MAX_SIZE) {
       throw new IllegalArgumentException("invalid i: " + i);
     }
-    Integer I = Integer.valueOf(i);
-    map.put(o, I);
+    map.put(o, i);
     if (i >= array.length) {
       Object[] old = array;
       array = new Object[2 * i];
@@ -369,6 +369,8 @@ public class MutableSharedBitVectorIntSet implements MutableIntSet {
       return sameValue((BitVectorIntSet) that);
     } else if (that instanceof SemiSparseMutableIntSet) {
       return that.sameValue(this);
+    } else if (that instanceof HashConsedIntSet || that instanceof ChunkedMutableIntSet) {
+      return that.sameValue(this);
     } else {
       Assertions.UNREACHABLE("unexpected class " + that.getClass());
       return false;
@@ -173,6 +173,8 @@ public class SparseIntSet implements IntSet {
       return sameValue(((MutableSharedBitVectorIntSet) that).makeSparseCopy());
     } else if (that instanceof EmptyIntSet) {
       return size == 0;
+    } else if (that instanceof HashConsedIntSet || that instanceof ChunkedMutableIntSet) {
+      return that.sameValue(this);
     } else {
       Assertions.UNREACHABLE(that.getClass().toString());
       return false;
@@ -176,6 +176,25 @@ public class FileUtil {
     }
   }
 
+  /**
+   * map the contents of f into memory, read-only. The mapping stays valid after this returns, until the buffer is garbage
+   * collected.
+   * 
+   * @throws IllegalArgumentException if f is null or larger than 2GB
+   */
+  public static MappedByteBuffer map(File f) throws IOException {
+    if (f == null) {
+      throw new IllegalArgumentException("null f");
+    }
+    try (final FileInputStream s = new FileInputStream(f); final FileChannel ch = s.getChannel()) {
+      long n = ch.size();
+      if (n > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("file too large to map: " + f);
+      }
+      return ch.map(FileChannel.MapMode.READ_ONLY, 0, n);
+    }
+  }
+
   /**
    * write string s into file f
    * 
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.perf;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.ibm.wala.util.WalaRuntimeException;
+
+/**
+ * A {@link MetricsSink} that writes a time series of measurements as JSON, one object per line.
+ *
+ * Timed work that takes at least a threshold is written as one line, e.g.
+ *
+ * <pre>
+ * {"time":1234,"type":"timed","name":"builder.constraints","subject":"Node: ...","nanos":5000000,"size":42}
+ * </pre>
+ *
+ * Shorter work is only added to the counters <code>name.count</code> and <code>name.nanos</code>. The totals of all counters and
+ * the last values of all gauges are written at most once per sampling interval, and on {@link #flush()}:
+ *
+ * <pre>
+ * {"time":1500,"type":"sample","counters":{"ssa.irHit":17},"gauges":{"pointsTo.variables":9000}}
+ * </pre>
+ *
+ * Times are milliseconds since the sink was created.
+ */
+public class JsonMetricsSink implements MetricsSink {
+
+  private final Writer out;
+
+  private final long sampleIntervalMillis;
+
+  private final long thresholdNanos;
+
+  private final long origin = System.nanoTime();
+
+  private long lastSample = origin;
+
+  private final Map<String, Long> counters = new TreeMap<>();
+
+  private final Map<String, Long> gauges = new TreeMap<>();
+
+  private final StringBuilder line = new StringBuilder();
+
+  /**
+   * @param out where to write; the caller closes it
+   * @param sampleIntervalMillis minimal time between two samples of the counters and gauges
+   * @param thresholdNanos timed work that takes less is only counted, not written individually
+   */
+  public JsonMetricsSink(Writer out, long sampleIntervalMillis, long thresholdNanos) {
+    if (out == null) {
+      throw new IllegalArgumentException("null out");
+    }
+    this.out = out;
+    this.sampleIntervalMillis = sampleIntervalMillis;
+    this.thresholdNanos = thresholdNanos;
+  }
+
+  @Override
+  public synchronized void timed(String name, Object subject, long startNanos, long durationNanos, long size) {
+    if (durationNanos >= thresholdNanos) {
+      line.setLength(0);
+      line.append("{\"time\":").append(millisSinceOrigin(startNanos + durationNanos)).append(",\"type\":\"timed\",\"name\":");
+      quote(name);
+      if (subject != null) {
+        line.append(",\"subject\":");
+        quote(subject.toString());
+      }
+      line.append(",\"nanos\":").append(durationNanos).append(",\"size\":").append(size).append("}\n");
+      write();
+    } else {
+      counters.merge(name + ".count", 1L, Long::sum);
+      counters.merge(name + ".nanos", durationNanos, Long::sum);
+    }
+    maybeSample();
+  }
+
+  @Override
+  public synchronized void count(String name, long delta) {
+    counters.merge(name, delta, Long::sum);
+    maybeSample();
+  }
+
+  @Override
+  public synchronized void gauge(String name, long value) {
+    gauges.put(name, value);
+    maybeSample();
+  }
+
+  @Override
+  public synchronized void flush() {
+    sample(System.nanoTime());
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new WalaRuntimeException("failed to write metrics", e);
+    }
+  }
+
+  private void maybeSample() {
+    long now = System.nanoTime();
+    if (now - lastSample >= sampleIntervalMillis * 1000000) {
+      sample(now);
+    }
+  }
+
+  private void sample(long now) {
+    lastSample = now;
+    if (counters.isEmpty() && gauges.isEmpty()) {
+      return;
+    }
+    line.setLength(0);
+    line.append("{\"time\":").append(millisSinceOrigin(now)).append(",\"type\":\"sample\",\"counters\":");
+    append(counters);
+    line.append(",\"gauges\":");
+    append(gauges);
+    line.append("}\n");
+    write();
+  }
+
+  private long millisSinceOrigin(long nanos) {
+    return (nanos - origin) / 1000000;
+  }
+
+  private void append(Map<String, Long> values) {
+    line.append('{');
+    boolean first = true;
+    for (Map.Entry<String, Long> e : values.entrySet()) {
+      if (!first) {
+        line.append(',');
+      }
+      first = false;
+      quote(e.getKey());
+      line.append(':').append(e.getValue());
+    }
+    line.append('}');
+  }
+
+  private void quote(String s) {
+    line.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+      case '"':
+        line.append("\\\"");
+        break;
+      case '\\':
+        line.append("\\\\");
+        break;
+      case '\n':
+        line.append("\\n");
+        break;
+      case '\r':
+        line.append("\\r");
+        break;
+      case '\t':
+        line.append("\\t");
+        break;
+      default:
+        if (c < 0x20) {
+          line.append(String.format("\\u%04x", (int) c));
+        } else {
+          line.append(c);
+        }
+      }
+    }
+    line.append('"');
+  }
+
+  private void write() {
+    try {
+      out.write(line.toString());
+    } catch (IOException e) {
+      throw new WalaRuntimeException("failed to write metrics", e);
+    }
+  }
+}
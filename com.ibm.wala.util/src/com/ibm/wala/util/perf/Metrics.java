@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.perf;
+
+/**
+ * Global entry point for the instrumentation of analysis phases.
+ *
+ * Analysis code reports measurements here, and they are forwarded to the installed {@link MetricsSink}. When no sink is installed,
+ * which is the default, each call costs only a field read. A timed piece of work is reported as follows:
+ *
+ * <pre>
+ * long start = Metrics.start();
+ * ... do the work ...
+ * Metrics.timed(&quot;some.work&quot;, subject, start, size);
+ * </pre>
+ */
+public final class Metrics {
+
+  private static volatile MetricsSink sink;
+
+  private Metrics() {
+  }
+
+  /**
+   * Install a sink that receives all measurements from now on; null to turn instrumentation off.
+   *
+   * @return the sink installed before
+   */
+  public static MetricsSink setSink(MetricsSink s) {
+    MetricsSink old = sink;
+    sink = s;
+    return old;
+  }
+
+  public static MetricsSink getSink() {
+    return sink;
+  }
+
+  /**
+   * @return true iff a sink is installed; use this to guard measurements that are costly to compute
+   */
+  public static boolean isEnabled() {
+    return sink != null;
+  }
+
+  /**
+   * @return a start time to pass to {@link #timed(String, Object, long, long)}, or 0 if instrumentation is off
+   */
+  public static long start() {
+    return sink == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Report a piece of work that started at start.
+   *
+   * @param start the value returned by {@link #start()}
+   */
+  public static void timed(String name, Object subject, long start, long size) {
+    MetricsSink s = sink;
+    if (s != null && start != 0) {
+      s.timed(name, subject, start, System.nanoTime() - start, size);
+    }
+  }
+
+  public static void count(String name, long delta) {
+    MetricsSink s = sink;
+    if (s != null) {
+      s.count(name, delta);
+    }
+  }
+
+  public static void gauge(String name, long value) {
+    MetricsSink s = sink;
+    if (s != null) {
+      s.gauge(name, value);
+    }
+  }
+}
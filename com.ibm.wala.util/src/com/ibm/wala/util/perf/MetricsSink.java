@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.perf;
+
+/**
+ * Receives the measurements reported through {@link Metrics}.
+ *
+ * Implementations must be thread safe, since some phases of an analysis run on several threads.
+ */
+public interface MetricsSink {
+
+  /**
+   * A timed piece of work has finished.
+   *
+   * @param name what kind of work, e.g. "builder.constraints"
+   * @param subject what the work was done for, e.g. a call graph node; null for a whole phase. Sinks should call
+   *          {@link Object#toString()} on it only when they need to.
+   * @param startNanos {@link System#nanoTime()} when the work started
+   * @param durationNanos how long the work took
+   * @param size a measure of the work done, e.g. the number of statements created; its meaning depends on name
+   */
+  void timed(String name, Object subject, long startNanos, long durationNanos, long size);
+
+  /**
+   * A counter has advanced.
+   */
+  void count(String name, long delta);
+
+  /**
+   * A quantity, e.g. the size of a data structure, has been sampled.
+   */
+  void gauge(String name, long value);
+
+  /**
+   * Write out any buffered measurements.
+   */
+  void flush();
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.perf;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * A {@link MetricsSink} that aggregates measurements in memory: totals per kind of work, counters, gauges, and the subjects on
+ * which each kind of work took longest.
+ */
+public class SummaryMetricsSink implements MetricsSink {
+
+  /**
+   * Aggregate of the timed work of one kind
+   */
+  public static class Summary {
+    private long count;
+
+    private long totalNanos;
+
+    private long maxNanos;
+
+    private long totalSize;
+
+    private final PriorityQueue<Slowest> slowest = new PriorityQueue<>(Comparator.comparingLong(Slowest::getNanos));
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public long getTotalSize() {
+      return totalSize;
+    }
+
+    /**
+     * @return the subjects that took longest, slowest first
+     */
+    public List<Slowest> getSlowest() {
+      List<Slowest> result = new ArrayList<>(slowest);
+      result.sort(Comparator.comparingLong(Slowest::getNanos).reversed());
+      return result;
+    }
+  }
+
+  /**
+   * One of the slowest subjects of a kind of work
+   */
+  public static class Slowest {
+    private final String subject;
+
+    private final long nanos;
+
+    private final long size;
+
+    Slowest(String subject, long nanos, long size) {
+      this.subject = subject;
+      this.nanos = nanos;
+      this.size = size;
+    }
+
+    public String getSubject() {
+      return subject;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return subject + ": " + nanos / 1000000 + " ms, size " + size;
+    }
+  }
+
+  /**
+   * how many of the slowest subjects to remember per kind of work
+   */
+  private final int slowestToKeep;
+
+  private final Map<String, Summary> summaries = new TreeMap<>();
+
+  private final Map<String, Long> counters = new TreeMap<>();
+
+  private final Map<String, Long> gauges = new TreeMap<>();
+
+  private final Map<String, Long> maxGauges = new TreeMap<>();
+
+  /**
+   * @param slowestToKeep how many of the slowest subjects to remember per kind of work
+   */
+  public SummaryMetricsSink(int slowestToKeep) {
+    if (slowestToKeep < 0) {
+      throw new IllegalArgumentException("invalid slowestToKeep: " + slowestToKeep);
+    }
+    this.slowestToKeep = slowestToKeep;
+  }
+
+  public SummaryMetricsSink() {
+    this(10);
+  }
+
+  @Override
+  public synchronized void timed(String name, Object subject, long startNanos, long durationNanos, long size) {
+    Summary s = summaries.get(name);
+    if (s == null) {
+      s = new Summary();
+      summaries.put(name, s);
+    }
+    s.count++;
+    s.totalNanos += durationNanos;
+    s.maxNanos = Math.max(s.maxNanos, durationNanos);
+    s.totalSize += size;
+    if (subject != null && slowestToKeep > 0) {
+      if (s.slowest.size() < slowestToKeep) {
+        s.slowest.add(new Slowest(subject.toString(), durationNanos, size));
+      } else if (s.slowest.peek().getNanos() < durationNanos) {
+        s.slowest.poll();
+        s.slowest.add(new Slowest(subject.toString(), durationNanos, size));
+      }
+    }
+  }
+
+  @Override
+  public synchronized void count(String name, long delta) {
+    counters.merge(name, delta, Long::sum);
+  }
+
+  @Override
+  public synchronized void gauge(String name, long value) {
+    gauges.put(name, value);
+    maxGauges.merge(name, value, Math::max);
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  /**
+   * @return the aggregate for a kind of timed work, or null if none was reported
+   */
+  public synchronized Summary getSummary(String name) {
+    return summaries.get(name);
+  }
+
+  /**
+   * @return the value of a counter; 0 if it was never reported
+   */
+  public synchronized long getCounter(String name) {
+    Long l = counters.get(name);
+    return l == null ? 0 : l.longValue();
+  }
+
+  /**
+   * @return the last sampled value of a gauge, or -1 if it was never sampled
+   */
+  public synchronized long getGauge(String name) {
+    Long l = gauges.get(name);
+    return l == null ? -1 : l.longValue();
+  }
+
+  /**
+   * @return a human-readable report of everything measured so far
+   */
+  public synchronized String report() {
+    StringBuffer result = new StringBuffer();
+    for (Map.Entry<String, Summary> e : summaries.entrySet()) {
+      Summary s = e.getValue();
+      result.append(e.getKey() + ": " + s.count + " times, total " + s.totalNanos / 1000000 + " ms, max " + s.maxNanos / 1000000
+          + " ms, size " + s.totalSize + "\n");
+      for (Slowest slow : s.getSlowest()) {
+        result.append("  " + slow + "\n");
+      }
+    }
+    for (Map.Entry<String, Long> e : counters.entrySet()) {
+      result.append(e.getKey() + ": " + e.getValue() + "\n");
+    }
+    for (Map.Entry<String, Long> e : gauges.entrySet()) {
+      result.append(e.getKey() + ": " + e.getValue() + " (max " + maxGauges.get(e.getKey()) + ")\n");
+    }
+    return result.toString();
+  }
+}